@@ -0,0 +1,96 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.controller.CategoryController;
+import com.inventory.stockmanagementapi.controller.ProductController;
+import com.inventory.stockmanagementapi.service.AdmissionController;
+import com.inventory.stockmanagementapi.service.ClientQuotas;
+import com.inventory.stockmanagementapi.service.StockOwnership;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admission control in front of the {@link ProductController} and {@link CategoryController}, and of the stock
+ * updates forwarded by other instances. Disabled with {@code admission.enabled=false}; the client quotas are only
+ * enforced when {@code admission.quota.rate} is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdmissionController admissionController(MeterRegistry meterRegistry,
+                                                   @Value("${admission.max-concurrent:50}") int maxConcurrent,
+                                                   @Value("${admission.target-delay:20ms}") Duration targetDelay,
+                                                   @Value("${admission.interval:200ms}") Duration interval,
+                                                   @Value("${admission.max-wait:1s}") Duration maxWait) {
+        return new AdmissionController(maxConcurrent, targetDelay, interval, maxWait, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdmissionController admissionController,
+            ObjectMapper objectMapper,
+            @Value("${admission.critical-paths:/api/products/stock," + StockOwnership.INTERNAL_STOCK_PATH + "}") List<String> criticalPaths,
+            @Value("${admission.low-priority-paths:/api/products,/api/products/all,/api/products/search,/api/products/category/*,/api/products/low-stock,/api/products/modified-since}") List<String> lowPriorityPaths,
+            @Value("${admission.retry-after:1s}") Duration retryAfter) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(admissionController, criticalPaths, lowPriorityPaths, retryAfter,
+                        objectMapper));
+        registration.addUrlPatterns("/api/products/*", "/api/categories/*", StockOwnership.INTERNAL_STOCK_PATH);
+        // After the response cache, whose hits cost nothing
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnExpression("${admission.quota.rate:0} > 0")
+    public FilterRegistrationBean<ClientQuotaFilter> clientQuotaFilter(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${admission.quota.rate}") double rate,
+            @Value("${admission.quota.burst:20}") double burst,
+            @Value("${admission.quota.clients:}") List<String> clients,
+            @Value("${admission.quota.max-clients:10000}") int maxClients,
+            @Value("${admission.quota.client-header:X-Client-Id}") String clientHeader) {
+        ClientQuotas clientQuotas = new ClientQuotas(rate, burst, parseClientRates(clients), maxClients,
+                meterRegistry);
+        FilterRegistrationBean<ClientQuotaFilter> registration = new FilterRegistrationBean<>(
+                new ClientQuotaFilter(clientQuotas, clientHeader, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        // Before the response cache: cached responses count against the quota too
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return registration;
+    }
+
+    /**
+     * @param clients Entries written client:rate
+     * @return The rate of each client
+     */
+    private static Map<String, Double> parseClientRates(List<String> clients) {
+        Map<String, Double> rates = new HashMap<>();
+        for (String entry : clients) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalStateException("The quota " + trimmed + " must be written client:rate");
+            }
+            rates.put(trimmed.substring(0, colon), Double.parseDouble(trimmed.substring(colon + 1)));
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.exception.GlobalExceptionHandler.ErrorResponse;
+import com.inventory.stockmanagementapi.service.AdmissionController;
+import com.inventory.stockmanagementapi.service.AdmissionController.Priority;
+import com.inventory.stockmanagementapi.service.Deadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Puts the product and category requests through the {@link AdmissionController}.
+ * <p>
+ * Stock updates are {@link Priority#CRITICAL}, the GET requests of the low-priority paths (listings, searches,
+ * exports) {@link Priority#LOW}, and the other requests {@link Priority#NORMAL}. A request that is not admitted
+ * gets a 503 with a Retry-After header, or a 504 if its {@link Deadline} expired while it waited.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdmissionController admissionController;
+    private final List<String> criticalPaths;
+    private final List<String> lowPriorityPaths;
+    private final Duration retryAfter;
+    private final ObjectMapper objectMapper;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public AdmissionControlFilter(AdmissionController admissionController, List<String> criticalPaths,
+                                  List<String> lowPriorityPaths, Duration retryAfter, ObjectMapper objectMapper) {
+        this.admissionController = admissionController;
+        this.criticalPaths = criticalPaths;
+        this.lowPriorityPaths = lowPriorityPaths;
+        this.retryAfter = retryAfter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!admissionController.admit(priority(request))) {
+            Deadline deadline = Deadline.current();
+            String message;
+            HttpStatus status;
+            if (deadline != null && deadline.isExpired()) {
+                // The client has given up, there is no point in telling it to retry
+                message = deadline.exceeded("admission").getMessage();
+                status = HttpStatus.GATEWAY_TIMEOUT;
+            } else {
+                message = "The server is overloaded, please retry later";
+                status = HttpStatus.SERVICE_UNAVAILABLE;
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+            }
+            response.setStatus(status.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(LocalDateTime.now(),
+                    status.value(), status.getReasonPhrase(), message, "uri=" + request.getRequestURI()));
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            admissionController.release();
+        }
+    }
+
+    private Priority priority(HttpServletRequest request) {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        if (criticalPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path))) {
+            return Priority.CRITICAL;
+        }
+        if ("GET".equals(request.getMethod())
+                && lowPriorityPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path))) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+}
@@ -0,0 +1,59 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.Bulkhead;
+import com.inventory.stockmanagementapi.service.Workload;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * One {@link Bulkhead} per {@link Workload}, so that scans cannot take the database connections that stock updates
+ * need. The limits adapt between {@code bulkhead.<workload>.min-limit} and {@code max-limit}; keeping the maximum
+ * of the scans well below the connection pool size leaves connections to the other workloads.
+ * Disabled with {@code bulkhead.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig {
+
+    @Bean
+    public Bulkhead writeBulkhead(MeterRegistry meterRegistry,
+                                  @Value("${bulkhead.write.initial-limit:5}") int initialLimit,
+                                  @Value("${bulkhead.write.min-limit:2}") int minLimit,
+                                  @Value("${bulkhead.write.max-limit:10}") int maxLimit,
+                                  @Value("${bulkhead.tolerance:2.0}") double tolerance,
+                                  @Value("${bulkhead.max-wait:500ms}") Duration maxWait) {
+        return new Bulkhead(Workload.WRITE, initialLimit, minLimit, maxLimit, tolerance, maxWait, meterRegistry);
+    }
+
+    @Bean
+    public Bulkhead pointReadBulkhead(MeterRegistry meterRegistry,
+                                      @Value("${bulkhead.point-read.initial-limit:5}") int initialLimit,
+                                      @Value("${bulkhead.point-read.min-limit:2}") int minLimit,
+                                      @Value("${bulkhead.point-read.max-limit:10}") int maxLimit,
+                                      @Value("${bulkhead.tolerance:2.0}") double tolerance,
+                                      @Value("${bulkhead.max-wait:500ms}") Duration maxWait) {
+        return new Bulkhead(Workload.POINT_READ, initialLimit, minLimit, maxLimit, tolerance, maxWait,
+                meterRegistry);
+    }
+
+    @Bean
+    public Bulkhead scanBulkhead(MeterRegistry meterRegistry,
+                                 @Value("${bulkhead.scan.initial-limit:2}") int initialLimit,
+                                 @Value("${bulkhead.scan.min-limit:1}") int minLimit,
+                                 @Value("${bulkhead.scan.max-limit:3}") int maxLimit,
+                                 @Value("${bulkhead.tolerance:2.0}") double tolerance,
+                                 @Value("${bulkhead.max-wait:500ms}") Duration maxWait) {
+        return new Bulkhead(Workload.SCAN, initialLimit, minLimit, maxLimit, tolerance, maxWait, meterRegistry);
+    }
+
+    @Bean
+    public static BulkheadPostProcessor bulkheadPostProcessor(ObjectProvider<Bulkhead> bulkheads) {
+        return new BulkheadPostProcessor(bulkheads);
+    }
+}
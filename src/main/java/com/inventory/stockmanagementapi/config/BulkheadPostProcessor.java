@@ -0,0 +1,62 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.Bulkhead;
+import com.inventory.stockmanagementapi.service.Bulkheaded;
+import com.inventory.stockmanagementapi.service.Workload;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Runs the {@link Bulkheaded} methods of the beans within their bulkhead. The bulkhead is applied before the other
+ * advice of the bean, so that a call waiting for a permit does not hold a transaction or a connection yet.
+ */
+public class BulkheadPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    private final ObjectProvider<Bulkhead> bulkheads;
+    private volatile Map<Workload, Bulkhead> byWorkload;
+
+    public BulkheadPostProcessor(ObjectProvider<Bulkhead> bulkheads) {
+        this.bulkheads = bulkheads;
+        MethodInterceptor interceptor = invocation -> {
+            Bulkheaded bulkheaded = AnnotatedElementUtils.findMergedAnnotation(invocation.getMethod(),
+                    Bulkheaded.class);
+            Bulkhead bulkhead = bulkheaded != null ? bulkhead(bulkheaded.value()) : null;
+            if (bulkhead == null) {
+                return invocation.proceed();
+            }
+            return bulkhead.call(() -> {
+                try {
+                    return invocation.proceed();
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new UndeclaredThrowableException(ex);
+                }
+            });
+        };
+        this.advisor = new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forMethodAnnotation(Bulkheaded.class),
+                interceptor);
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+
+    private Bulkhead bulkhead(Workload workload) {
+        Map<Workload, Bulkhead> map = byWorkload;
+        if (map == null) {
+            map = new EnumMap<>(Workload.class);
+            for (Bulkhead bulkhead : bulkheads) {
+                map.put(bulkhead.getWorkload(), bulkhead);
+            }
+            byWorkload = map;
+        }
+        return map.get(workload);
+    }
+}
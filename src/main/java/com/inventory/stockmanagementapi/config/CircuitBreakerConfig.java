@@ -0,0 +1,62 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Circuit breaker of the database: once too many calls fail, the others are refused with a 503 until the database
+ * answers probes again. Disabled with {@code circuit-breaker.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "circuit-breaker.enabled", havingValue = "true", matchIfMissing = true)
+public class CircuitBreakerConfig {
+
+    @Bean
+    public CircuitBreaker databaseCircuitBreaker(MeterRegistry meterRegistry,
+                                                 @Value("${circuit-breaker.window-size:20}") int windowSize,
+                                                 @Value("${circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                                 @Value("${circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                                 @Value("${circuit-breaker.open-duration:10s}") Duration openDuration,
+                                                 @Value("${circuit-breaker.probe-calls:3}") int probeCalls) {
+        return new CircuitBreaker("database", windowSize, minimumCalls, failureRateThreshold, openDuration,
+                probeCalls, meterRegistry);
+    }
+
+    /**
+     * Wraps the datasource of the application in a {@link CircuitBreakerDataSource}
+     */
+    @Bean
+    public static BeanPostProcessor circuitBreakerDataSourcePostProcessor(ObjectProvider<CircuitBreaker> circuitBreaker) {
+        return new DataSourcePostProcessor(SingletonSupplier.of(circuitBreaker::getObject));
+    }
+
+    /**
+     * Ordered, so that it runs before the deadline post-processor: the deadline is checked first, and no connection
+     * is asked from the circuit breaker for a request already given up
+     */
+    private record DataSourcePostProcessor(SingletonSupplier<CircuitBreaker> circuitBreaker)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return "dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                    ? new CircuitBreakerDataSource(dataSource, circuitBreaker) : bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.CircuitBreaker;
+import com.inventory.stockmanagementapi.service.Deadline;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Puts the connections and statements of a datasource behind a {@link CircuitBreaker}.
+ * <p>
+ * While the circuit is open, no connection is handed out. A connection that cannot be obtained, and a statement
+ * failing with a connection error or a timeout, count as failures; any other answer of the database, errors such
+ * as constraint violations included, counts as a success. A statement cancelled because its request
+ * {@link Deadline} expired counts as neither.
+ */
+public class CircuitBreakerDataSource extends DelegatingDataSource {
+
+    // SQL state class of the connection errors
+    private static final String CONNECTION_EXCEPTION_CLASS = "08";
+
+    private final Supplier<CircuitBreaker> circuitBreaker;
+
+    /**
+     * @param targetDataSource The datasource
+     * @param circuitBreaker The circuit breaker, looked up at the first connection
+     */
+    public CircuitBreakerDataSource(DataSource targetDataSource, Supplier<CircuitBreaker> circuitBreaker) {
+        super(targetDataSource);
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        CircuitBreaker breaker = circuitBreaker.get();
+        breaker.acquire();
+        try {
+            return connection(obtainTargetDataSource().getConnection(), breaker);
+        } catch (SQLException ex) {
+            breaker.onFailure();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        CircuitBreaker breaker = circuitBreaker.get();
+        breaker.acquire();
+        try {
+            return connection(obtainTargetDataSource().getConnection(username, password), breaker);
+        } catch (SQLException ex) {
+            breaker.onFailure();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param ex An error of a statement
+     * @return Whether it tells that the database is unreachable or too slow
+     */
+    static boolean isDatabaseFailure(SQLException ex) {
+        if (ex instanceof SQLTransactionRollbackException) {
+            // Deadlocks and serialization failures: the database works, the transactions conflict
+            return false;
+        }
+        return ex instanceof SQLTransientException || ex instanceof SQLRecoverableException
+                || ex instanceof SQLNonTransientConnectionException
+                || ex.getSQLState() != null && ex.getSQLState().startsWith(CONNECTION_EXCEPTION_CLASS);
+    }
+
+    private static Connection connection(Connection target, CircuitBreaker breaker) {
+        return proxy(Connection.class, new ConnectionHandler(target, breaker));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(CircuitBreakerDataSource.class.getClassLoader(), new Class<?>[]{type},
+                handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private record ConnectionHandler(Connection connection, CircuitBreaker breaker) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "Circuit-breaking " + connection;
+                };
+            }
+            Object result = CircuitBreakerDataSource.invoke(connection, method, args);
+            // createStatement, prepareStatement and prepareCall, proxied as the interface they return
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy(method.getReturnType(), new StatementHandler(statement, breaker));
+            }
+            return result;
+        }
+    }
+
+    private record StatementHandler(Statement statement, CircuitBreaker breaker) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return CircuitBreakerDataSource.invoke(statement, method, args);
+            }
+            try {
+                Object result = CircuitBreakerDataSource.invoke(statement, method, args);
+                breaker.onSuccess();
+                return result;
+            } catch (SQLException ex) {
+                Deadline deadline = Deadline.current();
+                if (deadline != null && deadline.isExpired()) {
+                    // Cancelled because the client gave up, not because the database is slow
+                    breaker.onIgnored();
+                } else if (isDatabaseFailure(ex)) {
+                    breaker.onFailure();
+                } else {
+                    breaker.onSuccess();
+                }
+                throw ex;
+            }
+        }
+    }
+}
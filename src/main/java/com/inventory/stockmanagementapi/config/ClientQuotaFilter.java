@@ -0,0 +1,62 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.exception.GlobalExceptionHandler.ErrorResponse;
+import com.inventory.stockmanagementapi.service.ClientQuotas;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces the {@link ClientQuotas}: a client over its quota gets a 429 with a Retry-After header giving the seconds
+ * until its next token. Clients are told apart by the client header, or by their address without it.
+ */
+public class ClientQuotaFilter extends OncePerRequestFilter {
+
+    private final ClientQuotas clientQuotas;
+    private final String clientHeader;
+    private final ObjectMapper objectMapper;
+    private final Counter rejected;
+
+    public ClientQuotaFilter(ClientQuotas clientQuotas, String clientHeader, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.clientQuotas = clientQuotas;
+        this.clientHeader = clientHeader;
+        this.objectMapper = objectMapper;
+        this.rejected = Counter.builder("admission.quota.rejected").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long wait = clientQuotas.tryAcquire(client(request));
+        if (wait == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        rejected.increment();
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(TimeUnit.NANOSECONDS.toSeconds(wait) + 1));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(LocalDateTime.now(), status.value(),
+                status.getReasonPhrase(), "Request quota exceeded, please retry later",
+                "uri=" + request.getRequestURI()));
+    }
+
+    private String client(HttpServletRequest request) {
+        String client = clientHeader.isEmpty() ? null : request.getHeader(clientHeader);
+        return client != null && !client.isBlank() ? client : request.getRemoteAddr();
+    }
+}
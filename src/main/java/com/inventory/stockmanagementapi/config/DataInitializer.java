@@ -4,11 +4,16 @@ import com.inventory.stockmanagementapi.domain.Category;
 import com.inventory.stockmanagementapi.domain.Product;
 import com.inventory.stockmanagementapi.repository.CategoryRepository;
 import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.service.CatalogChangeEvent;
+import com.inventory.stockmanagementapi.service.JobScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -19,25 +24,52 @@ public class DataInitializer {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobScheduler jobScheduler;
+    private final TransactionTemplate transaction;
 
     @Autowired
-    public DataInitializer(CategoryRepository categoryRepository, ProductRepository productRepository) {
+    public DataInitializer(CategoryRepository categoryRepository, ProductRepository productRepository,
+                           ApplicationEventPublisher eventPublisher, JobScheduler jobScheduler,
+                           PlatformTransactionManager transactionManager) {
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.jobScheduler = jobScheduler;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
     @Bean
     @Profile("!prod") // Only run this initializer if not in production mode
     public CommandLineRunner initData() {
         return args -> {
-            initializeData();
+            initializeDataOnce();
         };
     }
 
+    /**
+     * Recrée le jeu de données de test en une transaction, sous le bail de la réinitialisation des données : rien
+     * n'est fait si une instance réinitialise les données ou vient de le faire
+     * @return true si les données ont été recréées
+     */
+    public boolean initializeDataOnce() {
+        return jobScheduler.runNow(DataResetService.RESET_JOB, DataResetService.RESET_INTERVAL,
+                this::initializeData);
+    }
+
+    /**
+     * Recrée le jeu de données de test en une transaction
+     */
     public void initializeData() {
+        transaction.executeWithoutResult(status -> createData());
+    }
+
+    private void createData() {
         // Supprimer toutes les données existantes d'abord
         productRepository.deleteAll();
         categoryRepository.deleteAll();
+        // Hibernate would insert the new categories before deleting the old ones, whose names are unique
+        categoryRepository.flush();
 
         // Create categories
         Category electronics = new Category();
@@ -268,6 +300,7 @@ public class DataInitializer {
                 faceCream, shampoo, lipstick);
         
         productRepository.saveAll(products);
+        eventPublisher.publishEvent(CatalogChangeEvent.reset());
         
         System.out.println("Sample data initialized successfully!");
     }
@@ -1,31 +1,40 @@
 package com.inventory.stockmanagementapi.config;
 
+import com.inventory.stockmanagementapi.service.JobScheduler;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
 
 @Configuration
-@EnableScheduling
 @Profile("dev") // Only run this in development mode
+@Slf4j
 public class DataResetScheduler {
 
     private final DataInitializer dataInitializer;
+    private final JobScheduler jobScheduler;
 
     @Autowired
-    public DataResetScheduler(DataInitializer dataInitializer) {
+    public DataResetScheduler(DataInitializer dataInitializer, JobScheduler jobScheduler) {
         this.dataInitializer = dataInitializer;
+        this.jobScheduler = jobScheduler;
     }
 
     /**
-     * Réinitialise les données toutes les 5 minutes
-     * La méthode est exécutée toutes les 5 minutes (300 000 millisecondes)
+     * Réinitialise les données toutes les 5 minutes, sur une seule instance. Le job partage le bail de
+     * {@link DataResetService} : une période où les données ont déjà été réinitialisées est sautée.
      */
-    @Scheduled(fixedRate = 300000)
-    public void resetDataPeriodically() {
-        System.out.println("Réinitialisation programmée des données en cours...");
+    @PostConstruct
+    public void scheduleReset() {
+        jobScheduler.schedule(DataResetService.RESET_JOB, Duration.ofMinutes(5), this::resetDataPeriodically);
+    }
+
+    private void resetDataPeriodically() {
+        log.info("Réinitialisation programmée des données en cours...");
         dataInitializer.initializeData();
-        System.out.println("Réinitialisation des données terminée avec succès!");
+        log.info("Réinitialisation des données terminée avec succès!");
     }
 }
@@ -4,14 +4,18 @@ import com.inventory.stockmanagementapi.domain.Category;
 import com.inventory.stockmanagementapi.domain.Product;
 import com.inventory.stockmanagementapi.repository.CategoryRepository;
 import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.service.CatalogChangeEvent;
+import com.inventory.stockmanagementapi.service.JobScheduler;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -20,34 +24,52 @@ import java.util.List;
 @Slf4j
 public class DataResetService {
 
+    /**
+     * Nom du job de réinitialisation, partagé par toutes les instances et par {@link DataInitializer}
+     */
+    public static final String RESET_JOB = "data-reset";
+
+    /**
+     * Intervalle entre deux réinitialisations
+     */
+    public static final Duration RESET_INTERVAL = Duration.ofMinutes(1);
+
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobScheduler jobScheduler;
+    private final PlatformTransactionManager transactionManager;
 
     /**
-     * Initialise les données au démarrage de l'application
+     * Initialise les données au démarrage de l'application, sauf si une autre instance vient de le faire, puis
+     * les réinitialise toutes les minutes sur une seule instance
      */
     @PostConstruct
     public void init() {
-        resetData();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Runnable reset = () -> transaction.executeWithoutResult(status -> resetData());
+        jobScheduler.runNow(RESET_JOB, RESET_INTERVAL, reset);
+        jobScheduler.schedule(RESET_JOB, RESET_INTERVAL, reset);
     }
 
     /**
-     * Réinitialise les données toutes les minutes (60000 ms)
+     * Réinitialise les données, dans la transaction de l'appelant
      */
-    @Scheduled(fixedRate = 60000)
-    @Transactional
     public void resetData() {
         log.info("Réinitialisation des données...");
         
         // Suppression des données existantes
         productRepository.deleteAll();
         categoryRepository.deleteAll();
+        // Hibernate would insert the new categories before deleting the old ones, whose names are unique
+        categoryRepository.flush();
         
         // Création des catégories
         List<Category> categories = createCategories();
         
         // Création des produits
         createProducts(categories);
+        eventPublisher.publishEvent(CatalogChangeEvent.reset());
         
         log.info("Réinitialisation des données terminée !");
     }
@@ -0,0 +1,77 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.Deadline;
+import com.inventory.stockmanagementapi.service.StockOwnership;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request deadlines: each product, category and stock request gets a {@link Deadline}, which bounds its waits and
+ * the query timeouts of its statements. Disabled with {@code deadline.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "deadline.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineConfig {
+
+    @Bean
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter(
+            MeterRegistry meterRegistry,
+            @Value("${deadline.default-timeout:10s}") Duration defaultTimeout,
+            @Value("${deadline.endpoint-timeouts:}") List<String> endpointTimeouts,
+            @Value("${deadline.max-timeout:30s}") Duration maxTimeout) {
+        FilterRegistrationBean<DeadlineFilter> registration = new FilterRegistrationBean<>(new DeadlineFilter(
+                defaultTimeout, parseEndpointTimeouts(endpointTimeouts), maxTimeout, meterRegistry));
+        registration.addUrlPatterns("/api/products/*", "/api/categories/*", StockOwnership.INTERNAL_STOCK_PATH);
+        // First, so that the waits of the quotas and of the admission control count
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Wraps the datasource of the application, so that its statements are bounded by the deadline of their request
+     */
+    @Bean
+    public static BeanPostProcessor deadlineDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return "dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        ? new DeadlineDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    /**
+     * @param endpoints Entries written pattern=timeout
+     * @return The timeout of each path pattern, in order
+     */
+    private static Map<String, Duration> parseEndpointTimeouts(List<String> endpoints) {
+        Map<String, Duration> timeouts = new LinkedHashMap<>();
+        for (String entry : endpoints) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int equals = trimmed.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalStateException("The endpoint timeout " + trimmed + " must be written pattern=timeout");
+            }
+            timeouts.put(trimmed.substring(0, equals).trim(),
+                    DurationStyle.detectAndParse(trimmed.substring(equals + 1).trim()));
+        }
+        return timeouts;
+    }
+}
@@ -0,0 +1,107 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.Deadline;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the statements of a request by its {@link Deadline}.
+ * <p>
+ * No connection is taken, and no statement run, once the deadline has expired. Otherwise each statement gets the
+ * time left as its query timeout, so that the driver cancels it when the client gives up. JDBC query timeouts are
+ * whole seconds: the time left is rounded up.
+ */
+public class DeadlineDataSource extends DelegatingDataSource {
+
+    // SQL state of a statement cancelled by the database, for drivers that do not throw SQLTimeoutException
+    private static final String QUERY_CANCELED_STATE = "57014";
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    public DeadlineDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Deadline.checkCurrent("connection");
+        return connection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Deadline.checkCurrent("connection");
+        return connection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection connection(Connection target) {
+        return proxy(Connection.class, new ConnectionHandler(target));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(DeadlineDataSource.class.getClassLoader(), new Class<?>[]{type},
+                handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private record ConnectionHandler(Connection connection) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "Deadline-bound " + connection;
+                };
+            }
+            Object result = DeadlineDataSource.invoke(connection, method, args);
+            // createStatement, prepareStatement and prepareCall, proxied as the interface they return
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy(method.getReturnType(), new StatementHandler(statement));
+            }
+            return result;
+        }
+    }
+
+    private record StatementHandler(Statement statement) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Deadline deadline = Deadline.current();
+            if (deadline == null || !method.getName().startsWith("execute")) {
+                return DeadlineDataSource.invoke(statement, method, args);
+            }
+            long remaining = deadline.remainingNanos();
+            if (remaining <= 0) {
+                throw deadline.exceeded("statement");
+            }
+            statement.setQueryTimeout((int) Math.max(1, (remaining + SECOND - 1) / SECOND));
+            try {
+                return DeadlineDataSource.invoke(statement, method, args);
+            } catch (SQLException ex) {
+                if ((ex instanceof SQLTimeoutException || QUERY_CANCELED_STATE.equals(ex.getSQLState()))
+                        && deadline.isExpired()) {
+                    throw deadline.exceeded("query");
+                }
+                throw ex;
+            }
+        }
+    }
+}
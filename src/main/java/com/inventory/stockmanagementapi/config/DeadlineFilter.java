@@ -0,0 +1,80 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Binds the {@link Deadline} of each request: the timeout given by the client in the {@link Deadline#TIMEOUT_HEADER}
+ * header, up to the maximum, or else the default timeout of the endpoint.
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> endpointTimeouts;
+    private final Duration maxTimeout;
+    private final MeterRegistry meterRegistry;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    /**
+     * @param defaultTimeout The timeout of the requests without header
+     * @param endpointTimeouts The timeouts of the requests without header, by path pattern, in order of precedence
+     * @param maxTimeout The longest timeout a client may ask for
+     * @param meterRegistry The registry of the deadline metrics
+     */
+    public DeadlineFilter(Duration defaultTimeout, Map<String, Duration> endpointTimeouts, Duration maxTimeout,
+                          MeterRegistry meterRegistry) {
+        this.defaultTimeout = defaultTimeout;
+        this.endpointTimeouts = endpointTimeouts;
+        this.maxTimeout = maxTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Deadline deadline = Deadline.after(timeout(request));
+        Deadline.bind(deadline);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Deadline.clear();
+            deadline.recordOutcome(meterRegistry);
+        }
+    }
+
+    private Duration timeout(HttpServletRequest request) {
+        String header = request.getHeader(Deadline.TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                Duration requested = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+                if (!requested.isNegative()) {
+                    return requested.compareTo(maxTimeout) < 0 ? requested : maxTimeout;
+                }
+            } catch (IllegalArgumentException ex) {
+                // Unreadable, the default applies
+            }
+        }
+        String path = urlPathHelper.getPathWithinApplication(request);
+        for (Map.Entry<String, Duration> endpoint : endpointTimeouts.entrySet()) {
+            if (pathMatcher.match(endpoint.getKey(), path)) {
+                return endpoint.getValue();
+            }
+        }
+        return defaultTimeout;
+    }
+}
@@ -0,0 +1,51 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.exception.GlobalExceptionHandler.ErrorResponse;
+import com.inventory.stockmanagementapi.service.StockOwnership;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Lets through the calls to the internal endpoints that present the {@code ownership.secret} of the members, and
+ * answers the others with a 403
+ */
+public class InternalEndpointFilter extends OncePerRequestFilter {
+
+    private final StockOwnership stockOwnership;
+    private final ObjectMapper objectMapper;
+    private final Counter rejected;
+
+    public InternalEndpointFilter(StockOwnership stockOwnership, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.stockOwnership = stockOwnership;
+        this.objectMapper = objectMapper;
+        this.rejected = Counter.builder("ownership.internal.rejected").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (stockOwnership.isTrusted(request.getHeader(StockOwnership.INTERNAL_SECRET_HEADER))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        rejected.increment();
+        HttpStatus status = HttpStatus.FORBIDDEN;
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(LocalDateTime.now(), status.value(),
+                status.getReasonPhrase(), "Internal endpoint, reserved to the members of ownership.nodes",
+                "uri=" + request.getRequestURI()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.repository.CacheInvalidationRepository;
+import com.inventory.stockmanagementapi.service.DatabaseInvalidationTransport;
+import com.inventory.stockmanagementapi.service.InvalidationBus;
+import com.inventory.stockmanagementapi.service.InvalidationTransport;
+import com.inventory.stockmanagementapi.service.UdpInvalidationTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Selects the transport of the invalidation bus with {@code invalidation.transport}: {@code database} or
+ * {@code udp}. With {@code none}, the default, a single instance is assumed and nothing is sent.
+ */
+@Configuration
+@ConditionalOnExpression("'${invalidation.transport:none}' != 'none'")
+public class InvalidationBusConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "invalidation.transport", havingValue = "database")
+    public InvalidationTransport databaseInvalidationTransport(
+            CacheInvalidationRepository cacheInvalidationRepository,
+            @Value("${invalidation.database.poll-interval:200ms}") Duration pollInterval,
+            @Value("${invalidation.database.batch-size:1000}") int batchSize,
+            @Value("${invalidation.database.gap-timeout:5s}") Duration gapTimeout,
+            @Value("${invalidation.database.retention:10m}") Duration retention) {
+        return new DatabaseInvalidationTransport(cacheInvalidationRepository, pollInterval, batchSize, gapTimeout,
+                retention);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "invalidation.transport", havingValue = "udp")
+    public InvalidationTransport udpInvalidationTransport(
+            ObjectMapper objectMapper,
+            @Value("${invalidation.udp.port:7400}") int port,
+            @Value("${invalidation.udp.peers:}") List<String> peers) throws SocketException {
+        List<InetSocketAddress> addresses = peers.stream().map(String::trim).filter(peer -> !peer.isEmpty())
+                .map(peer -> {
+                    int colon = peer.lastIndexOf(':');
+                    if (colon < 0) {
+                        throw new IllegalStateException("The peer " + peer + " must be written host:port");
+                    }
+                    return new InetSocketAddress(peer.substring(0, colon), Integer.parseInt(peer.substring(colon + 1)));
+                }).toList();
+        return new UdpInvalidationTransport(port, addresses, objectMapper);
+    }
+
+    @Bean
+    public InvalidationBus invalidationBus(InvalidationTransport transport,
+                                           ApplicationEventPublisher eventPublisher,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${invalidation.node-id:}") String node,
+                                           @Value("${invalidation.batch-interval:50ms}") Duration batchInterval,
+                                           @Value("${invalidation.batch-size:500}") int batchSize,
+                                           @Value("${invalidation.max-pending:10000}") int maxPending) {
+        return new InvalidationBus(transport, eventPublisher, meterRegistry,
+                node.isBlank() ? UUID.randomUUID().toString() : node, batchInterval, batchSize, maxPending);
+    }
+}
@@ -0,0 +1,260 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.inventory.stockmanagementapi.dto.CategoryDTO;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Hand-written serializers for the DTOs returned in bulk, registered in every Jackson mapper of the application.
+ * <p>
+ * Property names are pre-encoded and properties are written in a fixed order, without the reflective getter calls
+ * of the bean serializer. In JSON, prices and timestamps are formatted into a reusable buffer instead of going
+ * through intermediate strings; the output is identical to the default one. Other formats (CBOR, Smile) and
+ * mappers writing dates as timestamps use the configured serializers for these two types.
+ * <p>
+ * Pages and slices are written as a lean envelope: the content, the page number and size, the totals for pages
+ * and the first/last flags, without the {@code pageable} and {@code sort} blocks that repeat the request.
+ */
+@JsonComponent
+public class JsonSerializers {
+
+    // Longest outputs: a date time with nanoseconds (29 chars), a long with sign and decimal point (21 chars)
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[32]);
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString PRICE = new SerializedString("price");
+    private static final SerializableString QUANTITY = new SerializedString("quantity");
+    private static final SerializableString SKU = new SerializedString("sku");
+    private static final SerializableString CATEGORY_ID = new SerializedString("categoryId");
+    private static final SerializableString CATEGORY_NAME = new SerializedString("categoryName");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString PRODUCT_COUNT = new SerializedString("productCount");
+
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializableString TOTAL_PAGES = new SerializedString("totalPages");
+    private static final SerializableString NUMBER = new SerializedString("number");
+    private static final SerializableString SIZE = new SerializedString("size");
+    private static final SerializableString NUMBER_OF_ELEMENTS = new SerializedString("numberOfElements");
+    private static final SerializableString FIRST = new SerializedString("first");
+    private static final SerializableString LAST = new SerializedString("last");
+    private static final SerializableString EMPTY = new SerializedString("empty");
+
+    public static class ProductSerializer extends JsonSerializer<ProductDTO> {
+
+        @Override
+        public void serialize(ProductDTO product, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(product);
+            writeNumber(gen, ID, product.getId());
+            writeString(gen, NAME, product.getName());
+            writeString(gen, DESCRIPTION, product.getDescription());
+            writeDecimal(gen, PRICE, product.getPrice());
+            writeNumber(gen, QUANTITY, product.getQuantity());
+            writeString(gen, SKU, product.getSku());
+            writeNumber(gen, CATEGORY_ID, product.getCategoryId());
+            writeString(gen, CATEGORY_NAME, product.getCategoryName());
+            writeDateTime(gen, provider, CREATED_AT, product.getCreatedAt());
+            writeDateTime(gen, provider, UPDATED_AT, product.getUpdatedAt());
+            writeNumber(gen, VERSION, product.getVersion());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class CategorySerializer extends JsonSerializer<CategoryDTO> {
+
+        @Override
+        public void serialize(CategoryDTO category, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(category);
+            writeNumber(gen, ID, category.getId());
+            writeString(gen, NAME, category.getName());
+            writeString(gen, DESCRIPTION, category.getDescription());
+            writeNumber(gen, PRODUCT_COUNT, category.getProductCount());
+            writeNumber(gen, VERSION, category.getVersion());
+            gen.writeEndObject();
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    public static class SliceSerializer extends JsonSerializer<Slice> {
+
+        @Override
+        public void serialize(Slice slice, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(slice);
+            gen.writeFieldName(CONTENT);
+            gen.writeStartArray(slice, slice.getNumberOfElements());
+            for (Object element : slice.getContent()) {
+                provider.defaultSerializeValue(element, gen);
+            }
+            gen.writeEndArray();
+            if (slice instanceof Page<?> page) {
+                gen.writeFieldName(TOTAL_ELEMENTS);
+                gen.writeNumber(page.getTotalElements());
+                gen.writeFieldName(TOTAL_PAGES);
+                gen.writeNumber(page.getTotalPages());
+            }
+            gen.writeFieldName(NUMBER);
+            gen.writeNumber(slice.getNumber());
+            gen.writeFieldName(SIZE);
+            gen.writeNumber(slice.getSize());
+            gen.writeFieldName(NUMBER_OF_ELEMENTS);
+            gen.writeNumber(slice.getNumberOfElements());
+            gen.writeFieldName(FIRST);
+            gen.writeBoolean(slice.isFirst());
+            gen.writeFieldName(LAST);
+            gen.writeBoolean(slice.isLast());
+            gen.writeFieldName(EMPTY);
+            gen.writeBoolean(!slice.hasContent());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator gen, SerializableString name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator gen, SerializableString name, Integer value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeDecimal(JsonGenerator gen, SerializableString name, BigDecimal value)
+            throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else if (gen instanceof JsonGeneratorImpl && value.scale() >= 0 && value.scale() <= 9
+                && value.precision() <= 18 && !gen.isEnabled(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)) {
+            // Same text as BigDecimal.toString(), which never uses an exponent for these scales
+            char[] buffer = BUFFER.get();
+            int length = formatDecimal(value.unscaledValue().longValue(), value.scale(), buffer);
+            // A raw value is copied to the output buffer as is, writeNumber(char[]) would create a String
+            gen.writeRawValue(buffer, 0, length);
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeDateTime(JsonGenerator gen, SerializerProvider provider, SerializableString name,
+                                      LocalDateTime value) throws IOException {
+        if (value == null) {
+            gen.writeFieldName(name);
+            gen.writeNull();
+        } else if (gen instanceof JsonGeneratorImpl && value.getYear() >= 0 && value.getYear() <= 9999
+                && !provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            gen.writeFieldName(name);
+            char[] buffer = BUFFER.get();
+            int length = formatDateTime(value, buffer);
+            gen.writeString(buffer, 0, length);
+        } else {
+            // Timestamps, binary formats and unusual years are left to the configured serializer
+            provider.defaultSerializeField(name.getValue(), value, gen);
+        }
+    }
+
+    /**
+     * Format a decimal number without exponent
+     * @param unscaled The unscaled value
+     * @param scale The number of fraction digits, between 0 and 9
+     * @param buffer The output buffer, at least 21 chars
+     * @return The number of chars written
+     */
+    static int formatDecimal(long unscaled, int scale, char[] buffer) {
+        int pos = 0;
+        if (unscaled < 0) {
+            buffer[pos++] = '-';
+            unscaled = -unscaled;
+        }
+        // At least one integer digit, e.g. 0.05 for an unscaled value of 5 with scale 2
+        int digits = 1;
+        for (long rest = unscaled / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, scale + 1);
+        int end = pos + digits + (scale > 0 ? 1 : 0);
+        int i = end;
+        for (int written = 0; written < digits; written++) {
+            if (written == scale && scale > 0) {
+                buffer[--i] = '.';
+            }
+            buffer[--i] = (char) ('0' + unscaled % 10);
+            unscaled /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Format a date time like {@link java.time.format.DateTimeFormatter#ISO_LOCAL_DATE_TIME}
+     * @param value The date time, with a year between 0 and 9999
+     * @param buffer The output buffer, at least 29 chars
+     * @return The number of chars written
+     */
+    static int formatDateTime(LocalDateTime value, char[] buffer) {
+        int pos = writeDigits(value.getYear(), 4, buffer, 0);
+        buffer[pos++] = '-';
+        pos = writeDigits(value.getMonthValue(), 2, buffer, pos);
+        buffer[pos++] = '-';
+        pos = writeDigits(value.getDayOfMonth(), 2, buffer, pos);
+        buffer[pos++] = 'T';
+        pos = writeDigits(value.getHour(), 2, buffer, pos);
+        buffer[pos++] = ':';
+        pos = writeDigits(value.getMinute(), 2, buffer, pos);
+        buffer[pos++] = ':';
+        pos = writeDigits(value.getSecond(), 2, buffer, pos);
+        int nano = value.getNano();
+        if (nano > 0) {
+            // As many fraction digits as needed, trailing zeros removed
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            buffer[pos++] = '.';
+            pos = writeDigits(nano, digits, buffer, pos);
+        }
+        return pos;
+    }
+
+    private static int writeDigits(int value, int width, char[] buffer, int pos) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
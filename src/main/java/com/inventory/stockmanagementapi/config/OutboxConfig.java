@@ -0,0 +1,33 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.service.FileOutboxSink;
+import com.inventory.stockmanagementapi.service.LogOutboxSink;
+import com.inventory.stockmanagementapi.service.OutboxSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Selects the destination of the outbox relay with {@code outbox.sink}. Another sink, such as a message broker,
+ * plugs in as an {@link OutboxSink} bean with a value of its own.
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "outbox.sink", havingValue = "log", matchIfMissing = true)
+    public OutboxSink logOutboxSink() {
+        return new LogOutboxSink();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "outbox.sink", havingValue = "file")
+    public OutboxSink fileOutboxSink(@Value("${outbox.file.path:outbox-events.jsonl}") Path path,
+                                     ObjectMapper objectMapper) {
+        return new FileOutboxSink(path, objectMapper);
+    }
+}
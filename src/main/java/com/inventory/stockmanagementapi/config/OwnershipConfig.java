@@ -0,0 +1,29 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.service.StockOwnership;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Guards the endpoints the instances call on each other for the {@link StockOwnership}: they are served on the
+ * public port, so only the members presenting {@code ownership.secret} reach them.
+ */
+@Configuration
+public class OwnershipConfig {
+
+    @Bean
+    public FilterRegistrationBean<InternalEndpointFilter> internalEndpointFilter(StockOwnership stockOwnership,
+                                                                               ObjectMapper objectMapper,
+                                                                               MeterRegistry meterRegistry) {
+        FilterRegistrationBean<InternalEndpointFilter> registration = new FilterRegistrationBean<>(
+                new InternalEndpointFilter(stockOwnership, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/internal/*");
+        // Before the admission control, so that refused calls never take a permit
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,193 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the read-only transactions of HTTP requests to replica pools, and everything else to the primary.
+ * <p>
+ * It must sit behind a {@code LazyConnectionDataSourceProxy}: the transaction manager asks for a connection before
+ * it flags the transaction as read-only, the proxy only fetches it at the first statement.
+ * <p>
+ * Among the healthy replicas, a connection comes from the one with the fewest active connections. A replica that
+ * fails to hand out a connection, or to answer the periodic health check, is skipped until a health check
+ * succeeds again; without a healthy replica, reads fall back to the primary.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final Counter fallbacks;
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param primary The primary pool, for writes and reads outside of requests
+     * @param replicas The replica pools, by name
+     * @param meterRegistry Registry of the routing metrics
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, List<NamedDataSource> replicas, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.primaryConnections = Counter.builder("datasource.routing.connections").tag("target", "primary")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("datasource.routing.fallbacks").register(meterRegistry);
+        for (NamedDataSource replica : replicas) {
+            this.replicas.add(new Replica(replica.name(), replica.dataSource(), Counter
+                    .builder("datasource.routing.connections").tag("target", replica.name()).register(meterRegistry)));
+        }
+        Gauge.builder("datasource.routing.replicas.healthy", this.replicas,
+                all -> all.stream().filter(replica -> replica.healthy).count()).register(meterRegistry);
+    }
+
+    /**
+     * Check the health of the replicas periodically
+     * @param interval The delay between two checks
+     */
+    public void start(Duration interval) {
+        long intervalMillis = interval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Could not close replica pool {}", replica.name, ex);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        RequestRouting routing = RequestRouting.current();
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        // Lazy loading outside of a transaction, such as while rendering the response, is not a write
+        if (routing != null && !readOnly && TransactionSynchronizationManager.isActualTransactionActive()) {
+            routing.onWrite();
+        }
+        if (routing == null || !routing.isReplicaAllowed() || !readOnly) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        Connection connection = replicaConnection();
+        if (connection != null) {
+            return connection;
+        }
+        fallbacks.increment();
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Credentials are configured per pool");
+    }
+
+    /**
+     * Mark each replica healthy or not, depending on whether it hands out a valid connection
+     */
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException | RuntimeException ex) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                replica.healthy = healthy;
+                log.info("Replica {} is {}", replica.name, healthy ? "back in rotation" : "out of rotation");
+            }
+        }
+    }
+
+    /**
+     * Get a connection from the least busy healthy replica
+     * @return The connection, or null if no replica could provide one
+     */
+    private Connection replicaConnection() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int attempt = 0; attempt < size; attempt++) {
+            Replica replica = null;
+            // Starting at a rotating offset spreads the load between equally busy replicas
+            for (int i = 0; i < size; i++) {
+                Replica candidate = replicas.get((start + i) % size);
+                if (candidate.healthy && (replica == null || candidate.activeConnections() < replica.activeConnections())) {
+                    replica = candidate;
+                }
+            }
+            if (replica == null) {
+                return null;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException | RuntimeException ex) {
+                replica.healthy = false;
+                log.warn("Replica {} is out of rotation: {}", replica.name, ex.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A pool and its name in logs and metrics
+     */
+    public record NamedDataSource(String name, DataSource dataSource) {
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter connections;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource, Counter connections) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.connections = connections;
+        }
+
+        private int activeConnections() {
+            if (dataSource instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
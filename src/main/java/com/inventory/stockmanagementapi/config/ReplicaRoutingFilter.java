@@ -0,0 +1,69 @@
+package com.inventory.stockmanagementapi.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Lets the read-only transactions of a request use a replica, unless the client wrote recently.
+ * <p>
+ * A request that writes to the primary gets a cookie holding the end of the sticky window. Until then the
+ * requests carrying it read from the primary as well, so that clients always see their own writes despite the
+ * replication lag.
+ */
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "read-primary-until";
+
+    private final Duration stickyWindow;
+
+    public ReplicaRoutingFilter(Duration stickyWindow) {
+        this.stickyWindow = stickyWindow;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestRouting.bind(new RequestRouting(!isSticky(request), () -> stick(response)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestRouting.clear();
+        }
+    }
+
+    private boolean isSticky(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void stick(HttpServletResponse response) {
+        if (stickyWindow.isZero() || response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + stickyWindow.toMillis()));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        // Rounded up, so that the cookie never expires before the window
+        cookie.setMaxAge((int) Math.max(1, (stickyWindow.toMillis() + 999) / 1000));
+        response.addCookie(cookie);
+    }
+}
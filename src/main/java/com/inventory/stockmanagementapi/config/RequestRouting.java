@@ -0,0 +1,55 @@
+package com.inventory.stockmanagementapi.config;
+
+/**
+ * Routing state of the HTTP request handled by the current thread, bound by the {@link ReplicaRoutingFilter}.
+ * <p>
+ * Threads without a request, such as scheduled jobs and relays, have none: all their connections go to the
+ * primary, so that they never act on data a replica has not caught up with yet.
+ */
+final class RequestRouting {
+
+    private static final ThreadLocal<RequestRouting> CURRENT = new ThreadLocal<>();
+
+    private final Runnable onFirstWrite;
+    private boolean replicaAllowed;
+    private boolean wrote;
+
+    RequestRouting(boolean replicaAllowed, Runnable onFirstWrite) {
+        this.replicaAllowed = replicaAllowed;
+        this.onFirstWrite = onFirstWrite;
+    }
+
+    /**
+     * @return The routing state of the current request, or null outside of a request
+     */
+    static RequestRouting current() {
+        return CURRENT.get();
+    }
+
+    static void bind(RequestRouting routing) {
+        CURRENT.set(routing);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return Whether read-only transactions of the request may use a replica
+     */
+    boolean isReplicaAllowed() {
+        return replicaAllowed;
+    }
+
+    /**
+     * Record that the request writes to the primary: its later reads, and those of the client for a while, must
+     * see the write
+     */
+    void onWrite() {
+        replicaAllowed = false;
+        if (!wrote) {
+            wrote = true;
+            onFirstWrite.run();
+        }
+    }
+}
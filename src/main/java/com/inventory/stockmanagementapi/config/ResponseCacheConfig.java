@@ -0,0 +1,30 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.ResponseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(
+            ResponseCache responseCache,
+            @Value("${response-cache.paths:/api/categories,/api/categories/*,/api/products,/api/products/all,/api/products/{id:[0-9]+},/api/products/category/*,/api/products/search}") List<String> paths,
+            @Value("${response-cache.max-body-size:2MB}") DataSize maxBodySize) {
+        FilterRegistrationBean<ResponseCacheFilter> registration =
+                new FilterRegistrationBean<>(new ResponseCacheFilter(responseCache, paths, maxBodySize.toBytes()));
+        registration.addUrlPatterns("/api/*");
+        // Before the admission control, so that hits are always served
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
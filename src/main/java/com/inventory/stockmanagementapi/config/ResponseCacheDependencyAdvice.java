@@ -0,0 +1,112 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.dto.CategoryDTO;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.service.ResponseCache.Dependencies;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records what the body of a GET response was computed from, for the {@link ResponseCacheFilter} to store it with
+ * these {@link Dependencies}: the categories, or the IDs of the products it holds, so that a change to one product
+ * only outdates the cached responses holding it.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheDependencyAdvice implements ResponseBodyAdvice<Object> {
+
+    // The product fields that every write changes, stock updates included
+    private static final Set<String> WRITTEN_FIELDS = Set.of("quantity", "updatedAt", "version");
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request.getMethod() == HttpMethod.GET && request instanceof ServletServerHttpRequest servletRequest) {
+            Dependencies dependencies = dependencies(body, servletRequest);
+            if (dependencies != null) {
+                servletRequest.getServletRequest().setAttribute(ResponseCacheFilter.DEPENDENCIES_ATTRIBUTE,
+                        dependencies);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * @return The dependencies of the body, or null if it is not a product or category response
+     */
+    private static Dependencies dependencies(Object body, ServletServerHttpRequest request) {
+        if (body instanceof CategoryDTO) {
+            return Dependencies.categories();
+        }
+        if (!(body instanceof Iterable<?> elements)) {
+            Long id = productId(body);
+            return id != null ? Dependencies.products(List.of(id), false, false)
+                    : body instanceof Map<?, ?> ? Dependencies.products(null, false, false) : null;
+        }
+        // A list or a page: of categories, or of products whose IDs may not all be selected
+        List<Long> ids = new ArrayList<>();
+        boolean categories = false;
+        for (Object element : elements) {
+            if (element instanceof CategoryDTO) {
+                categories = true;
+            } else if (element instanceof ProductDTO || element instanceof Map<?, ?>) {
+                Long id = productId(element);
+                if (id == null) {
+                    ids = null;
+                    break;
+                }
+                ids.add(id);
+            } else {
+                return null;
+            }
+        }
+        return categories ? Dependencies.categories() : Dependencies.products(ids, true, dependsOnWrittenFields(request));
+    }
+
+    private static Long productId(Object element) {
+        if (element instanceof ProductDTO product) {
+            return product.getId();
+        }
+        if (element instanceof Map<?, ?> fields && fields.get("id") instanceof Number id) {
+            return id.longValue();
+        }
+        return null;
+    }
+
+    /**
+     * @return True if the products of the list, or their order, depend on fields that a write to any product changes
+     */
+    private static boolean dependsOnWrittenFields(ServletServerHttpRequest request) {
+        if (request.getServletRequest().getRequestURI().endsWith("/low-stock")) {
+            return true;
+        }
+        String[] sort = request.getServletRequest().getParameterValues("sort");
+        if (sort != null) {
+            for (String order : sort) {
+                if (WRITTEN_FIELDS.contains(order.split(",")[0].trim())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
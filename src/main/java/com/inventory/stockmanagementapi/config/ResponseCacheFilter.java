@@ -0,0 +1,159 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.ResponseCache;
+import com.inventory.stockmanagementapi.service.ResponseCache.CachedResponse;
+import com.inventory.stockmanagementapi.service.ResponseCache.Dependencies;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves GET requests of the configured paths from the {@link ResponseCache}.
+ * <p>
+ * Requests are keyed by path, query parameters sorted by name and Accept header, so that equivalent URLs share
+ * an entry. On a miss the response is captured as written by the message converters and stored if it is a
+ * 200, along with the dependencies recorded by {@link ResponseCacheDependencyAdvice}; on a hit the stored bytes
+ * are written as is, gzip-compressed when the client accepts it, and If-None-Match is answered from the stored ETag.
+ * <p>
+ * When the response cannot be computed, because the database fails, its circuit is open, the instance is
+ * overloaded or the deadline expired, the last stored response is served instead of the error if the
+ * {@link ResponseCache} still has it, with {@code X-Cache: STALE} and its age in the Age header.
+ */
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    static final String CACHE_HEADER = "X-Cache";
+    // Request attribute holding the ResponseCache.Dependencies of the response body
+    static final String DEPENDENCIES_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".dependencies";
+    // Statuses of a response that could not be computed, and that a stale one may replace
+    private static final Set<Integer> STALE_IF_ERROR_STATUSES = Set.of(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+            HttpServletResponse.SC_BAD_GATEWAY, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+            HttpServletResponse.SC_GATEWAY_TIMEOUT);
+
+    private final ResponseCache responseCache;
+    private final List<String> pathPatterns;
+    private final long maxBodySize;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public ResponseCacheFilter(ResponseCache responseCache, List<String> pathPatterns, long maxBodySize) {
+        this.responseCache = responseCache;
+        this.pathPatterns = pathPatterns;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return pathPatterns.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = key(request);
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            write(request, response, cached, "HIT");
+            return;
+        }
+
+        // Read before the controller runs, see ResponseCache
+        long version = responseCache.currentVersion();
+        ContentCachingResponseWrapper capture = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, capture);
+
+        if (capture.getStatus() == HttpServletResponse.SC_OK && capture.getContentType() != null
+                && capture.getContentSize() <= maxBodySize && !capture.containsHeader(HttpHeaders.SET_COOKIE)) {
+            // Bodies the advice does not know may depend on anything
+            Object dependencies = request.getAttribute(DEPENDENCIES_ATTRIBUTE);
+            cached = responseCache.put(key, version,
+                    dependencies instanceof Dependencies known ? known : Dependencies.ALL, capture.getContentType(),
+                    capture.getHeader(HttpHeaders.ETAG), capture.getContentAsByteArray());
+            // The captured body is replaced by the stored one, compressed if the client accepts it
+            capture.resetBuffer();
+            write(request, response, cached, "MISS");
+        } else if (STALE_IF_ERROR_STATUSES.contains(capture.getStatus()) && !response.isCommitted()) {
+            CachedResponse stale = responseCache.getStale(key);
+            if (stale != null) {
+                // Drops the error body and its headers, such as Retry-After
+                capture.reset();
+                long age = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - stale.storedAt());
+                response.setHeader(HttpHeaders.AGE, Long.toString(age));
+                write(request, response, stale, "STALE");
+            }
+        }
+        capture.copyBodyToResponse();
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, CachedResponse cached, String result)
+            throws IOException {
+        response.setHeader(CACHE_HEADER, result);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        if (cached.eTag() != null) {
+            response.setHeader(HttpHeaders.ETAG, cached.eTag());
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null && matches(ifNoneMatch, cached.eTag())) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.contentType());
+        byte[] body = cached.body();
+        if (cached.gzipBody() != null && acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = cached.gzipBody();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        // Sorted so that ?page=0&size=20 and ?size=20&page=0 share an entry
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                key.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        key.append(" ").append(accept == null ? "*/*" : accept.replace(" ", "").toLowerCase(Locale.ROOT));
+        return key.toString();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && Arrays.stream(acceptEncoding.split(","))
+                .map(String::trim)
+                .anyMatch(encoding -> encoding.equals("gzip") || encoding.startsWith("gzip;") && !encoding.endsWith("q=0"));
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(eTag));
+    }
+}
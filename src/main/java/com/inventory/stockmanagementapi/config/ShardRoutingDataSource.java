@@ -0,0 +1,88 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.repository.sharding.ShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out connections of the shard the current thread works on, as decided by the {@link ShardContext}.
+ * <p>
+ * It must sit behind a {@code LazyConnectionDataSourceProxy}: the transaction manager asks for a connection when
+ * the transaction begins, the proxy only fetches it at the first statement, once the repository call has picked its
+ * shard. The first connection of a transaction binds it to its shard.
+ */
+@Slf4j
+public class ShardRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+    private final List<Counter> connections = new ArrayList<>();
+
+    /**
+     * @param shards The pools of the shards, the home shard first
+     * @param meterRegistry Registry of the routing metrics
+     */
+    public ShardRoutingDataSource(List<DataSource> shards, MeterRegistry meterRegistry) {
+        this.shards = List.copyOf(shards);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            connections.add(Counter.builder("sharding.connections").tag("shard", String.valueOf(shard))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @return The pools of the shards, the home shard first
+     */
+    public List<DataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int shard = currentShard();
+        connections.get(shard).increment();
+        return shards.get(shard).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        int shard = currentShard();
+        connections.get(shard).increment();
+        return shards.get(shard).getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Could not close shard pool {}", shard, ex);
+                }
+            }
+        }
+    }
+
+    private static int currentShard() {
+        Integer requested = ShardContext.requested();
+        int shard = requested != null ? requested : ShardContext.HOME_SHARD;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return shard;
+        }
+        Integer bound = ShardContext.boundShard();
+        if (bound != null) {
+            return bound;
+        }
+        ShardContext.bind(shard);
+        return shard;
+    }
+}
@@ -0,0 +1,78 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.domain.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prepares the shards before the application uses them: creates the schema on each of them, then makes each shard
+ * hand out the IDs of its own residue class, so that an ID tells which shard holds the row.
+ */
+@Slf4j
+final class ShardSchema {
+
+    private static final Set<String> SCHEMA_ACTIONS = Set.of("create", "create-drop", "update");
+    // Tables whose IDs are routed on
+    private static final List<String> STRIDED_TABLES = List.of("products", "outbox_events");
+
+    private ShardSchema() {
+    }
+
+    /**
+     * @param shards The pools of the shards, the home shard first
+     * @param ddlAuto The schema action of the application, applied to every shard
+     */
+    static void prepare(List<DataSource> shards, String ddlAuto) {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (SCHEMA_ACTIONS.contains(ddlAuto)) {
+                createSchema(shards.get(shard), ddlAuto);
+            }
+            JdbcTemplate jdbc = new JdbcTemplate(shards.get(shard));
+            for (String table : STRIDED_TABLES) {
+                Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+                long start = firstId(shard, shards.size(), maxId);
+                jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + start);
+                jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id SET INCREMENT BY " + shards.size());
+            }
+            log.info("Shard {} prepared", shard);
+        }
+    }
+
+    /**
+     * @param shard The shard
+     * @param shardCount The number of shards
+     * @param maxId The highest ID already used on the shard, or null
+     * @return The first ID of the residue class of the shard above the highest ID
+     */
+    static long firstId(int shard, int shardCount, Long maxId) {
+        long start = shard + 1;
+        if (maxId != null && maxId >= start) {
+            start += ((maxId - start) / shardCount + 1) * shardCount;
+        }
+        return start;
+    }
+
+    private static void createSchema(DataSource dataSource, String ddlAuto) {
+        // A throwaway entity manager factory, with the naming strategies of Spring Boot, runs the schema action
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(Product.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setPersistenceUnitName("shard-schema");
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop".equals(ddlAuto) ? "create" : ddlAuto,
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+        factory.afterPropertiesSet();
+        factory.destroy();
+    }
+}
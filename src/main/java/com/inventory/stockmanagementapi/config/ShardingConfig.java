@@ -0,0 +1,90 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.repository.sharding.CategoryReplicator;
+import com.inventory.stockmanagementapi.repository.sharding.ShardRouter;
+import com.inventory.stockmanagementapi.repository.sharding.ShardedRepositories;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads the products over the datasource configured by Spring Boot and the shards listed in
+ * {@code sharding.shard-urls}. Without that property, everything uses the single datasource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.shard-urls")
+public class ShardingConfig {
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${sharding.shard-urls}") List<String> shardUrls,
+            @Value("${sharding.shard-pool-size:10}") int poolSize,
+            @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        if (environment.containsProperty("datasource.routing.replica-urls")) {
+            throw new IllegalStateException("sharding.shard-urls and datasource.routing.replica-urls cannot be combined");
+        }
+        List<DataSource> shards = new ArrayList<>();
+        HikariDataSource home = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        home.setPoolName("shard-0");
+        home.setMetricRegistry(meterRegistry);
+        shards.add(home);
+        for (String url : shardUrls) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + shards.size());
+            shard.setJdbcUrl(url.trim());
+            shard.setUsername(properties.determineUsername());
+            shard.setPassword(properties.determinePassword());
+            shard.setDriverClassName(properties.determineDriverClassName());
+            shard.setMaximumPoolSize(poolSize);
+            shard.setMetricRegistry(meterRegistry);
+            shards.add(shard);
+        }
+        // Before the entity manager factory, which only knows the home shard
+        ShardSchema.prepare(shards, ddlAuto);
+        return new ShardRoutingDataSource(shards, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardRoutingDataSource shardRoutingDataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${sharding.query-threads:16}") int threads,
+                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                   @Value("${sharding.max-scan-rows:10000}") int maxScanRows) {
+        return new ShardRouter(shardRoutingDataSource.getShards().size(), transactionManager, threads, virtualThreads,
+                maxScanRows, meterRegistry);
+    }
+
+    @Bean
+    public CategoryReplicator categoryReplicator(ShardRoutingDataSource shardRoutingDataSource) {
+        return new CategoryReplicator(shardRoutingDataSource.getShards());
+    }
+
+    @Bean
+    public static ShardedRepositories shardedRepositories(ObjectProvider<ShardRouter> shardRouter,
+                                                          ObjectProvider<CategoryReplicator> categoryReplicator) {
+        return new ShardedRepositories(shardRouter, categoryReplicator);
+    }
+}
@@ -0,0 +1,46 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.controller.StockTickerWebSocketHandler;
+import com.inventory.stockmanagementapi.service.StockTicker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import java.time.Duration;
+
+@Configuration
+@EnableWebSocket
+@ConditionalOnProperty(name = "ticker.enabled", havingValue = "true", matchIfMissing = true)
+public class StockTickerConfig implements WebSocketConfigurer {
+
+    private final StockTicker stockTicker;
+    private final ObjectMapper objectMapper;
+    private final Duration sendTimeLimit;
+    private final DataSize sendBufferLimit;
+    private final String[] allowedOrigins;
+
+    @Autowired
+    public StockTickerConfig(StockTicker stockTicker, ObjectMapper objectMapper,
+                             @Value("${ticker.send-time-limit:10s}") Duration sendTimeLimit,
+                             @Value("${ticker.send-buffer-limit:512KB}") DataSize sendBufferLimit,
+                             @Value("${ticker.allowed-origins:*}") String[] allowedOrigins) {
+        this.stockTicker = stockTicker;
+        this.objectMapper = objectMapper;
+        this.sendTimeLimit = sendTimeLimit;
+        this.sendBufferLimit = sendBufferLimit;
+        this.allowedOrigins = allowedOrigins;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(new StockTickerWebSocketHandler(stockTicker, objectMapper,
+                        (int) sendTimeLimit.toMillis(), (int) sendBufferLimit.toBytes()), "/ws/stock")
+                .setAllowedOrigins(allowedOrigins);
+    }
+}
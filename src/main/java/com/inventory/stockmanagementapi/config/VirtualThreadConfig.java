@@ -0,0 +1,31 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.service.PinnedThreadMonitor;
+import com.inventory.stockmanagementapi.service.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Diagnostics of the virtual-thread mode, opted into with {@code spring.threads.virtual.enabled=true} on Java 21:
+ * the virtual threads pinned to their carrier are reported, unless
+ * {@code virtual-threads.pinning-monitor.enabled=false}. See {@link VirtualThreads}.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "virtual-threads.pinning-monitor.enabled", havingValue = "true", matchIfMissing = true)
+    public PinnedThreadMonitor pinnedThreadMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${virtual-threads.pinning-monitor.threshold:20ms}") Duration threshold) {
+        return new PinnedThreadMonitor(threshold, meterRegistry);
+    }
+}
@@ -11,6 +11,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -31,23 +32,35 @@ public class CategoryController {
 
     @GetMapping
     @Operation(summary = "Get all categories", description = "Retrieve a list of all categories")
-    @ApiResponse(responseCode = "200", description = "Categories retrieved successfully")
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
-        List<CategoryDTO> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Categories retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Categories not modified", content = @Content)
+    })
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(
+            @Parameter(description = "Entity tag of the list held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch,
+                () -> ETags.categoryVersions(categoryService.getCategoryVersions()),
+                categoryService::getAllCategories,
+                ETags::categories);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get category by ID", description = "Get a category by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Category found"),
+            @ApiResponse(responseCode = "304", description = "Category not modified", content = @Content),
             @ApiResponse(responseCode = "404", description = "Category not found", content = @Content)
     })
     public ResponseEntity<CategoryDTO> getCategoryById(
             @Parameter(description = "Category ID", required = true)
-            @PathVariable Long id) {
-        CategoryDTO category = categoryService.getCategoryById(id);
-        return ResponseEntity.ok(category);
+            @PathVariable Long id,
+            @Parameter(description = "Entity tag of the category held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch,
+                () -> ETags.category(categoryService.getCategoryVersion(id)),
+                () -> categoryService.getCategoryById(id),
+                ETags::category);
     }
 
     @PostMapping
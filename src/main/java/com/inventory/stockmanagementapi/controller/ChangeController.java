@@ -0,0 +1,95 @@
+package com.inventory.stockmanagementapi.controller;
+
+import com.inventory.stockmanagementapi.dto.ChangeBatchDTO;
+import com.inventory.stockmanagementapi.dto.ChangeEventDTO;
+import com.inventory.stockmanagementapi.service.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/changes")
+@Tag(name = "Change feed", description = "Sequenced product and category changes, for catalog mirrors")
+public class ChangeController {
+
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final ChangeFeedService changeFeedService;
+    private final Duration maxWait;
+    private final Duration streamTimeout;
+
+    @Autowired
+    public ChangeController(ChangeFeedService changeFeedService,
+                            @Value("${changes.max-wait:30s}") Duration maxWait,
+                            @Value("${changes.stream-timeout:30m}") Duration streamTimeout) {
+        this.changeFeedService = changeFeedService;
+        this.maxWait = maxWait;
+        this.streamTimeout = streamTimeout;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get changes", description = "Get the changes committed after a sequence number, "
+            + "waiting up to the requested time when there is none yet (long polling)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes retrieved, possibly none if the wait expired"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit", content = @Content),
+            @ApiResponse(responseCode = "410", description = "Changes after the cursor were purged, the catalog must be read again", content = @Content)
+    })
+    public CompletableFuture<ChangeBatchDTO> getChanges(
+            @Parameter(description = "Last sequence number already processed, 0 to read from the start")
+            @RequestParam(defaultValue = "0") long after,
+            @Parameter(description = "Maximum number of changes")
+            @RequestParam(defaultValue = "1000") int limit,
+            @Parameter(description = "Seconds to wait for a change when there is none, capped by the server")
+            @RequestParam(defaultValue = "0") long wait) {
+        Duration waitDuration = Duration.ofSeconds(wait);
+        return changeFeedService.awaitChanges(after, limit,
+                waitDuration.compareTo(maxWait) > 0 ? maxWait : waitDuration);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream changes", description = "Stream the changes committed after a sequence number as "
+            + "server-sent events, each identified by its sequence number")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "410", description = "Changes after the cursor were purged, the catalog must be read again", content = @Content)
+    })
+    public SseEmitter streamChanges(
+            @Parameter(description = "Last sequence number already processed, the latest one by default")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Sent by reconnecting clients, takes precedence over after")
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        long cursor = lastEventId != null ? lastEventId
+                : after != null ? after
+                : changeFeedService.getLatestSeq();
+        // An invalid cursor is rejected before the stream is opened
+        changeFeedService.checkCursor(cursor);
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        ChangeFeedService.Subscription subscription = changeFeedService.subscribe(cursor, Integer.MAX_VALUE,
+                batch -> {
+                    for (ChangeEventDTO change : batch.getChanges()) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(change.getSeq()))
+                                .name(change.getType().name())
+                                .data(change, MediaType.APPLICATION_JSON));
+                    }
+                    return true;
+                },
+                emitter::completeWithError);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(ex -> subscription.close());
+        return emitter;
+    }
+}
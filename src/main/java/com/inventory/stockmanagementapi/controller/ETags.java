@@ -0,0 +1,163 @@
+package com.inventory.stockmanagementapi.controller;
+
+import com.inventory.stockmanagementapi.dto.CategoryDTO;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.repository.projection.CategoryVersionView;
+import com.inventory.stockmanagementapi.repository.projection.ProductVersionView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Strong entity tags for product and category responses.
+ * <p>
+ * A tag is a digest of the fields that determine the response body: entity IDs and versions, the category name
+ * embedded in products, product counts and pagination. The same tag can therefore be computed from the DTOs
+ * being returned or, before running the full query, from the lightweight version projections. Responses restricted
+ * to some fields are tagged from the selected values.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Answer a GET request, skipping the query and serialization when the client already has the current version
+     * @param ifNoneMatch The If-None-Match header value, or null
+     * @param currentETag Computes the current tag from the version projections, or null to always load the body;
+     *                    the tag of the loaded body is then compared to the header, which still saves sending it
+     * @param body Loads the response body
+     * @param eTagOf Computes the tag of the loaded body
+     * @return A 304 response if the client copy is current, a 200 response with the body and its tag otherwise
+     */
+    static <T> ResponseEntity<T> conditionalGet(String ifNoneMatch, Supplier<String> currentETag,
+                                                Supplier<T> body, Function<T, String> eTagOf) {
+        if (ifNoneMatch != null && currentETag != null) {
+            String eTag = currentETag.get();
+            if (matches(ifNoneMatch, eTag, false)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        T result = body.get();
+        String eTag = eTagOf.apply(result);
+        if (ifNoneMatch != null && currentETag == null && matches(ifNoneMatch, eTag, false)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(result);
+    }
+
+    static String product(ProductDTO product) {
+        return new Digest().product(product.getId(), product.getVersion(), product.getCategoryName()).toETag();
+    }
+
+    static String product(ProductVersionView product) {
+        return new Digest().product(product.getId(), product.getVersion(), product.getCategoryName()).toETag();
+    }
+
+    static String productPage(Object scope, Slice<ProductDTO> page) {
+        Digest digest = new Digest().page(scope, page);
+        page.forEach(product -> digest.product(product.getId(), product.getVersion(), product.getCategoryName()));
+        return digest.toETag();
+    }
+
+    static String productFields(Map<String, Object> product) {
+        return new Digest().fields(product).toETag();
+    }
+
+    static String productFields(List<Map<String, Object>> products) {
+        Digest digest = new Digest();
+        products.forEach(digest::fields);
+        return digest.toETag();
+    }
+
+    static String productFieldsPage(Object scope, Slice<Map<String, Object>> page) {
+        Digest digest = new Digest().page(scope, page);
+        page.forEach(digest::fields);
+        return digest.toETag();
+    }
+
+    static String category(CategoryDTO category) {
+        return new Digest().category(category.getId(), category.getVersion(), category.getProductCount()).toETag();
+    }
+
+    static String category(CategoryVersionView category) {
+        return new Digest().category(category.getId(), category.getVersion(), category.getProductCount()).toETag();
+    }
+
+    static String categories(List<CategoryDTO> categories) {
+        Digest digest = new Digest();
+        categories.forEach(category -> digest.category(category.getId(), category.getVersion(), category.getProductCount()));
+        return digest.toETag();
+    }
+
+    static String categoryVersions(List<CategoryVersionView> categories) {
+        Digest digest = new Digest();
+        categories.forEach(category -> digest.category(category.getId(), category.getVersion(), category.getProductCount()));
+        return digest.toETag();
+    }
+
+    /**
+     * Check a conditional header against the current entity tag
+     * @param header The If-Match or If-None-Match header value
+     * @param eTag The current entity tag
+     * @param strong True to use the strong comparison required by If-Match, false for the weak one of If-None-Match
+     * @return True if the header is "*" or lists the current tag
+     */
+    static boolean matches(String header, String eTag, boolean strong) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (!strong && tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Digest {
+
+        private final StringBuilder source = new StringBuilder();
+
+        Digest product(Long id, Long version, String categoryName) {
+            return append("p", id, version, categoryName);
+        }
+
+        Digest category(Long id, Long version, Number productCount) {
+            // The count is a Long in projections and an Integer in DTOs
+            return append("c", id, version, productCount == null ? null : productCount.longValue());
+        }
+
+        Digest fields(Map<String, Object> values) {
+            // Projected products may lack the version, so the selected values themselves are digested
+            return append("f", values);
+        }
+
+        Digest page(Object scope, Slice<?> page) {
+            // A slice has no total, but whether it has a next page is part of the response
+            Object total = page instanceof Page<?> p ? p.getTotalElements() : "hasNext=" + page.hasNext();
+            return append("page", scope, page.getNumber(), page.getSize(), page.getSort(), total);
+        }
+
+        String toETag() {
+            return "\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        }
+
+        private Digest append(Object... parts) {
+            for (Object part : parts) {
+                source.append(part).append('\u001f');
+            }
+            source.append('\u001e');
+            return this;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.inventory.stockmanagementapi.controller;
+
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.service.IdempotencyService;
+import com.inventory.stockmanagementapi.service.StockOwnership;
+import com.inventory.stockmanagementapi.service.StockUpdateBatcher;
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Endpoints the instances call on each other when they share the products with {@code ownership.nodes}.
+ * They are not part of the public API and should not be reachable from outside the cluster.
+ */
+@RestController
+@Hidden
+public class InternalStockController {
+
+    private final IdempotencyService idempotencyService;
+    private final StockOwnership stockOwnership;
+    private final StockUpdateBatcher stockUpdateBatcher;
+
+    @Autowired
+    public InternalStockController(IdempotencyService idempotencyService, StockOwnership stockOwnership,
+                                   StockUpdateBatcher stockUpdateBatcher) {
+        this.idempotencyService = idempotencyService;
+        this.stockOwnership = stockOwnership;
+        this.stockUpdateBatcher = stockUpdateBatcher;
+    }
+
+    /**
+     * Write a stock update forwarded by another instance, without forwarding it again even if this instance no
+     * longer owns the product
+     */
+    @PatchMapping(StockOwnership.INTERNAL_STOCK_PATH)
+    public ResponseEntity<ProductDTO> updateStock(
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody StockUpdateDTO stockUpdateDTO) {
+        // Same operation as the public endpoint, so that a retry reaching this instance directly is recognized
+        return idempotencyService.execute(idempotencyKey, "PATCH /api/products/stock", stockUpdateDTO, ProductDTO.class,
+                () -> ResponseEntity.ok(stockUpdateBatcher.updateStock(stockUpdateDTO)));
+    }
+
+    /**
+     * Answer the heartbeats of the other instances
+     */
+    @GetMapping(StockOwnership.INTERNAL_PING_PATH)
+    public Map<String, Object> getOwnership() {
+        return Map.of("self", stockOwnership.getSelf(), "liveMembers", stockOwnership.getLiveMembers());
+    }
+}
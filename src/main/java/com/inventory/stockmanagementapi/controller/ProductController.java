@@ -1,8 +1,20 @@
 package com.inventory.stockmanagementapi.controller;
 
+import com.inventory.stockmanagementapi.dto.PaginationMode;
+import com.inventory.stockmanagementapi.dto.ProductBatchGetDTO;
 import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.ProductDeltaDTO;
+import com.inventory.stockmanagementapi.dto.ProductLookupResultDTO;
 import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.PreconditionFailedException;
+import com.inventory.stockmanagementapi.repository.projection.ProductVersionView;
+import com.inventory.stockmanagementapi.service.IdempotencyService;
+import com.inventory.stockmanagementapi.service.ProductDeltaService;
+import com.inventory.stockmanagementapi.service.ProductReadCoalescer;
 import com.inventory.stockmanagementapi.service.ProductService;
+import com.inventory.stockmanagementapi.service.StockOwnership;
+import com.inventory.stockmanagementapi.service.StockUpdateBatcher;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,35 +24,85 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
 @Tag(name = "Product", description = "Product management APIs")
 public class ProductController {
 
+    private static final String PAGINATION_DESCRIPTION = "How to compute the total: PAGE (exact count), "
+            + "SLICE (no count, only whether a next page exists) or APPROXIMATE (periodically refreshed count)";
+
+    private static final String FIELDS_DESCRIPTION = "Comma-separated fields to return, e.g. id,sku,quantity. "
+            + "Only these columns are read from the database";
+
     private final ProductService productService;
+    private final ProductReadCoalescer productReadCoalescer;
+    private final IdempotencyService idempotencyService;
+    private final ProductDeltaService productDeltaService;
+    private final StockOwnership stockOwnership;
+    private final StockUpdateBatcher stockUpdateBatcher;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductReadCoalescer productReadCoalescer,
+                             IdempotencyService idempotencyService,
+                             ProductDeltaService productDeltaService, StockOwnership stockOwnership,
+                             StockUpdateBatcher stockUpdateBatcher) {
         this.productService = productService;
+        this.productReadCoalescer = productReadCoalescer;
+        this.idempotencyService = idempotencyService;
+        this.productDeltaService = productDeltaService;
+        this.stockOwnership = stockOwnership;
+        this.stockUpdateBatcher = stockUpdateBatcher;
     }
 
     @GetMapping
     @Operation(summary = "Get all products", description = "Retrieve a paginated list of all products")
     @ApiResponse(responseCode = "200", description = "Products retrieved successfully")
-    public ResponseEntity<Page<ProductDTO>> getProducts(
+    public ResponseEntity<Slice<ProductDTO>> getProducts(
             @Parameter(description = "Pagination parameters")
-            @PageableDefault(size = 20) Pageable pageable) {
-        Page<ProductDTO> products = productService.getProducts(pageable);
-        return ResponseEntity.ok(products);
+            @PageableDefault(size = 20) Pageable pageable,
+            @Parameter(description = PAGINATION_DESCRIPTION)
+            @RequestParam(defaultValue = "PAGE") PaginationMode pagination,
+            @Parameter(description = "Entity tag of the page held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Tagged from the page loaded, a version probe would run the page and count queries twice when stale
+        return ETags.conditionalGet(ifNoneMatch, null,
+                () -> productService.getProducts(pageable, pagination),
+                products -> ETags.productPage("all", products));
+    }
+
+    @GetMapping(params = "fields")
+    @Operation(summary = "Get some fields of all products", description = "Retrieve a paginated list of all products, restricted to the requested fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Products not modified", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
+    })
+    public ResponseEntity<Slice<Map<String, Object>>> getProductFields(
+            @Parameter(description = FIELDS_DESCRIPTION, required = true)
+            @RequestParam String fields,
+            @Parameter(description = "Pagination parameters")
+            @PageableDefault(size = 20) Pageable pageable,
+            @Parameter(description = PAGINATION_DESCRIPTION)
+            @RequestParam(defaultValue = "PAGE") PaginationMode pagination,
+            @Parameter(description = "Entity tag of the page held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, null,
+                () -> productService.getProductFields(fields, pageable, pagination),
+                products -> ETags.productFieldsPage("all", products));
     }
 
     @GetMapping("/all")
@@ -51,46 +113,180 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping(value = "/all", params = "fields")
+    @Operation(summary = "Get some fields of all products without pagination", description = "Retrieve a complete list of all products, restricted to the requested fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Products not modified", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
+    })
+    public ResponseEntity<List<Map<String, Object>>> getAllProductFields(
+            @Parameter(description = FIELDS_DESCRIPTION, required = true)
+            @RequestParam String fields,
+            @Parameter(description = "Entity tag of the products held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, null,
+                () -> productService.getAllProductFields(fields),
+                ETags::productFields);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID", description = "Get a product by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product found"),
+            @ApiResponse(responseCode = "304", description = "Product not modified", content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found", content = @Content)
     })
     public ResponseEntity<ProductDTO> getProductById(
             @Parameter(description = "Product ID", required = true)
-            @PathVariable Long id) {
-        ProductDTO product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+            @PathVariable Long id,
+            @Parameter(description = "Entity tag of the product held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch,
+                () -> ETags.product(productService.getProductVersion(id)),
+                () -> productReadCoalescer.getProductById(id),
+                ETags::product);
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    @Operation(summary = "Get some fields of a product by ID", description = "Get a product by its ID, restricted to the requested fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Product found"),
+            @ApiResponse(responseCode = "304", description = "Product not modified", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content)
+    })
+    public ResponseEntity<Map<String, Object>> getProductFieldsById(
+            @Parameter(description = "Product ID", required = true)
+            @PathVariable Long id,
+            @Parameter(description = FIELDS_DESCRIPTION, required = true)
+            @RequestParam String fields,
+            @Parameter(description = "Entity tag of the product held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, null,
+                () -> productService.getProductFieldsById(id, fields),
+                ETags::productFields);
+    }
+
+    @PostMapping("/batch-get")
+    @Operation(summary = "Get many products at once", description = "Retrieve products by ID and/or SKU in a single request. Results follow the request order, IDs first, and report products that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products looked up"),
+            @ApiResponse(responseCode = "400", description = "Empty request or too many IDs and SKUs", content = @Content)
+    })
+    public ResponseEntity<List<ProductLookupResultDTO>> getProductsByIdsOrSkus(
+            @Parameter(description = "IDs and SKUs to look up", required = true, schema = @Schema(implementation = ProductBatchGetDTO.class))
+            @Valid @RequestBody ProductBatchGetDTO batchGetDTO) {
+        List<ProductLookupResultDTO> results = productService.getProductsByIdsOrSkus(batchGetDTO);
+        return ResponseEntity.ok(results);
     }
 
     @GetMapping("/category/{categoryId}")
     @Operation(summary = "Get products by category", description = "Retrieve products belonging to a specific category")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Products not modified", content = @Content),
             @ApiResponse(responseCode = "404", description = "Category not found", content = @Content)
     })
-    public ResponseEntity<Page<ProductDTO>> getProductsByCategory(
+    public ResponseEntity<Slice<ProductDTO>> getProductsByCategory(
             @Parameter(description = "Category ID", required = true)
             @PathVariable Long categoryId,
             @Parameter(description = "Pagination parameters")
-            @PageableDefault(size = 20) Pageable pageable) {
-        Page<ProductDTO> products = productService.getProductsByCategory(categoryId, pageable);
-        return ResponseEntity.ok(products);
+            @PageableDefault(size = 20) Pageable pageable,
+            @Parameter(description = PAGINATION_DESCRIPTION)
+            @RequestParam(defaultValue = "PAGE") PaginationMode pagination,
+            @Parameter(description = "Entity tag of the page held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, null,
+                () -> productService.getProductsByCategory(categoryId, pageable, pagination),
+                products -> ETags.productPage(categoryId, products));
+    }
+
+    @GetMapping(value = "/category/{categoryId}", params = "fields")
+    @Operation(summary = "Get some fields of the products of a category", description = "Retrieve products belonging to a specific category, restricted to the requested fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Products not modified", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Category not found", content = @Content)
+    })
+    public ResponseEntity<Slice<Map<String, Object>>> getProductFieldsByCategory(
+            @Parameter(description = "Category ID", required = true)
+            @PathVariable Long categoryId,
+            @Parameter(description = FIELDS_DESCRIPTION, required = true)
+            @RequestParam String fields,
+            @Parameter(description = "Pagination parameters")
+            @PageableDefault(size = 20) Pageable pageable,
+            @Parameter(description = PAGINATION_DESCRIPTION)
+            @RequestParam(defaultValue = "PAGE") PaginationMode pagination,
+            @Parameter(description = "Entity tag of the page held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, null,
+                () -> productService.getProductFieldsByCategory(categoryId, fields, pageable, pagination),
+                products -> ETags.productFieldsPage(categoryId, products));
+    }
+
+    @GetMapping("/modified-since")
+    @Operation(summary = "Get products modified since a time", description = "Retrieve the products created, updated "
+            + "or deleted since the watermark of the previous sync, page by page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Delta retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Missing time, invalid cursor or limit", content = @Content),
+            @ApiResponse(responseCode = "410", description = "Deletions since that time are no longer known, the catalog must be read again", content = @Content)
+    })
+    public ResponseEntity<ProductDeltaDTO> getProductsModifiedSince(
+            @Parameter(description = "Watermark returned by the previous sync (ISO date time), required without cursor")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ts,
+            @Parameter(description = "Cursor returned with the previous page of the same sync")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of products, and of deleted products, per page")
+            @RequestParam(defaultValue = "1000") int limit) {
+        if (cursor != null) {
+            return ResponseEntity.ok(productDeltaService.getModifiedSince(cursor, limit));
+        }
+        if (ts == null) {
+            throw new BusinessException("Either ts or cursor is required");
+        }
+        return ResponseEntity.ok(productDeltaService.getModifiedSince(ts, limit));
     }
 
     @GetMapping("/search")
     @Operation(summary = "Search products", description = "Search products by name or description")
     @ApiResponse(responseCode = "200", description = "Search results retrieved")
-    public ResponseEntity<Page<ProductDTO>> searchProducts(
+    public ResponseEntity<Slice<ProductDTO>> searchProducts(
             @Parameter(description = "Search term", required = true)
             @RequestParam String term,
             @Parameter(description = "Pagination parameters")
-            @PageableDefault(size = 20) Pageable pageable) {
-        Page<ProductDTO> products = productService.searchProducts(term, pageable);
+            @PageableDefault(size = 20) Pageable pageable,
+            @Parameter(description = PAGINATION_DESCRIPTION)
+            @RequestParam(defaultValue = "PAGE") PaginationMode pagination) {
+        Slice<ProductDTO> products = productReadCoalescer.searchProducts(term, pageable, pagination);
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping(value = "/search", params = "fields")
+    @Operation(summary = "Search products, returning some fields", description = "Search products by name or description, restricted to the requested fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search results retrieved"),
+            @ApiResponse(responseCode = "304", description = "Products not modified", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
+    })
+    public ResponseEntity<Slice<Map<String, Object>>> searchProductFields(
+            @Parameter(description = "Search term", required = true)
+            @RequestParam String term,
+            @Parameter(description = FIELDS_DESCRIPTION, required = true)
+            @RequestParam String fields,
+            @Parameter(description = "Pagination parameters")
+            @PageableDefault(size = 20) Pageable pageable,
+            @Parameter(description = PAGINATION_DESCRIPTION)
+            @RequestParam(defaultValue = "PAGE") PaginationMode pagination,
+            @Parameter(description = "Entity tag of the page held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, null,
+                () -> productService.searchProductFields(term, fields, pageable, pagination),
+                products -> ETags.productFieldsPage("search:" + term, products));
+    }
+
     @GetMapping("/low-stock")
     @Operation(summary = "Get low stock products", description = "Retrieve products with stock below a specified threshold")
     @ApiResponse(responseCode = "200", description = "Low stock products retrieved")
@@ -101,6 +297,25 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping(value = "/low-stock", params = "fields")
+    @Operation(summary = "Get some fields of low stock products", description = "Retrieve products with stock below a specified threshold, restricted to the requested fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Low stock products retrieved"),
+            @ApiResponse(responseCode = "304", description = "Products not modified", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
+    })
+    public ResponseEntity<List<Map<String, Object>>> getLowStockProductFields(
+            @Parameter(description = "Stock threshold (default: 10)")
+            @RequestParam(defaultValue = "10") Integer threshold,
+            @Parameter(description = FIELDS_DESCRIPTION, required = true)
+            @RequestParam String fields,
+            @Parameter(description = "Entity tag of the products held by the client")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(ifNoneMatch, null,
+                () -> productService.getLowStockProductFields(threshold, fields),
+                ETags::productFields);
+    }
+
     @PostMapping
     @Operation(summary = "Create a new product", description = "Create a new product with the provided data")
     @ApiResponses(value = {
@@ -109,10 +324,14 @@ public class ProductController {
             @ApiResponse(responseCode = "404", description = "Category not found", content = @Content)
     })
     public ResponseEntity<ProductDTO> createProduct(
+            @Parameter(description = "Unique key making the request safe to retry")
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Parameter(description = "Product data", required = true, schema = @Schema(implementation = ProductDTO.class))
             @Valid @RequestBody ProductDTO productDTO) {
-        ProductDTO createdProduct = productService.createProduct(productDTO);
-        return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
+        return idempotencyService.execute(idempotencyKey, "POST /api/products", productDTO, ProductDTO.class, () -> {
+            ProductDTO createdProduct = productService.createProduct(productDTO);
+            return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
+        });
     }
 
     @PutMapping("/{id}")
@@ -120,15 +339,23 @@ public class ProductController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product updated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input or SKU already exists", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Product or category not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Product or category not found", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Product modified since the version given in If-Match", content = @Content)
     })
     public ResponseEntity<ProductDTO> updateProduct(
             @Parameter(description = "Product ID", required = true)
             @PathVariable Long id,
+            @Parameter(description = "Unique key making the request safe to retry")
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Parameter(description = "Entity tag of the product the update is based on")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Updated product data", required = true, schema = @Schema(implementation = ProductDTO.class))
             @Valid @RequestBody ProductDTO productDTO) {
-        ProductDTO updatedProduct = productService.updateProduct(id, productDTO);
-        return ResponseEntity.ok(updatedProduct);
+        return idempotencyService.execute(idempotencyKey, "PUT /api/products/" + id, productDTO, ProductDTO.class, () -> {
+            Long expectedVersion = ifMatch != null ? expectedVersion(id, ifMatch) : null;
+            ProductDTO updatedProduct = productService.updateProduct(id, productDTO, expectedVersion);
+            return ResponseEntity.ok().eTag(ETags.product(updatedProduct)).body(updatedProduct);
+        });
     }
 
     @DeleteMapping("/{id}")
@@ -139,9 +366,13 @@ public class ProductController {
     })
     public ResponseEntity<Void> deleteProduct(
             @Parameter(description = "Product ID", required = true)
-            @PathVariable Long id) {
-        productService.deleteProduct(id);
-        return ResponseEntity.noContent().build();
+            @PathVariable Long id,
+            @Parameter(description = "Unique key making the request safe to retry")
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "DELETE /api/products/" + id, null, Void.class, () -> {
+            productService.deleteProduct(id);
+            return ResponseEntity.noContent().build();
+        });
     }
 
     @PatchMapping("/stock")
@@ -152,9 +383,34 @@ public class ProductController {
             @ApiResponse(responseCode = "404", description = "Product not found", content = @Content)
     })
     public ResponseEntity<ProductDTO> updateStock(
+            @Parameter(description = "Unique key making the request safe to retry")
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Parameter(description = "Stock update information", required = true, schema = @Schema(implementation = StockUpdateDTO.class))
             @Valid @RequestBody StockUpdateDTO stockUpdateDTO) {
-        ProductDTO updatedProduct = productService.updateStock(stockUpdateDTO);
-        return ResponseEntity.ok(updatedProduct);
+        // The instance owning the product writes its stock, and recognizes retries
+        ResponseEntity<ProductDTO> forwarded = stockOwnership.forward(idempotencyKey, stockUpdateDTO);
+        if (forwarded != null) {
+            return forwarded;
+        }
+        return idempotencyService.execute(idempotencyKey, "PATCH /api/products/stock", stockUpdateDTO, ProductDTO.class, () -> {
+            ProductDTO updatedProduct = stockUpdateBatcher.updateStock(stockUpdateDTO);
+            return ResponseEntity.ok(updatedProduct);
+        });
+    }
+
+    /**
+     * Resolve the If-Match header of an update to the product version it refers to
+     * @param id The product ID
+     * @param ifMatch The If-Match header value
+     * @return The current product version, or null if any version is accepted
+     * @throws PreconditionFailedException if the header does not match the current entity tag
+     */
+    private Long expectedVersion(Long id, String ifMatch) {
+        ProductVersionView current = productService.getProductVersion(id);
+        String currentETag = ETags.product(current);
+        if (!ETags.matches(ifMatch, currentETag, true)) {
+            throw new PreconditionFailedException("Product " + id + " has been modified, its current entity tag is " + currentETag);
+        }
+        return ifMatch.trim().equals("*") ? null : current.getVersion();
     }
 }
@@ -0,0 +1,92 @@
+package com.inventory.stockmanagementapi.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.dto.TickerCommandDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.service.StockTicker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * WebSocket endpoint of the live stock ticker.
+ * <p>
+ * Clients send {@code {"action": "SUBSCRIBE", "productIds": [1, 2], "categoryIds": [3]}} (or {@code UNSUBSCRIBE})
+ * and receive the current stock levels, then {@code {"ticks": [...]}} messages with the latest quantity of the
+ * products that changed. Invalid commands are answered with {@code {"error": "..."}}.
+ */
+@Slf4j
+public class StockTickerWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String SUBSCRIPTION_ATTRIBUTE = "stockTickerSubscription";
+    private static final String SESSION_ATTRIBUTE = "stockTickerSession";
+
+    private final StockTicker stockTicker;
+    private final ObjectMapper objectMapper;
+    private final int sendTimeLimit;
+    private final int sendBufferLimit;
+
+    /**
+     * @param stockTicker The ticker
+     * @param objectMapper Writes the messages
+     * @param sendTimeLimit Milliseconds a send may take before the session is closed
+     * @param sendBufferLimit Bytes of messages waiting for a send in progress before the session is closed
+     */
+    public StockTickerWebSocketHandler(StockTicker stockTicker, ObjectMapper objectMapper,
+                                       int sendTimeLimit, int sendBufferLimit) {
+        this.stockTicker = stockTicker;
+        this.objectMapper = objectMapper;
+        this.sendTimeLimit = sendTimeLimit;
+        this.sendBufferLimit = sendBufferLimit;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // Ticks and error replies are sent from different threads
+        WebSocketSession concurrentSession =
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, sendBufferLimit);
+        StockTicker.Subscription subscription = stockTicker.open(ticks ->
+                concurrentSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of("ticks", ticks)))));
+        session.getAttributes().put(SUBSCRIPTION_ATTRIBUTE, subscription);
+        session.getAttributes().put(SESSION_ATTRIBUTE, concurrentSession);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        StockTicker.Subscription subscription = (StockTicker.Subscription) session.getAttributes().get(SUBSCRIPTION_ATTRIBUTE);
+        try {
+            TickerCommandDTO command = objectMapper.readValue(message.getPayload(), TickerCommandDTO.class);
+            if (command.getAction() == null) {
+                throw new BusinessException("The action is required");
+            }
+            switch (command.getAction()) {
+                case SUBSCRIBE -> subscription.subscribe(command.getProductIds(), command.getCategoryIds());
+                case UNSUBSCRIBE -> subscription.unsubscribe(command.getProductIds(), command.getCategoryIds());
+            }
+        } catch (JsonProcessingException ex) {
+            sendError(session, "Invalid command: " + ex.getOriginalMessage());
+        } catch (BusinessException ex) {
+            sendError(session, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        StockTicker.Subscription subscription = (StockTicker.Subscription) session.getAttributes().remove(SUBSCRIPTION_ATTRIBUTE);
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
+    private void sendError(WebSocketSession session, String error) throws IOException {
+        WebSocketSession concurrentSession = (WebSocketSession) session.getAttributes().get(SESSION_ATTRIBUTE);
+        concurrentSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of("error", error))));
+    }
+}
@@ -0,0 +1,40 @@
+package com.inventory.stockmanagementapi.domain;
+
+import com.inventory.stockmanagementapi.service.CatalogChangeEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A committed catalog change announced by an instance to the other ones, when the invalidation bus uses the
+ * database transport. Rows are purged once every instance had time to read them.
+ */
+@Entity
+@Table(name = "cache_invalidations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The instance that committed the change
+    @Column(nullable = false, length = 64)
+    private String node;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private CatalogChangeEvent.Type type;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    // Epoch milliseconds, compared with the clocks of the other instances
+    @Column(name = "committed_at", nullable = false)
+    private Long committedAt;
+}
@@ -0,0 +1,38 @@
+package com.inventory.stockmanagementapi.domain;
+
+import com.inventory.stockmanagementapi.service.CatalogChangeEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed product or category mutation, as served by the change feed to consumers that fell behind its
+ * in-memory buffer. Sequence numbers are assigned right before the commit, and may become visible out of order.
+ */
+@Entity
+@Table(name = "catalog_changes", indexes = @Index(name = "idx_catalog_changes_occurred_at", columnList = "occurred_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private CatalogChangeEvent.Type type;
+
+    // Null for a reset of the whole catalog
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
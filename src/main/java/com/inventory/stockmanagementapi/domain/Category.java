@@ -33,4 +33,8 @@ public class Category {
 
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL)
     private List<Product> products = new ArrayList<>();
+
+    // Incremented on every update, used for optimistic locking and entity tags
+    @Version
+    private Long version;
 }
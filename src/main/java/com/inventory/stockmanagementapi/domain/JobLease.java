@@ -0,0 +1,34 @@
+package com.inventory.stockmanagementapi.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The lease of a cluster job: the instance that last started it, when, and until when no other instance may start
+ * it.
+ */
+@Entity
+@Table(name = "job_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    // Epoch milliseconds, compared with the clocks of the other instances
+    @Column(name = "locked_at", nullable = false)
+    private Long lockedAt;
+
+    @Column(name = "locked_until", nullable = false)
+    private Long lockedUntil;
+}
@@ -0,0 +1,42 @@
+package com.inventory.stockmanagementapi.domain;
+
+import com.inventory.stockmanagementapi.service.CatalogChangeEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An integration event written in the transaction of the product change it describes, until the outbox relay
+ * hands it to the sink.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private CatalogChangeEvent.Type type;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // JSON state of the product after the change
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
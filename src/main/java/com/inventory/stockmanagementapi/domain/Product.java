@@ -11,7 +11,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+// The (updated_at, id) index serves the keyset scans of the delta sync
+@Table(name = "products", indexes = @Index(name = "idx_products_updated_at_id", columnList = "updated_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -53,6 +54,10 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Incremented on every update, used for optimistic locking and entity tags
+    @Version
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
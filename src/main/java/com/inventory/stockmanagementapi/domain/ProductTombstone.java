@@ -0,0 +1,29 @@
+package com.inventory.stockmanagementapi.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trace of a deleted product, so that delta sync consumers can remove it from their copy.
+ */
+@Entity
+@Table(name = "product_tombstones",
+        indexes = @Index(name = "idx_product_tombstones_deleted_at_id", columnList = "deleted_at, product_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductTombstone {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
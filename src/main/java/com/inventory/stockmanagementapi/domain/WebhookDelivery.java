@@ -0,0 +1,49 @@
+package com.inventory.stockmanagementapi.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A webhook batch that could not be delivered, retried with backoff until it succeeds or runs out of attempts.
+ */
+@Entity
+@Table(name = "webhook_deliveries",
+        indexes = @Index(name = "idx_webhook_deliveries_due", columnList = "dead, next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 2048)
+    private String url;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Set once the attempts are exhausted, the batch is kept for inspection
+    @Column(nullable = false)
+    private Boolean dead;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
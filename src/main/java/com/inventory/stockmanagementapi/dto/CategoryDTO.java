@@ -22,4 +22,7 @@ public class CategoryDTO {
     
     // Product count is used for returning the count of products in a category
     private Integer productCount;
+    
+    // Read-only, ignored when creating or updating a category
+    private Long version;
 }
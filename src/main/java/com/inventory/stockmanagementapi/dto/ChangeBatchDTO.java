@@ -0,0 +1,21 @@
+package com.inventory.stockmanagementapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeBatchDTO {
+    
+    private List<ChangeEventDTO> changes;
+    
+    // The cursor to pass as "after" in the next request: the last returned sequence number, or the requested one
+    private long lastSeq;
+    
+    // True if more changes follow, in which case the next request returns immediately
+    private boolean hasMore;
+}
@@ -0,0 +1,24 @@
+package com.inventory.stockmanagementapi.dto;
+
+import com.inventory.stockmanagementapi.service.CatalogChangeEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEventDTO {
+    
+    // Increases with every committed change, in commit order
+    private Long seq;
+    
+    private CatalogChangeEvent.Type type;
+    
+    // The ID of the changed product or category, null for a reset of the whole catalog
+    private Long entityId;
+    
+    private LocalDateTime occurredAt;
+}
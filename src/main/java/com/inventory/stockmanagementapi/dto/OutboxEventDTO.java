@@ -0,0 +1,28 @@
+package com.inventory.stockmanagementapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.inventory.stockmanagementapi.service.CatalogChangeEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventDTO {
+    
+    // Unique, consumers use it to drop the events relayed twice
+    private Long id;
+    
+    private CatalogChangeEvent.Type type;
+    
+    private Long productId;
+    
+    // The product after the change, or only its ID for a deletion
+    @JsonRawValue
+    private String payload;
+    
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,10 @@
+package com.inventory.stockmanagementapi.dto;
+
+/**
+ * How the total of a paginated product listing is computed
+ */
+public enum PaginationMode {
+    PAGE,           // Exact total, computed with a COUNT query next to the data query
+    SLICE,          // No total, only whether a next page exists (fetches one extra row)
+    APPROXIMATE     // Total served from periodically refreshed cached counts
+}
@@ -0,0 +1,22 @@
+package com.inventory.stockmanagementapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchGetDTO {
+    
+    // Product IDs to look up, resolved in the given order
+    private List<@NotNull(message = "Product IDs cannot be null") Long> ids = new ArrayList<>();
+    
+    // Product SKUs to look up, resolved in the given order after the IDs
+    private List<@NotBlank(message = "SKUs cannot be blank") String> skus = new ArrayList<>();
+}
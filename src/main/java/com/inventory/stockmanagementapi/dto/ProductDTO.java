@@ -2,6 +2,7 @@ package com.inventory.stockmanagementapi.dto;
 
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -11,6 +12,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Builder(toBuilder = true)
 public class ProductDTO {
     
     private Long id;
@@ -42,4 +44,7 @@ public class ProductDTO {
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
+    
+    // Read-only, ignored when creating or updating a product
+    private Long version;
 }
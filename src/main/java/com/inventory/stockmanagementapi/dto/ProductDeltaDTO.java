@@ -0,0 +1,26 @@
+package com.inventory.stockmanagementapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDeltaDTO {
+    
+    // Products created or modified since the requested time, in modification order
+    private List<ProductDTO> products;
+    
+    // Products deleted since the requested time, in deletion order
+    private List<ProductTombstoneDTO> deleted;
+    
+    // Pass as "cursor" to get the next page, null once the delta is complete
+    private String nextCursor;
+    
+    // Pass as "ts" in the next sync; changes from this time on are not part of this delta
+    private LocalDateTime watermark;
+}
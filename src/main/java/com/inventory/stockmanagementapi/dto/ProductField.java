@@ -0,0 +1,45 @@
+package com.inventory.stockmanagementapi.dto;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The fields of a product that can be requested with the {@code fields} query parameter
+ */
+public enum ProductField {
+    ID("id"),
+    NAME("name"),
+    DESCRIPTION("description"),
+    PRICE("price"),
+    QUANTITY("quantity"),
+    SKU("sku"),
+    CATEGORY_ID("categoryId"),
+    CATEGORY_NAME("categoryName"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt"),
+    VERSION("version");
+
+    private final String propertyName;
+
+    ProductField(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * @return The name of the field in {@link ProductDTO} and in JSON responses
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    /**
+     * Find a field by its property name
+     * @param propertyName The property name, e.g. "categoryName"
+     * @return The field, or empty if there is no such field
+     */
+    public static Optional<ProductField> fromPropertyName(String propertyName) {
+        return Arrays.stream(values())
+                .filter(field -> field.propertyName.equals(propertyName))
+                .findFirst();
+    }
+}
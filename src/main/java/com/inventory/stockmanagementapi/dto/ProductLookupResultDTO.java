@@ -0,0 +1,32 @@
+package com.inventory.stockmanagementapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductLookupResultDTO {
+    
+    // The requested ID, set when the lookup was by ID
+    private Long id;
+    
+    // The requested SKU, set when the lookup was by SKU
+    private String sku;
+    
+    private boolean found;
+    
+    // The product, or null if no product matches the requested ID or SKU
+    private ProductDTO product;
+    
+    public static ProductLookupResultDTO byId(Long id, ProductDTO product) {
+        return new ProductLookupResultDTO(id, null, product != null, product);
+    }
+    
+    public static ProductLookupResultDTO bySku(String sku, ProductDTO product) {
+        return new ProductLookupResultDTO(null, sku, product != null, product);
+    }
+}
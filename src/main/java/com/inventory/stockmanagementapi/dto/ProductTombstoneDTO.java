@@ -0,0 +1,18 @@
+package com.inventory.stockmanagementapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductTombstoneDTO {
+    
+    // The ID of the deleted product
+    private Long id;
+    
+    private LocalDateTime deletedAt;
+}
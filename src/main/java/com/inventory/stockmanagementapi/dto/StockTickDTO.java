@@ -0,0 +1,31 @@
+package com.inventory.stockmanagementapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StockTickDTO {
+    
+    private Long productId;
+    
+    private String sku;
+    
+    private Long categoryId;
+    
+    // The latest committed quantity; intermediate values of a burst are not sent
+    private Integer quantity;
+    
+    private Long version;
+    
+    // Set when the product no longer exists, all other fields but productId are then null
+    private Boolean deleted;
+    
+    public static StockTickDTO deleted(Long productId) {
+        return new StockTickDTO(productId, null, null, null, null, true);
+    }
+}
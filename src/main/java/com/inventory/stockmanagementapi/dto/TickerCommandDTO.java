@@ -0,0 +1,24 @@
+package com.inventory.stockmanagementapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TickerCommandDTO {
+    
+    public enum Action {
+        SUBSCRIBE,
+        UNSUBSCRIBE
+    }
+    
+    private Action action;
+    
+    private List<Long> productIds;
+    
+    private List<Long> categoryIds;
+}
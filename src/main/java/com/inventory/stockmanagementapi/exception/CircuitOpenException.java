@@ -0,0 +1,23 @@
+package com.inventory.stockmanagementapi.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling the database while its circuit breaker is open
+ */
+public class CircuitOpenException extends ServiceUnavailableException {
+
+    private final Duration retryAfter;
+
+    public CircuitOpenException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return How long until the database is called again
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,23 @@
+package com.inventory.stockmanagementapi.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the instance owning a product refused a forwarded stock update because its sender exceeded a quota
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return How long the owner asked to wait before retrying
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,232 @@
+package com.inventory.stockmanagementapi.grpc;
+
+import com.inventory.stockmanagementapi.dto.ProductBatchGetDTO;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.ProductLookupResultDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.DeadlineExceededException;
+import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
+import com.inventory.stockmanagementapi.exception.ServiceUnavailableException;
+import com.inventory.stockmanagementapi.grpc.proto.AckStatus;
+import com.inventory.stockmanagementapi.grpc.proto.BatchGetProductsRequest;
+import com.inventory.stockmanagementapi.grpc.proto.BatchGetProductsResponse;
+import com.inventory.stockmanagementapi.grpc.proto.GetProductRequest;
+import com.inventory.stockmanagementapi.grpc.proto.InventoryGrpc;
+import com.inventory.stockmanagementapi.grpc.proto.Product;
+import com.inventory.stockmanagementapi.grpc.proto.StockUpdate;
+import com.inventory.stockmanagementapi.grpc.proto.StockUpdateAck;
+import com.inventory.stockmanagementapi.service.Deadline;
+import com.inventory.stockmanagementapi.service.ProductReadCoalescer;
+import com.inventory.stockmanagementapi.service.ProductService;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * gRPC implementation of the Inventory service, delegating to {@link ProductService}.
+ * <p>
+ * The StockUpdates stream uses manual flow control: the next movement is requested from the client only once the
+ * previous one has been applied and its acknowledgement could be sent without buffering. A client sending faster
+ * than the database can apply movements is therefore slowed down by HTTP/2 flow control instead of filling the
+ * server memory.
+ * <p>
+ * The deadline a client sets on a lookup becomes the {@link Deadline} of the call, like the timeout header of a
+ * REST request.
+ */
+@Component
+@Slf4j
+public class InventoryGrpcService extends InventoryGrpc.InventoryImplBase {
+
+    private final ProductService productService;
+    private final ProductReadCoalescer productReadCoalescer;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public InventoryGrpcService(ProductService productService, ProductReadCoalescer productReadCoalescer,
+                                Validator validator, MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.productReadCoalescer = productReadCoalescer;
+        this.validator = validator;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void getProduct(GetProductRequest request, StreamObserver<Product> responseObserver) {
+        try {
+            ProductDTO product = withDeadline(() -> switch (request.getKeyCase()) {
+                case ID -> productReadCoalescer.getProductById(request.getId());
+                case SKU -> findBySku(request.getSku());
+                default -> throw new BusinessException("A product ID or SKU is required");
+            });
+            responseObserver.onNext(ProtoMapper.toProto(product));
+            responseObserver.onCompleted();
+        } catch (RuntimeException ex) {
+            responseObserver.onError(toStatus(ex).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void batchGetProducts(BatchGetProductsRequest request, StreamObserver<BatchGetProductsResponse> responseObserver) {
+        try {
+            ProductBatchGetDTO batchGetDTO = new ProductBatchGetDTO(
+                    new ArrayList<>(request.getIdsList()), new ArrayList<>(request.getSkusList()));
+            BatchGetProductsResponse.Builder response = BatchGetProductsResponse.newBuilder();
+            withDeadline(() -> productService.getProductsByIdsOrSkus(batchGetDTO))
+                    .forEach(result -> response.addResults(ProtoMapper.toProto(result)));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (RuntimeException ex) {
+            responseObserver.onError(toStatus(ex).asRuntimeException());
+        }
+    }
+
+    @Override
+    public StreamObserver<StockUpdate> stockUpdates(StreamObserver<StockUpdateAck> responseObserver) {
+        ServerCallStreamObserver<StockUpdateAck> acks = (ServerCallStreamObserver<StockUpdateAck>) responseObserver;
+        acks.disableAutoRequest();
+
+        // Set when a movement has been requested and not yet received, so that it is requested only once
+        AtomicBoolean requested = new AtomicBoolean();
+        Runnable requestNext = () -> {
+            if (acks.isReady() && requested.compareAndSet(false, true)) {
+                acks.request(1);
+            }
+        };
+        // Called when the transport can take more acknowledgements, including right after the call starts
+        acks.setOnReadyHandler(requestNext);
+
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(StockUpdate update) {
+                requested.set(false);
+                acks.onNext(apply(update));
+                requestNext.run();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("Stock update stream cancelled by the client: {}", Status.fromThrowable(t));
+            }
+
+            @Override
+            public void onCompleted() {
+                acks.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * Apply one stock movement, turning failures into an acknowledgement rather than ending the stream
+     * @param update The stock movement
+     * @return The acknowledgement of the movement
+     */
+    private StockUpdateAck apply(StockUpdate update) {
+        StockUpdateAck.Builder ack = StockUpdateAck.newBuilder().setCorrelationId(update.getCorrelationId());
+        StockUpdateDTO stockUpdateDTO = ProtoMapper.toDTO(update);
+
+        Set<ConstraintViolation<StockUpdateDTO>> violations = validator.validate(stockUpdateDTO);
+        if (!violations.isEmpty()) {
+            return ack.setStatus(AckStatus.INVALID)
+                    .setErrorMessage(violations.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .sorted()
+                            .collect(Collectors.joining(", ")))
+                    .build();
+        }
+
+        try {
+            ProductDTO product = productService.updateStock(stockUpdateDTO);
+            return ack.setStatus(AckStatus.APPLIED).setProduct(ProtoMapper.toProto(product)).build();
+        } catch (ResourceNotFoundException ex) {
+            return ack.setStatus(AckStatus.NOT_FOUND).setErrorMessage(ex.getMessage()).build();
+        } catch (BusinessException ex) {
+            return ack.setStatus(AckStatus.REJECTED).setErrorMessage(ex.getMessage()).build();
+        } catch (ConcurrencyFailureException ex) {
+            return ack.setStatus(AckStatus.CONFLICT)
+                    .setErrorMessage("The product was modified by another request, please retry")
+                    .build();
+        } catch (ServiceUnavailableException ex) {
+            return ack.setStatus(AckStatus.FAILED).setErrorMessage(ex.getMessage()).build();
+        } catch (RuntimeException ex) {
+            // Wrapped by the transaction manager when the circuit of the database is open
+            if (ex.getCause() instanceof ServiceUnavailableException) {
+                return ack.setStatus(AckStatus.FAILED).setErrorMessage(ex.getCause().getMessage()).build();
+            }
+            log.error("Failed to apply stock update {}", update.getCorrelationId(), ex);
+            return ack.setStatus(AckStatus.FAILED).setErrorMessage("Unexpected error").build();
+        }
+    }
+
+    private ProductDTO findBySku(String sku) {
+        List<ProductLookupResultDTO> results = productService.getProductsByIdsOrSkus(
+                new ProductBatchGetDTO(new ArrayList<>(), new ArrayList<>(List.of(sku))));
+        ProductDTO product = results.get(0).getProduct();
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "sku", sku);
+        }
+        return product;
+    }
+
+    /**
+     * Run a call within the deadline set by the client, if any
+     * @param call The call
+     * @return The result of the call
+     */
+    private <T> T withDeadline(Supplier<T> call) {
+        io.grpc.Deadline clientDeadline = Context.current().getDeadline();
+        if (clientDeadline == null) {
+            return call.get();
+        }
+        Deadline deadline = Deadline.after(Duration.ofNanos(clientDeadline.timeRemaining(TimeUnit.NANOSECONDS)));
+        try {
+            return Deadline.call(deadline, call);
+        } finally {
+            deadline.recordOutcome(meterRegistry);
+        }
+    }
+
+    /**
+     * Map an exception to a gRPC status, like GlobalExceptionHandler does for HTTP
+     * @param ex The exception
+     * @return The status sent to the client
+     */
+    private static Status toStatus(RuntimeException ex) {
+        if (ex instanceof ResourceNotFoundException) {
+            return Status.NOT_FOUND.withDescription(ex.getMessage());
+        }
+        if (ex instanceof BusinessException) {
+            return Status.INVALID_ARGUMENT.withDescription(ex.getMessage());
+        }
+        // Wrapped by the transaction manager when the circuit of the database is open
+        if (ex instanceof ServiceUnavailableException || ex.getCause() instanceof ServiceUnavailableException) {
+            Throwable serviceUnavailable = ex instanceof ServiceUnavailableException ? ex : ex.getCause();
+            return Status.UNAVAILABLE.withDescription(serviceUnavailable.getMessage());
+        }
+        // Wrapped by the transaction manager when the deadline expired before a connection was taken
+        if (ex instanceof DeadlineExceededException || ex.getCause() instanceof DeadlineExceededException) {
+            Throwable deadlineExceeded = ex instanceof DeadlineExceededException ? ex : ex.getCause();
+            return Status.DEADLINE_EXCEEDED.withDescription(deadlineExceeded.getMessage());
+        }
+        log.error("Unexpected error in gRPC call", ex);
+        return Status.INTERNAL.withDescription("An unexpected error occurred");
+    }
+}
@@ -0,0 +1,84 @@
+package com.inventory.stockmanagementapi.grpc;
+
+import com.google.protobuf.Timestamp;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.ProductLookupResultDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.grpc.proto.Product;
+import com.inventory.stockmanagementapi.grpc.proto.ProductLookupResult;
+import com.inventory.stockmanagementapi.grpc.proto.StockUpdate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Conversions between the DTOs and the protobuf messages of the gRPC API
+ */
+final class ProtoMapper {
+
+    private ProtoMapper() {
+    }
+
+    static Product toProto(ProductDTO product) {
+        // Protobuf setters reject null, unset fields take their default value
+        Product.Builder builder = Product.newBuilder()
+                .setId(product.getId())
+                .setName(product.getName())
+                .setPrice(product.getPrice().toPlainString())
+                .setQuantity(product.getQuantity())
+                .setCategoryId(product.getCategoryId());
+        if (product.getDescription() != null) {
+            builder.setDescription(product.getDescription());
+        }
+        if (product.getSku() != null) {
+            builder.setSku(product.getSku());
+        }
+        if (product.getCategoryName() != null) {
+            builder.setCategoryName(product.getCategoryName());
+        }
+        if (product.getCreatedAt() != null) {
+            builder.setCreatedAt(toTimestamp(product.getCreatedAt()));
+        }
+        if (product.getUpdatedAt() != null) {
+            builder.setUpdatedAt(toTimestamp(product.getUpdatedAt()));
+        }
+        if (product.getVersion() != null) {
+            builder.setVersion(product.getVersion());
+        }
+        return builder.build();
+    }
+
+    static ProductLookupResult toProto(ProductLookupResultDTO result) {
+        ProductLookupResult.Builder builder = ProductLookupResult.newBuilder().setFound(result.isFound());
+        if (result.getId() != null) {
+            builder.setId(result.getId());
+        } else {
+            builder.setSku(result.getSku());
+        }
+        if (result.getProduct() != null) {
+            builder.setProduct(toProto(result.getProduct()));
+        }
+        return builder.build();
+    }
+
+    static StockUpdateDTO toDTO(StockUpdate update) {
+        StockUpdateDTO.OperationType operationType = switch (update.getOperationType()) {
+            case ADD -> StockUpdateDTO.OperationType.ADD;
+            case REMOVE -> StockUpdateDTO.OperationType.REMOVE;
+            case SET -> StockUpdateDTO.OperationType.SET;
+            // Left null so that validation reports the missing operation type
+            default -> null;
+        };
+        return new StockUpdateDTO(update.getProductId(), update.getQuantityChange(), operationType,
+                update.getNotes().isEmpty() ? null : update.getNotes());
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        Instant instant = dateTime.atZone(ZoneId.systemDefault()).toInstant();
+        return Timestamp.newBuilder()
+                .setSeconds(instant.getEpochSecond())
+                .setNanos(instant.getNano())
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.CacheInvalidation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+
+    /**
+     * Find the invalidations following an ID
+     * @param id The last ID already read
+     * @param pageable The maximum number of invalidations
+     * @return The invalidations, in ID order
+     */
+    List<CacheInvalidation> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * @return The highest invalidation ID, or null if there is none
+     */
+    @Query("SELECT MAX(i.id) FROM CacheInvalidation i")
+    Long findMaxId();
+
+    /**
+     * Delete the invalidations committed before the given instant
+     * @param before The instant, in epoch milliseconds
+     * @return The number of deleted invalidations
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CacheInvalidation i WHERE i.committedAt < :before")
+    int deleteCommittedBefore(@Param("before") long before);
+}
@@ -0,0 +1,49 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.CatalogChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    /**
+     * Find the changes following a sequence number
+     * @param seq The last sequence number already seen
+     * @param pageable The maximum number of changes
+     * @return The changes, in sequence order
+     */
+    List<CatalogChange> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Query("SELECT MAX(c.seq) FROM CatalogChange c")
+    Long findMaxSeq();
+
+    @Query("SELECT MIN(c.seq) FROM CatalogChange c")
+    Long findMinSeq();
+
+    /**
+     * Find the last change that occurred before the given instant
+     * @param before The instant
+     * @return The sequence number of the change, or null if there is none
+     */
+    @Query("SELECT MAX(c.seq) FROM CatalogChange c WHERE c.occurredAt < :before")
+    Long findMaxSeqBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Delete all changes up to a sequence number
+     * @param seq The last sequence number to delete
+     * @return The number of deleted changes
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CatalogChange c WHERE c.seq <= :seq")
+    int deleteThrough(@Param("seq") Long seq);
+}
@@ -1,9 +1,13 @@
 package com.inventory.stockmanagementapi.repository;
 
 import com.inventory.stockmanagementapi.domain.Category;
+import com.inventory.stockmanagementapi.repository.projection.CategoryVersionView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +26,19 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return True if the category exists, false otherwise
      */
     boolean existsByName(String name);
+    
+    /**
+     * Find the versions and product counts of all categories, ordered by ID, without loading the entities
+     * @return A list of category versions
+     */
+    @Query("SELECT c.id AS id, c.version AS version, COUNT(p) AS productCount FROM Category c LEFT JOIN c.products p GROUP BY c.id, c.version ORDER BY c.id")
+    List<CategoryVersionView> findAllVersions();
+    
+    /**
+     * Find the version and product count of a category without loading the entity
+     * @param id The category ID
+     * @return An optional containing the category version if found
+     */
+    @Query("SELECT c.id AS id, c.version AS version, COUNT(p) AS productCount FROM Category c LEFT JOIN c.products p WHERE c.id = :id GROUP BY c.id, c.version")
+    Optional<CategoryVersionView> findVersionById(@Param("id") Long id);
 }
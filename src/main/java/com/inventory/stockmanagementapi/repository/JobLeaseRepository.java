@@ -0,0 +1,58 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Take the lease of a job if it expired and was not taken since the given instant
+     * @param name The job name
+     * @param owner The instance taking the lease
+     * @param now The current time, in epoch milliseconds
+     * @param until The end of the lease, in epoch milliseconds
+     * @param since The instant from which a previous lease counts as a run of the same period
+     * @return 1 if the lease was taken, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.lockedAt = :now, l.lockedUntil = :until "
+            + "WHERE l.name = :name AND l.lockedUntil <= :now AND l.lockedAt < :since")
+    int takeOver(@Param("name") String name, @Param("owner") String owner, @Param("now") long now,
+                 @Param("until") long until, @Param("since") long since);
+
+    /**
+     * Create the lease of a job that never ran, failing if another instance created it first
+     * @param name The job name
+     * @param owner The instance taking the lease
+     * @param now The current time, in epoch milliseconds
+     * @param until The end of the lease, in epoch milliseconds
+     * @return 1
+     * @throws org.springframework.dao.DataIntegrityViolationException if the lease already exists
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO job_leases (name, owner, locked_at, locked_until) VALUES (:name, :owner, :now, :until)",
+            nativeQuery = true)
+    int create(@Param("name") String name, @Param("owner") String owner, @Param("now") long now,
+               @Param("until") long until);
+
+    /**
+     * End the lease of a job, if the instance still holds it
+     * @param name The job name
+     * @param owner The instance that took the lease
+     * @param now The current time, in epoch milliseconds
+     * @return 1 if the lease was released, 0 if another instance took it over
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLease l SET l.lockedUntil = :now WHERE l.name = :name AND l.owner = :owner "
+            + "AND l.lockedUntil > :now")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") long now);
+}
@@ -0,0 +1,19 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Find the oldest events not relayed yet
+     * @param pageable The maximum number of events
+     * @return The events, in ID order
+     */
+    List<OutboxEvent> findAllByOrderByIdAsc(Pageable pageable);
+}
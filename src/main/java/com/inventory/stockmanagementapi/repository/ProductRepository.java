@@ -1,18 +1,26 @@
 package com.inventory.stockmanagementapi.repository;
 
 import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.repository.projection.CategoryProductCount;
+import com.inventory.stockmanagementapi.repository.projection.ProductStockView;
+import com.inventory.stockmanagementapi.repository.projection.ProductVersionView;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     
     /**
      * Find all products belonging to a specific category
@@ -29,6 +37,42 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
     
+    /**
+     * Find a slice of all products, without counting them
+     * @param pageable Pagination information
+     * @return A slice of products
+     */
+    Slice<Product> findAllBy(Pageable pageable);
+    
+    /**
+     * Find a slice of the products belonging to a specific category, without counting them
+     * @param categoryId The category id
+     * @param pageable Pagination information
+     * @return A slice of products in the category
+     */
+    Slice<Product> findSliceByCategoryId(Long categoryId, Pageable pageable);
+    
+    /**
+     * Count the products belonging to a specific category
+     * @param categoryId The category id
+     * @return The number of products in the category
+     */
+    long countByCategoryId(Long categoryId);
+    
+    /**
+     * Check whether a category has products
+     * @param categoryId The category id
+     * @return True if at least one product belongs to the category
+     */
+    boolean existsByCategoryId(Long categoryId);
+    
+    /**
+     * Count the products of each category that has products
+     * @return The product count of each non-empty category
+     */
+    @Query("SELECT p.category.id AS categoryId, COUNT(p) AS productCount FROM Product p GROUP BY p.category.id")
+    List<CategoryProductCount> countByCategory();
+    
     /**
      * Find a product by its SKU
      * @param sku The product SKU
@@ -59,4 +103,83 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<Product> searchProducts(@Param("searchTerm") String searchTerm, Pageable pageable);
+    
+    /**
+     * Search products by name or description containing the search term, without counting them
+     * @param searchTerm The search term
+     * @param pageable Pagination information
+     * @return A slice of matching products
+     */
+    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    Slice<Product> searchProductsSlice(@Param("searchTerm") String searchTerm, Pageable pageable);
+    
+    /**
+     * Count the products whose name or description contains the search term
+     * @param searchTerm The search term
+     * @return The number of matching products
+     */
+    @Query("SELECT COUNT(p) FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    long countSearchResults(@Param("searchTerm") String searchTerm);
+    
+    /**
+     * Find the products with the given IDs, fetching their category in the same query
+     * @param ids The product IDs
+     * @return The matching products, in no particular order
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Find the products with the given SKUs, fetching their category in the same query
+     * @param skus The product SKUs
+     * @return The matching products, in no particular order
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.sku IN :skus")
+    List<Product> findAllWithCategoryBySkuIn(@Param("skus") Collection<String> skus);
+    
+    /**
+     * Find a product by its ID and lock its row until the end of the transaction
+     * @param id The product ID
+     * @return An optional containing the product if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+    
+    /**
+     * Find the version of a product without loading the entity
+     * @param id The product ID
+     * @return An optional containing the product version if found
+     */
+    @Query("SELECT p.id AS id, p.version AS version, c.name AS categoryName FROM Product p JOIN p.category c WHERE p.id = :id")
+    Optional<ProductVersionView> findVersionById(@Param("id") Long id);
+    
+    /**
+     * Find the products modified after a position, in (updatedAt, id) order, fetching their category
+     * @param updatedAt The modification time of the last product already seen
+     * @param id The ID of the last product already seen
+     * @param until The exclusive upper bound of the modification time
+     * @param pageable The maximum number of products
+     * @return The products
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.updatedAt >= :updatedAt AND p.updatedAt < :until "
+            + "AND (p.updatedAt > :updatedAt OR p.id > :id) ORDER BY p.updatedAt, p.id")
+    List<Product> findModifiedAfter(@Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id,
+                                    @Param("until") LocalDateTime until, Pageable pageable);
+    
+    /**
+     * Find the stock levels of the products with the given IDs without loading the entities
+     * @param ids The product IDs
+     * @return The stock levels of the existing products, in no particular order
+     */
+    @Query("SELECT p.id AS id, p.sku AS sku, p.quantity AS quantity, p.version AS version, p.category.id AS categoryId FROM Product p WHERE p.id IN :ids")
+    List<ProductStockView> findStockByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Find the stock levels of the products in a category without loading the entities
+     * @param categoryId The category id
+     * @return The stock levels of the products in the category
+     */
+    @Query("SELECT p.id AS id, p.sku AS sku, p.quantity AS quantity, p.version AS version, p.category.id AS categoryId FROM Product p WHERE p.category.id = :categoryId")
+    List<ProductStockView> findStockByCategoryId(@Param("categoryId") Long categoryId);
 }
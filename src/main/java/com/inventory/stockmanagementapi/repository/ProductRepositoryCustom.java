@@ -0,0 +1,47 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.dto.ProductField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queries selecting only some columns of products.
+ * Each product is returned as a map from property name to value, in the order of the requested fields.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Find the requested fields of the matching products
+     * @param spec The filter
+     * @param fields The fields to select
+     * @param sort The sort order
+     * @return The selected fields of each matching product
+     */
+    List<Map<String, Object>> findFields(Specification<Product> spec, Set<ProductField> fields, Sort sort);
+
+    /**
+     * Find the requested fields of a page of matching products, and count them
+     * @param spec The filter
+     * @param fields The fields to select
+     * @param pageable Pagination information
+     * @return A page of selected fields
+     */
+    Page<Map<String, Object>> findFieldsPage(Specification<Product> spec, Set<ProductField> fields, Pageable pageable);
+
+    /**
+     * Find the requested fields of a slice of matching products, without counting them
+     * @param spec The filter
+     * @param fields The fields to select
+     * @param pageable Pagination information
+     * @return A slice of selected fields
+     */
+    Slice<Map<String, Object>> findFieldsSlice(Specification<Product> spec, Set<ProductField> fields, Pageable pageable);
+}
@@ -0,0 +1,127 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.Category;
+import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.dto.ProductField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Criteria API implementation of {@link ProductRepositoryCustom}: the SELECT clause lists only the requested
+ * columns, and the category is joined only when its name is requested.
+ */
+class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFields(Specification<Product> spec, Set<ProductField> fields, Sort sort) {
+        return toMaps(fieldQuery(spec, fields, sort).getResultList(), fields);
+    }
+
+    @Override
+    public Page<Map<String, Object>> findFieldsPage(Specification<Product> spec, Set<ProductField> fields, Pageable pageable) {
+        TypedQuery<Tuple> query = fieldQuery(spec, fields, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> content = toMaps(query.getResultList(), fields);
+        // The count query is skipped when the content alone determines the total
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findFieldsSlice(Specification<Product> spec, Set<ProductField> fields, Pageable pageable) {
+        TypedQuery<Tuple> query = fieldQuery(spec, fields, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(toMaps(query.getResultList(), fields), pageable, false);
+        }
+        // One extra row tells whether there is a next slice
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        List<Tuple> rows = query.getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<Tuple> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(toMaps(content, fields), pageable, hasNext);
+    }
+
+    private TypedQuery<Tuple> fieldQuery(Specification<Product> spec, Set<ProductField> fields, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+
+        Join<Product, Category> category = null;
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (ProductField field : fields) {
+            switch (field) {
+                // The foreign key column holds the category ID, no join needed
+                case CATEGORY_ID -> selections.add(root.get("category").get("id").alias(field.name()));
+                case CATEGORY_NAME -> {
+                    if (category == null) {
+                        category = root.join("category");
+                    }
+                    selections.add(category.get("name").alias(field.name()));
+                }
+                default -> selections.add(root.get(field.getPropertyName()).alias(field.name()));
+            }
+        }
+        query.multiselect(selections);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> rows, Set<ProductField> fields) {
+        List<Map<String, Object>> products = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> product = new LinkedHashMap<>();
+            for (ProductField field : fields) {
+                product.put(field.getPropertyName(), row.get(field.name()));
+            }
+            products.add(product);
+        }
+        return products;
+    }
+}
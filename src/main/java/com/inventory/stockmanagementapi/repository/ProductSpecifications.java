@@ -0,0 +1,39 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Product filters for the field projection queries of {@link ProductRepositoryCustom}.
+ * Each one matches the corresponding JPQL query of {@link ProductRepository}.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> all() {
+        return (root, query, cb) -> null;
+    }
+
+    public static Specification<Product> hasId(Long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    public static Specification<Product> inCategory(Long categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> quantityBelow(Integer threshold) {
+        return (root, query, cb) -> cb.lessThan(root.get("quantity"), threshold);
+    }
+
+    public static Specification<Product> nameOrDescriptionContains(String searchTerm) {
+        return (root, query, cb) -> {
+            String pattern = "%" + searchTerm.toLowerCase() + "%";
+            return cb.or(
+                    cb.like(cb.lower(root.get("name")), pattern),
+                    cb.like(cb.lower(root.get("description")), pattern));
+        };
+    }
+}
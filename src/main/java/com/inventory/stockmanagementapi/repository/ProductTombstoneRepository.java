@@ -0,0 +1,42 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.ProductTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+
+    /**
+     * Find the tombstones following a position, in (deletedAt, productId) order
+     * @param deletedAt The deletion time of the last tombstone already seen
+     * @param productId The product ID of the last tombstone already seen
+     * @param until The exclusive upper bound of the deletion time
+     * @param pageable The maximum number of tombstones
+     * @return The tombstones
+     */
+    @Query("SELECT t FROM ProductTombstone t WHERE t.deletedAt >= :deletedAt AND t.deletedAt < :until "
+            + "AND (t.deletedAt > :deletedAt OR t.productId > :productId) ORDER BY t.deletedAt, t.productId")
+    List<ProductTombstone> findDeletedAfter(@Param("deletedAt") LocalDateTime deletedAt,
+                                            @Param("productId") Long productId,
+                                            @Param("until") LocalDateTime until,
+                                            Pageable pageable);
+
+    /**
+     * Delete all tombstones created before the given instant
+     * @param before The instant
+     * @return The number of deleted tombstones
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProductTombstone t WHERE t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,24 @@
+package com.inventory.stockmanagementapi.repository;
+
+import com.inventory.stockmanagementapi.domain.WebhookDelivery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+
+    /**
+     * Find the deliveries due for another attempt, oldest first
+     * @param now The current time
+     * @param pageable The maximum number of deliveries
+     * @return The deliveries
+     */
+    @Query("SELECT d FROM WebhookDelivery d WHERE d.dead = false AND d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt")
+    List<WebhookDelivery> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.inventory.stockmanagementapi.repository.projection;
+
+/**
+ * The number of products in a category
+ */
+public interface CategoryProductCount {
+
+    Long getCategoryId();
+
+    Long getProductCount();
+}
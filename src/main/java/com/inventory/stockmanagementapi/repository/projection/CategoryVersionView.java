@@ -0,0 +1,13 @@
+package com.inventory.stockmanagementapi.repository.projection;
+
+/**
+ * The fields of a category that determine its representation, without loading the entity or its products
+ */
+public interface CategoryVersionView {
+
+    Long getId();
+
+    Long getVersion();
+
+    Long getProductCount();
+}
@@ -0,0 +1,17 @@
+package com.inventory.stockmanagementapi.repository.projection;
+
+/**
+ * The stock level of a product, without loading the entity
+ */
+public interface ProductStockView {
+
+    Long getId();
+
+    String getSku();
+
+    Integer getQuantity();
+
+    Long getVersion();
+
+    Long getCategoryId();
+}
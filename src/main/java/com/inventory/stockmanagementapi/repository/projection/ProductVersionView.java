@@ -0,0 +1,13 @@
+package com.inventory.stockmanagementapi.repository.projection;
+
+/**
+ * The fields of a product that determine its representation, without loading the entity
+ */
+public interface ProductVersionView {
+
+    Long getId();
+
+    Long getVersion();
+
+    String getCategoryName();
+}
@@ -0,0 +1,196 @@
+package com.inventory.stockmanagementapi.repository.sharding;
+
+import com.inventory.stockmanagementapi.domain.Category;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copies the categories of the home shard to the other shards, where the products reference them.
+ * <p>
+ * Category writes run on the home shard; each one is copied right away, so that products of another shard can
+ * reference a new category before the transaction that created it commits. If that transaction rolls back, the
+ * categories it touched are copied again from the home shard.
+ */
+@Slf4j
+public class CategoryReplicator {
+
+    private static final String UPDATE = "UPDATE categories SET name = ?, description = ?, version = ? WHERE id = ?";
+    private static final String INSERT = "INSERT INTO categories (id, name, description, version) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate home;
+    private final List<JdbcTemplate> copies = new ArrayList<>();
+
+    /**
+     * @param shards The datasources of the shards, the home shard first
+     */
+    public CategoryReplicator(List<DataSource> shards) {
+        this.home = new JdbcTemplate(shards.get(ShardContext.HOME_SHARD));
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shard != ShardContext.HOME_SHARD) {
+                copies.add(new JdbcTemplate(shards.get(shard)));
+            }
+        }
+    }
+
+    /**
+     * @return Runs a category write on the home shard, then copies its effect to the other shards
+     */
+    public ShardedRepository.Route writes() {
+        return call -> {
+            Object result = call.router().onShard(ShardContext.HOME_SHARD, true, () -> {
+                Object written = call.invoke();
+                if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                    // Versions are only incremented by the flush
+                    ((JpaRepository<?, ?>) call.target()).flush();
+                }
+                return written;
+            });
+            replicate(call.method().getName(), call.args(), result);
+            return result;
+        };
+    }
+
+    private void replicate(String method, Object[] args, Object result) {
+        switch (method) {
+            case "save", "saveAndFlush" -> upsert(List.of((Category) result));
+            case "saveAll", "saveAllAndFlush" -> upsert(categories(result));
+            case "delete" -> delete(List.of(((Category) args[0]).getId()));
+            case "deleteById" -> delete(List.of((Long) args[0]));
+            case "deleteAllById", "deleteAllByIdInBatch" -> delete(ids((Iterable<?>) args[0], false));
+            case "deleteAll", "deleteAllInBatch" -> {
+                if (args.length == 0) {
+                    deleteAll();
+                } else {
+                    delete(ids((Iterable<?>) args[0], true));
+                }
+            }
+            default -> throw new IllegalStateException("No replication for CategoryRepository." + method);
+        }
+    }
+
+    private void upsert(List<Category> categories) {
+        for (JdbcTemplate copy : copies) {
+            for (Category category : categories) {
+                if (copy.update(UPDATE, category.getName(), category.getDescription(), category.getVersion(),
+                        category.getId()) == 0) {
+                    copy.update(INSERT, category.getId(), category.getName(), category.getDescription(),
+                            category.getVersion());
+                }
+            }
+        }
+        resyncOnRollback(categories.stream().map(Category::getId).toList(), false);
+    }
+
+    private void delete(List<Long> ids) {
+        for (JdbcTemplate copy : copies) {
+            for (Long id : ids) {
+                copy.update("DELETE FROM categories WHERE id = ?", id);
+            }
+        }
+        resyncOnRollback(ids, false);
+    }
+
+    private void deleteAll() {
+        for (JdbcTemplate copy : copies) {
+            copy.update("DELETE FROM categories");
+        }
+        resyncOnRollback(List.of(), true);
+    }
+
+    private void resyncOnRollback(Collection<Long> ids, boolean all) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Resync resync) {
+                resync.ids.addAll(ids);
+                resync.all |= all;
+                return;
+            }
+        }
+        Resync resync = new Resync();
+        resync.ids.addAll(ids);
+        resync.all = all;
+        TransactionSynchronizationManager.registerSynchronization(resync);
+    }
+
+    /**
+     * Copy categories from the home shard again
+     * @param ids The IDs of the categories, deleted from the other shards if they are not on the home shard
+     * @param all Whether to copy every category instead
+     */
+    void resync(Collection<Long> ids, boolean all) {
+        List<Map<String, Object>> rows = all ? home.queryForList("SELECT id, name, description, version FROM categories")
+                : new ArrayList<>();
+        if (!all) {
+            for (Long id : ids) {
+                rows.addAll(home.queryForList("SELECT id, name, description, version FROM categories WHERE id = ?",
+                        id));
+            }
+        }
+        Set<Long> present = new HashSet<>();
+        List<Category> categories = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            Category category = new Category();
+            category.setId(((Number) row.get("ID")).longValue());
+            category.setName((String) row.get("NAME"));
+            category.setDescription((String) row.get("DESCRIPTION"));
+            category.setVersion(row.get("VERSION") == null ? null : ((Number) row.get("VERSION")).longValue());
+            categories.add(category);
+            present.add(category.getId());
+        }
+        for (JdbcTemplate copy : copies) {
+            List<Long> stale = all ? copy.queryForList("SELECT id FROM categories", Long.class) : List.copyOf(ids);
+            for (Long id : stale) {
+                if (!present.contains(id)) {
+                    copy.update("DELETE FROM categories WHERE id = ?", id);
+                }
+            }
+        }
+        upsert(categories);
+    }
+
+    private static List<Category> categories(Object result) {
+        List<Category> categories = new ArrayList<>();
+        ((Iterable<?>) result).forEach(category -> categories.add((Category) category));
+        return categories;
+    }
+
+    private static List<Long> ids(Iterable<?> elements, boolean entities) {
+        List<Long> ids = new ArrayList<>();
+        elements.forEach(element -> ids.add(entities ? ((Category) element).getId() : (Long) element));
+        return ids;
+    }
+
+    /**
+     * Copies the categories touched by a transaction again if it rolls back
+     */
+    private final class Resync implements TransactionSynchronization {
+
+        private final Set<Long> ids = new HashSet<>();
+        private boolean all;
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_ROLLED_BACK) {
+                return;
+            }
+            try {
+                resync(ids, all);
+            } catch (RuntimeException ex) {
+                log.error("Could not copy categories {} to the other shards after a rollback", all ? "(all)" : ids, ex);
+            }
+        }
+    }
+}
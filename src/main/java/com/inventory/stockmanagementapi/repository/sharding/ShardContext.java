@@ -0,0 +1,79 @@
+package com.inventory.stockmanagementapi.repository.sharding;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread works on.
+ * <p>
+ * A transaction sticks to the shard of its first statement: the shard is bound to the transaction through a
+ * synchronization, which Spring suspends and resumes along with the transaction itself. Outside of a transaction,
+ * or before its first statement, the requested shard applies, and the home shard when none was requested.
+ */
+public final class ShardContext {
+
+    /**
+     * The shard holding everything that is not sharded, and the products of the first range of IDs
+     */
+    public static final int HOME_SHARD = 0;
+
+    private static final ThreadLocal<Integer> REQUESTED = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Run some work on a shard
+     * @param shard The shard for the statements of the work, unless the current transaction is already bound
+     * @param work The work
+     * @return The result of the work
+     */
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = REQUESTED.get();
+        REQUESTED.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                REQUESTED.remove();
+            } else {
+                REQUESTED.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return The shard requested by the enclosing {@link #call(int, Supplier)}, or null
+     */
+    public static Integer requested() {
+        return REQUESTED.get();
+    }
+
+    /**
+     * @return The shard the current transaction is bound to, or null if it has not run any statement yet
+     */
+    public static Integer boundShard() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ShardBinding binding) {
+                return binding.shard;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Bind the current transaction to a shard
+     * @param shard The shard
+     */
+    public static void bind(int shard) {
+        TransactionSynchronizationManager.registerSynchronization(new ShardBinding(shard));
+    }
+
+    private record ShardBinding(int shard) implements TransactionSynchronization {
+    }
+}
@@ -0,0 +1,263 @@
+package com.inventory.stockmanagementapi.repository.sharding;
+
+import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.service.Deadline;
+import com.inventory.stockmanagementapi.service.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Decides which shard runs a repository call, and runs it there.
+ * <p>
+ * Products are spread over the shards by ID: each shard hands out the IDs of its own residue class, so the shard of
+ * a product is {@code (id - 1) mod shardCount}, and new products go to the shards in turn.
+ * <p>
+ * A call on a single shard joins the current transaction, which then sticks to that shard. A read on another shard
+ * runs in its own transaction instead, while a write there is refused: there is no transaction across shards.
+ * Calls on several shards run in parallel, each in its own transaction, except for the part on the shard of the
+ * current transaction; the products they return are detached, with their category loaded.
+ */
+public class ShardRouter implements ApplicationListener<ContextRefreshedEvent>, AutoCloseable {
+
+    private final int shardCount;
+    private final int maxScanRows;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ExecutorService executor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final Counter singleShardCalls;
+    private final Counter multiShardCalls;
+    // During startup the main thread holds the lock of the bean factory, which the other threads would wait for
+    private volatile boolean started;
+
+    /**
+     * @param shardCount The number of shards
+     * @param transactionManager Starts the transactions of the calls on other shards
+     * @param threads The number of platform threads running calls on other shards
+     * @param virtualThreads Whether to run them on virtual threads instead, as many as there are calls
+     * @param maxScanRows The most rows a paged read on every shard may ask each shard for: offset plus page size
+     * @param meterRegistry Registry of the routing metrics
+     */
+    public ShardRouter(int shardCount, PlatformTransactionManager transactionManager, int threads,
+                       boolean virtualThreads, int maxScanRows, MeterRegistry meterRegistry) {
+        this.shardCount = shardCount;
+        this.maxScanRows = maxScanRows;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // The connection pools of the shards bound the calls running at once
+        this.executor = VirtualThreads.isActive(virtualThreads)
+                ? Executors.newCachedThreadPool(VirtualThreads.threadFactory("shard-query", true))
+                : Executors.newFixedThreadPool(threads, VirtualThreads.threadFactory("shard-query", false));
+        this.singleShardCalls = Counter.builder("sharding.calls").tag("shards", "single").register(meterRegistry);
+        this.multiShardCalls = Counter.builder("sharding.calls").tag("shards", "multiple").register(meterRegistry);
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        started = true;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return The number of shards
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return The most rows a paged read on every shard may ask each shard for
+     */
+    public int getMaxScanRows() {
+        return maxScanRows;
+    }
+
+    /**
+     * @return Every shard, in order
+     */
+    public List<Integer> allShards() {
+        return IntStream.range(0, shardCount).boxed().toList();
+    }
+
+    /**
+     * @param id A product ID
+     * @return The shard holding the product
+     */
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id - 1, (long) shardCount);
+    }
+
+    /**
+     * @return The shard of the next new product
+     */
+    public int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+
+    /**
+     * Run a call on a single shard, in the current transaction when it is not bound to another shard
+     * @param shard The shard
+     * @param write Whether the call writes
+     * @param work The call
+     * @return The result of the call
+     * @throws IllegalStateException if the call writes and the current transaction is bound to another shard
+     */
+    public <T> T onShard(int shard, boolean write, Supplier<T> work) {
+        singleShardCalls.increment();
+        Integer bound = currentShard();
+        if (bound == null || bound == shard) {
+            return ShardContext.call(shard, work);
+        }
+        if (write) {
+            throw new IllegalStateException("The transaction is bound to shard " + bound
+                    + " and cannot write to shard " + shard);
+        }
+        return inOwnTransaction(shard, false, work);
+    }
+
+    /**
+     * Run a call on a single shard in its own transaction, on another thread once the application has started
+     * @param shard The shard
+     * @param write Whether the call writes
+     * @param work The call
+     * @return The result of the call, with detached entities
+     */
+    public <T> T inOwnTransaction(int shard, boolean write, Supplier<T> work) {
+        return await(submit(shard, write, ignored -> work.get()));
+    }
+
+    /**
+     * Run a call on several shards in parallel
+     * @param shards The shards
+     * @param write Whether the call writes
+     * @param work The call, given the shard it runs on
+     * @return The results, in the order of the shards
+     */
+    public <T> List<T> onShards(List<Integer> shards, boolean write, IntFunction<T> work) {
+        multiShardCalls.increment();
+        Integer bound = currentShard();
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (Integer shard : shards) {
+            futures.add(shard.equals(bound) ? null : submit(shard, write, work));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = shards.get(i);
+            // The part on the shard of the current transaction sees its uncommitted changes
+            results.add(futures.get(i) == null ? ShardContext.call(shard, () -> work.apply(shard))
+                    : await(futures.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Merge sorted lists into one
+     * @param runs The lists, each sorted by the order
+     * @param order The order
+     * @param limit The maximum number of elements
+     * @return The first elements of all lists, sorted by the order
+     */
+    public static <T> List<T> merge(List<? extends List<? extends T>> runs, Comparator<? super T> order, int limit) {
+        // Heads of the lists, as (list, position) pairs, smallest element first
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> order.compare(runs.get(a[0]).get(a[1]), runs.get(b[0]).get(b[1])));
+        for (int run = 0; run < runs.size(); run++) {
+            if (!runs.get(run).isEmpty()) {
+                heads.add(new int[]{run, 0});
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<? extends T> run = runs.get(head[0]);
+            merged.add(run.get(head[1]));
+            if (++head[1] < run.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static Integer currentShard() {
+        return TransactionSynchronizationManager.isActualTransactionActive() ? ShardContext.boundShard() : null;
+    }
+
+    private <T> Future<T> submit(int shard, boolean write, IntFunction<T> work) {
+        // The deadline of the request bounds the queries of the other threads as well
+        Deadline deadline = Deadline.current();
+        FutureTask<T> task = new FutureTask<>(() -> Deadline.call(deadline, () -> inTransaction(shard, write, work)));
+        if (started) {
+            executor.execute(task);
+        } else {
+            // Right away on the calling thread, in a new transaction that suspends the current one
+            task.run();
+        }
+        return task;
+    }
+
+    private <T> T inTransaction(int shard, boolean write, IntFunction<T> work) {
+        TransactionTemplate transaction = write ? writeTransaction : readTransaction;
+        return transaction.execute(status -> ShardContext.call(shard, () -> initialize(work.apply(shard))));
+    }
+
+    /**
+     * Load the category of the products, which are used once their transaction is over
+     */
+    private static <T> T initialize(T result) {
+        Iterable<?> elements = result instanceof Iterable<?> iterable ? iterable
+                : result instanceof Optional<?> optional ? optional.stream().toList()
+                : result == null ? List.of() : List.of(result);
+        for (Object element : elements) {
+            if (element instanceof Product product) {
+                Hibernate.initialize(product.getCategory());
+            }
+        }
+        return result;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", ex);
+        }
+    }
+}
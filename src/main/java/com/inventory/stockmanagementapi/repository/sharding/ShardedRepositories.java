@@ -0,0 +1,260 @@
+package com.inventory.stockmanagementapi.repository.sharding;
+
+import com.inventory.stockmanagementapi.domain.OutboxEvent;
+import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.domain.ProductTombstone;
+import com.inventory.stockmanagementapi.repository.CacheInvalidationRepository;
+import com.inventory.stockmanagementapi.repository.CatalogChangeRepository;
+import com.inventory.stockmanagementapi.repository.CategoryRepository;
+import com.inventory.stockmanagementapi.repository.IdempotencyRecordRepository;
+import com.inventory.stockmanagementapi.repository.JobLeaseRepository;
+import com.inventory.stockmanagementapi.repository.OutboxEventRepository;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.ProductTombstoneRepository;
+import com.inventory.stockmanagementapi.repository.WebhookDeliveryRepository;
+import com.inventory.stockmanagementapi.repository.projection.CategoryProductCount;
+import com.inventory.stockmanagementapi.repository.projection.CategoryVersionView;
+import com.inventory.stockmanagementapi.repository.sharding.ShardedRepository.Route;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Puts the repositories behind the shard router.
+ * <p>
+ * Products, with their tombstones and outbox events, are sharded by product ID. Categories are copied to every
+ * shard. The change feed, the webhook deliveries, the idempotency records, the cache invalidations and the job
+ * leases only live on the home shard.
+ * <p>
+ * Every method of a sharded repository is routed by name, and the application refuses to start when one is missing:
+ * a new query method must be added to the routes below.
+ */
+public class ShardedRepositories implements BeanPostProcessor {
+
+    private static final Function<Object, Long> PRODUCT_ID = product -> ((Product) product).getId();
+    private static final Function<Object, Long> TOMBSTONE_ID =
+            tombstone -> ((ProductTombstone) tombstone).getProductId();
+    private static final Function<Object, Long> EVENT_ID = event -> ((OutboxEvent) event).getId();
+
+    private final ObjectProvider<ShardRouter> router;
+    private final ObjectProvider<CategoryReplicator> categoryReplicator;
+
+    /**
+     * @param router The router, looked up at the first call since it depends on the transaction manager
+     * @param categoryReplicator Copies categories to every shard
+     */
+    public ShardedRepositories(ObjectProvider<ShardRouter> router,
+                               ObjectProvider<CategoryReplicator> categoryReplicator) {
+        this.router = router;
+        this.categoryReplicator = categoryReplicator;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ProductRepository repository) {
+            return ShardedRepository.proxy(ProductRepository.class, repository, router::getObject, productRoutes());
+        }
+        if (bean instanceof ProductTombstoneRepository repository) {
+            return ShardedRepository.proxy(ProductTombstoneRepository.class, repository, router::getObject,
+                    tombstoneRoutes());
+        }
+        if (bean instanceof OutboxEventRepository repository) {
+            return ShardedRepository.proxy(OutboxEventRepository.class, repository, router::getObject,
+                    outboxRoutes());
+        }
+        if (bean instanceof CategoryRepository repository) {
+            return ShardedRepository.proxy(CategoryRepository.class, repository, router::getObject,
+                    categoryRoutes(), ShardedRepository.replicated());
+        }
+        if (bean instanceof CatalogChangeRepository repository) {
+            return ShardedRepository.proxy(CatalogChangeRepository.class, repository, router::getObject,
+                    homeRoutes(), ShardedRepository.home());
+        }
+        if (bean instanceof WebhookDeliveryRepository repository) {
+            return ShardedRepository.proxy(WebhookDeliveryRepository.class, repository, router::getObject,
+                    homeRoutes(), ShardedRepository.home());
+        }
+        if (bean instanceof IdempotencyRecordRepository repository) {
+            return ShardedRepository.proxy(IdempotencyRecordRepository.class, repository, router::getObject,
+                    homeRoutes(), ShardedRepository.home());
+        }
+        if (bean instanceof CacheInvalidationRepository repository) {
+            return ShardedRepository.proxy(CacheInvalidationRepository.class, repository, router::getObject,
+                    homeRoutes(), ShardedRepository.home());
+        }
+        if (bean instanceof JobLeaseRepository repository) {
+            return ShardedRepository.proxy(JobLeaseRepository.class, repository, router::getObject,
+                    homeRoutes(), ShardedRepository.home());
+        }
+        return bean;
+    }
+
+    /**
+     * @param idOf The ID of an entity, which gives its shard
+     * @return The routes of the methods of JpaRepository
+     */
+    private static Map<String, Route> jpaRoutes(Function<Object, Long> idOf) {
+        Map<String, Route> routes = new HashMap<>();
+        for (String method : List.of("findById", "existsById", "getReferenceById", "getById", "getOne")) {
+            routes.put(method, ShardedRepository.byId(false));
+        }
+        routes.put("deleteById", ShardedRepository.byId(true));
+        for (String method : List.of("save", "saveAndFlush", "delete")) {
+            routes.put(method, ShardedRepository.byEntity(idOf));
+        }
+        for (String method : List.of("saveAll", "saveAllAndFlush", "deleteInBatch")) {
+            routes.put(method, ShardedRepository.byEntities(idOf));
+        }
+        for (String method : List.of("deleteAll", "deleteAllInBatch")) {
+            routes.put(method, overloaded(ShardedRepository.allShards(), ShardedRepository.byEntities(idOf)));
+        }
+        for (String method : List.of("deleteAllById", "deleteAllByIdInBatch")) {
+            routes.put(method, ShardedRepository.byIds(true));
+        }
+        routes.put("findAllById", ShardedRepository.byIds(false));
+        for (String method : List.of("findAll", "findOne", "count", "exists")) {
+            routes.put(method, ShardedRepository.scatter());
+        }
+        // The fluent queries by example are built by the caller, their results cannot be merged
+        routes.put("findBy", ShardedRepository.unsupported());
+        routes.put("flush", ShardedRepository.bound());
+        return routes;
+    }
+
+    static Map<String, Route> productRoutes() {
+        Map<String, Route> routes = jpaRoutes(PRODUCT_ID);
+        routes.put("findVersionById", ShardedRepository.byId(false));
+        // A row lock outside of the current transaction would be released right away
+        routes.put("findByIdForUpdate", ShardedRepository.byId(true));
+        for (String method : List.of("findAllWithCategoryByIdIn", "findStockByIdIn")) {
+            routes.put(method, ShardedRepository.byIds(false));
+        }
+        for (String method : List.of("findByCategoryId", "findAllBy", "findSliceByCategoryId", "countByCategoryId",
+                "existsByCategoryId", "findBySku", "existsBySku", "findLowStockProducts", "searchProducts",
+                "searchProductsSlice", "countSearchResults", "findAllWithCategoryBySkuIn", "findStockByCategoryId",
+                "findFields", "findFieldsPage", "findFieldsSlice")) {
+            routes.put(method, ShardedRepository.scatter());
+        }
+        routes.put("findModifiedAfter", ShardedRepository.scatter(Comparator
+                .comparing((Object product) -> ((Product) product).getUpdatedAt())
+                .thenComparing(product -> ((Product) product).getId())));
+        routes.put("countByCategory", ShardedRepository.scatter(ShardedRepositories::sumCategoryCounts));
+        return routes;
+    }
+
+    static Map<String, Route> tombstoneRoutes() {
+        Map<String, Route> routes = jpaRoutes(TOMBSTONE_ID);
+        // Tombstones are written along with the deletion of their product
+        for (String method : List.of("save", "saveAndFlush", "saveAll", "saveAllAndFlush")) {
+            routes.put(method, ShardedRepository.bound());
+        }
+        routes.put("findDeletedAfter", ShardedRepository.scatter(Comparator
+                .comparing((Object tombstone) -> ((ProductTombstone) tombstone).getDeletedAt())
+                .thenComparing(tombstone -> ((ProductTombstone) tombstone).getProductId())));
+        routes.put("deleteDeletedBefore", ShardedRepository.allShards());
+        return routes;
+    }
+
+    static Map<String, Route> outboxRoutes() {
+        // Every shard hands out the event IDs of its own residue class, like product IDs
+        Map<String, Route> routes = jpaRoutes(EVENT_ID);
+        // Events are written along with the change of their product
+        for (String method : List.of("save", "saveAndFlush", "saveAll", "saveAllAndFlush")) {
+            routes.put(method, ShardedRepository.bound());
+        }
+        routes.put("findAllByOrderByIdAsc", ShardedRepository.scatter(Comparator
+                .comparing((Object event) -> ((OutboxEvent) event).getId())));
+        return routes;
+    }
+
+    private Map<String, Route> categoryRoutes() {
+        Map<String, Route> routes = new HashMap<>();
+        Route writes = categoryReplicator.getObject().writes();
+        for (String method : List.of("save", "saveAndFlush", "saveAll", "saveAllAndFlush", "delete", "deleteById",
+                "deleteAll", "deleteAllInBatch", "deleteAllById", "deleteAllByIdInBatch")) {
+            routes.put(method, writes);
+        }
+        // Each shard only counts its own products
+        routes.put("findAllVersions", ShardedRepository.scatter(ShardedRepositories::sumVersionCounts));
+        routes.put("findVersionById", ShardedRepository.scatter(results -> sumVersionCounts(results.stream()
+                .<Object>map(result -> ((Optional<?>) result).stream().toList()).toList()).stream().findFirst()));
+        routes.put("flush", ShardedRepository.bound());
+        return routes;
+    }
+
+    private static Map<String, Route> homeRoutes() {
+        // Flushes the pending changes of the current transaction, wherever it is bound
+        return Map.of("flush", ShardedRepository.bound());
+    }
+
+    private static Route overloaded(Route withoutArguments, Route withArguments) {
+        return call -> call.args().length == 0 ? withoutArguments.route(call) : withArguments.route(call);
+    }
+
+    private static Object sumCategoryCounts(List<Object> results) {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        for (Object result : results) {
+            for (Object row : (List<?>) result) {
+                CategoryProductCount count = (CategoryProductCount) row;
+                counts.merge(count.getCategoryId(), count.getProductCount(), Long::sum);
+            }
+        }
+        List<CategoryProductCount> sums = new ArrayList<>(counts.size());
+        counts.forEach((categoryId, productCount) -> sums.add(new ProductCount(categoryId, productCount)));
+        return sums;
+    }
+
+    /**
+     * Sum the product counts of the categories, in the order of the home shard
+     */
+    private static List<CategoryVersionView> sumVersionCounts(List<Object> results) {
+        Map<Long, VersionView> views = new LinkedHashMap<>();
+        for (Object result : results) {
+            for (Object row : (List<?>) result) {
+                CategoryVersionView view = (CategoryVersionView) row;
+                views.merge(view.getId(), new VersionView(view.getId(), view.getVersion(), view.getProductCount()),
+                        (home, other) -> new VersionView(home.id, home.version, home.productCount + other.productCount));
+            }
+        }
+        return List.copyOf(views.values());
+    }
+
+    private record ProductCount(Long categoryId, Long productCount) implements CategoryProductCount {
+
+        @Override
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        @Override
+        public Long getProductCount() {
+            return productCount;
+        }
+    }
+
+    private record VersionView(Long id, Long version, Long productCount) implements CategoryVersionView {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+
+        @Override
+        public Long getProductCount() {
+            return productCount;
+        }
+    }
+}
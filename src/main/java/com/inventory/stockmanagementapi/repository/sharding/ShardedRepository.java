@@ -0,0 +1,438 @@
+package com.inventory.stockmanagementapi.repository.sharding;
+
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A repository spread over the shards, in front of the Spring Data repository that works on one shard at a time.
+ * <p>
+ * Each method is dispatched by a {@link Route}, looked up by name. A repository of sharded entities has no default
+ * route: every one of its methods must be given one, or the proxy is refused. The calls on several shards are combined
+ * according to the return type: sorted lists and pages are merged on their sort order, with the ID as a tiebreak so
+ * that every shard returns its rows in the same total order; counts are summed.
+ */
+public final class ShardedRepository implements InvocationHandler {
+
+    private final Object target;
+    private final Supplier<ShardRouter> router;
+    private final Map<String, Route> routes;
+    private final Route defaultRoute;
+
+    private ShardedRepository(Object target, Supplier<ShardRouter> router, Map<String, Route> routes,
+                              Route defaultRoute) {
+        this.target = target;
+        this.router = router;
+        this.routes = routes;
+        this.defaultRoute = defaultRoute;
+    }
+
+    /**
+     * Wrap a repository whose every method has its own route
+     * @param type The repository interface
+     * @param target The repository working on the shard of the current thread
+     * @param router The router, looked up at the first call
+     * @param routes The routes of the methods, by name
+     * @return The sharded repository
+     * @throws IllegalStateException if a method of the repository has no route
+     */
+    public static <R> R proxy(Class<R> type, R target, Supplier<ShardRouter> router, Map<String, Route> routes) {
+        Set<String> unrouted = unrouted(type, routes);
+        if (!unrouted.isEmpty()) {
+            throw new IllegalStateException("No shard route for the methods " + unrouted + " of "
+                    + type.getSimpleName());
+        }
+        return proxy(type, target, router, routes, null);
+    }
+
+    /**
+     * Wrap a repository
+     * @param type The repository interface
+     * @param target The repository working on the shard of the current thread
+     * @param router The router, looked up at the first call
+     * @param routes The routes of the methods, by name
+     * @param defaultRoute The route of the other methods, or null when every method has its own
+     * @return The sharded repository
+     */
+    public static <R> R proxy(Class<R> type, R target, Supplier<ShardRouter> router, Map<String, Route> routes,
+                              Route defaultRoute) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new ShardedRepository(target, router, routes, defaultRoute)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "Sharded " + target;
+            };
+        }
+        Route route = routes.getOrDefault(method.getName(), defaultRoute);
+        if (route == null) {
+            throw new IllegalStateException("No shard route for " + method);
+        }
+        return route.route(new Call(router.get(), target, method, args == null ? new Object[0] : args));
+    }
+
+    /**
+     * @param type A repository interface
+     * @param routes The routes of its methods, by name
+     * @return The names of the methods of the repository without a route, sorted
+     */
+    static Set<String> unrouted(Class<?> type, Map<String, Route> routes) {
+        Set<String> unrouted = new TreeSet<>();
+        for (Method method : type.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) && !routes.containsKey(method.getName())) {
+                unrouted.add(method.getName());
+            }
+        }
+        return unrouted;
+    }
+
+    /**
+     * Dispatches the calls of a repository method
+     */
+    @FunctionalInterface
+    public interface Route {
+
+        /**
+         * @param call The call
+         * @return The result of the call
+         */
+        Object route(Call call);
+    }
+
+    /**
+     * A call of a repository method
+     * @param router The router
+     * @param target The repository working on the shard of the current thread
+     * @param method The method
+     * @param args The arguments
+     */
+    public record Call(ShardRouter router, Object target, Method method, Object[] args) {
+
+        /**
+         * @return The result of the call on the shard of the current thread
+         */
+        public Object invoke() {
+            return invoke(args);
+        }
+
+        /**
+         * @param arguments Other arguments
+         * @return The result of the method on the shard of the current thread
+         */
+        public Object invoke(Object[] arguments) {
+            try {
+                return method.invoke(target, arguments);
+            } catch (InvocationTargetException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (ex.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new UndeclaredThrowableException(ex.getCause());
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private Object[] with(int index, Object argument) {
+            Object[] arguments = args.clone();
+            arguments[index] = argument;
+            return arguments;
+        }
+
+        private int indexOf(Class<?> type) {
+            for (int i = 0; i < args.length; i++) {
+                if (type.isInstance(args[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * @return Runs the call on the shard of the current transaction, or the home shard
+     */
+    public static Route bound() {
+        return Call::invoke;
+    }
+
+    /**
+     * @return Runs the call on the home shard; in its own transaction when the current one is bound elsewhere
+     */
+    public static Route home() {
+        return call -> {
+            Integer bound = ShardContext.boundShard();
+            if (bound == null || bound == ShardContext.HOME_SHARD) {
+                return ShardContext.call(ShardContext.HOME_SHARD, call::invoke);
+            }
+            return call.router().inOwnTransaction(ShardContext.HOME_SHARD, true, call::invoke);
+        };
+    }
+
+    /**
+     * Reads of data copied to every shard are answered by the shard of the current transaction. A read-write
+     * transaction that has not run any statement yet reads from the home shard in a separate transaction instead,
+     * so that it remains free to write to the shard of a product.
+     * @return Runs the read on the shard of the current transaction
+     */
+    public static Route replicated() {
+        return call -> {
+            if (TransactionSynchronizationManager.isActualTransactionActive() && ShardContext.boundShard() == null
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                return call.router().inOwnTransaction(ShardContext.HOME_SHARD, false, call::invoke);
+            }
+            return call.invoke();
+        };
+    }
+
+    /**
+     * @return Refuses the call, for the methods whose results cannot be combined across the shards
+     */
+    public static Route unsupported() {
+        return call -> {
+            throw new UnsupportedOperationException(call.method().getName() + " is not supported on a repository "
+                    + "spread over the shards");
+        };
+    }
+
+    /**
+     * @param write Whether the method writes
+     * @return Runs the call on the shard of the product ID given as first argument
+     */
+    public static Route byId(boolean write) {
+        return call -> call.router().onShard(call.router().shardOf((Long) call.args()[0]), write, call::invoke);
+    }
+
+    /**
+     * @param idOf The ID of an entity, null for a new one
+     * @return Runs the call on the shard of the entity given as first argument, or the next shard for a new one
+     */
+    public static Route byEntity(Function<Object, Long> idOf) {
+        return call -> {
+            Long id = idOf.apply(call.args()[0]);
+            int shard = id == null ? call.router().nextShard() : call.router().shardOf(id);
+            return call.router().onShard(shard, true, call::invoke);
+        };
+    }
+
+    /**
+     * @param write Whether the method writes
+     * @return Runs the call on the shards of the product IDs given as first argument, each with its own IDs
+     */
+    public static Route byIds(boolean write) {
+        return call -> partitioned(call, write, id -> (Long) id);
+    }
+
+    /**
+     * @param idOf The ID of an entity, null for a new one
+     * @return Runs the call on the shards of the entities given as first argument, each with its own entities
+     */
+    public static Route byEntities(Function<Object, Long> idOf) {
+        return call -> partitioned(call, true, idOf);
+    }
+
+    /**
+     * @return Runs the call on every shard, each in its own transaction except for the current one
+     */
+    public static Route allShards() {
+        return call -> combine(call, call.router().onShards(call.router().allShards(), true, shard -> call.invoke()),
+                null, null);
+    }
+
+    /**
+     * @return Runs the read on every shard and combines the results according to the return type
+     */
+    public static Route scatter() {
+        return call -> scatter(call, null);
+    }
+
+    /**
+     * @param order The order of the rows returned by the method
+     * @return Runs the read on every shard and merges the results in the given order
+     */
+    public static Route scatter(Comparator<Object> order) {
+        return call -> scatter(call, order);
+    }
+
+    /**
+     * @param combiner Combines the results of every shard, in shard order
+     * @return Runs the read on every shard and combines the results with the given function
+     */
+    public static Route scatter(Function<List<Object>, Object> combiner) {
+        return call -> combiner.apply(call.router().onShards(call.router().allShards(), false,
+                shard -> call.invoke()));
+    }
+
+    private static Object scatter(Call call, Comparator<Object> order) {
+        int pageableIndex = call.indexOf(Pageable.class);
+        Pageable requested = pageableIndex < 0 ? null : (Pageable) call.args()[pageableIndex];
+        Pageable pageable = requested;
+        int sortIndex = call.indexOf(Sort.class);
+        Sort sort = pageable != null ? pageable.getSort() : sortIndex >= 0 ? (Sort) call.args()[sortIndex] : null;
+        Object[] arguments = call.args();
+        Comparator<Object> comparator = order;
+        if (comparator == null && (pageable != null || (sort != null && sort.isSorted()))) {
+            // Every shard sorts on the ID last, so that equal keys come in the same order everywhere
+            Sort total = sort.getOrderFor("id") == null ? sort.and(Sort.by("id")) : sort;
+            comparator = comparator(total);
+            if (pageable != null) {
+                pageable = pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), total)
+                        : Pageable.unpaged(total);
+                arguments = call.with(pageableIndex, pageable);
+            } else {
+                arguments = call.with(sortIndex, total);
+            }
+        }
+        if (pageable != null && pageable.isPaged()) {
+            // Each shard returns all the rows up to the end of the page, the page is cut from their merge: a page
+            // costs shards x (offset + size) rows read and merged, so the deep ones are refused
+            long rows = pageable.getOffset() + pageable.getPageSize();
+            if (rows > call.router().getMaxScanRows()) {
+                throw new BusinessException("Page too deep to be read on every shard: offset plus size must not "
+                        + "exceed " + call.router().getMaxScanRows() + ", narrow the query or page through "
+                        + "/api/products/modified-since instead");
+            }
+            arguments = call.with(pageableIndex, PageRequest.of(0,
+                    Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), pageable.getSort()));
+        }
+        Object[] shardArguments = arguments;
+        List<Object> results = call.router().onShards(call.router().allShards(), false,
+                shard -> call.invoke(shardArguments));
+        return combine(call, results, requested, comparator);
+    }
+
+    private static Object partitioned(Call call, boolean write, Function<Object, Long> idOf) {
+        Map<Integer, List<Object>> byShard = new LinkedHashMap<>();
+        for (Object element : (Iterable<?>) call.args()[0]) {
+            Long id = idOf.apply(element);
+            int shard = id == null ? call.router().nextShard() : call.router().shardOf(id);
+            byShard.computeIfAbsent(shard, ignored -> new ArrayList<>()).add(element);
+        }
+        if (byShard.isEmpty()) {
+            return call.invoke();
+        }
+        if (byShard.size() == 1) {
+            Map.Entry<Integer, List<Object>> only = byShard.entrySet().iterator().next();
+            return call.router().onShard(only.getKey(), write, () -> call.invoke(call.with(0, only.getValue())));
+        }
+        List<Integer> shards = List.copyOf(byShard.keySet());
+        List<Object> results = call.router().onShards(shards, write,
+                shard -> call.invoke(call.with(0, byShard.get(shard))));
+        return combine(call, results, null, null);
+    }
+
+    /**
+     * Combine the results of several shards according to the return type of the method
+     */
+    @SuppressWarnings("unchecked")
+    private static Object combine(Call call, List<Object> results, Pageable pageable, Comparator<Object> order) {
+        Class<?> type = call.method().getReturnType();
+        if (Page.class.isAssignableFrom(type)) {
+            List<List<Object>> contents = results.stream().map(page -> ((Page<Object>) page).getContent()).toList();
+            long total = results.stream().mapToLong(page -> ((Page<?>) page).getTotalElements()).sum();
+            return new PageImpl<>(window(rows(contents, order), pageable), pageable, total);
+        }
+        if (Slice.class.isAssignableFrom(type)) {
+            List<List<Object>> contents = results.stream().map(slice -> ((Slice<Object>) slice).getContent()).toList();
+            List<Object> rows = rows(contents, order);
+            boolean hasNext = pageable.isPaged() && (rows.size() > pageable.getOffset() + pageable.getPageSize()
+                    || results.stream().anyMatch(slice -> ((Slice<?>) slice).hasNext()));
+            return new SliceImpl<>(window(rows, pageable), pageable, hasNext);
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            List<List<Object>> lists = results.stream().map(list -> {
+                List<Object> elements = new ArrayList<>();
+                ((Iterable<Object>) list).forEach(elements::add);
+                return elements;
+            }).toList();
+            return pageable == null ? rows(lists, order) : window(rows(lists, order), pageable);
+        }
+        if (type == long.class || type == Long.class) {
+            return results.stream().mapToLong(count -> ((Number) count).longValue()).sum();
+        }
+        if (type == int.class || type == Integer.class) {
+            return results.stream().mapToInt(count -> ((Number) count).intValue()).sum();
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        if (type == Optional.class) {
+            return results.stream().map(result -> (Optional<?>) result).filter(Optional::isPresent).findFirst()
+                    .orElse(Optional.empty());
+        }
+        return results.stream().filter(Objects::nonNull).findFirst().orElse(null);
+    }
+
+    private static List<Object> rows(List<List<Object>> runs, Comparator<Object> order) {
+        if (order == null) {
+            return runs.stream().flatMap(Collection::stream).toList();
+        }
+        return ShardRouter.merge(runs, order, Integer.MAX_VALUE);
+    }
+
+    private static List<Object> window(List<Object> rows, Pageable pageable) {
+        if (pageable == null || pageable.isUnpaged()) {
+            return rows;
+        }
+        int from = (int) Math.min(pageable.getOffset(), rows.size());
+        return rows.subList(from, Math.min(from + pageable.getPageSize(), rows.size()));
+    }
+
+    /**
+     * The order of a sort, on entities, projections and field maps alike.
+     * Null values come first in ascending order, as in the database.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Comparator<Object> comparator(Sort sort) {
+        Comparator<Object> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Comparable> values = Comparator.nullsFirst(Comparator.naturalOrder());
+            Comparator<Object> byProperty = Comparator.comparing(row -> {
+                Object value = property(row, order.getProperty());
+                return order.isIgnoreCase() && value instanceof String text ? text.toLowerCase() : (Comparable) value;
+            }, values);
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    private static Object property(Object row, String property) {
+        if (row instanceof Map<?, ?> map) {
+            return map.get(property);
+        }
+        return new BeanWrapperImpl(row).getPropertyValue(property);
+    }
+}
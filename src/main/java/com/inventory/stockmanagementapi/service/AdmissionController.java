@@ -0,0 +1,223 @@
+package com.inventory.stockmanagementapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides which HTTP requests are worked on, so that an overloaded instance answers some requests in time rather
+ * than all of them too late.
+ * <p>
+ * At most {@code maxConcurrent} requests are worked on at once; the other ones wait for their turn, the most
+ * important first. The time they wait, the queueing delay, tells whether the instance keeps up: like the CoDel
+ * algorithm, the lowest delay of each interval is compared with the target, since a standing queue that never
+ * drains within an interval means more requests come in than go out. When it stays above the target, requests of
+ * {@link Priority#LOW} priority are rejected at once; above four times the target, those of
+ * {@link Priority#NORMAL} priority as well. {@link Priority#CRITICAL} requests are never shed, they only wait up to
+ * {@code maxWait} like the other ones, and no longer than their request {@link Deadline}.
+ */
+public class AdmissionController {
+
+    /**
+     * The importance of a request, the first being the most important
+     */
+    public enum Priority {
+        CRITICAL,   // Stock updates
+        NORMAL,     // Lookups and other changes
+        LOW         // Listings, searches and exports
+    }
+
+    private static final String REJECTED_METRIC = "admission.rejected";
+
+    private final int maxConcurrent;
+    private final long targetDelay;
+    private final long interval;
+    private final long maxWait;
+    private final Map<Priority, Timer> delays = new EnumMap<>(Priority.class);
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, Condition> turns = new EnumMap<>(Priority.class);
+    private final int[] waiting = new int[Priority.values().length];
+    private int inFlight;
+    private long intervalStart;
+    private long minDelay = Long.MAX_VALUE;
+    // Number of priorities shed, starting from the lowest
+    private volatile int shedLevels;
+
+    /**
+     * @param maxConcurrent The number of requests worked on at once
+     * @param targetDelay The acceptable queueing delay
+     * @param interval The interval over which the lowest queueing delay is compared with the target
+     * @param maxWait How long a request may wait for its turn
+     * @param meterRegistry The registry of the admission metrics
+     */
+    public AdmissionController(int maxConcurrent, Duration targetDelay, Duration interval, Duration maxWait,
+                               MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.targetDelay = targetDelay.toNanos();
+        this.interval = interval.toNanos();
+        this.maxWait = maxWait.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.intervalStart = System.nanoTime();
+        for (Priority priority : Priority.values()) {
+            turns.put(priority, lock.newCondition());
+            delays.put(priority, Timer.builder("admission.queue.delay").tag("priority", tag(priority))
+                    .publishPercentileHistogram().register(meterRegistry));
+        }
+        Gauge.builder("admission.shed.levels", this, controller -> controller.shedLevels).register(meterRegistry);
+        Gauge.builder("admission.in-flight", this, AdmissionController::getInFlight).register(meterRegistry);
+    }
+
+    /**
+     * Wait for the turn of a request
+     * @param priority The priority of the request
+     * @return Whether the request may be worked on, in which case {@link #release()} must be called once done
+     */
+    public boolean admit(Priority priority) {
+        long arrival = System.nanoTime();
+        lock.lock();
+        try {
+            endInterval(arrival);
+            if (isShed(priority)) {
+                reject(priority, "overload");
+                return false;
+            }
+            long remaining = Deadline.bound(maxWait);
+            waiting[priority.ordinal()]++;
+            try {
+                while (inFlight >= maxConcurrent || hasWaitersBefore(priority)) {
+                    if (remaining <= 0) {
+                        minDelay = Math.min(minDelay, System.nanoTime() - arrival);
+                        reject(priority, "timeout");
+                        return false;
+                    }
+                    remaining = turns.get(priority).awaitNanos(remaining);
+                    if (isShed(priority)) {
+                        reject(priority, "overload");
+                        return false;
+                    }
+                }
+            } finally {
+                waiting[priority.ordinal()]--;
+            }
+            inFlight++;
+            long delay = System.nanoTime() - arrival;
+            delays.get(priority).record(delay, TimeUnit.NANOSECONDS);
+            minDelay = Math.min(minDelay, delay);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            reject(priority, "timeout");
+            return false;
+        } finally {
+            signalNext();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * End the work on an admitted request
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param priority A priority
+     * @return Whether requests of that priority are currently rejected without waiting
+     */
+    public boolean isShed(Priority priority) {
+        return priority != Priority.CRITICAL && priority.ordinal() >= Priority.values().length - shedLevels;
+    }
+
+    /**
+     * @return The number of requests worked on
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param priority A priority
+     * @return The number of requests of that priority waiting for their turn
+     */
+    int getWaiting(Priority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compare the lowest queueing delay of the interval with the target once the interval is over. An interval
+     * where no request waited, because they were all shed, ends the shedding: the next requests probe the load.
+     */
+    private void endInterval(long now) {
+        if (now - intervalStart < interval) {
+            return;
+        }
+        if (minDelay == Long.MAX_VALUE) {
+            shedLevels = 0;
+        } else if (minDelay > 4 * targetDelay) {
+            shedLevels = 2;
+        } else if (minDelay > targetDelay) {
+            shedLevels = 1;
+        } else {
+            shedLevels = 0;
+        }
+        intervalStart = now;
+        minDelay = Long.MAX_VALUE;
+    }
+
+    private boolean hasWaitersBefore(Priority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            if (waiting[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void signalNext() {
+        if (inFlight >= maxConcurrent) {
+            return;
+        }
+        for (Priority priority : Priority.values()) {
+            if (waiting[priority.ordinal()] > 0) {
+                turns.get(priority).signal();
+                return;
+            }
+        }
+    }
+
+    private void reject(Priority priority, String reason) {
+        Counter.builder(REJECTED_METRIC).tag("priority", tag(priority)).tag("reason", reason).register(meterRegistry)
+                .increment();
+    }
+
+    private static String tag(Priority priority) {
+        return priority.name().toLowerCase();
+    }
+}
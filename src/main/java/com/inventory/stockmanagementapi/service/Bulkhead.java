@@ -0,0 +1,186 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.exception.DeadlineExceededException;
+import com.inventory.stockmanagementapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of concurrent calls of one {@link Workload}, so that it cannot take all the database
+ * connections.
+ * <p>
+ * The limit adapts to the latency of the calls, like a TCP congestion window (gradient algorithm): a long-term
+ * average of the latency is kept, and each call compares its own latency with it. While calls are not slower than
+ * {@code tolerance} times the average, the limit grows by about its square root at each update; when they get
+ * slower, it shrinks in proportion, down to half at once. The limit does not grow while less than half of it is
+ * used, since the latency then says nothing about a larger concurrency. It stays between its minimum and maximum.
+ * <p>
+ * A call beyond the limit waits up to {@code maxWait} for another one to finish, then fails with a
+ * {@link ServiceUnavailableException}; it waits no longer than its request {@link Deadline}, then fails with a
+ * {@link DeadlineExceededException}.
+ */
+public class Bulkhead {
+
+    // Weight of a call in the long-term latency average, and of a new limit in the current one
+    private static final double LONG_TERM_WEIGHT = 1.0 / 100;
+    private static final double SMOOTHING = 0.2;
+
+    private final Workload workload;
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final Duration maxWait;
+    private final Timer waitTimer;
+    private final Timer callTimer;
+    private final Counter rejected;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private double longTermLatency;
+
+    /**
+     * @param workload The workload of the calls
+     * @param initialLimit The limit at startup
+     * @param minLimit The lowest limit
+     * @param maxLimit The highest limit
+     * @param tolerance How much slower than the long-term average a call may be before the limit shrinks
+     * @param maxWait How long a call may wait for a permit
+     * @param meterRegistry The registry of the bulkhead metrics
+     */
+    public Bulkhead(Workload workload, int initialLimit, int minLimit, int maxLimit, double tolerance,
+                    Duration maxWait, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limits " + minLimit + ".." + maxLimit + " for " + workload);
+        }
+        this.workload = workload;
+        this.name = workload.getKey();
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.maxWait = maxWait;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.waitTimer = Timer.builder("bulkhead.wait").tag("workload", name).publishPercentileHistogram()
+                .register(meterRegistry);
+        this.callTimer = Timer.builder("bulkhead.calls").tag("workload", name).register(meterRegistry);
+        this.rejected = Counter.builder("bulkhead.rejected").tag("workload", name).register(meterRegistry);
+        Gauge.builder("bulkhead.limit", this, Bulkhead::getLimit).tag("workload", name).register(meterRegistry);
+        Gauge.builder("bulkhead.in-flight", this, Bulkhead::getInFlight).tag("workload", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a call within the limit
+     * @param call The call
+     * @param <T> The result type
+     * @return The result of the call
+     * @throws ServiceUnavailableException if no permit was available within the maximum wait
+     * @throws DeadlineExceededException if no permit was available before the deadline of the request
+     */
+    public <T> T call(Supplier<T> call) {
+        acquire();
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return The workload of the calls
+     */
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    /**
+     * @return The current limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of calls in progress
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire() {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            long remaining = Deadline.bound(maxWait.toNanos());
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    Deadline.checkCurrent("bulkhead");
+                    rejected.increment();
+                    throw new ServiceUnavailableException("Too many concurrent " + name
+                            + " requests, please retry later");
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for a " + name + " permit");
+        } finally {
+            lock.unlock();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void release(long latency) {
+        callTimer.record(latency, TimeUnit.NANOSECONDS);
+        lock.lock();
+        try {
+            int used = inFlight;
+            inFlight--;
+            adjust(Math.max(latency, 1), used);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Update the limit with the latency of a call
+     * @param latency The latency of the call, in nanoseconds
+     * @param used The calls in progress when it finished, itself included
+     */
+    void adjust(long latency, int used) {
+        if (longTermLatency == 0) {
+            longTermLatency = latency;
+        } else {
+            longTermLatency += (latency - longTermLatency) * LONG_TERM_WEIGHT;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longTermLatency / latency));
+        double target = limit * gradient + Math.sqrt(limit);
+        if (used * 2 < limit) {
+            target = Math.min(target, limit);
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
@@ -0,0 +1,22 @@
+package com.inventory.stockmanagementapi.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a service method within the {@link Bulkhead} of its workload, outside of its transaction. Like
+ * {@code @Transactional}, it only applies to calls from other beans.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkheaded {
+
+    /**
+     * @return The workload of the method
+     */
+    Workload value();
+}
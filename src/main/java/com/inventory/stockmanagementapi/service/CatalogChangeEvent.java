@@ -0,0 +1,26 @@
+package com.inventory.stockmanagementapi.service;
+
+/**
+ * Published inside the transaction of every product and category mutation.
+ * Listeners reacting to committed data should use {@code @TransactionalEventListener}.
+ *
+ * @param type What changed
+ * @param entityId The ID of the changed product or category, or null for a reset of the whole catalog
+ */
+public record CatalogChangeEvent(Type type, Long entityId) {
+
+    public enum Type {
+        PRODUCT_CREATED,
+        PRODUCT_UPDATED,
+        PRODUCT_DELETED,
+        STOCK_UPDATED,
+        CATEGORY_CREATED,
+        CATEGORY_UPDATED,
+        CATEGORY_DELETED,
+        CATALOG_RESET       // All products and categories were replaced
+    }
+
+    public static CatalogChangeEvent reset() {
+        return new CatalogChangeEvent(Type.CATALOG_RESET, null);
+    }
+}
@@ -5,30 +5,45 @@ import com.inventory.stockmanagementapi.exception.BusinessException;
 import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
 import com.inventory.stockmanagementapi.domain.Category;
 import com.inventory.stockmanagementapi.repository.CategoryRepository;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.projection.CategoryProductCount;
+import com.inventory.stockmanagementapi.repository.projection.CategoryVersionView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ProductRepository productRepository,
+                           ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Get all categories with product count
+     * Get all categories with product count, ordered by ID
      * @return List of all categories with their product count
      */
+    @Transactional(readOnly = true)
     public List<CategoryDTO> getAllCategories() {
-        return categoryRepository.findAll().stream()
-                .map(this::convertToDTO)
+        // Counted in a single query rather than by loading the products of every category
+        Map<Long, Long> productCounts = productRepository.countByCategory().stream()
+                .collect(Collectors.toMap(CategoryProductCount::getCategoryId, CategoryProductCount::getProductCount));
+        return categoryRepository.findAll(Sort.by("id")).stream()
+                .map(category -> convertToDTO(category, productCounts.getOrDefault(category.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
@@ -38,10 +53,32 @@ public class CategoryService {
      * @return The category DTO
      * @throws ResourceNotFoundException if the category is not found
      */
+    @Transactional(readOnly = true)
     public CategoryDTO getCategoryById(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
-        return convertToDTO(category);
+        return convertToDTO(category, productRepository.countByCategoryId(id));
+    }
+
+    /**
+     * Get the versions of all categories, in the same order as {@link #getAllCategories()}
+     * @return List of category versions with their product count
+     */
+    @Transactional(readOnly = true)
+    public List<CategoryVersionView> getCategoryVersions() {
+        return categoryRepository.findAllVersions();
+    }
+
+    /**
+     * Get the version of a category without loading it
+     * @param id The category ID
+     * @return The category version with its product count
+     * @throws ResourceNotFoundException if the category is not found
+     */
+    @Transactional(readOnly = true)
+    public CategoryVersionView getCategoryVersion(Long id) {
+        return categoryRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
     }
 
     /**
@@ -61,7 +98,8 @@ public class CategoryService {
         category.setDescription(categoryDTO.getDescription());
         
         Category savedCategory = categoryRepository.save(category);
-        return convertToDTO(savedCategory);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.CATEGORY_CREATED, savedCategory.getId()));
+        return convertToDTO(savedCategory, 0);
     }
 
     /**
@@ -87,7 +125,8 @@ public class CategoryService {
         category.setDescription(categoryDTO.getDescription());
         
         Category updatedCategory = categoryRepository.save(category);
-        return convertToDTO(updatedCategory);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.CATEGORY_UPDATED, id));
+        return convertToDTO(updatedCategory, productRepository.countByCategoryId(id));
     }
 
     /**
@@ -101,24 +140,27 @@ public class CategoryService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
         
-        if (!category.getProducts().isEmpty()) {
+        if (productRepository.existsByCategoryId(id)) {
             throw new BusinessException("Cannot delete category with existing products. Remove or reassign products first.");
         }
         
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.CATEGORY_DELETED, id));
     }
 
     /**
      * Convert Category entity to CategoryDTO
      * @param category The Category entity
+     * @param productCount The number of products in the category
      * @return The CategoryDTO
      */
-    private CategoryDTO convertToDTO(Category category) {
+    private CategoryDTO convertToDTO(Category category, long productCount) {
         CategoryDTO dto = new CategoryDTO();
         dto.setId(category.getId());
         dto.setName(category.getName());
         dto.setDescription(category.getDescription());
-        dto.setProductCount(category.getProducts().size());
+        dto.setProductCount((int) productCount);
+        dto.setVersion(category.getVersion());
         return dto;
     }
 }
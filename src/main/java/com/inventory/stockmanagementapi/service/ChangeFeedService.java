@@ -0,0 +1,519 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.domain.CatalogChange;
+import com.inventory.stockmanagementapi.dto.ChangeBatchDTO;
+import com.inventory.stockmanagementapi.dto.ChangeEventDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.GoneException;
+import com.inventory.stockmanagementapi.repository.CatalogChangeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Sequenced feed of committed product and category mutations, for consumers mirroring the catalog.
+ * <p>
+ * Every {@link CatalogChangeEvent} is written to the {@code catalog_changes} table in the transaction of the
+ * mutation, right before it commits. Sequence numbers are handed out by the table without any lock, so the
+ * transactions of this and other instances may commit them out of order. The feed is served up to a watermark
+ * instead: the latest sequence number below which none is missing. A missing number is waited for until the gap
+ * timeout, which is far longer than the commit that follows the insert, then skipped as rolled back; so a consumer
+ * that has seen sequence number N does not later miss a change numbered below N.
+ * <p>
+ * The changes up to the watermark are kept in a bounded in-memory ring; only consumers lagging behind it read from
+ * the table. The ring is fed by the commits of this instance and by reading the table, when one of them does not
+ * follow the watermark, when the {@link InvalidationBus} signals a change of another instance, and periodically.
+ * Changes older than the retention period are purged, and a consumer whose cursor points before the purged range
+ * must resynchronize from a full read.
+ * <p>
+ * When sharding is on, a mutation on a shard other than the home shard has its change written on the home shard in
+ * a transaction of its own, which commits right before the mutation: a consumer may see the change a moment before
+ * the mutation, and the change remains if the mutation then rolls back.
+ * <p>
+ * Subscribers are notified on their own executor threads, never on the thread of the committing request.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final int maxBatchSize;
+    private final Duration retention;
+    private final long gapTimeoutNanos;
+
+    // Circular buffer of the latest changes, oldest at ringStart; guarded by ringLock
+    private final ChangeEventDTO[] ring;
+    private final ReentrantLock ringLock = new ReentrantLock();
+    private int ringStart;
+    private int ringCount;
+    // Every change with a higher sequence number is in the ring
+    private long ringFloor;
+    // The watermark: every change up to it was appended or skipped
+    private volatile long latestSeq;
+    // The watermark at which a missing sequence number was first found, and when
+    private long gapAfter = -1;
+    private long gapSince;
+    // Changes up to this sequence number may have been purged from the table
+    private volatile long purgedThrough;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // One thread per subscriber with pending changes, blocked while its stream is written
+    private final ExecutorService dispatcher;
+
+    @Autowired
+    public ChangeFeedService(CatalogChangeRepository catalogChangeRepository,
+                             @Value("${changes.ring-size:10000}") int ringSize,
+                             @Value("${changes.max-batch-size:1000}") int maxBatchSize,
+                             @Value("${changes.retention:7d}") Duration retention,
+                             @Value("${changes.gap-timeout:5s}") Duration gapTimeout,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.catalogChangeRepository = catalogChangeRepository;
+        this.dispatcher = Executors.newCachedThreadPool(
+                VirtualThreads.threadFactory("change-feed-dispatch", virtualThreads));
+        this.ring = new ChangeEventDTO[ringSize];
+        this.maxBatchSize = maxBatchSize;
+        this.retention = retention;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+    }
+
+    /**
+     * Start the ring after the changes already stored, which remain available from the table
+     */
+    @PostConstruct
+    public void init() {
+        Long maxSeq = catalogChangeRepository.findMaxSeq();
+        Long minSeq = catalogChangeRepository.findMinSeq();
+        latestSeq = maxSeq != null ? maxSeq : 0;
+        ringFloor = latestSeq;
+        purgedThrough = minSeq != null ? minSeq - 1 : latestSeq;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Record a mutation once its transaction commits, or immediately when it runs without a transaction
+     * @param event The mutation
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new ChangeRecorder(event));
+            return;
+        }
+        publish(insert(event));
+        signalSubscriptions();
+    }
+
+    /**
+     * Deliver the changes committed by another instance, which are read from the table
+     * @param event The change
+     */
+    @EventListener
+    public void onRemoteCatalogChange(RemoteCatalogChangeEvent event) {
+        catchUp();
+        signalSubscriptions();
+    }
+
+    /**
+     * Read the changes committed by other instances without signal, and move past the gaps that timed out
+     */
+    @Scheduled(fixedDelayString = "${changes.poll-interval-ms:1000}")
+    public void poll() {
+        long latest = latestSeq;
+        catchUp();
+        if (latestSeq != latest) {
+            signalSubscriptions();
+        }
+    }
+
+    /**
+     * @return The sequence number of the latest committed change, 0 if there is none
+     */
+    public long getLatestSeq() {
+        return latestSeq;
+    }
+
+    /**
+     * Check that the changes following a sequence number can be read
+     * @param after The last sequence number already seen, 0 to read from the start
+     * @throws BusinessException if the cursor is negative
+     * @throws GoneException if changes following the cursor were purged, or the cursor is ahead of the feed
+     */
+    public void checkCursor(long after) {
+        if (after < 0) {
+            throw new BusinessException("The cursor must be positive");
+        }
+        if (after > latestSeq) {
+            // Possibly seen on another instance, before this one heard of it
+            catchUp();
+        }
+        if (after > latestSeq) {
+            throw new GoneException("The cursor " + after + " is ahead of the latest change " + latestSeq
+                    + ", the catalog must be read again");
+        }
+        long floor;
+        ringLock.lock();
+        try {
+            floor = ringFloor;
+        } finally {
+            ringLock.unlock();
+        }
+        if (after < floor && after < purgedThrough) {
+            throw new GoneException("Changes following " + after + " were purged, the catalog must be read again");
+        }
+    }
+
+    /**
+     * Get the changes following a sequence number
+     * @param after The last sequence number already seen, 0 to read from the start
+     * @param limit The maximum number of changes, capped at the configured batch size
+     * @return The changes, in sequence order
+     * @throws BusinessException if the cursor or the limit is invalid
+     * @throws GoneException if changes following the cursor were purged, or the cursor is ahead of the feed
+     */
+    public ChangeBatchDTO getChanges(long after, int limit) {
+        checkCursor(after);
+        if (limit < 1) {
+            throw new BusinessException("The limit must be at least 1");
+        }
+        int size = Math.min(limit, maxBatchSize);
+        ringLock.lock();
+        try {
+            if (after >= ringFloor) {
+                return readRing(after, size);
+            }
+        } finally {
+            ringLock.unlock();
+        }
+        // The consumer lags behind the ring; one extra row tells whether more changes follow
+        long latest = latestSeq;
+        List<CatalogChange> rows = catalogChangeRepository.findBySeqGreaterThanOrderBySeqAsc(after,
+                PageRequest.of(0, size + 1));
+        if (after < purgedThrough) {
+            // Purged while reading, the rows may start after a gap
+            throw new GoneException("Changes following " + after + " were purged, the catalog must be read again");
+        }
+        List<ChangeEventDTO> changes = new ArrayList<>(Math.min(rows.size(), size));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            if (rows.get(i).getSeq() > latest) {
+                // Committed since the ring last caught up: served from the ring once appended there
+                return toBatch(after, changes, false);
+            }
+            changes.add(toDTO(rows.get(i)));
+        }
+        return toBatch(after, changes, rows.size() > size);
+    }
+
+    /**
+     * Wait for the changes following a sequence number
+     * @param after The last sequence number already seen
+     * @param limit The maximum number of changes
+     * @param wait How long to wait when there is no change yet
+     * @return The changes, or an empty batch if none was committed in time
+     * @throws BusinessException if the cursor or the limit is invalid
+     * @throws GoneException if changes following the cursor were purged, or the cursor is ahead of the feed
+     */
+    public CompletableFuture<ChangeBatchDTO> awaitChanges(long after, int limit, Duration wait) {
+        ChangeBatchDTO batch = getChanges(after, limit);
+        if (!batch.getChanges().isEmpty() || wait.isZero() || wait.isNegative()) {
+            return CompletableFuture.completedFuture(batch);
+        }
+        CompletableFuture<ChangeBatchDTO> result = new CompletableFuture<>();
+        Subscription subscription = subscribe(after, limit, changes -> {
+            result.complete(changes);
+            return false;
+        }, result::completeExceptionally);
+        result.whenComplete((changes, ex) -> subscription.close());
+        return result.completeOnTimeout(batch, wait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deliver the changes following a sequence number, then every new change, until the subscription is closed
+     * @param after The last sequence number already seen
+     * @param limit The maximum number of changes per batch
+     * @param sink Receives the batches in order, on a dispatcher thread, and returns false to stop
+     * @param onError Receives the failure that closed the subscription
+     * @return The subscription
+     */
+    public Subscription subscribe(long after, int limit, ChangeSink sink, Consumer<Exception> onError) {
+        Subscription subscription = new Subscription(after, Math.min(limit, maxBatchSize), sink, onError);
+        subscriptions.add(subscription);
+        // Changes committed before the subscription are delivered right away
+        subscription.signal();
+        return subscription;
+    }
+
+    /**
+     * Delete the changes that are older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${changes.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Long through = catalogChangeRepository.findMaxSeqBefore(LocalDateTime.now().minus(retention));
+        if (through == null || through <= purgedThrough) {
+            return;
+        }
+        // Raised first, so that no consumer reads a partially purged range
+        purgedThrough = through;
+        int deleted = catalogChangeRepository.deleteThrough(through);
+        log.debug("Purged {} catalog changes up to {}", deleted, through);
+    }
+
+    private ChangeEventDTO insert(CatalogChangeEvent event) {
+        CatalogChange change = CatalogChange.builder()
+                .type(event.type())
+                .entityId(event.entityId())
+                .occurredAt(LocalDateTime.now())
+                .build();
+        return toDTO(catalogChangeRepository.saveAndFlush(change));
+    }
+
+    /**
+     * Add a committed change to the ring, after the changes numbered before it
+     */
+    private void publish(ChangeEventDTO change) {
+        ringLock.lock();
+        try {
+            if (change.getSeq() <= latestSeq) {
+                // Already read from the table
+                return;
+            }
+            if (change.getSeq() == latestSeq + 1) {
+                append(change);
+                return;
+            }
+        } finally {
+            ringLock.unlock();
+        }
+        // Numbered after changes of other instances or transactions, which may not be committed yet
+        catchUp();
+    }
+
+    /**
+     * Append the changes stored since the watermark, in sequence order, up to the first gap that has not timed out
+     */
+    private void catchUp() {
+        List<CatalogChange> rows;
+        boolean more;
+        do {
+            rows = catalogChangeRepository.findBySeqGreaterThanOrderBySeqAsc(latestSeq,
+                    PageRequest.of(0, maxBatchSize));
+            ringLock.lock();
+            try {
+                more = appendInOrder(rows) && rows.size() == maxBatchSize;
+            } finally {
+                ringLock.unlock();
+            }
+        } while (more);
+    }
+
+    /**
+     * @return False if held back at a gap; called with the ring lock held
+     */
+    private boolean appendInOrder(List<CatalogChange> rows) {
+        for (CatalogChange row : rows) {
+            if (row.getSeq() <= latestSeq) {
+                // Appended by a concurrent catch-up
+                continue;
+            }
+            if (row.getSeq() > latestSeq + 1) {
+                // Numbers taken by transactions that are committing, or rolled back
+                long now = System.nanoTime();
+                if (gapAfter != latestSeq) {
+                    gapAfter = latestSeq;
+                    gapSince = now;
+                }
+                if (now - gapSince < gapTimeoutNanos) {
+                    return false;
+                }
+                log.debug("Skipped the missing catalog changes {} to {}", latestSeq + 1, row.getSeq() - 1);
+            }
+            append(toDTO(row));
+        }
+        return true;
+    }
+
+    // Called with the ring lock held
+    private void append(ChangeEventDTO change) {
+        int index = (ringStart + ringCount) % ring.length;
+        if (ringCount == ring.length) {
+            ringFloor = ring[ringStart].getSeq();
+            ringStart = (ringStart + 1) % ring.length;
+        } else {
+            ringCount++;
+        }
+        ring[index] = change;
+        latestSeq = change.getSeq();
+    }
+
+    private ChangeBatchDTO readRing(long after, int size) {
+        // Sequence numbers increase along the ring, the first one above the cursor is found by binary search
+        int low = 0;
+        int high = ringCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ring[(ringStart + mid) % ring.length].getSeq() <= after) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = Math.min(ringCount, low + size);
+        List<ChangeEventDTO> changes = new ArrayList<>(end - low);
+        for (int i = low; i < end; i++) {
+            changes.add(ring[(ringStart + i) % ring.length]);
+        }
+        return toBatch(after, changes, end < ringCount);
+    }
+
+    private void signalSubscriptions() {
+        for (Subscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    private static ChangeBatchDTO toBatch(long after, List<ChangeEventDTO> changes, boolean hasMore) {
+        long lastSeq = changes.isEmpty() ? after : changes.get(changes.size() - 1).getSeq();
+        return new ChangeBatchDTO(changes, lastSeq, hasMore);
+    }
+
+    private static ChangeEventDTO toDTO(CatalogChange change) {
+        return new ChangeEventDTO(change.getSeq(), change.getType(), change.getEntityId(), change.getOccurredAt());
+    }
+
+    /**
+     * Receives the batches of a subscription
+     */
+    @FunctionalInterface
+    public interface ChangeSink {
+
+        /**
+         * @param batch The next non-empty batch of changes
+         * @return True to keep receiving changes, false to close the subscription
+         * @throws IOException if the changes could not be delivered, which closes the subscription
+         */
+        boolean accept(ChangeBatchDTO batch) throws IOException;
+    }
+
+    /**
+     * A consumer of the feed, which delivers batches one at a time from its cursor
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final int limit;
+        private final ChangeSink sink;
+        private final Consumer<Exception> onError;
+        // Signals received while a delivery runs, so that a single delivery runs at a time and none is lost
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long cursor;
+        private volatile boolean closed;
+
+        private Subscription(long after, int limit, ChangeSink sink, Consumer<Exception> onError) {
+            this.cursor = after;
+            this.limit = limit;
+            this.sink = sink;
+            this.onError = onError;
+        }
+
+        /**
+         * @return The last sequence number delivered
+         */
+        public long getCursor() {
+            return cursor;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+
+        private void signal() {
+            if (!closed && pending.getAndIncrement() == 0) {
+                dispatcher.execute(this::deliver);
+            }
+        }
+
+        private void deliver() {
+            int signals = pending.get();
+            while (true) {
+                drain();
+                signals = pending.addAndGet(-signals);
+                if (signals == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    ChangeBatchDTO batch = getChanges(cursor, limit);
+                    if (batch.getChanges().isEmpty()) {
+                        return;
+                    }
+                    cursor = batch.getLastSeq();
+                    if (!sink.accept(batch)) {
+                        close();
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                close();
+                onError.accept(ex);
+            }
+        }
+    }
+
+    /**
+     * Writes the change in the transaction of the mutation, and publishes it once the transaction commits
+     */
+    private final class ChangeRecorder implements TransactionSynchronization {
+
+        private final CatalogChangeEvent event;
+        private ChangeEventDTO change;
+
+        private ChangeRecorder(CatalogChangeEvent event) {
+            this.event = event;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Pending writes go first, so that the sequence number is taken as close to the commit as possible
+            catalogChangeRepository.flush();
+            change = insert(event);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (change != null && status == STATUS_COMMITTED) {
+                publish(change);
+                signalSubscriptions();
+            }
+        }
+    }
+}
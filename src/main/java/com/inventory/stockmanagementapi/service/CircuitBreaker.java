@@ -0,0 +1,215 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.exception.CircuitOpenException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stops calling the database while it fails, so that requests fail at once instead of holding threads and
+ * connections until their timeouts, and the database gets time to recover.
+ * <p>
+ * The outcomes of the last {@code windowSize} calls are kept. Once at least {@code minimumCalls} of them are known
+ * and the share of failures reaches {@code failureRateThreshold}, the circuit opens: calls are refused with a
+ * {@link CircuitOpenException} for {@code openDuration}. The circuit is then half-open: up to {@code probeCalls}
+ * calls go through, and close the circuit if they all succeed, or open it again at the first failure.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * The state of the circuit, as published in the {@code circuit.state} gauge
+     */
+    public enum State {
+        CLOSED,     // Calls go through
+        HALF_OPEN,  // A few calls probe the database
+        OPEN        // Calls are refused
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDuration;
+    private final int probeCalls;
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter rejected;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Ring of the last outcomes, true for a failure
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failuresInWindow;
+    private State state = State.CLOSED;
+    private long stateSince = System.nanoTime();
+    private int probesStarted;
+    private int probesSucceeded;
+
+    /**
+     * @param name The name of the circuit in logs and metrics
+     * @param windowSize The number of last calls whose outcome is kept
+     * @param minimumCalls The number of outcomes needed before the circuit may open
+     * @param failureRateThreshold The share of failed calls opening the circuit, between 0 and 1
+     * @param openDuration How long the circuit stays open before probing
+     * @param probeCalls The number of successful probes closing the circuit
+     * @param meterRegistry The registry of the circuit metrics
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int probeCalls, MeterRegistry meterRegistry) {
+        if (minimumCalls < 1 || minimumCalls > windowSize || probeCalls < 1) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings for " + name);
+        }
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration.toNanos();
+        this.probeCalls = probeCalls;
+        this.outcomes = new boolean[windowSize];
+        this.meterRegistry = meterRegistry;
+        this.successes = Counter.builder("circuit.calls").tag("circuit", name).tag("outcome", "success")
+                .register(meterRegistry);
+        this.failures = Counter.builder("circuit.calls").tag("circuit", name).tag("outcome", "failure")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("circuit.rejected").tag("circuit", name).register(meterRegistry);
+        Gauge.builder("circuit.state", this, breaker -> breaker.getState().ordinal()).tag("circuit", name)
+                .description("0 closed, 1 half-open, 2 open").register(meterRegistry);
+    }
+
+    /**
+     * Ask to call the database
+     * @throws CircuitOpenException if the circuit is open, or half-open with all its probes running
+     */
+    public void acquire() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (state == State.OPEN && now - stateSince >= openDuration) {
+                transition(State.HALF_OPEN, now);
+            }
+            // Probes that never reported, on connections left unused, must not keep the circuit half-open forever
+            if (state == State.HALF_OPEN && now - stateSince >= openDuration) {
+                stateSince = now;
+                probesStarted = probesSucceeded;
+            }
+            if (state == State.OPEN || state == State.HALF_OPEN && probesStarted >= probeCalls) {
+                rejected.increment();
+                long retryAfter = state == State.OPEN ? openDuration - (now - stateSince) : 0;
+                throw new CircuitOpenException("The database is unavailable, please retry later",
+                        Duration.ofNanos(retryAfter));
+            }
+            if (state == State.HALF_OPEN) {
+                probesStarted++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a call the database answered
+     */
+    public void onSuccess() {
+        successes.increment();
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                if (++probesSucceeded >= probeCalls) {
+                    transition(State.CLOSED, System.nanoTime());
+                }
+                return;
+            }
+            record(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a call that failed because of the database: unreachable, out of connections, or too slow
+     */
+    public void onFailure() {
+        failures.increment();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (state == State.HALF_OPEN) {
+                transition(State.OPEN, now);
+                return;
+            }
+            if (state == State.CLOSED) {
+                record(true);
+                if (recorded >= minimumCalls && failuresInWindow >= failureRateThreshold * recorded) {
+                    transition(State.OPEN, now);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a call whose outcome tells nothing about the database, such as a statement cancelled because its
+     * request deadline expired
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            // Lets another call probe in its place
+            if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+                probesStarted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The current state
+     */
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            if (outcomes[next]) {
+                failuresInWindow--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failuresInWindow++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void transition(State to, long now) {
+        log.warn("Circuit {} goes from {} to {}", name, state, to);
+        Counter.builder("circuit.transitions").tag("circuit", name).tag("to", to.name().toLowerCase())
+                .register(meterRegistry).increment();
+        state = to;
+        stateSince = now;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (to == State.CLOSED) {
+            recorded = 0;
+            next = 0;
+            failuresInWindow = 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.inventory.stockmanagementapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Request quotas of the API clients, one token bucket per client.
+ * <p>
+ * A bucket holds up to {@code burst} tokens and gains {@code rate} tokens per second; each request takes one. A
+ * client may thus send {@code burst} requests at once, then {@code rate} per second. Some clients can be given
+ * their own rate, the burst growing in proportion. When more than {@code maxClients} buckets are kept, the full
+ * ones, whose clients have been idle, are dropped.
+ */
+public class ClientQuotas {
+
+    private final double rate;
+    private final double burst;
+    private final Map<String, Double> overrides;
+    private final int maxClients;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param rate The requests per second of a client
+     * @param burst The requests a client may send at once
+     * @param overrides The requests per second of specific clients
+     * @param maxClients The number of buckets kept before the idle ones are dropped
+     * @param meterRegistry The registry of the quota metrics
+     */
+    public ClientQuotas(double rate, double burst, Map<String, Double> overrides, int maxClients,
+                        MeterRegistry meterRegistry) {
+        this.rate = rate;
+        this.burst = burst;
+        this.overrides = Map.copyOf(overrides);
+        this.maxClients = maxClients;
+        meterRegistry.gaugeMapSize("admission.quota.clients", Tags.empty(), buckets);
+    }
+
+    /**
+     * Take a token for a request of a client
+     * @param client The client
+     * @return 0 if the request is allowed, otherwise the nanoseconds until the client gets a token
+     */
+    public long tryAcquire(String client) {
+        long now = System.nanoTime();
+        if (buckets.size() >= maxClients && !buckets.containsKey(client)) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+        double clientRate = overrides.getOrDefault(client, rate);
+        Bucket bucket = buckets.computeIfAbsent(client, key -> new Bucket(clientRate, burst * clientRate / rate, now));
+        return bucket.tryTake(now);
+    }
+
+    private static final class Bucket {
+
+        private final double ratePerNano;
+        private final double capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(double rate, double capacity, long now) {
+            this.ratePerNano = rate / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, capacity);
+            this.tokens = this.capacity;
+            this.updatedAt = now;
+        }
+
+        long tryTake(long now) {
+            lock.lock();
+            try {
+                refill(now);
+                if (tokens >= 1) {
+                    tokens--;
+                    return 0;
+                }
+                return (long) Math.ceil((1 - tokens) / ratePerNano);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isFull(long now) {
+            lock.lock();
+            try {
+                refill(now);
+                return tokens >= capacity;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - updatedAt) * ratePerNano);
+            updatedAt = now;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.domain.CacheInvalidation;
+import com.inventory.stockmanagementapi.repository.CacheInvalidationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidations through the {@code cache_invalidations} table, which every instance polls.
+ * <p>
+ * A batch is written with a single insert per invalidation in one transaction. Rows are read in ID order, but the
+ * inserts of two instances may commit out of that order: rows found after a missing ID are delivered right away,
+ * and the poller waits for the missing ones until the gap timeout before moving past them. Rows older than the
+ * retention period are purged.
+ */
+@Slf4j
+public class DatabaseInvalidationTransport implements InvalidationTransport {
+
+    private final CacheInvalidationRepository cacheInvalidationRepository;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-poll");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Every row up to this ID was delivered; only used by the poller thread
+    private long cursor;
+    // Rows above the cursor already delivered, while a row before them is missing
+    private final TreeSet<Long> deliveredAhead = new TreeSet<>();
+    // When the row following the cursor was first found missing, 0 if it is not
+    private long gapSince;
+
+    /**
+     * @param cacheInvalidationRepository The table of invalidations
+     * @param pollInterval How often the table is polled
+     * @param batchSize The maximum number of rows read per poll
+     * @param gapTimeout How long a missing ID is waited for before moving past it
+     * @param retention How long rows are kept, longer than any instance may take to poll them
+     */
+    public DatabaseInvalidationTransport(CacheInvalidationRepository cacheInvalidationRepository,
+                                         Duration pollInterval,
+                                         int batchSize,
+                                         Duration gapTimeout,
+                                         Duration retention) {
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+    }
+
+    @Override
+    public void send(List<InvalidationMessage> batch) {
+        cacheInvalidationRepository.saveAll(batch.stream().map(message -> CacheInvalidation.builder()
+                .node(message.node())
+                .type(message.type())
+                .entityId(message.entityId())
+                .committedAt(message.committedAt())
+                .build()).toList());
+    }
+
+    @Override
+    public void listen(Consumer<List<InvalidationMessage>> receiver) {
+        // Changes committed before this instance started are already in what it reads
+        Long maxId = cacheInvalidationRepository.findMaxId();
+        cursor = maxId != null ? maxId : 0;
+        long intervalMillis = pollInterval.toMillis();
+        poller.scheduleWithFixedDelay(() -> pollSafely(receiver), intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::purgeSafely, retention.toMillis(), retention.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Deliver the rows committed since the previous poll
+     * @param receiver Receives the rows, as a single batch
+     * @return The number of rows delivered
+     */
+    int poll(Consumer<List<InvalidationMessage>> receiver) {
+        List<CacheInvalidation> rows = cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(cursor,
+                PageRequest.of(0, batchSize));
+        List<InvalidationMessage> batch = new ArrayList<>(rows.size());
+        for (CacheInvalidation row : rows) {
+            if (deliveredAhead.add(row.getId())) {
+                batch.add(new InvalidationMessage(row.getNode(), row.getType(), row.getEntityId(),
+                        row.getCommittedAt()));
+            }
+        }
+        advanceCursor();
+        if (!batch.isEmpty()) {
+            receiver.accept(batch);
+        }
+        return batch.size();
+    }
+
+    private void advanceCursor() {
+        while (deliveredAhead.remove(cursor + 1)) {
+            cursor++;
+        }
+        if (deliveredAhead.isEmpty()) {
+            gapSince = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (gapSince == 0) {
+            gapSince = now;
+        } else if (now - gapSince > gapTimeout.toMillis()) {
+            // Rolled back, or skipped by the ID generator
+            log.debug("Moving past missing invalidations {} to {}", cursor + 1, deliveredAhead.first() - 1);
+            cursor = deliveredAhead.first() - 1;
+            gapSince = 0;
+            advanceCursor();
+        }
+    }
+
+    private void pollSafely(Consumer<List<InvalidationMessage>> receiver) {
+        try {
+            poll(receiver);
+        } catch (RuntimeException ex) {
+            // The scheduled task would stop for good if the exception escaped
+            log.warn("Could not poll cache invalidations, retrying in {}", pollInterval, ex);
+        }
+    }
+
+    private void purgeSafely() {
+        try {
+            int deleted = cacheInvalidationRepository.deleteCommittedBefore(
+                    System.currentTimeMillis() - retention.toMillis());
+            log.debug("Purged {} cache invalidations", deleted);
+        } catch (RuntimeException ex) {
+            log.warn("Could not purge cache invalidations", ex);
+        }
+    }
+}
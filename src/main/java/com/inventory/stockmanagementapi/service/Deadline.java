@@ -0,0 +1,147 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The time by which the request handled by the current thread must be answered, after which its client has given
+ * up and the work is wasted.
+ * <p>
+ * The deadline is bound to the thread for the whole request, so that the waits and the queries on the way, however
+ * deep, can be bounded by the time left, and the work aborted with a {@link DeadlineExceededException} as soon as it
+ * expires. An aborted request is not retried. The stage that gave up is kept, for the {@code deadline.exceeded}
+ * metric recorded once the request is over. Threads without a request, such as scheduled jobs, have no deadline.
+ */
+public final class Deadline {
+
+    /**
+     * Header of the time a client waits for the response: a number of milliseconds, or a duration such as 2s
+     */
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long start;
+    private final long expiresAt;
+    private volatile String exceededStage;
+
+    private Deadline(long start, long timeout) {
+        this.start = start;
+        this.expiresAt = start + timeout;
+    }
+
+    /**
+     * @param timeout The time the request may take from now
+     * @return The deadline
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime(), timeout.toNanos());
+    }
+
+    /**
+     * @return The deadline of the current request, or null outside of a request
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public static void bind(Deadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Run some work of a request, on another thread for instance
+     * @param deadline The deadline of the request, or null
+     * @param work The work
+     * @return The result of the work
+     */
+    public static <T> T call(Deadline deadline, Supplier<T> work) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @param maxWait The longest wait, in nanoseconds
+     * @return The longest wait, shortened to the time left to the current request
+     */
+    public static long bound(long maxWait) {
+        Deadline deadline = CURRENT.get();
+        return deadline == null ? maxWait : Math.min(maxWait, deadline.remainingNanos());
+    }
+
+    /**
+     * Abort the current request if its deadline has expired
+     * @param stage What the request was about to do, for the metrics
+     * @throws DeadlineExceededException if the deadline has expired
+     */
+    public static void checkCurrent(String stage) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw deadline.exceeded(stage);
+        }
+    }
+
+    /**
+     * @return The nanoseconds left, negative once expired
+     */
+    public long remainingNanos() {
+        return expiresAt - System.nanoTime();
+    }
+
+    /**
+     * @return Whether the deadline has expired
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Record that the request gives up
+     * @param stage What the request was doing, for the metrics
+     * @return The exception aborting the request
+     */
+    public DeadlineExceededException exceeded(String stage) {
+        if (exceededStage == null) {
+            exceededStage = stage;
+        }
+        return new DeadlineExceededException("The request deadline expired after "
+                + TimeUnit.NANOSECONDS.toMillis(expiresAt - start) + " ms (" + stage + ")");
+    }
+
+    /**
+     * @return The stage that gave up, or null if the request was not aborted
+     */
+    public String getExceededStage() {
+        return exceededStage;
+    }
+
+    /**
+     * Once the request is over, record the time spent on it in {@code deadline.exceeded} if it was aborted
+     * @param meterRegistry The registry of the metric
+     */
+    public void recordOutcome(MeterRegistry meterRegistry) {
+        String stage = exceededStage;
+        if (stage != null) {
+            Timer.builder("deadline.exceeded").tag("stage", stage).register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.inventory.stockmanagementapi.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing of product IDs over a set of members.
+ * <p>
+ * Each member is placed at several points of a 64-bit ring, and a key belongs to the first member point found
+ * clockwise from its hash. When a member joins or leaves, only the keys between its points and the previous ones
+ * change owner, about one key in {@code members} on average.
+ */
+public final class HashRing {
+
+    private final List<String> members;
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    /**
+     * @param members The members, in any order
+     * @param virtualNodes The number of points of each member, more points spreading the keys more evenly
+     */
+    public HashRing(Collection<String> members, int virtualNodes) {
+        this.members = members.stream().sorted().distinct().toList();
+        MessageDigest digest = md5();
+        for (String member : this.members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                byte[] hash = digest.digest((member + "#" + i).getBytes(StandardCharsets.UTF_8));
+                points.put(ByteBuffer.wrap(hash).getLong(), member);
+            }
+        }
+    }
+
+    /**
+     * @return The members, sorted
+     */
+    public List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * @param key A product ID
+     * @return The member owning the key, or null if the ring is empty
+     */
+    public String ownerOf(long key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * Spread consecutive IDs over the whole ring (the finalizer of SplitMix64)
+     */
+    private static long mix(long key) {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is not available", ex);
+        }
+    }
+}
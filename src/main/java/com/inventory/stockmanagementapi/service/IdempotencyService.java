@@ -0,0 +1,365 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.domain.IdempotencyRecord;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.ConflictException;
+import com.inventory.stockmanagementapi.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Makes mutating requests safe to retry by remembering the response produced for each Idempotency-Key.
+ * <p>
+ * Recent responses are kept in a bounded in-memory LRU store; entries pushed out of it before they expire
+ * are spilled to the {@code idempotency_records} table, and stay visible in memory until the write has completed.
+ * A duplicate request is answered from the stored response, with its status, body and {@link #STORED_HEADERS},
+ * without running the action again, and a duplicate arriving while the first request is still running waits for
+ * its outcome. Failed executions are not recorded, so the key can be reused after an error.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // Response headers describing the result rather than the exchange, e.g. the entity tag of an updated product
+    static final List<String> STORED_HEADERS = List.of(HttpHeaders.ETAG, HttpHeaders.LOCATION,
+            HttpHeaders.LAST_MODIFIED, HttpHeaders.CONTENT_LOCATION);
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final TypeReference<Map<String, List<String>>> HEADERS_TYPE = new TypeReference<>() {
+    };
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+
+    // Access-ordered so that the least recently used entry is the one spilled to the database
+    private final LinkedHashMap<String, StoredResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+    // Entries evicted from the LRU store whose database write has not completed yet, guarded by responsesLock
+    private final Map<String, StoredResponse> spilling = new HashMap<>();
+    private final ReentrantLock responsesLock = new ReentrantLock();
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.max-entries:10000}") int maxEntries,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              @Value("${idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * Run an action at most once per idempotency key
+     * @param key The Idempotency-Key header value, or null to run the action unconditionally
+     * @param operation The HTTP method and path of the request, e.g. "PATCH /api/products/stock"
+     * @param request The request body, part of the fingerprint the key is bound to
+     * @param responseType The type of the response body, used to read back a stored response
+     * @param action The action producing the response
+     * @return The response of the action, or the stored response for a duplicate request
+     * @throws BusinessException if the key is invalid or was already used for a different request
+     * @throws ConflictException if a concurrent request with the same key did not complete in time
+     */
+    public <T> ResponseEntity<T> execute(String key, String operation, Object request,
+                                         Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("The " + IDEMPOTENCY_KEY_HEADER + " header must contain between 1 and "
+                    + MAX_KEY_LENGTH + " characters");
+        }
+
+        String fingerprint = fingerprint(operation, request);
+        while (true) {
+            StoredResponse stored = find(key);
+            if (stored != null) {
+                return replay(key, stored, fingerprint, responseType);
+            }
+
+            CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, execution);
+            if (running == null) {
+                return executeFirst(key, fingerprint, responseType, action, execution);
+            }
+
+            // A failed first execution records nothing, in which case this request runs the action itself
+            stored = await(key, running);
+            if (stored != null) {
+                return replay(key, stored, fingerprint, responseType);
+            }
+        }
+    }
+
+    /**
+     * Remove expired responses from memory and from the database
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:300000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        responsesLock.lock();
+        try {
+            responses.values().removeIf(stored -> stored.isExpired(now));
+        } finally {
+            responsesLock.unlock();
+        }
+        int deleted = idempotencyRecordRepository.deleteExpired(now);
+        if (deleted > 0) {
+            log.debug("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    private <T> ResponseEntity<T> executeFirst(String key, String fingerprint, Class<T> responseType,
+                                               Supplier<ResponseEntity<T>> action,
+                                               CompletableFuture<StoredResponse> execution) {
+        try {
+            // Another request may have stored its response between the lookup and the registration
+            StoredResponse stored = find(key);
+            if (stored != null) {
+                execution.complete(stored);
+                return replay(key, stored, fingerprint, responseType);
+            }
+
+            ResponseEntity<T> response = action.get();
+            stored = new StoredResponse(fingerprint, response.getStatusCode().value(),
+                    replayedHeaders(response.getHeaders()), serialize(response.getBody()), LocalDateTime.now().plus(ttl));
+            remember(key, stored);
+            execution.complete(stored);
+            return response;
+        } catch (RuntimeException | Error ex) {
+            execution.complete(null);
+            throw ex;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+
+    private StoredResponse await(String key, CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ConflictException("A request with the " + IDEMPOTENCY_KEY_HEADER + " '" + key
+                    + "' is still being processed");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for the request with the "
+                    + IDEMPOTENCY_KEY_HEADER + " '" + key + "'", ex);
+        } catch (ExecutionException ex) {
+            // The first execution never completes exceptionally, see executeFirst
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private StoredResponse find(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        responsesLock.lock();
+        try {
+            StoredResponse stored = responses.get(key);
+            if (stored == null) {
+                stored = spilling.get(key);
+            }
+            if (stored != null) {
+                return stored.isExpired(now) ? null : stored;
+            }
+        } finally {
+            responsesLock.unlock();
+        }
+        Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(key);
+        return record
+                .filter(r -> r.getExpiresAt().isAfter(now))
+                .map(r -> new StoredResponse(r.getRequestFingerprint(), r.getStatusCode(),
+                        readHeaders(r.getResponseHeaders()), r.getResponseBody(), r.getExpiresAt()))
+                .orElse(null);
+    }
+
+    private void remember(String key, StoredResponse stored) {
+        Map<String, StoredResponse> spilled = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        responsesLock.lock();
+        try {
+            responses.put(key, stored);
+            var iterator = responses.entrySet().iterator();
+            while (responses.size() > maxEntries && iterator.hasNext()) {
+                Map.Entry<String, StoredResponse> eldest = iterator.next();
+                iterator.remove();
+                if (!eldest.getValue().isExpired(now)) {
+                    spilled.put(eldest.getKey(), eldest.getValue());
+                }
+            }
+            // Still found by lookups until the records are in the database, or a retry could run the action again
+            spilling.putAll(spilled);
+        } finally {
+            responsesLock.unlock();
+        }
+        if (!spilled.isEmpty()) {
+            spill(spilled, now);
+        }
+    }
+
+    /**
+     * Write evicted entries to the database, outside the lock so that lookups never wait on the write. The
+     * mutation that triggered the eviction has already committed, so a failed write is logged and never
+     * reaches its response.
+     * @param spilled The evicted entries, by key, held in the spilling map until written
+     * @param now The current time
+     */
+    private void spill(Map<String, StoredResponse> spilled, LocalDateTime now) {
+        boolean saved = false;
+        try {
+            List<IdempotencyRecord> records = new ArrayList<>(spilled.size());
+            spilled.forEach((key, stored) -> records.add(stored.toRecord(key, writeHeaders(stored.headers()), now)));
+            idempotencyRecordRepository.saveAll(records);
+            saved = true;
+        } catch (RuntimeException ex) {
+            log.warn("Could not spill {} idempotency responses to the database, keeping them in memory",
+                    spilled.size(), ex);
+        } finally {
+            responsesLock.lock();
+            try {
+                spilled.forEach(spilling::remove);
+                if (!saved) {
+                    // Kept in memory beyond capacity, the next eviction tries to write them again
+                    spilled.forEach(responses::putIfAbsent);
+                }
+            } finally {
+                responsesLock.unlock();
+            }
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(String key, StoredResponse stored, String fingerprint, Class<T> responseType) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new BusinessException("The " + IDEMPOTENCY_KEY_HEADER + " '" + key
+                    + "' has already been used for a different request");
+        }
+        T body = deserialize(stored.body(), responseType);
+        return ResponseEntity.status(stored.statusCode())
+                .headers(stored.headers())
+                .header(REPLAYED_HEADER, "true")
+                .body(body);
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot compute the request fingerprint", ex);
+        }
+    }
+
+    private static HttpHeaders replayedHeaders(HttpHeaders headers) {
+        HttpHeaders replayed = new HttpHeaders();
+        for (String name : STORED_HEADERS) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                replayed.put(name, values);
+            }
+        }
+        return HttpHeaders.readOnlyHttpHeaders(replayed);
+    }
+
+    private String writeHeaders(HttpHeaders headers) {
+        if (headers.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(new LinkedHashMap<>(headers));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot store the response headers", ex);
+        }
+    }
+
+    private HttpHeaders readHeaders(String headers) {
+        HttpHeaders replayed = new HttpHeaders();
+        if (headers != null) {
+            try {
+                objectMapper.readValue(headers, HEADERS_TYPE).forEach(replayed::put);
+            } catch (JsonProcessingException ex) {
+                throw new IllegalStateException("Cannot read the stored response headers", ex);
+            }
+        }
+        return HttpHeaders.readOnlyHttpHeaders(replayed);
+    }
+
+    private String serialize(Object body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot store the response body", ex);
+        }
+    }
+
+    private <T> T deserialize(String body, Class<T> responseType) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot read the stored response body", ex);
+        }
+    }
+
+    private record StoredResponse(String fingerprint, int statusCode, HttpHeaders headers, String body,
+                                  LocalDateTime expiresAt) {
+
+        boolean isExpired(LocalDateTime now) {
+            return !expiresAt.isAfter(now);
+        }
+
+        IdempotencyRecord toRecord(String key, String responseHeaders, LocalDateTime now) {
+            return IdempotencyRecord.builder()
+                    .idempotencyKey(key)
+                    .requestFingerprint(fingerprint)
+                    .statusCode(statusCode)
+                    .responseHeaders(responseHeaders)
+                    .responseBody(body)
+                    .createdAt(now)
+                    .expiresAt(expiresAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.inventory.stockmanagementapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tells the other instances of the application about the catalog changes committed here, so that their caches
+ * drop what changed, and does the same with the changes they commit.
+ * <p>
+ * Committed changes are queued in memory and sent by a background thread at every batch interval, through the
+ * {@link InvalidationTransport}. Changes of the same product or category are coalesced into one, and a catalog
+ * reset replaces all the others; when the queue outgrows its limit, it is replaced by a reset. A batch that could
+ * not be sent is queued again. Received changes are published as {@link RemoteCatalogChangeEvent}s.
+ * <p>
+ * The {@code invalidation.staleness} timer measures how long after its commit a change reached this instance,
+ * which is how long its caches may have served the previous state; it relies on the clocks of the instances
+ * being synchronized.
+ */
+@Slf4j
+public class InvalidationBus {
+
+    private static final String MESSAGES_METRIC = "invalidation.messages";
+
+    private final InvalidationTransport transport;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String node;
+    private final Duration batchInterval;
+    private final int batchSize;
+    private final int maxPending;
+    private final Counter sent;
+    private final Counter received;
+    private final Counter sendFailures;
+    private final Timer staleness;
+
+    // Committed changes not sent yet; guarded by pendingLock
+    private final List<InvalidationMessage> pending = new ArrayList<>();
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-bus");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param transport Carries the batches between the instances
+     * @param eventPublisher Publishes the changes received from the other instances
+     * @param meterRegistry Registry of the bus metrics
+     * @param node The name of this instance, unique among the instances
+     * @param batchInterval How often the queued changes are sent
+     * @param batchSize The maximum number of changes per batch
+     * @param maxPending The maximum number of queued changes
+     */
+    public InvalidationBus(InvalidationTransport transport,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry,
+                           String node,
+                           Duration batchInterval,
+                           int batchSize,
+                           int maxPending) {
+        this.transport = transport;
+        this.eventPublisher = eventPublisher;
+        this.node = node;
+        this.batchInterval = batchInterval;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.sent = Counter.builder(MESSAGES_METRIC).tag("direction", "sent").register(meterRegistry);
+        this.received = Counter.builder(MESSAGES_METRIC).tag("direction", "received").register(meterRegistry);
+        this.sendFailures = Counter.builder("invalidation.send.failures").register(meterRegistry);
+        this.staleness = Timer.builder("invalidation.staleness")
+                .description("Time from the commit of a change on another instance to its invalidation here")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        transport.listen(this::receive);
+        long intervalMillis = batchInterval.toMillis();
+        sender.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        flushSafely();
+    }
+
+    /**
+     * @return The name of this instance
+     */
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Queue a change for the other instances once it is committed
+     * @param event The change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        InvalidationMessage message = new InvalidationMessage(node, event.type(), event.entityId(),
+                System.currentTimeMillis());
+        pendingLock.lock();
+        try {
+            pending.add(message);
+            if (pending.size() > maxPending) {
+                List<InvalidationMessage> coalesced = coalesce(pending);
+                pending.clear();
+                pending.addAll(coalesced.size() > maxPending ? List.of(reset(coalesced)) : coalesced);
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Send the queued changes
+     * @return The number of changes sent
+     */
+    int flush() {
+        List<InvalidationMessage> batch;
+        pendingLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            batch = coalesce(pending);
+            pending.clear();
+        } finally {
+            pendingLock.unlock();
+        }
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            List<InvalidationMessage> chunk = batch.subList(from, Math.min(batch.size(), from + batchSize));
+            try {
+                transport.send(chunk);
+            } catch (IOException | RuntimeException ex) {
+                sendFailures.increment();
+                pendingLock.lock();
+                try {
+                    pending.addAll(0, batch.subList(from, batch.size()));
+                } finally {
+                    pendingLock.unlock();
+                }
+                log.warn("Could not send cache invalidations, retrying in {}", batchInterval, ex);
+                return from;
+            }
+            sent.increment(chunk.size());
+        }
+        return batch.size();
+    }
+
+    /**
+     * Publish the changes of the other instances
+     * @param batch A batch received by the transport
+     */
+    void receive(List<InvalidationMessage> batch) {
+        List<InvalidationMessage> remote = batch.stream().filter(message -> !node.equals(message.node())).toList();
+        for (InvalidationMessage message : coalesce(remote)) {
+            eventPublisher.publishEvent(new RemoteCatalogChangeEvent(message.type(), message.entityId(),
+                    message.node()));
+            staleness.record(Math.max(0, System.currentTimeMillis() - message.committedAt()), TimeUnit.MILLISECONDS);
+            received.increment();
+        }
+    }
+
+    /**
+     * Keep a single change per product and per category, with the latest type and the earliest commit time, or
+     * a single reset if the changes include one
+     * @param messages The changes, in commit order
+     * @return The coalesced changes
+     */
+    static List<InvalidationMessage> coalesce(List<InvalidationMessage> messages) {
+        Map<String, InvalidationMessage> byEntity = new LinkedHashMap<>();
+        for (InvalidationMessage message : messages) {
+            if (message.type() == CatalogChangeEvent.Type.CATALOG_RESET) {
+                return List.of(reset(messages));
+            }
+            byEntity.merge(entityKey(message), message, (previous, next) -> new InvalidationMessage(next.node(),
+                    next.type(), next.entityId(), Math.min(previous.committedAt(), next.committedAt())));
+        }
+        return new ArrayList<>(byEntity.values());
+    }
+
+    private static InvalidationMessage reset(List<InvalidationMessage> messages) {
+        // Stale since the earliest of the changes it stands for
+        long committedAt = messages.stream().mapToLong(InvalidationMessage::committedAt).min().orElseThrow();
+        String origin = messages.stream().filter(message -> message.type() == CatalogChangeEvent.Type.CATALOG_RESET)
+                .map(InvalidationMessage::node).findFirst().orElse(messages.get(0).node());
+        return new InvalidationMessage(origin, CatalogChangeEvent.Type.CATALOG_RESET, null, committedAt);
+    }
+
+    private static String entityKey(InvalidationMessage message) {
+        String kind = switch (message.type()) {
+            case CATEGORY_CREATED, CATEGORY_UPDATED, CATEGORY_DELETED -> "category:";
+            default -> "product:";
+        };
+        return kind + message.entityId();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            // The scheduled task would stop for good if the exception escaped
+            log.warn("Could not send cache invalidations", ex);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.inventory.stockmanagementapi.service;
+
+/**
+ * A committed catalog change, as sent to the other instances by the {@link InvalidationBus}.
+ *
+ * @param node The instance that committed the change
+ * @param type What changed
+ * @param entityId The ID of the changed product or category, or null for a reset of the whole catalog
+ * @param committedAt When the change was committed, in epoch milliseconds
+ */
+public record InvalidationMessage(String node, CatalogChangeEvent.Type type, Long entityId, long committedAt) {
+}
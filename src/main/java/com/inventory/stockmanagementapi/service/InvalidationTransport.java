@@ -0,0 +1,29 @@
+package com.inventory.stockmanagementapi.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries the batches of the {@link InvalidationBus} between the instances of the application.
+ * <p>
+ * A transport may deliver a batch to the instance that sent it, which ignores it, and may lose batches: the caches
+ * expire their entries anyway, which bounds the staleness a lost batch causes.
+ */
+public interface InvalidationTransport extends AutoCloseable {
+
+    /**
+     * @param batch Invalidations to deliver to the other instances
+     * @throws IOException if the batch could not be sent, it is then sent again with the next one
+     */
+    void send(List<InvalidationMessage> batch) throws IOException;
+
+    /**
+     * Start delivering the batches sent by the instances
+     * @param receiver Receives each batch, on a thread of the transport
+     */
+    void listen(Consumer<List<InvalidationMessage>> receiver);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,190 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.repository.JobLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the periodic jobs that work on the shared database, such as the data reset, on a single instance of the
+ * cluster at a time.
+ * <p>
+ * The periods of a job start at the multiples of its interval, the same instants on every instance. Each instance
+ * wakes up at a random delay after the start of a period, so that they do not all hit the database at once, then
+ * tries to take the lease of the job in the {@code job_leases} table. The lease is only granted if it is not held
+ * and was not taken during the current period: the first instance runs the job, the other ones skip it until the
+ * next period. While the job runs, the lease lasts up to {@code jobs.max-duration}, after which another instance may
+ * take over the job of a crashed one. Instance clocks are assumed to be synchronized well below the intervals.
+ * <p>
+ * Jobs run on a dedicated pool of {@code jobs.pool-size} threads, apart from the per-instance {@code @Scheduled}
+ * tasks, and a job never overlaps itself: an instance skips a run while its previous one is still going.
+ * <p>
+ * Every job reports the {@code jobs.duration} and {@code jobs.lag} (delay between the planned and actual start)
+ * timers and the {@code jobs.runs} counter, tagged with the job name.
+ */
+@Component
+@Slf4j
+public class JobScheduler {
+
+    private static final String RUNS_METRIC = "jobs.runs";
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+    private final Duration maxDuration;
+    private final Duration jitter;
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+
+    // Jobs running on this instance
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public JobScheduler(JobLeaseRepository jobLeaseRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${jobs.pool-size:2}") int poolSize,
+                        @Value("${jobs.node-id:}") String nodeId,
+                        @Value("${jobs.max-duration:10m}") Duration maxDuration,
+                        @Value("${jobs.jitter:5s}") Duration jitter,
+                        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.meterRegistry = meterRegistry;
+        // The host and process, so that a restarted instance does not inherit the leases of the previous one
+        this.owner = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+        this.maxDuration = maxDuration;
+        this.jitter = jitter;
+        this.taskScheduler.setPoolSize(poolSize);
+        this.taskScheduler.setThreadNamePrefix("jobs-");
+        this.taskScheduler.setDaemon(true);
+        if (VirtualThreads.isActive(virtualThreads)) {
+            // Still pool-size jobs at once, each one on a virtual thread while it waits for the database
+            this.taskScheduler.setThreadFactory(VirtualThreads.threadFactory("jobs", true));
+        }
+        this.taskScheduler.initialize();
+    }
+
+    @PreDestroy
+    public void stop() {
+        taskScheduler.shutdown();
+    }
+
+    /**
+     * Run a job once per interval on one instance of the cluster, from the next period on
+     * @param name The job name, shared by the instances
+     * @param interval The interval between two runs
+     * @param job The job
+     */
+    public void schedule(String name, Duration interval, Runnable job) {
+        scheduleNext(name, interval, job);
+    }
+
+    /**
+     * Run a job right away, unless an instance runs it or already ran it during the current period
+     * @param name The job name, shared by the instances
+     * @param interval The interval of the job
+     * @param job The job
+     * @return Whether the job ran and completed
+     */
+    public boolean runNow(String name, Duration interval, Runnable job) {
+        return execute(name, periodStart(System.currentTimeMillis(), interval), job);
+    }
+
+    private void scheduleNext(String name, Duration interval, Runnable job) {
+        if (taskScheduler.getScheduledExecutor().isShutdown()) {
+            return;
+        }
+        long period = periodStart(System.currentTimeMillis(), interval) + interval.toMillis();
+        // At most half an interval, so that the run stays in its period
+        long maxJitter = Math.min(jitter.toMillis(), interval.toMillis() / 2);
+        long planned = period + (maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter + 1) : 0);
+        taskScheduler.schedule(() -> {
+            try {
+                Timer.builder("jobs.lag").tag("job", name).register(meterRegistry)
+                        .record(Math.max(0, System.currentTimeMillis() - planned), TimeUnit.MILLISECONDS);
+                execute(name, period, job);
+            } finally {
+                scheduleNext(name, interval, job);
+            }
+        }, Instant.ofEpochMilli(planned));
+    }
+
+    private boolean execute(String name, long period, Runnable job) {
+        if (!running.add(name)) {
+            log.debug("Job {} skipped, still running", name);
+            count(name, "overlapping");
+            return false;
+        }
+        try {
+            if (!acquire(name, period)) {
+                log.debug("Job {} skipped, leased by another instance or already run", name);
+                count(name, "leased");
+                return false;
+            }
+            return runLeased(name, job);
+        } finally {
+            running.remove(name);
+        }
+    }
+
+    private boolean acquire(String name, long period) {
+        long now = System.currentTimeMillis();
+        long until = now + maxDuration.toMillis();
+        if (jobLeaseRepository.takeOver(name, owner, now, until, period) == 1) {
+            return true;
+        }
+        if (jobLeaseRepository.existsById(name)) {
+            return false;
+        }
+        try {
+            return jobLeaseRepository.create(name, owner, now, until) == 1;
+        } catch (DataIntegrityViolationException ex) {
+            // Created by another instance in the meantime
+            return false;
+        }
+    }
+
+    private boolean runLeased(String name, Runnable job) {
+        long start = System.nanoTime();
+        String result = "success";
+        try {
+            job.run();
+            return true;
+        } catch (RuntimeException ex) {
+            log.error("Job {} failed", name, ex);
+            result = "failure";
+            return false;
+        } finally {
+            Timer.builder("jobs.duration").tag("job", name).tag("result", result).register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            count(name, result);
+            try {
+                jobLeaseRepository.release(name, owner, System.currentTimeMillis());
+            } catch (RuntimeException ex) {
+                // The lease expires by itself
+                log.warn("Could not release the lease of job {}", name, ex);
+            }
+        }
+    }
+
+    private void count(String name, String result) {
+        Counter.builder(RUNS_METRIC).tag("job", name).tag("result", result).register(meterRegistry).increment();
+    }
+
+    private static long periodStart(long now, Duration interval) {
+        return now - Math.floorMod(now, interval.toMillis());
+    }
+}
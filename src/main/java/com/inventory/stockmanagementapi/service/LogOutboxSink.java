@@ -0,0 +1,21 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.dto.OutboxEventDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Logs the relayed events, for local testing.
+ */
+@Slf4j
+public class LogOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxEventDTO> events) {
+        for (OutboxEventDTO event : events) {
+            log.info("Outbox event {} {} product {}: {}", event.getId(), event.getType(), event.getProductId(),
+                    event.getPayload());
+        }
+    }
+}
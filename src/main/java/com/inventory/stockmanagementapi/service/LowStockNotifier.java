@@ -0,0 +1,304 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.domain.WebhookDelivery;
+import com.inventory.stockmanagementapi.repository.WebhookDeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Low-stock webhooks, debounced per product and delivered in batches.
+ * <p>
+ * Committed threshold crossings are only recorded in memory, so stock updates never wait for a webhook. A product
+ * whose quantity keeps moving around the threshold is reported once its crossings stop for the debounce period,
+ * with its latest state, and not at all if it ended up on the side it started from.
+ * <p>
+ * Due crossings are posted to every configured URL as a single JSON batch, from a dedicated thread. A batch that
+ * fails is stored in the {@code webhook_deliveries} table and retried with exponential backoff until it succeeds
+ * or runs out of attempts; the batch ID lets receivers drop the duplicates a retry may cause.
+ */
+@Component
+@Slf4j
+public class LowStockNotifier {
+
+    private static final int RETRY_BATCH_SIZE = 100;
+    private static final int MAX_QUEUED_DELIVERIES = 1000;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final WebhookDeliveryRepository webhookDeliveryRepository;
+    private final ObjectMapper objectMapper;
+    private final List<URI> urls;
+    private final Duration debounce;
+    private final int batchSize;
+    private final Duration timeout;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Counter abandoned;
+
+    // Crossings not reported yet, by product ID
+    private final Map<Long, PendingCrossing> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean retrying = new AtomicBoolean();
+    private final HttpClient httpClient;
+    private final ThreadPoolExecutor deliveryExecutor;
+
+    @Autowired
+    public LowStockNotifier(WebhookDeliveryRepository webhookDeliveryRepository,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${low-stock.webhooks.urls:}") List<String> urls,
+                            @Value("${low-stock.webhooks.debounce:30s}") Duration debounce,
+                            @Value("${low-stock.webhooks.batch-size:100}") int batchSize,
+                            @Value("${low-stock.webhooks.timeout:5s}") Duration timeout,
+                            @Value("${low-stock.webhooks.max-attempts:10}") int maxAttempts,
+                            @Value("${low-stock.webhooks.initial-backoff:10s}") Duration initialBackoff,
+                            @Value("${low-stock.webhooks.max-backoff:1h}") Duration maxBackoff) {
+        this.webhookDeliveryRepository = webhookDeliveryRepository;
+        this.objectMapper = objectMapper;
+        this.urls = urls.stream().map(String::trim).filter(url -> !url.isEmpty()).map(URI::create).toList();
+        this.debounce = debounce;
+        this.batchSize = batchSize;
+        this.timeout = timeout;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.delivered = Counter.builder("low-stock.webhooks.deliveries").tag("result", "delivered")
+                .register(meterRegistry);
+        this.failed = Counter.builder("low-stock.webhooks.deliveries").tag("result", "failed")
+                .register(meterRegistry);
+        this.abandoned = Counter.builder("low-stock.webhooks.deliveries").tag("result", "abandoned")
+                .register(meterRegistry);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        // A single thread keeps a slow receiver from taking more than one connection
+        this.deliveryExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_DELIVERIES), runnable -> {
+                    Thread thread = new Thread(runnable, "low-stock-webhook");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    /**
+     * Record a committed threshold crossing, to be reported once the product settles
+     * @param event The crossing
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onThresholdCrossed(StockThresholdEvent event) {
+        if (urls.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        pending.merge(event.productId(), new PendingCrossing(event.type() == StockThresholdEvent.Type.RESTOCKED,
+                event, now), (previous, crossing) -> new PendingCrossing(previous.initiallyLow(), event, now));
+    }
+
+    /**
+     * Report the crossings of the products that settled for the debounce period
+     */
+    @Scheduled(fixedDelayString = "${low-stock.webhooks.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        LocalDateTime settledBefore = LocalDateTime.now().minus(debounce);
+        List<StockThresholdEvent> events = new ArrayList<>();
+        for (Map.Entry<Long, PendingCrossing> entry : pending.entrySet()) {
+            PendingCrossing crossing = entry.getValue();
+            // Removing by value keeps a crossing recorded meanwhile for the next flush
+            if (!crossing.lastSeenAt().isAfter(settledBefore) && pending.remove(entry.getKey(), crossing)
+                    && crossing.changed()) {
+                events.add(crossing.latest());
+            }
+        }
+        events.sort(Comparator.comparing(StockThresholdEvent::occurredAt));
+        for (int from = 0; from < events.size(); from += batchSize) {
+            String payload = toPayload(events.subList(from, Math.min(from + batchSize, events.size())));
+            for (URI url : urls) {
+                submit(url, payload);
+            }
+        }
+    }
+
+    /**
+     * Attempt again the failed deliveries that are due
+     */
+    @Scheduled(fixedDelayString = "${low-stock.webhooks.retry-interval-ms:5000}")
+    public void retryDue() {
+        // A retry still running, behind a slow receiver, already handles the due deliveries
+        if (!retrying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            deliveryExecutor.execute(() -> {
+                try {
+                    webhookDeliveryRepository.findDue(LocalDateTime.now(), PageRequest.of(0, RETRY_BATCH_SIZE))
+                            .forEach(this::retry);
+                } catch (RuntimeException ex) {
+                    log.warn("Could not retry low-stock webhooks", ex);
+                } finally {
+                    retrying.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            retrying.set(false);
+        }
+    }
+
+    private void submit(URI url, String payload) {
+        try {
+            deliveryExecutor.execute(() -> deliver(url, payload));
+        } catch (RejectedExecutionException ex) {
+            // Too many batches waiting for a slow receiver, the retry queue takes over
+            saveFailure(url, payload, "Delivery queue full");
+        }
+    }
+
+    private void deliver(URI url, String payload) {
+        String error = post(url, payload);
+        if (error == null) {
+            delivered.increment();
+            return;
+        }
+        failed.increment();
+        log.warn("Low-stock webhook to {} failed, queued for retry: {}", url, error);
+        saveFailure(url, payload, error);
+    }
+
+    private void saveFailure(URI url, String payload, String error) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            webhookDeliveryRepository.save(WebhookDelivery.builder()
+                    .url(url.toString())
+                    .payload(payload)
+                    .attempts(1)
+                    .nextAttemptAt(now.plus(backoff(1)))
+                    .lastError(truncate(error))
+                    .dead(false)
+                    .createdAt(now)
+                    .build());
+        } catch (RuntimeException ex) {
+            log.error("Could not queue low-stock webhook to {} for retry, batch lost", url, ex);
+        }
+    }
+
+    private void retry(WebhookDelivery delivery) {
+        String error = post(URI.create(delivery.getUrl()), delivery.getPayload());
+        if (error == null) {
+            delivered.increment();
+            webhookDeliveryRepository.delete(delivery);
+            return;
+        }
+        failed.increment();
+        int attempts = delivery.getAttempts() + 1;
+        delivery.setAttempts(attempts);
+        delivery.setLastError(truncate(error));
+        if (attempts >= maxAttempts) {
+            abandoned.increment();
+            delivery.setDead(true);
+            log.error("Giving up low-stock webhook {} to {} after {} attempts: {}", delivery.getId(),
+                    delivery.getUrl(), attempts, error);
+        } else {
+            delivery.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        }
+        webhookDeliveryRepository.save(delivery);
+    }
+
+    /**
+     * Post a batch
+     * @param url The webhook URL
+     * @param payload The JSON batch
+     * @return null on success, or the reason of the failure
+     */
+    private String post(URI url, String payload) {
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            int status = response.statusCode();
+            return status >= 200 && status < 300 ? null : "HTTP " + status;
+        } catch (IOException ex) {
+            return ex.toString();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "Interrupted";
+        }
+    }
+
+    /**
+     * Exponential backoff with up to 20% jitter, so that deliveries that failed together are not retried together
+     * @param attempts The number of attempts made so far
+     * @return The delay before the next attempt
+     */
+    Duration backoff(int attempts) {
+        long delay = initialBackoff.toMillis() << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoff.toMillis()) {
+            delay = maxBackoff.toMillis();
+        }
+        return Duration.ofMillis(delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1));
+    }
+
+    private String toPayload(List<StockThresholdEvent> events) {
+        try {
+            return objectMapper.writeValueAsString(Map.of("id", UUID.randomUUID().toString(), "events", events));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize low-stock events", ex);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /**
+     * The crossings of a product not reported yet
+     * @param initiallyLow Whether the product was low before the first of them
+     * @param latest The latest crossing
+     * @param lastSeenAt When the latest crossing was recorded
+     */
+    private record PendingCrossing(boolean initiallyLow, StockThresholdEvent latest, LocalDateTime lastSeenAt) {
+
+        boolean changed() {
+            return initiallyLow != (latest.type() == StockThresholdEvent.Type.LOW_STOCK);
+        }
+    }
+}
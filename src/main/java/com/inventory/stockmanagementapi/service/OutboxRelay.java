@@ -0,0 +1,109 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.domain.OutboxEvent;
+import com.inventory.stockmanagementapi.dto.OutboxEventDTO;
+import com.inventory.stockmanagementapi.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the outbox table to the {@link OutboxSink} from a background thread.
+ * <p>
+ * Events are read in ID order, in batches, and removed once the sink accepted them. While the outbox holds full
+ * batches the relay keeps going, otherwise it polls again after the poll interval. A batch the sink rejects stays
+ * in the outbox and is sent again on the next poll, so later events are never relayed before it.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Counter relayed;
+    private final Counter failures;
+
+    private final ScheduledExecutorService relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxSink outboxSink,
+                       MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${outbox.relay.poll-interval:500ms}") Duration pollInterval) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSink = outboxSink;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.relayed = Counter.builder("outbox.events.relayed").register(meterRegistry);
+        this.failures = Counter.builder("outbox.relay.failures").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long intervalMillis = pollInterval.toMillis();
+        relay.scheduleWithFixedDelay(this::drainSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        relay.shutdownNow();
+    }
+
+    /**
+     * Relay the events in the outbox until it holds less than a full batch
+     * @return The number of events relayed
+     * @throws IOException if the sink rejected a batch
+     */
+    int drain() throws IOException {
+        int total = 0;
+        while (true) {
+            List<OutboxEvent> batch = outboxEventRepository.findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return total;
+            }
+            outboxSink.publish(batch.stream().map(OutboxRelay::toDTO).toList());
+            // A failure here only means the batch is relayed twice
+            outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+            relayed.increment(batch.size());
+            total += batch.size();
+            if (batch.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (IOException | RuntimeException ex) {
+            // The scheduled task would stop for good if the exception escaped
+            failures.increment();
+            log.warn("Could not relay outbox events, retrying in {}", pollInterval, ex);
+        }
+    }
+
+    private static OutboxEventDTO toDTO(OutboxEvent event) {
+        return new OutboxEventDTO(event.getId(), event.getType(), event.getProductId(), event.getPayload(),
+                event.getOccurredAt());
+    }
+}
@@ -0,0 +1,70 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.domain.OutboxEvent;
+import com.inventory.stockmanagementapi.repository.OutboxEventRepository;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Writes product integration events to the outbox table, in the transaction of the change.
+ * <p>
+ * The event is committed or rolled back together with the change, and the request only pays for one insert:
+ * delivering the events is left to the {@link OutboxRelay}. Changes to the same product hold its row lock until
+ * they commit, so their events get increasing IDs.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         ProductRepository productRepository,
+                         ProductService productService,
+                         ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write the integration event of a product change
+     * @param event The change
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        switch (event.type()) {
+            // The product is already in the persistence context of the transaction
+            case PRODUCT_CREATED, PRODUCT_UPDATED, STOCK_UPDATED -> productRepository.findById(event.entityId())
+                    .ifPresent(product -> save(event, productService.convertToDTO(product)));
+            case PRODUCT_DELETED -> save(event, Map.of("id", event.entityId()));
+            default -> {
+                // Categories and resets are not published
+            }
+        }
+    }
+
+    private void save(CatalogChangeEvent event, Object payload) {
+        try {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .type(event.type())
+                    .productId(event.entityId())
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .occurredAt(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize the outbox event of product " + event.entityId(), ex);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.dto.OutboxEventDTO;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the integration events relayed from the outbox, such as a message broker.
+ * <p>
+ * Events are relayed at least once: a batch is sent again if the relay stops between the send and the removal
+ * of the events from the outbox.
+ */
+@FunctionalInterface
+public interface OutboxSink {
+
+    /**
+     * @param events A batch of events, in outbox order
+     * @throws IOException if the batch could not be sent, it is then sent again later
+     */
+    void publish(List<OutboxEventDTO> events) throws IOException;
+}
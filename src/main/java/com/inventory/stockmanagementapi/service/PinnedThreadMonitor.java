@@ -0,0 +1,84 @@
+package com.inventory.stockmanagementapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the virtual threads pinned to their carrier thread, from the {@code jdk.VirtualThreadPinned} events of
+ * JDK Flight Recorder.
+ * <p>
+ * A virtual thread that blocks inside a {@code synchronized} block or method, or under a native frame, cannot
+ * unmount: it holds one of the few carrier threads while it waits, and the other virtual threads queue behind it.
+ * Each pinning longer than the threshold is recorded in the {@code jvm.threads.virtual.pinned} timer, tagged with
+ * the innermost frame outside the JDK, where the thread blocked; the stack of the first pinning at each frame is
+ * logged, and shows further out the code holding the monitor. The events only exist on Java 21 and later.
+ */
+@Slf4j
+public class PinnedThreadMonitor implements AutoCloseable {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    static final String PINNED_METRIC = "jvm.threads.virtual.pinned";
+    private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.");
+
+    private final MeterRegistry meterRegistry;
+    private final RecordingStream stream = new RecordingStream();
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Start recording the pinned virtual threads
+     * @param threshold The shortest pinning reported
+     * @param meterRegistry The registry of the pinning metric
+     */
+    public PinnedThreadMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String culprit = culprit(frames);
+        Timer.builder(PINNED_METRIC).tag("frame", culprit).register(meterRegistry).record(event.getDuration());
+        if (reported.add(culprit)) {
+            log.warn("Virtual thread pinned to its carrier for {} ms in {}, further pinnings there are only counted:\n{}",
+                    event.getDuration().toMillis(), culprit,
+                    frames.stream().map(frame -> "\tat " + name(frame)).collect(Collectors.joining("\n")));
+        }
+    }
+
+    /**
+     * @param frames The stack of a pinned thread, innermost first
+     * @return The first frame outside the JDK, or else the innermost one
+     */
+    static String culprit(List<RecordedFrame> frames) {
+        return frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .filter(frame -> JDK_PACKAGES.stream().noneMatch(frame.getMethod().getType().getName()::startsWith))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(PinnedThreadMonitor::name)
+                .orElse("unknown");
+    }
+
+    private static String name(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+}
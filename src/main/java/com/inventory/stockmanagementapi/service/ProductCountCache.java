@@ -0,0 +1,135 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.projection.CategoryProductCount;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate product totals for the APPROXIMATE pagination mode.
+ * <p>
+ * The total number of products and the number of products per category come from a single GROUP BY query;
+ * search totals are counted once per search term and kept while the term is in use. All counts are refreshed
+ * periodically, so they may lag behind recent creations and deletions by up to one refresh interval.
+ */
+@Component
+@Slf4j
+public class ProductCountCache {
+
+    private final ProductRepository productRepository;
+    private final RequestCoalescer requestCoalescer;
+    private final int maxSearchTerms;
+
+    private volatile Map<Long, Long> countsByCategory;
+    private volatile long totalProducts;
+    private final Map<String, SearchCount> searchCounts = new ConcurrentHashMap<>();
+    // Not a monitor: a virtual thread waiting for the count query while holding one would pin its carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    @Autowired
+    public ProductCountCache(ProductRepository productRepository,
+                             RequestCoalescer requestCoalescer,
+                             @Value("${products.approximate-count.max-search-terms:1000}") int maxSearchTerms) {
+        this.productRepository = productRepository;
+        this.requestCoalescer = requestCoalescer;
+        this.maxSearchTerms = maxSearchTerms;
+    }
+
+    /**
+     * Get the approximate number of products
+     * @return The cached product count
+     */
+    public long countAll() {
+        ensureLoaded();
+        return totalProducts;
+    }
+
+    /**
+     * Get the approximate number of products in a category
+     * @param categoryId The category id
+     * @return The cached product count of the category
+     */
+    public long countByCategory(Long categoryId) {
+        ensureLoaded();
+        return countsByCategory.getOrDefault(categoryId, 0L);
+    }
+
+    /**
+     * Get the approximate number of products matching a search term
+     * @param searchTerm The search term
+     * @return The cached number of matching products
+     */
+    public long countSearchResults(String searchTerm) {
+        // The search is case-insensitive, so all spellings of a term share one count
+        String key = searchTerm.toLowerCase(Locale.ROOT);
+        SearchCount cached = searchCounts.get(key);
+        if (cached != null) {
+            cached.used = true;
+            return cached.count;
+        }
+        long count = requestCoalescer.execute("countSearchResults", key,
+                () -> productRepository.countSearchResults(searchTerm));
+        if (searchCounts.size() < maxSearchTerms) {
+            searchCounts.put(key, new SearchCount(count));
+        }
+        return count;
+    }
+
+    /**
+     * Recount all products, and the search results of the terms used since the previous refresh.
+     * Terms that were not used are dropped.
+     */
+    @Scheduled(fixedDelayString = "${products.approximate-count.refresh-interval-ms:30000}")
+    public void refresh() {
+        refreshCategoryCounts();
+        searchCounts.entrySet().removeIf(entry -> !entry.getValue().used);
+        searchCounts.forEach((term, cached) -> {
+            cached.count = productRepository.countSearchResults(term);
+            cached.used = false;
+        });
+    }
+
+    private void ensureLoaded() {
+        if (countsByCategory == null) {
+            loadLock.lock();
+            try {
+                if (countsByCategory == null) {
+                    refreshCategoryCounts();
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+    }
+
+    private void refreshCategoryCounts() {
+        Map<Long, Long> counts = new HashMap<>();
+        long total = 0;
+        for (CategoryProductCount count : productRepository.countByCategory()) {
+            counts.put(count.getCategoryId(), count.getProductCount());
+            total += count.getProductCount();
+        }
+        totalProducts = total;
+        countsByCategory = counts;
+        log.debug("Refreshed approximate product counts: {} products in {} categories", total, counts.size());
+    }
+
+    private static final class SearchCount {
+
+        private volatile long count;
+        private volatile boolean used;
+
+        private SearchCount(long count) {
+            this.count = count;
+        }
+    }
+}
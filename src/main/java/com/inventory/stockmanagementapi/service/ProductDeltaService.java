@@ -0,0 +1,212 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.domain.ProductTombstone;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.ProductDeltaDTO;
+import com.inventory.stockmanagementapi.dto.ProductTombstoneDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.GoneException;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.ProductTombstoneRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Delta sync of the product catalog: the products modified and deleted since a point in time.
+ * <p>
+ * Modified products are scanned in (updatedAt, id) order on the matching index, and deletions are recorded as
+ * tombstones in the transaction of the delete. A delta stops at a watermark slightly in the past: a transaction
+ * that set {@code updatedAt} before the watermark but commits after the scan would otherwise be missed by the
+ * next sync. Pages are chained with an opaque cursor holding the watermark and the positions in both scans.
+ * <p>
+ * Tombstones are kept for a retention period, and a reset of the whole catalog invalidates older deltas: a sync
+ * from before either of them must read the full catalog again.
+ */
+@Service
+@Slf4j
+public class ProductDeltaService {
+
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository productTombstoneRepository;
+    private final ProductService productService;
+    private final int maxLimit;
+    private final Duration safetyLag;
+    private final Duration tombstoneRetention;
+
+    private volatile LocalDateTime lastResetAt;
+
+    @Autowired
+    public ProductDeltaService(ProductRepository productRepository,
+                               ProductTombstoneRepository productTombstoneRepository,
+                               ProductService productService,
+                               @Value("${products.delta-sync.max-limit:5000}") int maxLimit,
+                               @Value("${products.delta-sync.safety-lag:5s}") Duration safetyLag,
+                               @Value("${products.delta-sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.productRepository = productRepository;
+        this.productTombstoneRepository = productTombstoneRepository;
+        this.productService = productService;
+        this.maxLimit = maxLimit;
+        this.safetyLag = safetyLag;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Get the first page of the products modified or deleted since a point in time
+     * @param since The watermark of the previous sync, inclusive
+     * @param limit The maximum number of products, and of tombstones, in the page
+     * @return The first page of the delta
+     * @throws BusinessException if the limit is invalid or the time is in the future
+     * @throws GoneException if deletions since that time may no longer be known
+     */
+    @Bulkheaded(Workload.SCAN)
+    public ProductDeltaDTO getModifiedSince(LocalDateTime since, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        if (since.isAfter(now)) {
+            throw new BusinessException("The sync time cannot be in the future");
+        }
+        if (since.isBefore(now.minus(tombstoneRetention))) {
+            throw new GoneException("Deletions are only kept for " + tombstoneRetention.toDays()
+                    + " days, the catalog must be read again");
+        }
+        LocalDateTime resetAt = lastResetAt;
+        if (resetAt != null && since.isBefore(resetAt)) {
+            throw new GoneException("The catalog was reset at " + resetAt + ", it must be read again");
+        }
+        LocalDateTime until = now.minus(safetyLag);
+        // A watermark before the requested time would make the next sync go back in time
+        if (until.isBefore(since)) {
+            until = since;
+        }
+        return read(new DeltaCursor(until, since, 0L, since, 0L), limit);
+    }
+
+    /**
+     * Get the next page of a delta
+     * @param cursor The cursor returned with the previous page
+     * @param limit The maximum number of products, and of tombstones, in the page
+     * @return The next page of the delta
+     * @throws BusinessException if the cursor or the limit is invalid
+     */
+    @Bulkheaded(Workload.SCAN)
+    public ProductDeltaDTO getModifiedSince(String cursor, int limit) {
+        return read(DeltaCursor.decode(cursor), limit);
+    }
+
+    /**
+     * Record a tombstone in the transaction deleting a product, and remember catalog resets
+     * @param event The change
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        switch (event.type()) {
+            case PRODUCT_DELETED -> productTombstoneRepository.save(
+                    new ProductTombstone(event.entityId(), LocalDateTime.now()));
+            case CATALOG_RESET -> lastResetAt = LocalDateTime.now();
+            default -> {
+                // Creations and updates are found through updatedAt
+            }
+        }
+    }
+
+    /**
+     * Delete the tombstones that are older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${products.delta-sync.purge-interval-ms:3600000}")
+    public void purgeTombstones() {
+        int deleted = productTombstoneRepository.deleteDeletedBefore(LocalDateTime.now().minus(tombstoneRetention));
+        if (deleted > 0) {
+            log.debug("Purged {} product tombstones", deleted);
+        }
+    }
+
+    private ProductDeltaDTO read(DeltaCursor cursor, int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new BusinessException("The limit must be between 1 and " + maxLimit);
+        }
+        // One extra row of each kind tells whether another page follows
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Product> products = productRepository.findModifiedAfter(cursor.productUpdatedAt(),
+                cursor.productId(), cursor.until(), page);
+        List<ProductTombstone> tombstones = productTombstoneRepository.findDeletedAfter(cursor.tombstoneDeletedAt(),
+                cursor.tombstoneProductId(), cursor.until(), page);
+
+        boolean hasMore = products.size() > limit || tombstones.size() > limit;
+        List<Product> productPage = products.subList(0, Math.min(limit, products.size()));
+        List<ProductTombstone> tombstonePage = tombstones.subList(0, Math.min(limit, tombstones.size()));
+
+        String nextCursor = null;
+        if (hasMore) {
+            DeltaCursor next = cursor;
+            if (!productPage.isEmpty()) {
+                Product last = productPage.get(productPage.size() - 1);
+                next = next.withProduct(last.getUpdatedAt(), last.getId());
+            }
+            if (!tombstonePage.isEmpty()) {
+                ProductTombstone last = tombstonePage.get(tombstonePage.size() - 1);
+                next = next.withTombstone(last.getDeletedAt(), last.getProductId());
+            }
+            nextCursor = next.encode();
+        }
+
+        List<ProductDTO> productDTOs = productPage.stream().map(productService::convertToDTO).toList();
+        List<ProductTombstoneDTO> tombstoneDTOs = tombstonePage.stream()
+                .map(tombstone -> new ProductTombstoneDTO(tombstone.getProductId(), tombstone.getDeletedAt()))
+                .toList();
+        return new ProductDeltaDTO(productDTOs, tombstoneDTOs, nextCursor, cursor.until());
+    }
+
+    /**
+     * Position of a delta sync
+     * @param until The watermark, exclusive upper bound of both scans
+     * @param productUpdatedAt The modification time of the last product returned
+     * @param productId The ID of the last product returned, 0 before the first one
+     * @param tombstoneDeletedAt The deletion time of the last tombstone returned
+     * @param tombstoneProductId The product ID of the last tombstone returned, 0 before the first one
+     */
+    record DeltaCursor(LocalDateTime until, LocalDateTime productUpdatedAt, Long productId,
+                       LocalDateTime tombstoneDeletedAt, Long tombstoneProductId) {
+
+        private static final String SEPARATOR = "|";
+
+        DeltaCursor withProduct(LocalDateTime updatedAt, Long id) {
+            return new DeltaCursor(until, updatedAt, id, tombstoneDeletedAt, tombstoneProductId);
+        }
+
+        DeltaCursor withTombstone(LocalDateTime deletedAt, Long id) {
+            return new DeltaCursor(until, productUpdatedAt, productId, deletedAt, id);
+        }
+
+        String encode() {
+            String value = String.join(SEPARATOR, until.toString(), productUpdatedAt.toString(),
+                    productId.toString(), tombstoneDeletedAt.toString(), tombstoneProductId.toString());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static DeltaCursor decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = value.split("\\" + SEPARATOR);
+                if (parts.length != 5) {
+                    throw new IllegalArgumentException("Expected 5 parts, got " + parts.length);
+                }
+                return new DeltaCursor(LocalDateTime.parse(parts[0]), LocalDateTime.parse(parts[1]),
+                        Long.valueOf(parts[2]), LocalDateTime.parse(parts[3]), Long.valueOf(parts[4]));
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                throw new BusinessException("Invalid delta cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.dto.PaginationMode;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Shares the hot product reads between identical concurrent calls, in front of {@link ProductService}.
+ * <p>
+ * The calls are coalesced outside of the bulkhead and transaction of the service: only the call that runs takes a
+ * bulkhead permit and a pooled connection, while the identical calls wait for its result holding neither. Each
+ * caller gets its own copy of the products.
+ */
+@Component
+public class ProductReadCoalescer {
+
+    private final ProductService productService;
+    private final RequestCoalescer requestCoalescer;
+
+    @Autowired
+    public ProductReadCoalescer(ProductService productService, RequestCoalescer requestCoalescer) {
+        this.productService = productService;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Get a product by ID, sharing one query between identical concurrent calls
+     * @param id The product ID
+     * @return The product DTO
+     * @throws com.inventory.stockmanagementapi.exception.ResourceNotFoundException if the product is not found
+     */
+    public ProductDTO getProductById(Long id) {
+        return requestCoalescer.execute("getProductById", id, () -> productService.getProductById(id),
+                ProductReadCoalescer::copy);
+    }
+
+    /**
+     * Search products by name or description, sharing one query between identical concurrent calls
+     * @param searchTerm The search term
+     * @param pageable Pagination information
+     * @param mode How to compute the total number of matching products
+     * @return A page of matching products, or a slice without total in SLICE mode
+     */
+    public Slice<ProductDTO> searchProducts(String searchTerm, Pageable pageable, PaginationMode mode) {
+        return requestCoalescer.execute("searchProducts", List.of(searchTerm, pageable, mode),
+                () -> productService.searchProducts(searchTerm, pageable, mode),
+                products -> products.map(ProductReadCoalescer::copy));
+    }
+
+    private static ProductDTO copy(ProductDTO product) {
+        return product.toBuilder().build();
+    }
+}
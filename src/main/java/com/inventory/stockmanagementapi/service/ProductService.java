@@ -1,20 +1,42 @@
 package com.inventory.stockmanagementapi.service;
 
+import com.inventory.stockmanagementapi.dto.PaginationMode;
+import com.inventory.stockmanagementapi.dto.ProductBatchGetDTO;
 import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.ProductField;
+import com.inventory.stockmanagementapi.dto.ProductLookupResultDTO;
 import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
 import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.PreconditionFailedException;
 import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
 import com.inventory.stockmanagementapi.domain.Category;
 import com.inventory.stockmanagementapi.domain.Product;
 import com.inventory.stockmanagementapi.repository.CategoryRepository;
 import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.ProductSpecifications;
+import com.inventory.stockmanagementapi.repository.projection.ProductVersionView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,17 +44,34 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductCountCache productCountCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchGetMaxItems;
+    private final int batchGetChunkSize;
+    private final int lowStockThreshold;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository) {
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository,
+                          ProductCountCache productCountCache,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${products.batch-get.max-items:5000}") int batchGetMaxItems,
+                          @Value("${products.batch-get.chunk-size:500}") int batchGetChunkSize,
+                          @Value("${low-stock.threshold:10}") int lowStockThreshold) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.productCountCache = productCountCache;
+        this.eventPublisher = eventPublisher;
+        this.batchGetMaxItems = batchGetMaxItems;
+        this.batchGetChunkSize = batchGetChunkSize;
+        this.lowStockThreshold = lowStockThreshold;
     }
 
     /**
      * Get all products
      * @return List of all products
      */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
     public List<ProductDTO> getAllProducts() {
         return productRepository.findAll().stream()
                 .map(this::convertToDTO)
@@ -44,23 +83,85 @@ public class ProductService {
      * @param pageable Pagination information
      * @return A page of products
      */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
     public Page<ProductDTO> getProducts(Pageable pageable) {
         return productRepository.findAll(pageable)
                 .map(this::convertToDTO);
     }
 
     /**
-     * Get a product by ID
+     * Get products with pagination, computing the total as requested
+     * @param pageable Pagination information
+     * @param mode How to compute the total number of products
+     * @return A page of products, or a slice without total in SLICE mode
+     */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
+    public Slice<ProductDTO> getProducts(Pageable pageable, PaginationMode mode) {
+        return switch (mode) {
+            case PAGE -> getProducts(pageable);
+            case SLICE -> productRepository.findAllBy(pageable).map(this::convertToDTO);
+            case APPROXIMATE -> withApproximateTotal(productRepository.findAllBy(pageable), productCountCache.countAll())
+                    .map(this::convertToDTO);
+        };
+    }
+
+    /**
+     * Get a product by ID; see {@link ProductReadCoalescer} to share one query between identical concurrent calls
      * @param id The product ID
      * @return The product DTO
      * @throws ResourceNotFoundException if the product is not found
      */
+    @Bulkheaded(Workload.POINT_READ)
+    @Transactional(readOnly = true)
     public ProductDTO getProductById(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
         return convertToDTO(product);
     }
 
+    /**
+     * Get many products by ID or SKU at once
+     * @param batchGetDTO The IDs and SKUs to look up
+     * @return One result per requested ID, then one per requested SKU, in request order
+     * @throws BusinessException if the request is empty or contains too many IDs and SKUs
+     */
+    @Bulkheaded(Workload.POINT_READ)
+    @Transactional(readOnly = true)
+    public List<ProductLookupResultDTO> getProductsByIdsOrSkus(ProductBatchGetDTO batchGetDTO) {
+        List<Long> ids = batchGetDTO.getIds() != null ? batchGetDTO.getIds() : List.of();
+        List<String> skus = batchGetDTO.getSkus() != null ? batchGetDTO.getSkus() : List.of();
+        int requested = ids.size() + skus.size();
+        if (requested == 0) {
+            throw new BusinessException("At least one product ID or SKU is required");
+        }
+        if (requested > batchGetMaxItems) {
+            throw new BusinessException("Cannot look up more than " + batchGetMaxItems + " products at once, got " + requested);
+        }
+        
+        Map<Long, ProductDTO> productsById = findInChunks(ids, productRepository::findAllWithCategoryByIdIn, ProductDTO::getId);
+        Map<String, ProductDTO> productsBySku = findInChunks(skus, productRepository::findAllWithCategoryBySkuIn, ProductDTO::getSku);
+        
+        List<ProductLookupResultDTO> results = new ArrayList<>(requested);
+        ids.forEach(id -> results.add(ProductLookupResultDTO.byId(id, productsById.get(id))));
+        skus.forEach(sku -> results.add(ProductLookupResultDTO.bySku(sku, productsBySku.get(sku))));
+        return results;
+    }
+
+    /**
+     * Get the version of a product without loading it
+     * @param id The product ID
+     * @return The product version
+     * @throws ResourceNotFoundException if the product is not found
+     */
+    @Bulkheaded(Workload.POINT_READ)
+    @Transactional(readOnly = true)
+    public ProductVersionView getProductVersion(Long id) {
+        return productRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+    }
+
     /**
      * Create a new product
      * @param productDTO The product data to create
@@ -68,6 +169,7 @@ public class ProductService {
      * @throws ResourceNotFoundException if the associated category is not found
      * @throws BusinessException if a product with the same SKU already exists
      */
+    @Bulkheaded(Workload.WRITE)
     @Transactional
     public ProductDTO createProduct(ProductDTO productDTO) {
         // Check if SKU already exists
@@ -84,6 +186,7 @@ public class ProductService {
         updateProductFromDTO(product, productDTO, category);
         
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_CREATED, savedProduct.getId()));
         return convertToDTO(savedProduct);
     }
 
@@ -95,11 +198,32 @@ public class ProductService {
      * @throws ResourceNotFoundException if the product or associated category is not found
      * @throws BusinessException if a different product with the same SKU already exists
      */
+    @Bulkheaded(Workload.WRITE)
     @Transactional
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
+        return updateProduct(id, productDTO, null);
+    }
+
+    /**
+     * Update an existing product if it still has the expected version
+     * @param id The product ID to update
+     * @param productDTO The updated product data
+     * @param expectedVersion The version the client last saw, or null to update unconditionally
+     * @return The updated product
+     * @throws ResourceNotFoundException if the product or associated category is not found
+     * @throws BusinessException if a different product with the same SKU already exists
+     * @throws PreconditionFailedException if the product version differs from the expected one
+     */
+    @Bulkheaded(Workload.WRITE)
+    @Transactional
+    public ProductDTO updateProduct(Long id, ProductDTO productDTO, Long expectedVersion) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
         
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new PreconditionFailedException("Product " + id + " has been modified since version " + expectedVersion);
+        }
+        
         // Check if SKU is being changed and if new SKU already exists
         if (productDTO.getSku() != null && !productDTO.getSku().isEmpty() && 
                 !productDTO.getSku().equals(product.getSku()) && 
@@ -111,9 +235,13 @@ public class ProductService {
         Category category = categoryRepository.findById(productDTO.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", productDTO.getCategoryId()));
         
+        int previousQuantity = product.getQuantity();
         updateProductFromDTO(product, productDTO, category);
         
-        Product updatedProduct = productRepository.save(product);
+        // Flush so that the returned version and update time reflect this update
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_UPDATED, id));
+        publishThresholdCrossing(updatedProduct, previousQuantity);
         return convertToDTO(updatedProduct);
     }
 
@@ -122,12 +250,14 @@ public class ProductService {
      * @param id The product ID to delete
      * @throws ResourceNotFoundException if the product is not found
      */
+    @Bulkheaded(Workload.WRITE)
     @Transactional
     public void deleteProduct(Long id) {
         if (!productRepository.existsById(id)) {
             throw new ResourceNotFoundException("Product", "id", id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_DELETED, id));
     }
 
     /**
@@ -137,36 +267,72 @@ public class ProductService {
      * @throws ResourceNotFoundException if the product is not found
      * @throws BusinessException if the stock operation would result in negative quantity
      */
+    @Bulkheaded(Workload.WRITE)
     @Transactional
     public ProductDTO updateStock(StockUpdateDTO stockUpdateDTO) {
-        Product product = productRepository.findById(stockUpdateDTO.getProductId())
+        // Lock the row so that concurrent movements on the same product are applied one after the other
+        Product product = productRepository.findByIdForUpdate(stockUpdateDTO.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", stockUpdateDTO.getProductId()));
         
-        Integer newQuantity;
-        
-        switch (stockUpdateDTO.getOperationType()) {
-            case ADD:
-                newQuantity = product.getQuantity() + stockUpdateDTO.getQuantityChange();
-                break;
-            case REMOVE:
-                newQuantity = product.getQuantity() - stockUpdateDTO.getQuantityChange();
-                if (newQuantity < 0) {
-                    throw new BusinessException("Cannot remove more items than available in stock. Current stock: " + product.getQuantity());
-                }
-                break;
-            case SET:
-                if (stockUpdateDTO.getQuantityChange() < 0) {
-                    throw new BusinessException("Cannot set stock to a negative value");
+        int previousQuantity = product.getQuantity();
+        product.setQuantity(newQuantity(previousQuantity, stockUpdateDTO));
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, product.getId()));
+        publishThresholdCrossing(updatedProduct, previousQuantity);
+        return convertToDTO(updatedProduct);
+    }
+
+    /**
+     * Apply stock updates one after the other in memory, then persist them with a single flush.
+     * <p>
+     * Each product is written once, with a single stock event carrying its final state. An update that fails
+     * does not affect the others. Without row locks, a concurrent write to one of the products makes the whole
+     * batch fail on its version check.
+     * @param stockUpdates The stock updates, in the order they are applied
+     * @return The outcome of each update, in the same order
+     */
+    @Bulkheaded(Workload.WRITE)
+    @Transactional
+    public List<StockUpdateOutcome> updateStockBatch(List<StockUpdateDTO> stockUpdates) {
+        Map<Long, Product> products = productRepository.findAllById(stockUpdates.stream()
+                        .map(StockUpdateDTO::getProductId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<Long, Integer> previousQuantities = new HashMap<>();
+        List<Integer> quantities = new ArrayList<>(stockUpdates.size());
+        List<RuntimeException> errors = new ArrayList<>(stockUpdates.size());
+        for (StockUpdateDTO stockUpdate : stockUpdates) {
+            Product product = products.get(stockUpdate.getProductId());
+            try {
+                if (product == null) {
+                    throw new ResourceNotFoundException("Product", "id", stockUpdate.getProductId());
                 }
-                newQuantity = stockUpdateDTO.getQuantityChange();
-                break;
-            default:
-                throw new BusinessException("Invalid operation type");
+                int newQuantity = newQuantity(product.getQuantity(), stockUpdate);
+                previousQuantities.putIfAbsent(product.getId(), product.getQuantity());
+                product.setQuantity(newQuantity);
+                quantities.add(newQuantity);
+                errors.add(null);
+            } catch (BusinessException | ResourceNotFoundException ex) {
+                quantities.add(null);
+                errors.add(ex);
+            }
         }
-        
-        product.setQuantity(newQuantity);
-        Product updatedProduct = productRepository.save(product);
-        return convertToDTO(updatedProduct);
+        productRepository.flush();
+        previousQuantities.forEach((id, previousQuantity) -> {
+            eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, id));
+            publishThresholdCrossing(products.get(id), previousQuantity);
+        });
+        List<StockUpdateOutcome> outcomes = new ArrayList<>(stockUpdates.size());
+        for (int i = 0; i < stockUpdates.size(); i++) {
+            if (errors.get(i) != null) {
+                outcomes.add(new StockUpdateOutcome(null, errors.get(i)));
+                continue;
+            }
+            // The stock right after this update, with the version of the product once the batch is written
+            ProductDTO dto = convertToDTO(products.get(stockUpdates.get(i).getProductId()));
+            dto.setQuantity(quantities.get(i));
+            outcomes.add(new StockUpdateOutcome(dto, null));
+        }
+        return outcomes;
     }
 
     /**
@@ -174,6 +340,8 @@ public class ProductService {
      * @param threshold The threshold quantity
      * @return List of products with stock below threshold
      */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
     public List<ProductDTO> getLowStockProducts(Integer threshold) {
         return productRepository.findLowStockProducts(threshold).stream()
                 .map(this::convertToDTO)
@@ -186,17 +354,40 @@ public class ProductService {
      * @param pageable Pagination information
      * @return A page of matching products
      */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
     public Page<ProductDTO> searchProducts(String searchTerm, Pageable pageable) {
         return productRepository.searchProducts(searchTerm, pageable)
                 .map(this::convertToDTO);
     }
 
+    /**
+     * Search products by name or description, computing the total as requested
+     * @param searchTerm The search term
+     * @param pageable Pagination information
+     * @param mode How to compute the total number of matching products
+     * @return A page of matching products, or a slice without total in SLICE mode
+     */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
+    public Slice<ProductDTO> searchProducts(String searchTerm, Pageable pageable, PaginationMode mode) {
+        if (mode == PaginationMode.PAGE) {
+            return searchProducts(searchTerm, pageable);
+        }
+        Slice<ProductDTO> slice = productRepository.searchProductsSlice(searchTerm, pageable)
+                .map(this::convertToDTO);
+        return mode == PaginationMode.SLICE ? slice
+                : withApproximateTotal(slice, productCountCache.countSearchResults(searchTerm));
+    }
+
     /**
      * Get products by category
      * @param categoryId The category ID
      * @param pageable Pagination information
      * @return A page of products in the category
      */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
     public Page<ProductDTO> getProductsByCategory(Long categoryId, Pageable pageable) {
         // Check if category exists
         if (!categoryRepository.existsById(categoryId)) {
@@ -207,12 +398,257 @@ public class ProductService {
                 .map(this::convertToDTO);
     }
 
+    /**
+     * Get products by category, computing the total as requested
+     * @param categoryId The category ID
+     * @param pageable Pagination information
+     * @param mode How to compute the total number of products in the category
+     * @return A page of products in the category, or a slice without total in SLICE mode
+     */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
+    public Slice<ProductDTO> getProductsByCategory(Long categoryId, Pageable pageable, PaginationMode mode) {
+        if (mode == PaginationMode.PAGE) {
+            return getProductsByCategory(categoryId, pageable);
+        }
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category", "id", categoryId);
+        }
+        
+        Slice<Product> slice = productRepository.findSliceByCategoryId(categoryId, pageable);
+        return (mode == PaginationMode.SLICE ? slice
+                : withApproximateTotal(slice, productCountCache.countByCategory(categoryId)))
+                .map(this::convertToDTO);
+    }
+
+    /**
+     * Get some fields of a page of products
+     * @param fields Comma-separated property names, e.g. "id,sku,quantity"
+     * @param pageable Pagination information
+     * @param mode How to compute the total number of products
+     * @return A page of products as maps from property name to value
+     * @throws BusinessException if a field is unknown
+     */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getProductFields(String fields, Pageable pageable, PaginationMode mode) {
+        return findFields(ProductSpecifications.all(), parseFields(fields), pageable, mode, productCountCache::countAll);
+    }
+
+    /**
+     * Get some fields of all products
+     * @param fields Comma-separated property names
+     * @return All products as maps from property name to value
+     * @throws BusinessException if a field is unknown
+     */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllProductFields(String fields) {
+        return productRepository.findFields(ProductSpecifications.all(), parseFields(fields), Sort.unsorted());
+    }
+
+    /**
+     * Get some fields of a product by ID
+     * @param id The product ID
+     * @param fields Comma-separated property names
+     * @return The product as a map from property name to value
+     * @throws ResourceNotFoundException if the product is not found
+     * @throws BusinessException if a field is unknown
+     */
+    @Bulkheaded(Workload.POINT_READ)
+    @Transactional(readOnly = true)
+    public Map<String, Object> getProductFieldsById(Long id, String fields) {
+        return productRepository.findFields(ProductSpecifications.hasId(id), parseFields(fields), Sort.unsorted())
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+    }
+
+    /**
+     * Get some fields of a page of products in a category
+     * @param categoryId The category ID
+     * @param fields Comma-separated property names
+     * @param pageable Pagination information
+     * @param mode How to compute the total number of products in the category
+     * @return A page of products as maps from property name to value
+     * @throws ResourceNotFoundException if the category is not found
+     * @throws BusinessException if a field is unknown
+     */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getProductFieldsByCategory(Long categoryId, String fields, Pageable pageable,
+                                                                 PaginationMode mode) {
+        Set<ProductField> productFields = parseFields(fields);
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category", "id", categoryId);
+        }
+        
+        return findFields(ProductSpecifications.inCategory(categoryId), productFields, pageable, mode,
+                () -> productCountCache.countByCategory(categoryId));
+    }
+
+    /**
+     * Get some fields of a page of products whose name or description contains the search term
+     * @param searchTerm The search term
+     * @param fields Comma-separated property names
+     * @param pageable Pagination information
+     * @param mode How to compute the total number of matching products
+     * @return A page of matching products as maps from property name to value
+     * @throws BusinessException if a field is unknown
+     */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> searchProductFields(String searchTerm, String fields, Pageable pageable,
+                                                          PaginationMode mode) {
+        return findFields(ProductSpecifications.nameOrDescriptionContains(searchTerm), parseFields(fields), pageable,
+                mode, () -> productCountCache.countSearchResults(searchTerm));
+    }
+
+    /**
+     * Get some fields of the products with stock below the threshold
+     * @param threshold The threshold quantity
+     * @param fields Comma-separated property names
+     * @return The low stock products as maps from property name to value
+     * @throws BusinessException if a field is unknown
+     */
+    @Bulkheaded(Workload.SCAN)
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getLowStockProductFields(Integer threshold, String fields) {
+        return productRepository.findFields(ProductSpecifications.quantityBelow(threshold), parseFields(fields),
+                Sort.unsorted());
+    }
+
+    /**
+     * Run a field projection query with the requested pagination mode
+     * @param spec The filter
+     * @param fields The fields to select
+     * @param pageable Pagination information
+     * @param mode How to compute the total
+     * @param approximateTotal The cached total, used in APPROXIMATE mode
+     * @return A page, or a slice in SLICE mode
+     */
+    private Slice<Map<String, Object>> findFields(Specification<Product> spec, Set<ProductField> fields,
+                                                  Pageable pageable, PaginationMode mode, LongSupplier approximateTotal) {
+        return switch (mode) {
+            case PAGE -> productRepository.findFieldsPage(spec, fields, pageable);
+            case SLICE -> productRepository.findFieldsSlice(spec, fields, pageable);
+            case APPROXIMATE -> withApproximateTotal(productRepository.findFieldsSlice(spec, fields, pageable),
+                    approximateTotal.getAsLong());
+        };
+    }
+
+    /**
+     * Parse the fields query parameter
+     * @param fields Comma-separated property names
+     * @return The requested fields, in request order
+     * @throws BusinessException if no field is given or a field is unknown
+     */
+    private Set<ProductField> parseFields(String fields) {
+        Set<ProductField> productFields = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            String propertyName = name.trim();
+            if (propertyName.isEmpty()) {
+                continue;
+            }
+            productFields.add(ProductField.fromPropertyName(propertyName)
+                    .orElseThrow(() -> new BusinessException("Unknown product field '" + propertyName
+                            + "', expected some of " + Arrays.stream(ProductField.values())
+                            .map(ProductField::getPropertyName)
+                            .collect(Collectors.joining(",")))));
+        }
+        if (productFields.isEmpty()) {
+            throw new BusinessException("At least one product field is required");
+        }
+        return productFields;
+    }
+
+    /**
+     * Turn a slice into a page whose total is a cached count.
+     * The total is raised if needed so that it never contradicts the slice: a stale count cannot hide a next page.
+     * @param slice The slice, fetched without counting
+     * @param cachedTotal The approximate total number of elements
+     * @return A page with the slice content and the approximate total
+     */
+    private <T> Page<T> withApproximateTotal(Slice<T> slice, long cachedTotal) {
+        long seen = slice.getPageable().isPaged()
+                ? slice.getPageable().getOffset() + slice.getNumberOfElements()
+                : slice.getNumberOfElements();
+        long total = Math.max(cachedTotal, slice.hasNext() ? seen + 1 : seen);
+        if (!slice.hasNext() && slice.hasContent()) {
+            // The last page is known exactly
+            total = seen;
+        }
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    /**
+     * Look up distinct keys with IN queries of bounded size
+     * @param keys The keys to look up, possibly with duplicates
+     * @param query The IN query for one chunk of keys
+     * @param keyOf Extracts the key of a found product
+     * @return The found products by key
+     */
+    private <K> Map<K, ProductDTO> findInChunks(List<K> keys, Function<List<K>, List<Product>> query,
+                                                Function<ProductDTO, K> keyOf) {
+        List<K> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<K, ProductDTO> products = new HashMap<>();
+        for (int from = 0; from < distinctKeys.size(); from += batchGetChunkSize) {
+            List<K> chunk = distinctKeys.subList(from, Math.min(from + batchGetChunkSize, distinctKeys.size()));
+            for (Product product : query.apply(chunk)) {
+                ProductDTO dto = convertToDTO(product);
+                products.put(keyOf.apply(dto), dto);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Compute the stock of a product after an update
+     * @param currentQuantity The current stock
+     * @param stockUpdateDTO The stock update information
+     * @return The new stock
+     * @throws BusinessException if the stock operation would result in negative quantity
+     */
+    private static int newQuantity(int currentQuantity, StockUpdateDTO stockUpdateDTO) {
+        switch (stockUpdateDTO.getOperationType()) {
+            case ADD:
+                return currentQuantity + stockUpdateDTO.getQuantityChange();
+            case REMOVE:
+                int newQuantity = currentQuantity - stockUpdateDTO.getQuantityChange();
+                if (newQuantity < 0) {
+                    throw new BusinessException("Cannot remove more items than available in stock. Current stock: " + currentQuantity);
+                }
+                return newQuantity;
+            case SET:
+                if (stockUpdateDTO.getQuantityChange() < 0) {
+                    throw new BusinessException("Cannot set stock to a negative value");
+                }
+                return stockUpdateDTO.getQuantityChange();
+            default:
+                throw new BusinessException("Invalid operation type");
+        }
+    }
+
+    /**
+     * Publish a {@link StockThresholdEvent} if an update moved the quantity across the low-stock threshold
+     * @param product The updated product
+     * @param previousQuantity The quantity before the update
+     */
+    private void publishThresholdCrossing(Product product, int previousQuantity) {
+        StockThresholdEvent.Type crossing =
+                StockThresholdEvent.crossing(previousQuantity, product.getQuantity(), lowStockThreshold);
+        if (crossing != null) {
+            eventPublisher.publishEvent(new StockThresholdEvent(crossing, product.getId(), product.getSku(),
+                    previousQuantity, product.getQuantity(), lowStockThreshold, LocalDateTime.now()));
+        }
+    }
+
     /**
      * Convert Product entity to ProductDTO
      * @param product The Product entity
      * @return The ProductDTO
      */
-    private ProductDTO convertToDTO(Product product) {
+    ProductDTO convertToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -224,6 +660,7 @@ public class ProductService {
         dto.setCategoryName(product.getCategory().getName());
         dto.setCreatedAt(product.getCreatedAt());
         dto.setUpdatedAt(product.getUpdatedAt());
+        dto.setVersion(product.getVersion());
         return dto;
     }
 
@@ -241,4 +678,12 @@ public class ProductService {
         product.setSku(productDTO.getSku());
         product.setCategory(category);
     }
+
+    /**
+     * The outcome of one update of a batch
+     * @param product The product right after the update, or null if it failed
+     * @param error Why the update failed, or null if it succeeded
+     */
+    public record StockUpdateOutcome(ProductDTO product, RuntimeException error) {
+    }
 }
@@ -0,0 +1,12 @@
+package com.inventory.stockmanagementapi.service;
+
+/**
+ * Published when another instance committed a product or category mutation, so that the caches of this
+ * instance drop what it changed. It is published outside of any transaction.
+ *
+ * @param type What changed
+ * @param entityId The ID of the changed product or category, or null for a reset of the whole catalog
+ * @param node The instance that committed the change
+ */
+public record RemoteCatalogChangeEvent(CatalogChangeEvent.Type type, Long entityId, String node) {
+}
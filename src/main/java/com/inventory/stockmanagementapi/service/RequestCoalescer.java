@@ -0,0 +1,150 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single-flight execution of read operations.
+ * <p>
+ * While a call for a given operation and key is running, identical calls do not run their own query: they wait
+ * for the running call and share its result, each getting its own copy of a mutable result. Only the exceptions
+ * that follow from the arguments, such as a missing product, are shared: when the running call fails because of
+ * its own request, for instance on its deadline or an open circuit, the waiting calls run the action themselves.
+ * Nothing is cached once the call completes, so a caller
+ * never gets a result computed before it arrived unless it overlapped with a call already in flight. A caller waits
+ * for the running call no longer than its own request {@link Deadline}.
+ * <p>
+ * Calls are counted in the {@code coalescer.calls} metric, tagged with the operation and whether the call was
+ * {@code executed} or {@code coalesced}.
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final String CALLS_METRIC = "coalescer.calls";
+    private static final Object NOT_SHARED = new Object();
+
+    private final Map<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> executedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalescedCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("coalescer.in.flight", inFlight, Map::size)
+                .description("Number of distinct calls currently running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run an action with an immutable result, or join an identical call already running
+     * @param operation The operation name, e.g. "countSearchResults"
+     * @param key The operation arguments; must implement equals and hashCode
+     * @param action The action to run if no identical call is in flight
+     * @return The result of the action, possibly computed for another caller
+     */
+    public <T> T execute(String operation, Object key, Supplier<T> action) {
+        return execute(operation, key, action, UnaryOperator.identity());
+    }
+
+    /**
+     * Run an action, or join an identical call already running
+     * @param operation The operation name, e.g. "getProductById"
+     * @param key The operation arguments; must implement equals and hashCode
+     * @param action The action to run if no identical call is in flight
+     * @param copy Copies a result, so that no two callers share the same instance
+     * @return The result of the action, possibly computed for another caller
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> action, UnaryOperator<T> copy) {
+        CallKey callKey = new CallKey(operation, key);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(callKey, call);
+        if (running != null) {
+            counter(coalescedCounters, operation, "coalesced").increment();
+            Object shared = join(running);
+            if (shared == NOT_SHARED) {
+                counter(executedCounters, operation, "executed").increment();
+                return action.get();
+            }
+            return shared == null ? null : copy.apply((T) shared);
+        }
+
+        counter(executedCounters, operation, "executed").increment();
+        try {
+            T result = action.get();
+            // The waiting calls copy a snapshot that the caller cannot change
+            call.complete(result == null ? null : copy.apply(result));
+            return result;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(callKey, call);
+        }
+    }
+
+    /**
+     * @return True for the failures that any caller with the same arguments would get
+     */
+    private static boolean isShared(RuntimeException ex) {
+        return ex instanceof ResourceNotFoundException || ex instanceof BusinessException;
+    }
+
+    /**
+     * @return The result of the running call, or {@link #NOT_SHARED} if it failed because of the request that ran it
+     */
+    private Object join(CompletableFuture<Object> running) {
+        Deadline deadline = Deadline.current();
+        try {
+            if (deadline == null) {
+                return running.join();
+            }
+            // No longer than the request of the caller, whose deadline may come before that of the running call
+            return running.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw deadline.exceeded("shared-call");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared call", ex);
+        } catch (CompletionException | ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                if (!isShared(cause)) {
+                    return NOT_SHARED;
+                }
+                // Rethrow the exception of the shared call as is
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new CompletionException(ex.getCause());
+        }
+    }
+
+    private Counter counter(Map<String, Counter> counters, String operation, String outcome) {
+        return counters.computeIfAbsent(operation, op -> Counter.builder(CALLS_METRIC)
+                .description("Read calls, by whether they ran or joined an identical call in flight")
+                .tag("operation", op)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private record CallKey(String operation, Object key) {
+    }
+}
@@ -0,0 +1,343 @@
+package com.inventory.stockmanagementapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoded responses of hot GET endpoints, ready to be written again without running the controller.
+ * <p>
+ * Every committed product or category mutation gets the next number of a change sequence, recorded as the last
+ * change of what it affects: a {@link Scope} such as the set of products or the categories, and the changed
+ * product. Entries are tagged with the sequence number current when the request started and with the
+ * {@link Dependencies} of their body, and an entry one of whose dependencies changed since is never served as a
+ * hit: a response computed from data read before a commit can therefore not outlive it, while a stock update
+ * only outdates the responses holding that product. Entries also expire after a TTL, which bounds the staleness
+ * of the approximate totals, and of the responses of instances that missed a change committed by another one.
+ * <p>
+ * The last changes of the most recently changed products are tracked individually; older ones are only known to
+ * come before a floor, which conservatively outdates the responses computed before it.
+ * <p>
+ * Outdated and expired entries are kept for {@code staleIfError} more, so that the last known response can still
+ * be served, marked as stale, when the database fails (see {@link #getStale(String)}). With a zero duration,
+ * outdated entries are dropped as soon as they are looked up.
+ * <p>
+ * Lookups are counted in the {@code response.cache.requests} metric, tagged with {@code hit}, {@code miss} or
+ * {@code stale}.
+ */
+@Component
+@Slf4j
+public class ResponseCache {
+
+    private static final String REQUESTS_METRIC = "response.cache.requests";
+    // Smaller bodies do not shrink enough to be worth the Content-Encoding header
+    private static final int MIN_GZIP_SIZE = 256;
+    private static final int MAX_TRACKED_PRODUCTS = 10_000;
+
+    private final int maxEntries;
+    private final long ttl;
+    private final long staleIfError;
+    private final AtomicLong changeSequence = new AtomicLong();
+    // Access-ordered so that the least recently used entry is evicted first
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Last change of each scope and of the recently changed products, the least recently changed product first
+    private final EnumMap<Scope, Long> scopeChanges = new EnumMap<>(Scope.class);
+    private final LinkedHashMap<Long, Long> productChanges = new LinkedHashMap<>();
+    // Bound to the last change of the products no longer tracked
+    private long productChangeFloor;
+    // Guards the entries and the changes; a lock rather than a monitor, on which virtual threads would pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleHits;
+
+    @Autowired
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${response-cache.max-entries:1000}") int maxEntries,
+                         @Value("${response-cache.ttl:30s}") Duration ttl,
+                         @Value("${response-cache.stale-if-error:10m}") Duration staleIfError) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl.toNanos();
+        this.staleIfError = staleIfError.toNanos();
+        this.hits = Counter.builder(REQUESTS_METRIC).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(REQUESTS_METRIC).tag("result", "miss").register(meterRegistry);
+        this.staleHits = Counter.builder(REQUESTS_METRIC).tag("result", "stale").register(meterRegistry);
+    }
+
+    /**
+     * @return The current number of the change sequence, to read before computing a response that may be stored
+     */
+    public long currentVersion() {
+        return changeSequence.get();
+    }
+
+    /**
+     * Find a stored response
+     * @param key The normalized request key
+     * @return The response, or null if there is none or one of its dependencies changed since it was computed
+     */
+    public CachedResponse get(String key) {
+        long now = System.nanoTime();
+        CachedResponse cached;
+        lock.lock();
+        try {
+            cached = entries.get(key);
+            if (cached != null && (isOutdated(cached) || now - cached.storedAt() > ttl)) {
+                // Kept, unless too old, to be served if the next computation of the response fails
+                if (staleIfError == 0 || now - cached.storedAt() > ttl + staleIfError) {
+                    entries.remove(key);
+                }
+                cached = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        (cached != null ? hits : misses).increment();
+        return cached;
+    }
+
+    /**
+     * Find the last stored response, outdated or expired, to serve when the response cannot be computed
+     * @param key The normalized request key
+     * @return The response, or null if there is none or it is older than the TTL plus the stale-if-error duration
+     */
+    public CachedResponse getStale(String key) {
+        long now = System.nanoTime();
+        CachedResponse cached;
+        lock.lock();
+        try {
+            cached = entries.get(key);
+            if (cached != null && (now - cached.storedAt() > ttl + staleIfError
+                    || staleIfError == 0 && isOutdated(cached))) {
+                entries.remove(key);
+                cached = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (cached != null) {
+            staleHits.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Store an encoded response, along with its gzip-compressed form
+     * @param key The normalized request key
+     * @param version The sequence number read before computing the response
+     * @param dependencies What the response was computed from
+     * @param contentType The Content-Type of the response
+     * @param eTag The ETag of the response, or null
+     * @param body The encoded response body
+     * @return The stored response
+     */
+    public CachedResponse put(String key, long version, Dependencies dependencies, String contentType, String eTag,
+                              byte[] body) {
+        byte[] gzipBody = body.length >= MIN_GZIP_SIZE ? gzip(body) : null;
+        CachedResponse cached = new CachedResponse(version, dependencies, System.nanoTime(), contentType, eTag,
+                body, gzipBody);
+        lock.lock();
+        try {
+            // A mutation committed while the response was computed, it may be stale
+            if (isOutdated(cached)) {
+                return cached;
+            }
+            entries.put(key, cached);
+            var iterator = entries.values().iterator();
+            while (entries.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return cached;
+    }
+
+    /**
+     * Outdate the stored responses depending on what a committed product or category mutation changed
+     * @param event The change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        invalidate(event.type(), event.entityId());
+        log.debug("Response cache invalidated by {} {}", event.type(), event.entityId());
+    }
+
+    /**
+     * Outdate the stored responses depending on what another instance changed
+     * @param event The change
+     */
+    @EventListener
+    public void onRemoteCatalogChange(RemoteCatalogChangeEvent event) {
+        invalidate(event.type(), event.entityId());
+        log.debug("Response cache invalidated by {} {} on {}", event.type(), event.entityId(), event.node());
+    }
+
+    private void invalidate(CatalogChangeEvent.Type type, Long entityId) {
+        lock.lock();
+        try {
+            long change = changeSequence.incrementAndGet();
+            switch (type) {
+                case PRODUCT_CREATED, PRODUCT_UPDATED, PRODUCT_DELETED -> {
+                    // Any field may decide whether the product matches a search or a category, and its position
+                    scopeChanges.put(Scope.PRODUCT_SET, change);
+                    scopeChanges.put(Scope.CATEGORY_COUNTS, change);
+                    productChanged(entityId, change);
+                }
+                case STOCK_UPDATED -> {
+                    scopeChanges.put(Scope.STOCK, change);
+                    productChanged(entityId, change);
+                }
+                case CATEGORY_CREATED, CATEGORY_UPDATED, CATEGORY_DELETED -> scopeChanges.put(Scope.CATEGORIES, change);
+                case CATALOG_RESET -> {
+                    for (Scope scope : Scope.values()) {
+                        scopeChanges.put(scope, change);
+                    }
+                    productChanges.clear();
+                    productChangeFloor = change;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void productChanged(Long productId, long change) {
+        if (productId == null) {
+            productChangeFloor = change;
+            return;
+        }
+        // Moved last, so that the first product is the least recently changed
+        productChanges.remove(productId);
+        productChanges.put(productId, change);
+        if (productChanges.size() > MAX_TRACKED_PRODUCTS) {
+            var eldest = productChanges.entrySet().iterator();
+            productChangeFloor = Math.max(productChangeFloor, eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return Whether one of the dependencies of the response changed after it was computed; the lock is held
+     */
+    private boolean isOutdated(CachedResponse cached) {
+        for (Scope scope : cached.dependencies().scopes()) {
+            if (scopeChanges.getOrDefault(scope, 0L) > cached.version()) {
+                return true;
+            }
+        }
+        if (cached.dependencies().products().isEmpty()) {
+            return false;
+        }
+        if (productChangeFloor > cached.version()) {
+            return true;
+        }
+        for (Long productId : cached.dependencies().products()) {
+            if (productChanges.getOrDefault(productId, 0L) > cached.version()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * What the stored responses may be computed from
+     */
+    public enum Scope {
+        /** Category names and descriptions, embedded in products as well */
+        CATEGORIES,
+        /** The number of products of each category */
+        CATEGORY_COUNTS,
+        /** Which products exist, and all their fields but the stock: search matches, category membership, order */
+        PRODUCT_SET,
+        /** The stock of any product */
+        STOCK
+    }
+
+    /**
+     * What a response was computed from
+     * @param scopes The scopes any change of which outdates the response
+     * @param products The IDs of the products in the response, any change of which outdates it
+     */
+    public record Dependencies(Set<Scope> scopes, Set<Long> products) {
+
+        /**
+         * Depends on every change, for responses whose content is not known
+         */
+        public static final Dependencies ALL = new Dependencies(EnumSet.allOf(Scope.class), Set.of());
+
+        // Beyond this, a list is considered to depend on the stock of every product, which is cheaper to check
+        private static final int MAX_PRODUCTS = 100;
+
+        /**
+         * @return The dependencies of a category or of a list of categories
+         */
+        public static Dependencies categories() {
+            return new Dependencies(EnumSet.of(Scope.CATEGORIES, Scope.CATEGORY_COUNTS), Set.of());
+        }
+
+        /**
+         * @param productIds The IDs of the products in the response, or null if some are not known
+         * @param list True for a list of products, whose content depends on which products exist
+         * @param onWrittenFields True if the list is selected or ordered by fields that any write to a product
+         * changes, such as its stock or its update time
+         * @return The dependencies of a product or of a list of products
+         */
+        public static Dependencies products(Collection<Long> productIds, boolean list, boolean onWrittenFields) {
+            Set<Scope> scopes = EnumSet.of(Scope.CATEGORIES);
+            if (list) {
+                scopes.add(Scope.PRODUCT_SET);
+            }
+            if (productIds == null || productIds.size() > MAX_PRODUCTS || onWrittenFields) {
+                scopes.add(Scope.PRODUCT_SET);
+                scopes.add(Scope.STOCK);
+                return new Dependencies(scopes, Set.of());
+            }
+            return new Dependencies(scopes, Set.copyOf(productIds));
+        }
+    }
+
+    /**
+     * An encoded response
+     * @param version The sequence number read before computing the response
+     * @param dependencies What the response was computed from
+     * @param storedAt When the response was stored, from {@link System#nanoTime()}
+     * @param contentType The Content-Type of the response
+     * @param eTag The ETag of the response, or null
+     * @param body The encoded body
+     * @param gzipBody The gzip-compressed body, or null for small bodies
+     */
+    public record CachedResponse(long version, Dependencies dependencies, long storedAt, String contentType,
+                                 String eTag, byte[] body, byte[] gzipBody) {
+    }
+}
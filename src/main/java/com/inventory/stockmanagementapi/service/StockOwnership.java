@@ -0,0 +1,334 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.ConflictException;
+import com.inventory.stockmanagementapi.exception.DeadlineExceededException;
+import com.inventory.stockmanagementapi.exception.PreconditionFailedException;
+import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
+import com.inventory.stockmanagementapi.exception.ServiceUnavailableException;
+import com.inventory.stockmanagementapi.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Splits the products between the instances listed in {@code ownership.nodes}, so that the stock of a product is
+ * only written by the instance that owns it.
+ * <p>
+ * Products are assigned with a consistent {@link HashRing} of the live members. A stock update received by another
+ * instance is forwarded to the owner's internal endpoint, which writes it through the {@link StockUpdateBatcher};
+ * the Idempotency-Key goes along, so a retry is recognized by the owner whichever instance it reaches.
+ * <p>
+ * Every member pings the others at the heartbeat interval. A member that misses the allowed number of pings, or
+ * that a forward cannot reach, leaves the ring until it answers again; its products move to the other members
+ * meanwhile, and the update that could not be forwarded is written locally. Two members may briefly disagree on
+ * an owner while the ring changes: the version checks and row locks of the database keep their writes correct.
+ * <p>
+ * The members present the shared {@code ownership.secret} in the {@value #INTERNAL_SECRET_HEADER} header of their
+ * internal calls; the internal endpoints refuse the calls without it.
+ * <p>
+ * Without {@code ownership.nodes}, every instance writes every product.
+ */
+@Component
+@Slf4j
+public class StockOwnership {
+
+    public static final String INTERNAL_STOCK_PATH = "/internal/stock";
+    public static final String INTERNAL_PING_PATH = "/internal/ownership";
+    public static final String INTERNAL_SECRET_HEADER = "X-Ownership-Secret";
+
+    private static final String ROUTE_METRIC = "ownership.stock-updates";
+
+    private final ObjectMapper objectMapper;
+    private final List<String> nodes;
+    private final String self;
+    private final byte[] secret;
+    private final int virtualNodes;
+    private final int maxMissedHeartbeats;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final Counter local;
+    private final Counter forwarded;
+    private final Counter fallback;
+
+    // Consecutive missed pings of each other member; members reaching the limit are out of the ring
+    private final Map<String, Integer> missedHeartbeats = new ConcurrentHashMap<>();
+    private volatile HashRing ring;
+
+    @Autowired
+    public StockOwnership(ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${ownership.nodes:}") List<String> nodes,
+                          @Value("${ownership.self:}") String self,
+                          @Value("${ownership.secret:}") String secret,
+                          @Value("${ownership.virtual-nodes:128}") int virtualNodes,
+                          @Value("${ownership.max-missed-heartbeats:3}") int maxMissedHeartbeats,
+                          @Value("${ownership.timeout:2s}") Duration timeout) {
+        this.objectMapper = objectMapper;
+        this.nodes = nodes.stream().map(StockOwnership::normalize).filter(node -> !node.isEmpty()).distinct().toList();
+        this.self = normalize(self);
+        if (!this.nodes.isEmpty() && !this.nodes.contains(this.self)) {
+            throw new IllegalStateException("ownership.self " + self + " must be one of ownership.nodes " + nodes);
+        }
+        if (!this.nodes.isEmpty() && secret.isBlank()) {
+            throw new IllegalStateException("ownership.secret must be set along with ownership.nodes");
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.virtualNodes = virtualNodes;
+        this.maxMissedHeartbeats = maxMissedHeartbeats;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.local = Counter.builder(ROUTE_METRIC).tag("route", "local").register(meterRegistry);
+        this.forwarded = Counter.builder(ROUTE_METRIC).tag("route", "forwarded").register(meterRegistry);
+        this.fallback = Counter.builder(ROUTE_METRIC).tag("route", "fallback").register(meterRegistry);
+        // Every member is assumed alive until it misses its pings
+        this.ring = new HashRing(this.nodes, virtualNodes);
+        Gauge.builder("ownership.members.alive", this, ownership -> ownership.ring.getMembers().size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Whether the products are split between several instances
+     */
+    public boolean isEnabled() {
+        return !nodes.isEmpty();
+    }
+
+    /**
+     * @return The base URL of this instance
+     */
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * @return The base URLs of the members currently sharing the products
+     */
+    public List<String> getLiveMembers() {
+        return ring.getMembers();
+    }
+
+    /**
+     * @param presented The secret presented in the {@value #INTERNAL_SECRET_HEADER} header of an internal call, or null
+     * @return Whether the call comes from a member, never when no secret is configured
+     */
+    public boolean isTrusted(String presented) {
+        return secret.length > 0 && presented != null
+                && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param productId A product ID
+     * @return The base URL of the instance owning the product, this one when ownership is disabled
+     */
+    public String ownerOf(long productId) {
+        String owner = ring.ownerOf(productId);
+        return owner != null ? owner : self;
+    }
+
+    /**
+     * Send a stock update to the instance owning the product, unless it is this one
+     * @param idempotencyKey The Idempotency-Key of the request, or null
+     * @param stockUpdateDTO The stock update information
+     * @return The response of the owner, or null if the update must be written here
+     * @throws ResourceNotFoundException if the owner did not find the product
+     * @throws BusinessException if the owner rejected the update
+     * @throws ConflictException if the owner reported a conflict
+     * @throws PreconditionFailedException if a precondition of the update failed on the owner
+     * @throws TooManyRequestsException if the owner refused the update over a quota
+     * @throws ServiceUnavailableException if the owner was overloaded
+     * @throws DeadlineExceededException if the deadline of the request expired
+     */
+    public ResponseEntity<ProductDTO> forward(String idempotencyKey, StockUpdateDTO stockUpdateDTO) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String owner = ownerOf(stockUpdateDTO.getProductId());
+        if (owner.equals(self)) {
+            local.increment();
+            return null;
+        }
+        // The owner works within the time left to the request, which is not forwarded once expired
+        Deadline deadline = Deadline.current();
+        Duration requestTimeout = timeout;
+        if (deadline != null) {
+            Deadline.checkCurrent("forward");
+            requestTimeout = Duration.ofNanos(Math.min(timeout.toNanos(), deadline.remainingNanos()));
+        }
+        HttpResponse<byte[]> response;
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(owner + INTERNAL_STOCK_PATH))
+                    .timeout(requestTimeout)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(INTERNAL_SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+                    .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(
+                            objectMapper.writeValueAsBytes(stockUpdateDTO)));
+            if (idempotencyKey != null) {
+                request.header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+            }
+            if (deadline != null) {
+                request.header(Deadline.TIMEOUT_HEADER, Long.toString(requestTimeout.toMillis()));
+            }
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (ConnectException | HttpConnectTimeoutException ex) {
+            if (deadline != null && deadline.isExpired()) {
+                // Too late for the client, the update is not written anywhere
+                throw deadline.exceeded("forward");
+            }
+            // Down: its products go to the other members until it answers the pings again
+            log.warn("Could not reach {}, writing the stock update locally", owner, ex);
+            markDown(owner);
+            fallback.increment();
+            return null;
+        } catch (IOException ex) {
+            if (ex instanceof HttpTimeoutException && deadline != null && deadline.isExpired()) {
+                // Cut short by the deadline, the owner is not necessarily down; it may still write the update
+                throw deadline.exceeded("forward");
+            }
+            // The owner may have written the update, writing it here could apply it twice
+            markDown(owner);
+            throw new IllegalStateException("The owner " + owner + " did not answer, the stock update may have "
+                    + "been applied", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while forwarding a stock update to " + owner, ex);
+        }
+        forwarded.increment();
+        return toResponse(owner, response);
+    }
+
+    /**
+     * Ping the other members, and rebuild the ring when one of them left or came back
+     */
+    @Scheduled(fixedDelayString = "${ownership.heartbeat-interval-ms:1000}")
+    public void heartbeat() {
+        if (nodes.size() < 2) {
+            return;
+        }
+        Map<String, CompletableFuture<Boolean>> pings = nodes.stream().filter(node -> !node.equals(self))
+                .collect(Collectors.toMap(node -> node, this::ping));
+        pings.forEach((node, ping) -> {
+            if (ping.join()) {
+                missedHeartbeats.remove(node);
+            } else {
+                missedHeartbeats.merge(node, 1, Integer::sum);
+            }
+        });
+        updateRing();
+    }
+
+    private CompletableFuture<Boolean> ping(String node) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + INTERNAL_PING_PATH)).timeout(timeout)
+                .header(INTERNAL_SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == 200)
+                .exceptionally(ex -> false);
+    }
+
+    private void markDown(String node) {
+        missedHeartbeats.put(node, maxMissedHeartbeats);
+        updateRing();
+    }
+
+    private synchronized void updateRing() {
+        Set<String> live = nodes.stream()
+                .filter(node -> missedHeartbeats.getOrDefault(node, 0) < maxMissedHeartbeats)
+                .collect(Collectors.toSet());
+        if (!live.equals(Set.copyOf(ring.getMembers()))) {
+            ring = new HashRing(live, virtualNodes);
+            log.info("Stock ownership rebalanced over {}", ring.getMembers());
+        }
+    }
+
+    private ResponseEntity<ProductDTO> toResponse(String owner, HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        try {
+            if (status >= 200 && status < 300) {
+                ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+                response.headers().firstValue(IdempotencyService.REPLAYED_HEADER)
+                        .ifPresent(replayed -> builder.header(IdempotencyService.REPLAYED_HEADER, replayed));
+                return builder.body(objectMapper.readValue(response.body(), ProductDTO.class));
+            }
+            String message = message(response);
+            switch (status) {
+                case 400 -> throw new BusinessException(message);
+                case 404 -> throw new ResourceNotFoundException(message);
+                case 409 -> throw new ConflictException(message);
+                case 412 -> throw new PreconditionFailedException(message);
+                // Well-formed but refused by the owner, which this API reports as a broken business rule
+                case 422 -> throw new BusinessException(message);
+                case 429 -> throw new TooManyRequestsException(message, retryAfter(response));
+                case 503 -> throw new ServiceUnavailableException(message);
+                case 504 -> throw new DeadlineExceededException(message);
+                // Including 403, when the members do not share the same ownership.secret
+                default -> throw new IllegalStateException("The owner " + owner + " failed the stock update: "
+                        + message);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unreadable response from " + owner + " with status " + status, ex);
+        }
+    }
+
+    /**
+     * @param response An error response of an owner
+     * @return The message of its body, or its status when the body is not an error of this API, e.g. from a proxy
+     */
+    private String message(HttpResponse<byte[]> response) {
+        String fallback = "Status " + response.statusCode();
+        try {
+            return objectMapper.readTree(response.body()).path("message").asText(fallback);
+        } catch (IOException ex) {
+            return fallback;
+        }
+    }
+
+    /**
+     * @param response A response of an owner
+     * @return The delay of its Retry-After header in seconds, one second when absent or given as a date
+     */
+    private static Duration retryAfter(HttpResponse<byte[]> response) {
+        try {
+            return response.headers().firstValue(HttpHeaders.RETRY_AFTER)
+                    .map(value -> Duration.ofSeconds(Long.parseLong(value.trim())))
+                    .orElse(Duration.ofSeconds(1));
+        } catch (NumberFormatException ex) {
+            return Duration.ofSeconds(1);
+        }
+    }
+
+    private static String normalize(String node) {
+        String trimmed = node.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -0,0 +1,39 @@
+package com.inventory.stockmanagementapi.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the transaction of a stock or product update whose quantity crossed the low-stock threshold.
+ *
+ * @param type The direction of the crossing
+ * @param productId The product ID
+ * @param sku The product SKU
+ * @param previousQuantity The quantity before the update
+ * @param quantity The quantity after the update
+ * @param threshold The threshold, a quantity below it is low
+ * @param occurredAt When the update happened
+ */
+public record StockThresholdEvent(Type type, Long productId, String sku, int previousQuantity, int quantity,
+                                  int threshold, LocalDateTime occurredAt) {
+
+    public enum Type {
+        LOW_STOCK,      // The quantity fell below the threshold
+        RESTOCKED       // The quantity went back to the threshold or above
+    }
+
+    /**
+     * Detect a threshold crossing
+     * @param previousQuantity The quantity before the update
+     * @param quantity The quantity after the update
+     * @param threshold The threshold
+     * @return The direction of the crossing, or null if both quantities are on the same side of the threshold
+     */
+    public static Type crossing(int previousQuantity, int quantity, int threshold) {
+        boolean wasLow = previousQuantity < threshold;
+        boolean isLow = quantity < threshold;
+        if (wasLow == isLow) {
+            return null;
+        }
+        return isLow ? Type.LOW_STOCK : Type.RESTOCKED;
+    }
+}
@@ -0,0 +1,327 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.dto.StockTickDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.projection.ProductStockView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live stock levels for dashboards, conflated per product.
+ * <p>
+ * Committed product changes only mark the product as dirty. Once per conflation window, the dirty products that
+ * someone watches are read in a single query and their latest quantity is offered to the matching subscriptions,
+ * so a burst of movements on one product within a window becomes a single tick.
+ * <p>
+ * Each subscription keeps at most one pending tick per product and sends them from a small pool, one batch at a
+ * time. While a slow consumer is still receiving a batch, newer ticks replace the pending ones: it misses
+ * intermediate values instead of buffering them, and its memory use is bounded by the number of products it watches.
+ * Replaced ticks are counted in the {@code ticker.ticks.dropped} metric.
+ */
+@Component
+@Slf4j
+public class StockTicker {
+
+    private static final int QUERY_CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final Duration conflationWindow;
+    private final int maxProductsPerSubscription;
+    private final Counter ticksSent;
+    private final Counter ticksDropped;
+
+    private final Set<Long> dirtyProductIds = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-ticker-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders;
+
+    @Autowired
+    public StockTicker(ProductRepository productRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${ticker.conflation-window:250ms}") Duration conflationWindow,
+                       @Value("${ticker.max-products-per-session:1000}") int maxProductsPerSubscription,
+                       @Value("${ticker.sender-threads:4}") int senderThreads) {
+        this.productRepository = productRepository;
+        this.conflationWindow = conflationWindow;
+        this.maxProductsPerSubscription = maxProductsPerSubscription;
+        this.ticksSent = Counter.builder("ticker.ticks.sent").register(meterRegistry);
+        this.ticksDropped = Counter.builder("ticker.ticks.dropped").register(meterRegistry);
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "stock-ticker-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        long windowMillis = conflationWindow.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushSafely, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Open a subscription, initially watching no product
+     * @param sink Sends the ticks to the consumer
+     * @return The subscription
+     */
+    public Subscription open(TickSink sink) {
+        Subscription subscription = new Subscription(sink);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Mark the changed product as dirty once the change is committed
+     * @param event The change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        markDirty(event.type(), event.entityId());
+    }
+
+    /**
+     * Mark a product changed by another instance as dirty
+     * @param event The change
+     */
+    @EventListener
+    public void onRemoteCatalogChange(RemoteCatalogChangeEvent event) {
+        markDirty(event.type(), event.entityId());
+    }
+
+    private void markDirty(CatalogChangeEvent.Type type, Long entityId) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        switch (type) {
+            case STOCK_UPDATED, PRODUCT_CREATED, PRODUCT_UPDATED, PRODUCT_DELETED -> dirtyProductIds.add(entityId);
+            // Watched products were most likely deleted, their subscribers are told so
+            case CATALOG_RESET -> subscriptions.forEach(subscription -> dirtyProductIds.addAll(subscription.productIds));
+            default -> {
+                // Category changes do not affect stock levels
+            }
+        }
+    }
+
+    /**
+     * Offer the latest stock level of the dirty products to the subscriptions watching them
+     */
+    void flush() {
+        if (dirtyProductIds.isEmpty()) {
+            return;
+        }
+        boolean categoryWatched = subscriptions.stream().anyMatch(subscription -> !subscription.categoryIds.isEmpty());
+        List<Long> productIds = new ArrayList<>();
+        for (Long productId : dirtyProductIds) {
+            dirtyProductIds.remove(productId);
+            // Without category subscriptions, only products watched by ID are worth reading
+            if (categoryWatched || subscriptions.stream().anyMatch(s -> s.productIds.contains(productId))) {
+                productIds.add(productId);
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<Long, StockTickDTO> ticks = load(productIds);
+        for (Long productId : productIds) {
+            ticks.putIfAbsent(productId, StockTickDTO.deleted(productId));
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(ticks.values());
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            // The scheduled task would stop for good if the exception escaped
+            log.warn("Could not publish stock ticks", ex);
+        }
+    }
+
+    private Map<Long, StockTickDTO> load(List<Long> productIds) {
+        Map<Long, StockTickDTO> ticks = new HashMap<>();
+        for (int from = 0; from < productIds.size(); from += QUERY_CHUNK_SIZE) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + QUERY_CHUNK_SIZE, productIds.size()));
+            for (ProductStockView stock : productRepository.findStockByIdIn(chunk)) {
+                ticks.put(stock.getId(), toTick(stock));
+            }
+        }
+        return ticks;
+    }
+
+    private static StockTickDTO toTick(ProductStockView stock) {
+        return new StockTickDTO(stock.getId(), stock.getSku(), stock.getCategoryId(), stock.getQuantity(),
+                stock.getVersion(), null);
+    }
+
+    /**
+     * Sends ticks to a consumer
+     */
+    @FunctionalInterface
+    public interface TickSink {
+
+        /**
+         * @param ticks The latest stock level of the products that changed, at most one tick per product
+         * @throws IOException if the ticks could not be sent, which closes the subscription
+         */
+        void send(List<StockTickDTO> ticks) throws IOException;
+    }
+
+    /**
+     * The products and categories watched by a consumer
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final TickSink sink;
+        private final Set<Long> productIds = ConcurrentHashMap.newKeySet();
+        private final Set<Long> categoryIds = ConcurrentHashMap.newKeySet();
+        // Latest tick per product not sent yet
+        private final Map<Long, StockTickDTO> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscription(TickSink sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Watch products and categories, and send their current stock levels
+         * @param productIds The product IDs to watch, or null
+         * @param categoryIds The category IDs whose products to watch, or null
+         * @throws BusinessException if the subscription would watch too many products or categories
+         */
+        public void subscribe(Collection<Long> productIds, Collection<Long> categoryIds) {
+            int newProducts = productIds == null ? 0 : productIds.size();
+            int newCategories = categoryIds == null ? 0 : categoryIds.size();
+            if (this.productIds.size() + newProducts + this.categoryIds.size() + newCategories
+                    > maxProductsPerSubscription) {
+                throw new BusinessException("A subscription can watch at most " + maxProductsPerSubscription
+                        + " products and categories");
+            }
+            List<StockTickDTO> snapshot = new ArrayList<>();
+            if (productIds != null && !productIds.isEmpty()) {
+                this.productIds.addAll(productIds);
+                snapshot.addAll(load(List.copyOf(productIds)).values());
+            }
+            if (categoryIds != null) {
+                for (Long categoryId : categoryIds) {
+                    this.categoryIds.add(categoryId);
+                    productRepository.findStockByCategoryId(categoryId).forEach(stock -> snapshot.add(toTick(stock)));
+                }
+            }
+            offer(snapshot);
+        }
+
+        /**
+         * Stop watching products and categories
+         * @param productIds The product IDs, or null
+         * @param categoryIds The category IDs, or null
+         */
+        public void unsubscribe(Collection<Long> productIds, Collection<Long> categoryIds) {
+            if (productIds != null) {
+                this.productIds.removeAll(productIds);
+                productIds.forEach(pending::remove);
+            }
+            if (categoryIds != null) {
+                this.categoryIds.removeAll(categoryIds);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            pending.clear();
+        }
+
+        private void offer(Collection<StockTickDTO> ticks) {
+            if (closed) {
+                return;
+            }
+            for (StockTickDTO tick : ticks) {
+                if (productIds.contains(tick.getProductId())
+                        || (tick.getCategoryId() != null && categoryIds.contains(tick.getCategoryId()))) {
+                    pending.merge(tick.getProductId(), tick, this::latest);
+                }
+            }
+            scheduleSend();
+        }
+
+        private StockTickDTO latest(StockTickDTO pendingTick, StockTickDTO tick) {
+            ticksDropped.increment();
+            // A snapshot read before a flush may arrive after it, the higher version wins
+            if (tick.getVersion() != null && pendingTick.getVersion() != null
+                    && tick.getVersion() < pendingTick.getVersion()) {
+                return pendingTick;
+            }
+            return tick;
+        }
+
+        private void scheduleSend() {
+            if (!closed && !pending.isEmpty() && sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                List<StockTickDTO> batch = new ArrayList<>(pending.size());
+                for (Long productId : pending.keySet()) {
+                    StockTickDTO tick = pending.remove(productId);
+                    if (tick != null) {
+                        batch.add(tick);
+                    }
+                }
+                if (!batch.isEmpty() && !closed) {
+                    batch.sort(Comparator.comparing(StockTickDTO::getProductId));
+                    sink.send(batch);
+                    ticksSent.increment(batch.size());
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.debug("Closing stock ticker subscription after a failed send", ex);
+                close();
+            } finally {
+                sending.set(false);
+            }
+            // Ticks offered during the send
+            scheduleSend();
+        }
+    }
+}
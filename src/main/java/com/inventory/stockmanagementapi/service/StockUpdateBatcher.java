@@ -0,0 +1,230 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.repository.sharding.ShardRouter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes the stock updates of the products this instance owns, one batch at a time, from a single thread.
+ * <p>
+ * Updates wait in a queue while the previous batch is written. The writer then takes all of them, up to the batch
+ * size, applies them one after the other in memory and persists them in a single transaction, without row locks
+ * since no other instance writes these products. A caller gets its result once the batch is committed. If the
+ * batch fails on a version conflict, for instance while ownership moves, its updates are written again one by one
+ * with row locks; any other failure, such as an open circuit, fails the updates of the batch without retrying them.
+ * <p>
+ * Each update carries the {@link Deadline} of its request. A caller whose deadline runs out while its update is
+ * still queued takes it out of the queue and fails; once the writer has taken the update, the caller waits for the
+ * outcome of its batch instead, since the update may be committed. The writer drops the updates whose deadline
+ * expired. A batch is written under the earliest deadline of its
+ * updates, so that it is not committed after one of its callers was told that the update failed; if that deadline
+ * aborts the batch, the updates whose deadline has not expired are written again without it.
+ */
+@Component
+@Slf4j
+public class StockUpdateBatcher {
+
+    private final ProductService productService;
+    private final StockOwnership stockOwnership;
+    private final ObjectProvider<ShardRouter> shardRouter;
+    private final int batchSize;
+    private final DistributionSummary batchSizes;
+
+    private final BlockingQueue<PendingUpdate> queue = new LinkedBlockingQueue<>();
+    private final Thread writer = new Thread(this::writeLoop, "stock-writer");
+
+    @Autowired
+    public StockUpdateBatcher(ProductService productService,
+                              StockOwnership stockOwnership,
+                              ObjectProvider<ShardRouter> shardRouter,
+                              MeterRegistry meterRegistry,
+                              @Value("${ownership.batch-size:200}") int batchSize) {
+        this.productService = productService;
+        this.stockOwnership = stockOwnership;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+        this.batchSizes = DistributionSummary.builder("ownership.batch.size").register(meterRegistry);
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (stockOwnership.isEnabled()) {
+            writer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        writer.interrupt();
+    }
+
+    /**
+     * Update the stock of a product owned by this instance
+     * @param stockUpdateDTO The stock update information
+     * @return The product right after the update
+     * @throws com.inventory.stockmanagementapi.exception.ResourceNotFoundException if the product is not found
+     * @throws com.inventory.stockmanagementapi.exception.BusinessException if the stock operation would result in
+     * negative quantity
+     */
+    public ProductDTO updateStock(StockUpdateDTO stockUpdateDTO) {
+        if (!writer.isAlive()) {
+            return productService.updateStock(stockUpdateDTO);
+        }
+        Deadline deadline = Deadline.current();
+        PendingUpdate pending = new PendingUpdate(stockUpdateDTO, deadline, new CompletableFuture<>());
+        queue.add(pending);
+        if (!writer.isAlive() && queue.remove(pending)) {
+            // Stopped in the meantime
+            return productService.updateStock(stockUpdateDTO);
+        }
+        try {
+            return pending.result().get(Deadline.bound(Long.MAX_VALUE), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            if (queue.remove(pending)) {
+                // Still queued, so never written
+                throw deadline.exceeded("stock-batch");
+            }
+            // Taken by the writer, whose batch may commit: its outcome is the answer. The batch runs under the
+            // earliest deadline of its updates, which bounds the wait
+            return await(pending.result());
+        } catch (ExecutionException ex) {
+            throw unwrap(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a stock update", ex);
+        }
+    }
+
+    private static ProductDTO await(CompletableFuture<ProductDTO> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException ex) {
+            throw unwrap(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a stock update", ex);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException ex) {
+        if (ex.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        return new IllegalStateException(ex.getCause());
+    }
+
+    private void writeLoop() {
+        List<PendingUpdate> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                break;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            batchSizes.record(batch.size());
+            for (List<PendingUpdate> group : groupByShard(batch)) {
+                write(group);
+            }
+            batch.clear();
+        }
+        for (PendingUpdate pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.result().completeExceptionally(new IllegalStateException("The application is shutting down"));
+        }
+    }
+
+    /**
+     * A transaction only writes to one shard when sharding is on
+     */
+    private Collection<List<PendingUpdate>> groupByShard(List<PendingUpdate> batch) {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null) {
+            return List.of(batch);
+        }
+        Map<Integer, List<PendingUpdate>> groups = new LinkedHashMap<>();
+        for (PendingUpdate pending : batch) {
+            groups.computeIfAbsent(router.shardOf(pending.update().getProductId()), shard -> new ArrayList<>())
+                    .add(pending);
+        }
+        return groups.values();
+    }
+
+    private void write(List<PendingUpdate> group) {
+        List<PendingUpdate> live = new ArrayList<>(group.size());
+        Deadline earliest = null;
+        for (PendingUpdate pending : group) {
+            Deadline deadline = pending.deadline();
+            if (deadline != null && deadline.isExpired()) {
+                pending.result().completeExceptionally(deadline.exceeded("stock-batch"));
+                continue;
+            }
+            live.add(pending);
+            if (deadline != null && (earliest == null || deadline.remainingNanos() < earliest.remainingNanos())) {
+                earliest = deadline;
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        Deadline batchDeadline = earliest;
+        List<ProductService.StockUpdateOutcome> outcomes;
+        try {
+            outcomes = Deadline.call(batchDeadline,
+                    () -> productService.updateStockBatch(live.stream().map(PendingUpdate::update).toList()));
+        } catch (OptimisticLockingFailureException ex) {
+            log.debug("Stock batch of {} updates failed on a version conflict, writing them one by one", live.size(), ex);
+            for (PendingUpdate pending : live) {
+                try {
+                    pending.result().complete(Deadline.call(pending.deadline(),
+                            () -> productService.updateStock(pending.update())));
+                } catch (RuntimeException updateEx) {
+                    pending.result().completeExceptionally(updateEx);
+                }
+            }
+            return;
+        } catch (RuntimeException ex) {
+            if (batchDeadline != null && batchDeadline.isExpired() && live.size() > 1) {
+                // Aborted for the update with the earliest deadline, which is dropped on the next attempt
+                write(live);
+                return;
+            }
+            live.forEach(pending -> pending.result().completeExceptionally(ex));
+            return;
+        }
+        for (int i = 0; i < live.size(); i++) {
+            ProductService.StockUpdateOutcome outcome = outcomes.get(i);
+            if (outcome.error() != null) {
+                live.get(i).result().completeExceptionally(outcome.error());
+            } else {
+                live.get(i).result().complete(outcome.product());
+            }
+        }
+    }
+
+    private record PendingUpdate(StockUpdateDTO update, Deadline deadline, CompletableFuture<ProductDTO> result) {
+    }
+}
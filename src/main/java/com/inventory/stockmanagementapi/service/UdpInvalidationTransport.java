@@ -0,0 +1,98 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidations in UDP datagrams, one JSON array per batch, sent to every peer.
+ * <p>
+ * Delivery is immediate but not guaranteed: a datagram may be lost, and is never sent again. It suits instances on
+ * the same network, and tests on the loopback interface; the database transport is the reliable one.
+ */
+@Slf4j
+public class UdpInvalidationTransport implements InvalidationTransport {
+
+    // The largest UDP payload over IPv4
+    private static final int MAX_DATAGRAM_SIZE = 65_507;
+    private static final TypeReference<List<InvalidationMessage>> BATCH = new TypeReference<>() {
+    };
+
+    private final DatagramSocket socket;
+    private final List<InetSocketAddress> peers;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param port The port to receive on, 0 for any free port
+     * @param peers The addresses the batches are sent to
+     * @param objectMapper Encodes the batches
+     * @throws SocketException if the port could not be bound
+     */
+    public UdpInvalidationTransport(int port, List<InetSocketAddress> peers, ObjectMapper objectMapper)
+            throws SocketException {
+        this.socket = new DatagramSocket(port);
+        this.peers = List.copyOf(peers);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return The port the transport receives on
+     */
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void send(List<InvalidationMessage> batch) throws IOException {
+        byte[] datagram = objectMapper.writeValueAsBytes(batch);
+        if (datagram.length > MAX_DATAGRAM_SIZE && batch.size() > 1) {
+            send(batch.subList(0, batch.size() / 2));
+            send(batch.subList(batch.size() / 2, batch.size()));
+            return;
+        }
+        for (InetSocketAddress peer : peers) {
+            socket.send(new DatagramPacket(datagram, datagram.length, peer));
+        }
+    }
+
+    @Override
+    public void listen(Consumer<List<InvalidationMessage>> receiver) {
+        Thread thread = new Thread(() -> receive(receiver), "invalidation-udp");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+
+    private void receive(Consumer<List<InvalidationMessage>> receiver) {
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException ex) {
+                if (!socket.isClosed()) {
+                    log.warn("Could not receive cache invalidations", ex);
+                }
+                continue;
+            }
+            try {
+                receiver.accept(objectMapper.readValue(packet.getData(), packet.getOffset(), packet.getLength(),
+                        BATCH));
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Dropped a cache invalidation datagram from {}", packet.getSocketAddress(), ex);
+            }
+        }
+    }
+}
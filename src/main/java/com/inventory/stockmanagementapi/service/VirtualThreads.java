@@ -0,0 +1,49 @@
+package com.inventory.stockmanagementapi.service;
+
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads of the executors of the application, virtual in the virtual-thread mode.
+ * <p>
+ * That mode is opted into with {@code spring.threads.virtual.enabled=true}, which also moves the Tomcat request
+ * threads, the {@code @Scheduled} tasks and the application task executor of Spring Boot to virtual threads. It
+ * requires Java 21; on an older runtime the property is ignored and platform threads are kept, like Spring Boot
+ * does.
+ */
+public final class VirtualThreads {
+
+    /**
+     * The Spring Boot property enabling virtual threads
+     */
+    public static final String ENABLED_PROPERTY = "spring.threads.virtual.enabled";
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @param enabled The value of {@value #ENABLED_PROPERTY}
+     * @return Whether virtual threads are used: enabled, and supported by the runtime
+     */
+    public static boolean isActive(boolean enabled) {
+        return enabled && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+    }
+
+    /**
+     * @param name The name of the threads
+     * @param enabled The value of {@value #ENABLED_PROPERTY}
+     * @return A factory of virtual threads if they are used, otherwise of daemon platform threads
+     */
+    public static ThreadFactory threadFactory(String name, boolean enabled) {
+        if (isActive(enabled)) {
+            return new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory();
+        }
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
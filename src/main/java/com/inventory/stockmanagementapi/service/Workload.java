@@ -0,0 +1,23 @@
+package com.inventory.stockmanagementapi.service;
+
+/**
+ * The kinds of service calls that get their own {@link Bulkhead}
+ */
+public enum Workload {
+    WRITE("write"),             // Stock updates and other product changes
+    POINT_READ("point-read"),   // Lookups of one product, or of a bounded list of IDs and SKUs
+    SCAN("scan");               // Listings, searches and exports, which read many rows
+
+    private final String key;
+
+    Workload(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @return The name of the workload in the properties and metric tags
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,81 @@
+package com.inventory.stockmanagementapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.inventory.stockmanagementapi.config.JsonSerializers;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of a page of 1000 products with the bean serializers and with {@link JsonSerializers}, written to
+ * a stream like the HTTP message converter does.
+ * <p>
+ * Run with the GC profiler to see the bytes allocated per page ({@code gc.alloc.rate.norm}):
+ * {@code mvn -P benchmark test-compile exec:exec -Dbenchmark="ProductJsonBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    @Param({"bean", "tuned"})
+    private String serializers;
+
+    private ObjectMapper mapper;
+    private Page<ProductDTO> page;
+
+    @Setup
+    public void setup() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (serializers.equals("tuned")) {
+            builder.modulesToInstall(new SimpleModule()
+                    .addSerializer(ProductDTO.class, new JsonSerializers.ProductSerializer())
+                    .addSerializer(Slice.class, new JsonSerializers.SliceSerializer()));
+        }
+        mapper = builder.build();
+
+        List<ProductDTO> products = new ArrayList<>(1000);
+        LocalDateTime now = LocalDateTime.now();
+        for (long i = 1; i <= 1000; i++) {
+            // Fresh BigDecimal instances, as read from the database, so that no string is cached in them
+            products.add(new ProductDTO(i, "Product " + i, "Description of product " + i,
+                    BigDecimal.valueOf(1999 + i, 2), (int) (i % 100), "SKU-" + i,
+                    i % 10 + 1, "Category " + (i % 10 + 1), now.minusDays(i), now, i % 5));
+        }
+        page = new PageImpl<>(products, PageRequest.of(0, 1000), 25000);
+    }
+
+    @Benchmark
+    public void writePage() throws IOException {
+        page.forEach(product -> product.setPrice(new BigDecimal(product.getPrice().unscaledValue(), 2)));
+        mapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+}
@@ -0,0 +1,107 @@
+package com.inventory.stockmanagementapi.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.inventory.stockmanagementapi.config.BinaryFormatConfig;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding cost of product lists and stock updates in JSON, CBOR and Smile.
+ * <p>
+ * The mappers are configured like the application ones. The encoded size of each payload is printed once per
+ * trial. Run with {@code mvn -P benchmark test-compile exec:exec -Dbenchmark=SerializationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final TypeReference<List<ProductDTO>> PRODUCT_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    // A default page, and a large /all response
+    @Param({"20", "1000"})
+    private int productCount;
+
+    private ObjectMapper mapper;
+    private List<ProductDTO> products;
+    private byte[] encodedProducts;
+    private StockUpdateDTO stockUpdate;
+    private byte[] encodedStockUpdate;
+
+    @Setup
+    public void setup() throws IOException {
+        mapper = switch (format) {
+            // Spring Boot writes JSON dates as ISO-8601 strings
+            case "json" -> Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            case "cbor" -> BinaryFormatConfig.binaryObjectMapper(new Jackson2ObjectMapperBuilder(), new CBORFactory());
+            case "smile" -> BinaryFormatConfig.binaryObjectMapper(new Jackson2ObjectMapperBuilder(), new SmileFactory());
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+
+        products = new ArrayList<>(productCount);
+        LocalDateTime now = LocalDateTime.now();
+        for (long i = 1; i <= productCount; i++) {
+            products.add(new ProductDTO(i, "Product " + i, "Description of product " + i + " with a few more words",
+                    new BigDecimal("19.99").add(BigDecimal.valueOf(i)), (int) (i % 100), "SKU-" + i,
+                    i % 10 + 1, "Category " + (i % 10 + 1), now.minusDays(i), now, i % 5));
+        }
+        encodedProducts = mapper.writeValueAsBytes(products);
+        stockUpdate = new StockUpdateDTO(42L, 5, StockUpdateDTO.OperationType.REMOVE, "Order 1234");
+        encodedStockUpdate = mapper.writeValueAsBytes(stockUpdate);
+
+        System.out.printf("%n%s: %d products = %d bytes, stock update = %d bytes%n",
+                format, productCount, encodedProducts.length, encodedStockUpdate.length);
+    }
+
+    @Benchmark
+    public byte[] encodeProducts() throws IOException {
+        return mapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public List<ProductDTO> decodeProducts() throws IOException {
+        return mapper.readValue(encodedProducts, PRODUCT_LIST);
+    }
+
+    @Benchmark
+    public byte[] encodeStockUpdate() throws IOException {
+        return mapper.writeValueAsBytes(stockUpdate);
+    }
+
+    @Benchmark
+    public StockUpdateDTO decodeStockUpdate() throws IOException {
+        return mapper.readValue(encodedStockUpdate, StockUpdateDTO.class);
+    }
+}
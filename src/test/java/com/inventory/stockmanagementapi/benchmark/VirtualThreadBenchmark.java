@@ -0,0 +1,178 @@
+package com.inventory.stockmanagementapi.benchmark;
+
+import com.inventory.stockmanagementapi.service.ResponseCache;
+import com.inventory.stockmanagementapi.service.ResponseCache.Dependencies;
+import com.inventory.stockmanagementapi.service.VirtualThreads;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of blocking requests on platform threads, capped at 200 like the Tomcat request threads,
+ * and on virtual threads, with {@value #CONCURRENCY} requests in flight.
+ * <p>
+ * A request takes a connection from a HikariCP pool, reads a product from H2 and then holds the connection for the
+ * round trip of a remote database, before storing the response in the {@link ResponseCache}: most of its time is
+ * spent waiting on JDBC, like the product requests of the application. With the default pool of 10 connections,
+ * the pool is the bottleneck whatever the threads; with a pool sized for the concurrency, the threads are. The
+ * median and 99th percentile latencies, from submission to completion, are printed after each iteration.
+ * <p>
+ * Virtual threads need Java 21: run with {@code JAVA_HOME} on a JDK 21 and
+ * {@code mvn -P benchmark test-compile exec:exec -Dbenchmark=VirtualThreadBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    private static final int CONCURRENCY = 1000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int PRODUCTS = 1000;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    // The default pool, and one as large as the concurrency
+    @Param({"10", "1000"})
+    private int poolSize;
+
+    @Param({"20"})
+    private int roundTripMillis;
+
+    private HikariDataSource dataSource;
+    private Executor executor;
+    private ResponseCache responseCache;
+    private SimpleMeterRegistry meterRegistry;
+    private Timer latency;
+
+    @Setup
+    public void setup() throws SQLException {
+        if (threads.equals("virtual") && !VirtualThreads.isActive(true)) {
+            throw new IllegalStateException("Virtual threads need Java 21");
+        }
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:virtual-thread-benchmark;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        dataSource = new HikariDataSource(config);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS product");
+            statement.execute("CREATE TABLE product (id BIGINT PRIMARY KEY, name VARCHAR(100), quantity INT)");
+            statement.execute("INSERT INTO product SELECT X, 'Product ' || X, MOD(X, 100) FROM SYSTEM_RANGE(1, "
+                    + PRODUCTS + ")");
+        }
+        executor = threads.equals("virtual")
+                ? new VirtualThreadTaskExecutor("request-")
+                : Executors.newFixedThreadPool(PLATFORM_THREADS, VirtualThreads.threadFactory("request", false));
+        meterRegistry = new SimpleMeterRegistry();
+        responseCache = new ResponseCache(meterRegistry, PRODUCTS, Duration.ofMinutes(1), Duration.ZERO);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        meterRegistry.clear();
+        latency = Timer.builder("request.latency").publishPercentiles(0.5, 0.99)
+                .distributionStatisticExpiry(Duration.ofHours(1)).distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printLatency() {
+        HistogramSnapshot snapshot = latency.takeSnapshot();
+        StringBuilder line = new StringBuilder(String.format("%n%s threads, pool of %d: %d requests",
+                threads, poolSize, snapshot.count()));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            line.append(String.format(", p%d %.1f ms", Math.round(percentile.percentile() * 100),
+                    percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        System.out.println(line);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor instanceof ExecutorService platformThreads) {
+            platformThreads.shutdownNow();
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public void requests() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    request();
+                } finally {
+                    latency.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void request() {
+        long id = ThreadLocalRandom.current().nextLong(1, PRODUCTS + 1);
+        String body;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT name, quantity FROM product WHERE id = ?")) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                body = "{\"id\":" + id + ",\"name\":\"" + resultSet.getString(1) + "\",\"quantity\":"
+                        + resultSet.getInt(2) + "}";
+            }
+            // The round trip of a remote database, during which the connection stays taken
+            Thread.sleep(roundTripMillis);
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        String key = "/api/products/" + id + " */*";
+        responseCache.put(key, responseCache.currentVersion(), Dependencies.products(List.of(id), false, false),
+                "application/json", null, body.getBytes(StandardCharsets.UTF_8));
+        responseCache.get(key);
+    }
+}
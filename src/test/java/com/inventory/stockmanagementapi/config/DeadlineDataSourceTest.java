@@ -0,0 +1,115 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.exception.DeadlineExceededException;
+import com.inventory.stockmanagementapi.service.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadlineDataSourceTest {
+
+    // Long enough to outlive the shortest query timeout, one second
+    private static final String SLOW_QUERY = "SELECT SUM(X) FROM SYSTEM_RANGE(1, 100000000000)";
+
+    private DeadlineDataSource dataSource;
+
+    @BeforeEach
+    public void setup() {
+        dataSource = new DeadlineDataSource(new DriverManagerDataSource("jdbc:h2:mem:deadline;DB_CLOSE_DELAY=-1", "sa", ""));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Deadline.clear();
+    }
+
+    @Test
+    public void executeQuery_withoutDeadline_shouldRunWithoutTimeout() throws SQLException {
+        // Arrange
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+
+            // Act
+            try (ResultSet resultSet = statement.executeQuery()) {
+
+                // Assert
+                assertTrue(resultSet.next());
+                assertEquals(1, resultSet.getInt(1));
+                assertEquals(0, statement.getQueryTimeout());
+            }
+        }
+    }
+
+    @Test
+    public void executeQuery_withDeadline_shouldSetTimeLeftAsQueryTimeout() throws SQLException {
+        // Arrange
+        Deadline.bind(Deadline.after(Duration.ofMillis(2500)));
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+
+            // Act
+            statement.executeQuery().close();
+
+            // Assert
+            assertEquals(3, statement.getQueryTimeout());
+        }
+    }
+
+    @Test
+    public void getConnection_afterDeadline_shouldAbortWithoutConnection() {
+        // Arrange
+        Deadline deadline = Deadline.after(Duration.ZERO);
+        Deadline.bind(deadline);
+
+        // Act & Assert
+        assertThrows(DeadlineExceededException.class, () -> dataSource.getConnection());
+        assertEquals("connection", deadline.getExceededStage());
+    }
+
+    @Test
+    public void execute_afterDeadline_shouldNotRunStatement() throws Exception {
+        // Arrange
+        Deadline deadline = Deadline.after(Duration.ofMillis(50));
+        Deadline.bind(deadline);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            Thread.sleep(60);
+
+            // Act & Assert
+            assertThrows(DeadlineExceededException.class,
+                    () -> statement.execute("CREATE TABLE never_created (id INT)"));
+            assertEquals("statement", deadline.getExceededStage());
+        }
+        Deadline.clear();
+        try (Connection connection = dataSource.getConnection();
+             ResultSet tables = connection.getMetaData().getTables(null, null, "NEVER_CREATED", null)) {
+            assertFalse(tables.next());
+        }
+    }
+
+    @Test
+    public void executeQuery_runningPastDeadline_shouldBeCancelled() throws SQLException {
+        // Arrange
+        Deadline deadline = Deadline.after(Duration.ofMillis(200));
+        Deadline.bind(deadline);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            long start = System.nanoTime();
+
+            // Act & Assert
+            assertThrows(DeadlineExceededException.class, () -> statement.executeQuery(SLOW_QUERY));
+            assertEquals("query", deadline.getExceededStage());
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        }
+    }
+}
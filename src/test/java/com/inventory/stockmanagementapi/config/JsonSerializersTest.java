@@ -0,0 +1,89 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.inventory.stockmanagementapi.dto.CategoryDTO;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonSerializersTest {
+
+    private ObjectMapper defaultMapper;
+    private ObjectMapper tunedMapper;
+
+    @BeforeEach
+    public void setup() {
+        defaultMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        tunedMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new SimpleModule()
+                        .addSerializer(ProductDTO.class, new JsonSerializers.ProductSerializer())
+                        .addSerializer(CategoryDTO.class, new JsonSerializers.CategorySerializer())
+                        .addSerializer(Slice.class, new JsonSerializers.SliceSerializer()))
+                .build();
+    }
+
+    @Test
+    public void productSerializer_shouldWriteSameJsonAsBeanSerializer() throws Exception {
+        // Arrange
+        List<ProductDTO> products = List.of(
+                product("19.99", LocalDateTime.of(2024, 5, 1, 10, 30, 0, 819533000)),
+                product("0.05", LocalDateTime.of(2024, 12, 31, 23, 59, 59, 100000000)),
+                product("1200", LocalDateTime.of(987, 1, 2, 3, 4, 5)),
+                product("-3.5", LocalDateTime.of(2024, 1, 1, 0, 0, 0, 1)),
+                product("1E+3", LocalDateTime.of(12345, 1, 1, 0, 0)),
+                new ProductDTO());
+
+        // Act & Assert
+        for (ProductDTO product : products) {
+            assertEquals(defaultMapper.writeValueAsString(product), tunedMapper.writeValueAsString(product));
+        }
+    }
+
+    @Test
+    public void categorySerializer_shouldWriteSameJsonAsBeanSerializer() throws Exception {
+        // Arrange
+        CategoryDTO category = new CategoryDTO(1L, "Electronics", "Devices \"and\" gadgets", 3, 2L);
+
+        // Act & Assert
+        assertEquals(defaultMapper.writeValueAsString(category), tunedMapper.writeValueAsString(category));
+    }
+
+    @Test
+    public void sliceSerializer_shouldWriteLeanEnvelope() throws Exception {
+        // Arrange
+        PageImpl<ProductDTO> page = new PageImpl<>(List.of(product("1.00", LocalDateTime.now())), PageRequest.of(2, 1), 7);
+        SliceImpl<ProductDTO> slice = new SliceImpl<>(List.of(), PageRequest.of(0, 20), false);
+
+        // Act
+        String pageJson = tunedMapper.writeValueAsString(page);
+        String sliceJson = tunedMapper.writeValueAsString(slice);
+
+        // Assert
+        assertTrue(pageJson.endsWith("],\"totalElements\":7,\"totalPages\":7,\"number\":2,\"size\":1,"
+                + "\"numberOfElements\":1,\"first\":false,\"last\":false,\"empty\":false}"));
+        assertFalse(pageJson.contains("pageable"));
+        assertEquals("{\"content\":[],\"number\":0,\"size\":20,\"numberOfElements\":0,\"first\":true,"
+                + "\"last\":true,\"empty\":true}", sliceJson);
+    }
+
+    private ProductDTO product(String price, LocalDateTime createdAt) {
+        return new ProductDTO(1L, "Product", null, new BigDecimal(price), 10, "SKU-1", 2L, "Category",
+                createdAt, createdAt.plusSeconds(1), 0L);
+    }
+}
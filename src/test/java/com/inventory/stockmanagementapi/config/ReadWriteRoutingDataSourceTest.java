@@ -0,0 +1,102 @@
+package com.inventory.stockmanagementapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary";
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing_replica";
+
+    private final AtomicInteger writes = new AtomicInteger();
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    public void setup() {
+        routingDataSource = routingDataSource(REPLICA_URL);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestRouting.clear();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        routingDataSource.close();
+    }
+
+    @Test
+    public void getConnection_inReadOnlyTransactionOfRequest_shouldUseReplica() throws SQLException {
+        // Arrange
+        RequestRouting.bind(new RequestRouting(true, writes::incrementAndGet));
+        inTransaction(true);
+
+        // Act & Assert
+        assertEquals(REPLICA_URL, url(routingDataSource));
+        assertEquals(0, writes.get());
+    }
+
+    @Test
+    public void getConnection_outsideOfRequest_shouldUsePrimary() throws SQLException {
+        // Arrange
+        inTransaction(true);
+
+        // Act & Assert
+        assertEquals(PRIMARY_URL, url(routingDataSource));
+    }
+
+    @Test
+    public void getConnection_afterWriteOfRequest_shouldReadFromPrimary() throws SQLException {
+        // Arrange
+        RequestRouting.bind(new RequestRouting(true, writes::incrementAndGet));
+        inTransaction(false);
+        assertEquals(PRIMARY_URL, url(routingDataSource));
+        inTransaction(true);
+
+        // Act & Assert
+        assertEquals(PRIMARY_URL, url(routingDataSource));
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    public void getConnection_withUnreachableReplica_shouldFallBackToPrimary() throws SQLException {
+        // Arrange
+        routingDataSource.close();
+        routingDataSource = routingDataSource("jdbc:h2:tcp://localhost:1/mem:unreachable");
+        RequestRouting.bind(new RequestRouting(true, writes::incrementAndGet));
+        inTransaction(true);
+
+        // Act & Assert
+        assertEquals(PRIMARY_URL, url(routingDataSource));
+        routingDataSource.checkReplicas();
+        assertEquals(PRIMARY_URL, url(routingDataSource));
+    }
+
+    private ReadWriteRoutingDataSource routingDataSource(String replicaUrl) {
+        return new ReadWriteRoutingDataSource(new DriverManagerDataSource(PRIMARY_URL, "sa", ""),
+                List.of(new ReadWriteRoutingDataSource.NamedDataSource("replica-1",
+                        new DriverManagerDataSource(replicaUrl, "sa", ""))),
+                new SimpleMeterRegistry());
+    }
+
+    private static void inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static String url(ReadWriteRoutingDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+}
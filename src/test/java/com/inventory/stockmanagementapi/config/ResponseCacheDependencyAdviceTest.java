@@ -0,0 +1,80 @@
+package com.inventory.stockmanagementapi.config;
+
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.service.ResponseCache.Dependencies;
+import com.inventory.stockmanagementapi.service.ResponseCache.Scope;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheDependencyAdviceTest {
+
+    private final ResponseCacheDependencyAdvice advice = new ResponseCacheDependencyAdvice();
+
+    private Dependencies dependenciesOf(Object body, MockHttpServletRequest request) {
+        advice.beforeBodyWrite(body, null, MediaType.APPLICATION_JSON, null, new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(new MockHttpServletResponse()));
+        return (Dependencies) request.getAttribute(ResponseCacheFilter.DEPENDENCIES_ATTRIBUTE);
+    }
+
+    private static PageImpl<ProductDTO> page(long... ids) {
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id : ids) {
+            ProductDTO product = new ProductDTO();
+            product.setId(id);
+            products.add(product);
+        }
+        return new PageImpl<>(products, PageRequest.of(0, 20), ids.length);
+    }
+
+    @Test
+    public void beforeBodyWrite_withPageSortedByName_shouldDependOnItsProducts() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addParameter("sort", "name,asc");
+
+        // Act
+        Dependencies dependencies = dependenciesOf(page(1L, 2L), request);
+
+        // Assert
+        assertEquals(Set.of(1L, 2L), dependencies.products());
+        assertFalse(dependencies.scopes().contains(Scope.STOCK));
+    }
+
+    @Test
+    public void beforeBodyWrite_withPageSortedByUpdateTime_shouldDependOnEveryWrite() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addParameter("sort", "updatedAt,desc");
+
+        // Act
+        Dependencies dependencies = dependenciesOf(page(1L, 2L), request);
+
+        // Assert
+        assertTrue(dependencies.scopes().contains(Scope.STOCK));
+        assertTrue(dependencies.products().isEmpty());
+    }
+
+    @Test
+    public void beforeBodyWrite_withLowStockList_shouldDependOnEveryWrite() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/low-stock");
+
+        // Act
+        Dependencies dependencies = dependenciesOf(page(3L).getContent(), request);
+
+        // Assert
+        assertTrue(dependencies.scopes().contains(Scope.STOCK));
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.inventory.stockmanagementapi.dto.CategoryDTO;
 import com.inventory.stockmanagementapi.exception.BusinessException;
 import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
+import com.inventory.stockmanagementapi.repository.projection.CategoryVersionView;
 import com.inventory.stockmanagementapi.service.CategoryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,9 @@ import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -45,6 +49,7 @@ public class CategoryControllerTest {
         testCategoryDTO.setName("Test Category");
         testCategoryDTO.setDescription("Test Description");
         testCategoryDTO.setProductCount(0);
+        testCategoryDTO.setVersion(3L);
     }
 
     @Test
@@ -63,6 +68,46 @@ public class CategoryControllerTest {
                 .andExpect(jsonPath("$[0].productCount", is(testCategoryDTO.getProductCount())));
     }
 
+    @Test
+    public void getAllCategories_withCurrentETag_shouldReturn304WithoutLoadingCategories() throws Exception {
+        // Arrange
+        when(categoryService.getAllCategories()).thenReturn(Arrays.asList(testCategoryDTO));
+        String eTag = mockMvc.perform(get("/api/categories"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        CategoryVersionView version = mock(CategoryVersionView.class);
+        when(version.getId()).thenReturn(1L);
+        when(version.getVersion()).thenReturn(3L);
+        when(version.getProductCount()).thenReturn(0L);
+        when(categoryService.getCategoryVersions()).thenReturn(Arrays.asList(version));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/categories").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+        verify(categoryService, times(1)).getAllCategories();
+    }
+
+    @Test
+    public void getCategoryById_withStaleETag_shouldReturnCategory() throws Exception {
+        // Arrange
+        CategoryVersionView version = mock(CategoryVersionView.class);
+        when(version.getId()).thenReturn(1L);
+        when(version.getVersion()).thenReturn(4L);
+        when(version.getProductCount()).thenReturn(0L);
+        when(categoryService.getCategoryVersion(1L)).thenReturn(version);
+        when(categoryService.getCategoryById(1L)).thenReturn(testCategoryDTO);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/categories/1").header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.version", is(3)));
+    }
+
     @Test
     public void getCategoryById_withValidId_shouldReturnCategory() throws Exception {
         // Arrange
@@ -0,0 +1,274 @@
+package com.inventory.stockmanagementapi.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.inventory.stockmanagementapi.config.BinaryFormatConfig;
+import com.inventory.stockmanagementapi.dto.PaginationMode;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.service.IdempotencyService;
+import com.inventory.stockmanagementapi.service.ProductDeltaService;
+import com.inventory.stockmanagementapi.service.ProductReadCoalescer;
+import com.inventory.stockmanagementapi.service.ProductService;
+import com.inventory.stockmanagementapi.service.StockOwnership;
+import com.inventory.stockmanagementapi.service.StockUpdateBatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ProductController.class)
+@Import(BinaryFormatConfig.class)
+public class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private ProductReadCoalescer productReadCoalescer;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private ProductDeltaService productDeltaService;
+
+    @MockBean
+    private StockOwnership stockOwnership;
+
+    @MockBean
+    private StockUpdateBatcher stockUpdateBatcher;
+
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final SmileMapper smileMapper = new SmileMapper();
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private ProductDTO testProductDTO;
+
+    @BeforeEach
+    public void setup() {
+        testProductDTO = new ProductDTO();
+        testProductDTO.setId(1L);
+        testProductDTO.setName("Test Product");
+        testProductDTO.setPrice(new BigDecimal("19.99"));
+        testProductDTO.setQuantity(100);
+        testProductDTO.setSku("TEST-001");
+        testProductDTO.setCategoryId(1L);
+        testProductDTO.setCategoryName("Test Category");
+        testProductDTO.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 30));
+        testProductDTO.setVersion(3L);
+    }
+
+    private static Map<String, Object> fields(long id, int quantity) {
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("id", id);
+        product.put("quantity", quantity);
+        return product;
+    }
+
+    @Test
+    public void getProducts_withStaleETag_shouldLoadThePageOnce() throws Exception {
+        // Arrange
+        when(productService.getProducts(any(Pageable.class), eq(PaginationMode.PAGE)))
+                .thenReturn(new PageImpl<>(List.of(testProductDTO), PageRequest.of(0, 20), 1));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products").header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.content", hasSize(1)));
+        verify(productService, times(1)).getProducts(any(Pageable.class), eq(PaginationMode.PAGE));
+    }
+
+    @Test
+    public void getProducts_withCurrentETag_shouldReturn304() throws Exception {
+        // Arrange
+        when(productService.getProducts(any(Pageable.class), eq(PaginationMode.PAGE)))
+                .thenReturn(new PageImpl<>(List.of(testProductDTO), PageRequest.of(0, 20), 1));
+        String eTag = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void getProductFieldsById_withCurrentETag_shouldReturn304() throws Exception {
+        // Arrange
+        when(productService.getProductFieldsById(1L, "id,quantity")).thenReturn(fields(1L, 5));
+        String eTag = mockMvc.perform(get("/api/products/1").param("fields", "id,quantity"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/1").param("fields", "id,quantity").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void getProductFieldsById_withStaleETag_shouldReturnFields() throws Exception {
+        // Arrange
+        when(productService.getProductFieldsById(1L, "id,quantity")).thenReturn(fields(1L, 5));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/1").param("fields", "id,quantity").header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.quantity", is(5)));
+    }
+
+    @Test
+    public void getLowStockProductFields_withCurrentETag_shouldReturn304() throws Exception {
+        // Arrange
+        List<Map<String, Object>> products = Arrays.asList(fields(1L, 2), fields(2L, 3));
+        when(productService.getLowStockProductFields(10, "id,quantity")).thenReturn(products);
+        String eTag = mockMvc.perform(get("/api/products/low-stock").param("fields", "id,quantity"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/low-stock").param("fields", "id,quantity").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getProductById_acceptingCbor_shouldReturnCbor() throws Exception {
+        // Arrange
+        when(productReadCoalescer.getProductById(1L)).thenReturn(testProductDTO);
+
+        // Act
+        byte[] body = mockMvc.perform(get("/api/products/1").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        JsonNode product = cborMapper.readTree(body);
+        assertThat(product.get("sku").asText()).isEqualTo("TEST-001");
+        assertThat(product.get("price").decimalValue()).isEqualByComparingTo("19.99");
+        assertThat(product.get("createdAt").isArray()).isTrue();
+    }
+
+    @Test
+    public void getProducts_acceptingCbor_shouldWriteTheLeanPageEnvelope() throws Exception {
+        // Arrange
+        Slice<ProductDTO> page = new SliceImpl<>(List.of(testProductDTO), PageRequest.of(0, 20), false);
+        when(productService.getProducts(any(Pageable.class), eq(PaginationMode.SLICE))).thenReturn(page);
+
+        // Act
+        byte[] body = mockMvc.perform(get("/api/products").param("pagination", "SLICE").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        JsonNode products = cborMapper.readTree(body);
+        assertThat(products.get("content").get(0).get("sku").asText()).isEqualTo("TEST-001");
+        assertThat(products.has("pageable")).isFalse();
+        assertThat(products.get("last").asBoolean()).isTrue();
+    }
+
+    @Test
+    public void getProductById_acceptingSmile_shouldReturnSmile() throws Exception {
+        // Arrange
+        when(productReadCoalescer.getProductById(1L)).thenReturn(testProductDTO);
+
+        // Act
+        byte[] body = mockMvc.perform(get("/api/products/1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        JsonNode product = smileMapper.readTree(body);
+        assertThat(product.get("sku").asText()).isEqualTo("TEST-001");
+        assertThat(product.get("version").asLong()).isEqualTo(3L);
+    }
+
+    @Test
+    public void getProductById_acceptingAnything_shouldReturnJson() throws Exception {
+        // Arrange
+        when(productReadCoalescer.getProductById(1L)).thenReturn(testProductDTO);
+
+        // Act
+        byte[] body = mockMvc.perform(get("/api/products/1").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.sku", is("TEST-001")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        assertThat(jsonMapper.readTree(body).get("createdAt").isTextual()).isTrue();
+    }
+
+    @Test
+    public void updateStock_withCborBody_shouldUpdateStock() throws Exception {
+        // Arrange
+        StockUpdateDTO stockUpdateDTO = new StockUpdateDTO(1L, 5, StockUpdateDTO.OperationType.ADD, "Restock");
+        when(stockUpdateBatcher.updateStock(stockUpdateDTO)).thenReturn(testProductDTO);
+        when(idempotencyService.execute(isNull(), anyString(), any(), eq(ProductDTO.class), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<ResponseEntity<ProductDTO>>>getArgument(4).get());
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/products/stock")
+                .contentType("application/cbor")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(cborMapper.writeValueAsBytes(stockUpdateDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity", is(100)));
+    }
+
+    @Test
+    public void updateStock_withInvalidCborBody_shouldReturn400() throws Exception {
+        // Arrange
+        StockUpdateDTO stockUpdateDTO = new StockUpdateDTO(1L, null, StockUpdateDTO.OperationType.ADD, null);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/products/stock")
+                .contentType("application/cbor")
+                .content(cborMapper.writeValueAsBytes(stockUpdateDTO)))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,158 @@
+package com.inventory.stockmanagementapi.grpc;
+
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
+import com.inventory.stockmanagementapi.grpc.proto.AckStatus;
+import com.inventory.stockmanagementapi.grpc.proto.GetProductRequest;
+import com.inventory.stockmanagementapi.grpc.proto.InventoryGrpc;
+import com.inventory.stockmanagementapi.grpc.proto.OperationType;
+import com.inventory.stockmanagementapi.grpc.proto.Product;
+import com.inventory.stockmanagementapi.grpc.proto.StockUpdate;
+import com.inventory.stockmanagementapi.grpc.proto.StockUpdateAck;
+import com.inventory.stockmanagementapi.service.ProductReadCoalescer;
+import com.inventory.stockmanagementapi.service.ProductService;
+import com.inventory.stockmanagementapi.service.RequestCoalescer;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryGrpcServiceTest {
+
+    @Mock
+    private ProductService productService;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new InventoryGrpcService(productService,
+                        new ProductReadCoalescer(productService, new RequestCoalescer(new SimpleMeterRegistry())),
+                        Validation.buildDefaultValidatorFactory().getValidator(), new SimpleMeterRegistry()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void getProduct_byId_shouldReturnProduct() {
+        // Arrange
+        when(productService.getProductById(1L)).thenReturn(productDTO(1L, 10));
+
+        // Act
+        Product product = InventoryGrpc.newBlockingStub(channel)
+                .getProduct(GetProductRequest.newBuilder().setId(1L).build());
+
+        // Assert
+        assertEquals(1L, product.getId());
+        assertEquals("19.99", product.getPrice());
+        assertEquals("Test Category", product.getCategoryName());
+    }
+
+    @Test
+    public void getProduct_withUnknownId_shouldFailWithNotFound() {
+        // Arrange
+        when(productService.getProductById(99L)).thenThrow(new ResourceNotFoundException("Product", "id", 99L));
+
+        // Act & Assert
+        StatusRuntimeException ex = assertThrows(StatusRuntimeException.class, () -> {
+            InventoryGrpc.newBlockingStub(channel).getProduct(GetProductRequest.newBuilder().setId(99L).build());
+        });
+        assertEquals(Status.Code.NOT_FOUND, ex.getStatus().getCode());
+    }
+
+    @Test
+    public void stockUpdates_shouldAcknowledgeEachMovementInOrder() throws Exception {
+        // Arrange
+        when(productService.updateStock(any(StockUpdateDTO.class))).thenAnswer(invocation -> {
+            StockUpdateDTO update = invocation.getArgument(0);
+            if (update.getQuantityChange() > 10) {
+                throw new BusinessException("Cannot remove more items than available in stock. Current stock: 10");
+            }
+            return productDTO(update.getProductId(), 10 - update.getQuantityChange());
+        });
+        List<StockUpdateAck> acks = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        // Act
+        StreamObserver<StockUpdate> updates = InventoryGrpc.newStub(channel).stockUpdates(new StreamObserver<>() {
+            @Override
+            public void onNext(StockUpdateAck ack) {
+                acks.add(ack);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                completed.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                completed.complete(null);
+            }
+        });
+        updates.onNext(stockUpdate("a", 3, OperationType.REMOVE));
+        updates.onNext(stockUpdate("b", 5, OperationType.OPERATION_TYPE_UNSPECIFIED));
+        updates.onNext(stockUpdate("c", 50, OperationType.REMOVE));
+        updates.onNext(stockUpdate("d", 1, OperationType.REMOVE));
+        updates.onCompleted();
+        completed.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(List.of("a", "b", "c", "d"), acks.stream().map(StockUpdateAck::getCorrelationId).toList());
+        assertEquals(AckStatus.APPLIED, acks.get(0).getStatus());
+        assertEquals(7, acks.get(0).getProduct().getQuantity());
+        assertEquals(AckStatus.INVALID, acks.get(1).getStatus());
+        assertEquals(AckStatus.REJECTED, acks.get(2).getStatus());
+        assertEquals(AckStatus.APPLIED, acks.get(3).getStatus());
+        verify(productService, times(3)).updateStock(any(StockUpdateDTO.class));
+    }
+
+    private StockUpdate stockUpdate(String correlationId, int quantityChange, OperationType operationType) {
+        return StockUpdate.newBuilder()
+                .setCorrelationId(correlationId)
+                .setProductId(1L)
+                .setQuantityChange(quantityChange)
+                .setOperationType(operationType)
+                .build();
+    }
+
+    private ProductDTO productDTO(Long id, int quantity) {
+        return new ProductDTO(id, "Test Product", null, new BigDecimal("19.99"), quantity, "SKU-" + id,
+                1L, "Test Category", LocalDateTime.now(), LocalDateTime.now(), 0L);
+    }
+}
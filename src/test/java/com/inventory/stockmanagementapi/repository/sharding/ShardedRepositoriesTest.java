@@ -0,0 +1,42 @@
+package com.inventory.stockmanagementapi.repository.sharding;
+
+import com.inventory.stockmanagementapi.repository.OutboxEventRepository;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.ProductTombstoneRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedRepositoriesTest {
+
+    @Test
+    public void productRoutes_shouldRouteEveryMethodOfProductRepository() {
+        // Act
+        Set<String> unrouted = ShardedRepository.unrouted(ProductRepository.class, ShardedRepositories.productRoutes());
+
+        // Assert
+        assertEquals(Set.of(), unrouted);
+    }
+
+    @Test
+    public void tombstoneRoutes_shouldRouteEveryMethodOfProductTombstoneRepository() {
+        // Act
+        Set<String> unrouted = ShardedRepository.unrouted(ProductTombstoneRepository.class,
+                ShardedRepositories.tombstoneRoutes());
+
+        // Assert
+        assertEquals(Set.of(), unrouted);
+    }
+
+    @Test
+    public void outboxRoutes_shouldRouteEveryMethodOfOutboxEventRepository() {
+        // Act
+        Set<String> unrouted = ShardedRepository.unrouted(OutboxEventRepository.class,
+                ShardedRepositories.outboxRoutes());
+
+        // Assert
+        assertEquals(Set.of(), unrouted);
+    }
+}
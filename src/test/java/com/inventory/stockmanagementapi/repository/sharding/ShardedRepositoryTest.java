@@ -0,0 +1,223 @@
+package com.inventory.stockmanagementapi.repository.sharding;
+
+import com.inventory.stockmanagementapi.config.ShardRoutingDataSource;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedRepositoryTest {
+
+    private static final int SHARDS = 3;
+    private static final int MAX_SCAN_ROWS = 8;
+    private static final int[] PRICES = {50, 20, 90, 20, 70, 10, 60, 30, 20};
+
+    private final List<DataSource> shards = new ArrayList<>();
+    private ShardRouter router;
+    private TransactionTemplate transaction;
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    public void setup() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:sharded_" + shard + ";DB_CLOSE_DELAY=-1", "sa", "");
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("DROP TABLE IF EXISTS items");
+            jdbc.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, price INT NOT NULL)");
+            shards.add(dataSource);
+        }
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ShardRoutingDataSource(shards, new SimpleMeterRegistry()));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        router = new ShardRouter(SHARDS, transactionManager, 4, false, MAX_SCAN_ROWS, new SimpleMeterRegistry());
+        router.onApplicationEvent(null);
+        transaction = new TransactionTemplate(transactionManager);
+        itemRepository = ShardedRepository.proxy(ItemRepository.class, new JdbcItemRepository(dataSource),
+                () -> router, Map.of(
+                        "save", ShardedRepository.byEntity(item -> ((Item) item).getId()),
+                        "findById", ShardedRepository.byId(false)),
+                ShardedRepository.scatter());
+        for (int i = 0; i < PRICES.length; i++) {
+            itemRepository.save(new Item((long) i + 1, PRICES[i]));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        router.close();
+    }
+
+    @Test
+    public void save_shouldStoreItemOnShardOfItsId() {
+        // Act
+        List<List<Long>> idsByShard = shards.stream()
+                .map(shard -> new JdbcTemplate(shard).queryForList("SELECT id FROM items ORDER BY id", Long.class))
+                .toList();
+
+        // Assert
+        assertEquals(List.of(1L, 4L, 7L), idsByShard.get(0));
+        assertEquals(List.of(2L, 5L, 8L), idsByShard.get(1));
+        assertEquals(List.of(3L, 6L, 9L), idsByShard.get(2));
+    }
+
+    @Test
+    public void findAll_withSortedPage_shouldMergeShardsInSortOrder() {
+        // Act
+        Page<Item> page = itemRepository.findAll(PageRequest.of(1, 4, Sort.by("price")));
+
+        // Assert
+        // Prices 10, 20, 20, 20 on the first page; equal prices come in ID order
+        assertEquals(List.of(8L, 1L, 7L, 5L), page.getContent().stream().map(Item::getId).toList());
+        assertEquals(9, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+    }
+
+    @Test
+    public void findAll_withPageBeyondMaxScanRows_shouldBeRefused() {
+        // Act & Assert
+        // Page 2 would ask every shard for its first 12 rows
+        assertThrows(BusinessException.class, () -> itemRepository.findAll(PageRequest.of(2, 4, Sort.by("price"))));
+    }
+
+    @Test
+    public void proxy_withMethodWithoutRoute_shouldBeRefused() {
+        // Act
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> ShardedRepository.proxy(
+                ItemRepository.class, new JdbcItemRepository(shards.get(0)), () -> router,
+                Map.of("save", ShardedRepository.byEntity(item -> ((Item) item).getId()))));
+
+        // Assert
+        assertTrue(ex.getMessage().contains("[count, findAll, findById]"));
+    }
+
+    @Test
+    public void count_shouldSumShards() {
+        // Act & Assert
+        assertEquals(PRICES.length, itemRepository.count());
+    }
+
+    @Test
+    public void findById_inTransactionBoundToAnotherShard_shouldReadInItsOwnTransaction() {
+        // Act
+        Optional<Item> item = transaction.execute(status -> {
+            itemRepository.findById(1L);
+            return itemRepository.findById(2L);
+        });
+
+        // Assert
+        assertEquals(20, item.orElseThrow().getPrice());
+    }
+
+    @Test
+    public void save_inTransactionBoundToAnotherShard_shouldBeRefused() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            itemRepository.findById(1L);
+            itemRepository.save(new Item(2L, 25));
+        }));
+        assertEquals(20, itemRepository.findById(2L).orElseThrow().getPrice());
+    }
+
+    @Test
+    public void merge_shouldKeepFirstElementsInOrder() {
+        // Act
+        List<Integer> merged = ShardRouter.merge(List.of(List.of(1, 4, 9), List.of(), List.of(2, 3, 10)),
+                Integer::compare, 5);
+
+        // Assert
+        assertEquals(List.of(1, 2, 3, 4, 9), merged);
+    }
+
+    public interface ItemRepository {
+
+        Item save(Item item);
+
+        Optional<Item> findById(Long id);
+
+        Page<Item> findAll(Pageable pageable);
+
+        long count();
+    }
+
+    public static class Item {
+
+        private final Long id;
+        private final int price;
+
+        public Item(Long id, int price) {
+            this.id = id;
+            this.price = price;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+    }
+
+    /**
+     * Works on the shard of the current thread, like a Spring Data repository
+     */
+    public static class JdbcItemRepository implements ItemRepository {
+
+        private final JdbcTemplate jdbc;
+
+        public JdbcItemRepository(DataSource dataSource) {
+            this.jdbc = new JdbcTemplate(dataSource);
+        }
+
+        @Override
+        public Item save(Item item) {
+            if (jdbc.update("UPDATE items SET price = ? WHERE id = ?", item.getPrice(), item.getId()) == 0) {
+                jdbc.update("INSERT INTO items (id, price) VALUES (?, ?)", item.getId(), item.getPrice());
+            }
+            return item;
+        }
+
+        @Override
+        public Optional<Item> findById(Long id) {
+            return jdbc.query("SELECT id, price FROM items WHERE id = ?",
+                    (rs, row) -> new Item(rs.getLong("id"), rs.getInt("price")), id).stream().findFirst();
+        }
+
+        @Override
+        public Page<Item> findAll(Pageable pageable) {
+            String orderBy = pageable.getSort().stream()
+                    .map(order -> order.getProperty() + " " + order.getDirection())
+                    .collect(Collectors.joining(", "));
+            List<Item> items = jdbc.query("SELECT id, price FROM items ORDER BY " + orderBy + " LIMIT ? OFFSET ?",
+                    (rs, row) -> new Item(rs.getLong("id"), rs.getInt("price")),
+                    pageable.getPageSize(), pageable.getOffset());
+            return new PageImpl<>(items, pageable, count());
+        }
+
+        @Override
+        public long count() {
+            return jdbc.queryForObject("SELECT COUNT(*) FROM items", Long.class);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.service.AdmissionController.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void admit_whenFull_shouldWaitThenReject() {
+        // Arrange
+        AdmissionController controller = new AdmissionController(1, Duration.ofSeconds(1), Duration.ofSeconds(10),
+                Duration.ofMillis(50), meterRegistry);
+        assertTrue(controller.admit(Priority.NORMAL));
+
+        // Act & Assert
+        assertFalse(controller.admit(Priority.NORMAL));
+        controller.release();
+        assertTrue(controller.admit(Priority.NORMAL));
+        controller.release();
+        assertEquals(0, controller.getInFlight());
+        assertEquals(1.0, meterRegistry.get("admission.rejected").tag("priority", "normal")
+                .tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    public void release_shouldAdmitTheMostImportantWaiterFirst() throws Exception {
+        // Arrange
+        AdmissionController controller = new AdmissionController(1, Duration.ofSeconds(1), Duration.ofSeconds(10),
+                Duration.ofSeconds(5), meterRegistry);
+        assertTrue(controller.admit(Priority.NORMAL));
+        CompletableFuture<Long> low = CompletableFuture.supplyAsync(() -> admitAndRelease(controller, Priority.LOW));
+        waitForWaiters(controller, Priority.LOW);
+        CompletableFuture<Long> critical = CompletableFuture.supplyAsync(
+                () -> admitAndRelease(controller, Priority.CRITICAL));
+        waitForWaiters(controller, Priority.CRITICAL);
+
+        // Act
+        controller.release();
+
+        // Assert
+        assertTrue(critical.get(5, TimeUnit.SECONDS) < low.get(5, TimeUnit.SECONDS));
+        assertEquals(0, controller.getInFlight());
+    }
+
+    @Test
+    public void admit_whenQueueingDelayStaysAboveTarget_shouldShedLowPriorityFirst() throws Exception {
+        // Arrange
+        AdmissionController controller = new AdmissionController(1, Duration.ofMillis(25), Duration.ofMillis(50),
+                Duration.ofMillis(30), meterRegistry);
+        assertTrue(controller.admit(Priority.CRITICAL));
+        Thread.sleep(60);   // an interval with no queueing delay
+        assertFalse(controller.admit(Priority.NORMAL));   // waits 30 ms, between 1 and 4 times the target
+        Thread.sleep(60);
+
+        // Act
+        boolean low = controller.admit(Priority.LOW);
+
+        // Assert
+        assertFalse(low);
+        assertTrue(controller.isShed(Priority.LOW));
+        assertFalse(controller.isShed(Priority.NORMAL));
+        assertFalse(controller.isShed(Priority.CRITICAL));
+        assertEquals(1.0, meterRegistry.get("admission.rejected").tag("priority", "low")
+                .tag("reason", "overload").counter().count());
+    }
+
+    @Test
+    public void admit_whenAnIntervalPassesWithoutQueueing_shouldStopShedding() throws Exception {
+        // Arrange
+        AdmissionController controller = new AdmissionController(1, Duration.ofMillis(25), Duration.ofMillis(50),
+                Duration.ofMillis(30), meterRegistry);
+        assertTrue(controller.admit(Priority.CRITICAL));
+        Thread.sleep(60);   // an interval with no queueing delay
+        assertFalse(controller.admit(Priority.NORMAL));
+        Thread.sleep(60);
+        assertFalse(controller.admit(Priority.LOW));
+        controller.release();
+        Thread.sleep(60);
+
+        // Act
+        boolean low = controller.admit(Priority.LOW);
+
+        // Assert
+        assertTrue(low);
+        assertFalse(controller.isShed(Priority.LOW));
+    }
+
+    private long admitAndRelease(AdmissionController controller, Priority priority) {
+        assertTrue(controller.admit(priority));
+        long admittedAt = System.nanoTime();
+        controller.release();
+        return admittedAt;
+    }
+
+    private void waitForWaiters(AdmissionController controller, Priority priority) throws InterruptedException {
+        for (int i = 0; i < 500 && controller.getWaiting(priority) == 0; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
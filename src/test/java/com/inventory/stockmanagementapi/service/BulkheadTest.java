@@ -0,0 +1,134 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.exception.DeadlineExceededException;
+import com.inventory.stockmanagementapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void call_beyondLimit_shouldWaitThenReject() throws Exception {
+        // Arrange
+        Bulkhead bulkhead = new Bulkhead(Workload.SCAN, 1, 1, 1, 2.0, Duration.ofMillis(50), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> bulkhead.call(() -> {
+            started.countDown();
+            await(finish);
+            return "first";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> bulkhead.call(() -> "second"));
+        finish.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("third", bulkhead.call(() -> "third"));
+        assertEquals(1.0, meterRegistry.get("bulkhead.rejected").tag("workload", "scan").counter().count());
+        assertEquals(3, meterRegistry.get("bulkhead.wait").tag("workload", "scan").timer().count());
+    }
+
+    @Test
+    public void call_whenPermitIsReleased_shouldProceed() throws Exception {
+        // Arrange
+        Bulkhead bulkhead = new Bulkhead(Workload.WRITE, 1, 1, 1, 2.0, Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> bulkhead.call(() -> {
+            started.countDown();
+            await(finish);
+            return "first";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> bulkhead.call(() -> "second"));
+
+        // Act
+        finish.countDown();
+
+        // Assert
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    @Test
+    public void call_beyondLimit_shouldWaitNoLongerThanDeadline() throws Exception {
+        // Arrange
+        Bulkhead bulkhead = new Bulkhead(Workload.SCAN, 1, 1, 1, 2.0, Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> bulkhead.call(() -> {
+            started.countDown();
+            await(finish);
+            return "first";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Deadline deadline = Deadline.after(Duration.ofMillis(50));
+
+        // Act & Assert
+        try {
+            Deadline.bind(deadline);
+            assertThrows(DeadlineExceededException.class, () -> bulkhead.call(() -> "second"));
+        } finally {
+            Deadline.clear();
+        }
+        assertEquals("bulkhead", deadline.getExceededStage());
+        assertEquals(0.0, meterRegistry.get("bulkhead.rejected").tag("workload", "scan").counter().count());
+        finish.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void adjust_shouldGrowWithSteadyLatencyAndShrinkWhenCallsSlowDown() {
+        // Arrange
+        Bulkhead bulkhead = new Bulkhead(Workload.POINT_READ, 4, 2, 20, 2.0, Duration.ofMillis(50), meterRegistry);
+
+        // Act & Assert
+        for (int i = 0; i < 50; i++) {
+            bulkhead.adjust(1_000_000, bulkhead.getLimit());
+        }
+        assertEquals(20, bulkhead.getLimit());
+        for (int i = 0; i < 10; i++) {
+            bulkhead.adjust(10_000_000, bulkhead.getLimit());
+        }
+        assertTrue(bulkhead.getLimit() < 15, "limit " + bulkhead.getLimit());
+    }
+
+    @Test
+    public void adjust_whenMostlyUnused_shouldNotGrow() {
+        // Arrange
+        Bulkhead bulkhead = new Bulkhead(Workload.POINT_READ, 4, 2, 20, 2.0, Duration.ofMillis(50), meterRegistry);
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            bulkhead.adjust(1_000_000, 1);
+        }
+
+        // Assert
+        assertEquals(4, bulkhead.getLimit());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
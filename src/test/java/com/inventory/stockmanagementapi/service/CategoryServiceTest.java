@@ -5,12 +5,15 @@ import com.inventory.stockmanagementapi.dto.CategoryDTO;
 import com.inventory.stockmanagementapi.exception.BusinessException;
 import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
 import com.inventory.stockmanagementapi.repository.CategoryRepository;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -27,6 +30,12 @@ public class CategoryServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -53,7 +62,7 @@ public class CategoryServiceTest {
     public void getAllCategories_shouldReturnAllCategories() {
         // Arrange
         List<Category> categories = Arrays.asList(testCategory);
-        when(categoryRepository.findAll()).thenReturn(categories);
+        when(categoryRepository.findAll(Sort.by("id"))).thenReturn(categories);
 
         // Act
         List<CategoryDTO> result = categoryService.getAllCategories();
@@ -198,6 +207,7 @@ public class CategoryServiceTest {
         categoryWithProducts.setProducts(Arrays.asList(new com.inventory.stockmanagementapi.domain.Product()));
 
         when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(categoryWithProducts));
+        when(productRepository.existsByCategoryId(categoryId)).thenReturn(true);
 
         // Act & Assert
         assertThrows(BusinessException.class, () -> {
@@ -0,0 +1,223 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.domain.CatalogChange;
+import com.inventory.stockmanagementapi.dto.ChangeBatchDTO;
+import com.inventory.stockmanagementapi.dto.ChangeEventDTO;
+import com.inventory.stockmanagementapi.exception.GoneException;
+import com.inventory.stockmanagementapi.repository.CatalogChangeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeFeedServiceTest {
+
+    @Mock
+    private CatalogChangeRepository catalogChangeRepository;
+
+    private ChangeFeedService changeFeedService;
+
+    @BeforeEach
+    public void setup() {
+        AtomicLong sequence = new AtomicLong();
+        lenient().when(catalogChangeRepository.saveAndFlush(any(CatalogChange.class))).thenAnswer(invocation -> {
+            CatalogChange change = invocation.getArgument(0);
+            change.setSeq(sequence.incrementAndGet());
+            return change;
+        });
+        changeFeedService = new ChangeFeedService(catalogChangeRepository, 2, 100, Duration.ofDays(1),
+                Duration.ofSeconds(5), false);
+        changeFeedService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        changeFeedService.shutdown();
+    }
+
+    @Test
+    public void getChanges_shouldReturnRecentChangesFromRing() {
+        // Arrange
+        changeFeedService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_CREATED, 10L));
+        changeFeedService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 10L));
+
+        // Act
+        ChangeBatchDTO batch = changeFeedService.getChanges(0, 10);
+
+        // Assert
+        assertEquals(2, batch.getChanges().size());
+        assertEquals(CatalogChangeEvent.Type.STOCK_UPDATED, batch.getChanges().get(1).getType());
+        assertEquals(2, batch.getLastSeq());
+        assertFalse(batch.isHasMore());
+        verify(catalogChangeRepository, never()).findBySeqGreaterThanOrderBySeqAsc(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    public void getChanges_behindRing_shouldReadFromTable() {
+        // Arrange
+        for (long id = 1; id <= 3; id++) {
+            changeFeedService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_UPDATED, id));
+        }
+        CatalogChange first = new CatalogChange(1L, CatalogChangeEvent.Type.PRODUCT_UPDATED, 1L, LocalDateTime.now());
+        CatalogChange second = new CatalogChange(2L, CatalogChangeEvent.Type.PRODUCT_UPDATED, 2L, LocalDateTime.now());
+        when(catalogChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+
+        // Act
+        ChangeBatchDTO batch = changeFeedService.getChanges(0, 1);
+
+        // Assert
+        assertEquals(1, batch.getChanges().size());
+        assertEquals(1L, batch.getChanges().get(0).getSeq());
+        assertTrue(batch.isHasMore());
+    }
+
+    @Test
+    public void onRemoteCatalogChange_shouldAppendChangesOfOtherInstancesFromTable() {
+        // Arrange
+        changeFeedService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_UPDATED, 1L));
+        CatalogChange remote = new CatalogChange(2L, CatalogChangeEvent.Type.PRODUCT_DELETED, 7L, LocalDateTime.now());
+        when(catalogChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(remote));
+
+        // Act
+        changeFeedService.onRemoteCatalogChange(
+                new RemoteCatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_DELETED, 7L, "node-2"));
+
+        // Assert
+        ChangeBatchDTO batch = changeFeedService.getChanges(1, 10);
+        assertEquals(2, changeFeedService.getLatestSeq());
+        assertEquals(1, batch.getChanges().size());
+        assertEquals(7L, batch.getChanges().get(0).getEntityId());
+    }
+
+    @Test
+    public void onCatalogChange_followingUnseenChange_shouldAppendChangesInSequenceOrder() {
+        // Arrange
+        // Sequence number 1 was taken by another instance
+        AtomicLong sequence = new AtomicLong(1);
+        when(catalogChangeRepository.saveAndFlush(any(CatalogChange.class))).thenAnswer(invocation -> {
+            CatalogChange change = invocation.getArgument(0);
+            change.setSeq(sequence.incrementAndGet());
+            return change;
+        });
+        CatalogChange remote = new CatalogChange(1L, CatalogChangeEvent.Type.CATEGORY_UPDATED, 4L, LocalDateTime.now());
+        CatalogChange local = new CatalogChange(2L, CatalogChangeEvent.Type.STOCK_UPDATED, 10L, LocalDateTime.now());
+        when(catalogChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(remote, local));
+
+        // Act
+        changeFeedService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 10L));
+
+        // Assert
+        ChangeBatchDTO batch = changeFeedService.getChanges(0, 10);
+        assertEquals(List.of(1L, 2L), batch.getChanges().stream().map(ChangeEventDTO::getSeq).toList());
+        assertEquals(2, batch.getLastSeq());
+    }
+
+    @Test
+    public void poll_withMissingSequenceNumber_shouldHoldBackLaterChangesUntilItIsCommitted() {
+        // Arrange
+        // Sequence number 1 was taken by a transaction that has not committed yet
+        CatalogChange missing = new CatalogChange(1L, CatalogChangeEvent.Type.CATEGORY_UPDATED, 4L, LocalDateTime.now());
+        CatalogChange later = new CatalogChange(2L, CatalogChangeEvent.Type.STOCK_UPDATED, 10L, LocalDateTime.now());
+        when(catalogChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(later))
+                .thenReturn(List.of(missing, later));
+
+        // Act
+        changeFeedService.poll();
+        ChangeBatchDTO heldBack = changeFeedService.getChanges(0, 10);
+        changeFeedService.poll();
+        ChangeBatchDTO batch = changeFeedService.getChanges(0, 10);
+
+        // Assert
+        assertTrue(heldBack.getChanges().isEmpty());
+        assertEquals(List.of(1L, 2L), batch.getChanges().stream().map(ChangeEventDTO::getSeq).toList());
+    }
+
+    @Test
+    public void poll_withMissingSequenceNumberPastGapTimeout_shouldSkipIt() {
+        // Arrange
+        changeFeedService = new ChangeFeedService(catalogChangeRepository, 2, 100, Duration.ofDays(1),
+                Duration.ZERO, false);
+        changeFeedService.init();
+        CatalogChange later = new CatalogChange(2L, CatalogChangeEvent.Type.STOCK_UPDATED, 10L, LocalDateTime.now());
+        when(catalogChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(later));
+
+        // Act
+        changeFeedService.poll();
+
+        // Assert
+        assertEquals(2, changeFeedService.getLatestSeq());
+        assertEquals(List.of(2L), changeFeedService.getChanges(0, 10).getChanges().stream()
+                .map(ChangeEventDTO::getSeq).toList());
+    }
+
+    @Test
+    public void onCatalogChange_withMutationRolledBackAfterItsChangeCommitted_shouldStillDeliverTheChange() {
+        // Arrange
+        // With sharding, the change of a mutation on another shard commits on the home shard before the mutation
+        CatalogChange stored = new CatalogChange(1L, CatalogChangeEvent.Type.PRODUCT_UPDATED, 8L, LocalDateTime.now());
+        when(catalogChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(stored));
+
+        // Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            changeFeedService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_UPDATED, 8L));
+            TransactionSynchronization recorder = TransactionSynchronizationManager.getSynchronizations().get(0);
+            recorder.beforeCommit(false);
+            recorder.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ChangeBatchDTO beforePoll = changeFeedService.getChanges(0, 10);
+        changeFeedService.poll();
+
+        // Assert
+        assertTrue(beforePoll.getChanges().isEmpty());
+        assertEquals(List.of(8L), changeFeedService.getChanges(0, 10).getChanges().stream()
+                .map(ChangeEventDTO::getEntityId).toList());
+    }
+
+    @Test
+    public void getChanges_withCursorAheadOfFeed_shouldThrowGoneException() {
+        // Act & Assert
+        assertThrows(GoneException.class, () -> changeFeedService.getChanges(5, 10));
+    }
+
+    @Test
+    public void awaitChanges_shouldCompleteWhenChangeIsCommitted() throws Exception {
+        // Arrange
+        CompletableFuture<ChangeBatchDTO> result = changeFeedService.awaitChanges(0, 10, Duration.ofSeconds(5));
+        assertFalse(result.isDone());
+
+        // Act
+        changeFeedService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.CATEGORY_DELETED, 3L));
+
+        // Assert
+        ChangeBatchDTO batch = result.get(5, TimeUnit.SECONDS);
+        assertEquals(1, batch.getChanges().size());
+        assertEquals(3L, batch.getChanges().get(0).getEntityId());
+    }
+}
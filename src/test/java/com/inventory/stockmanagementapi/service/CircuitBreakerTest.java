@@ -0,0 +1,95 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.exception.CircuitOpenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void onFailure_beyondThreshold_shouldOpenAndRejectCalls() {
+        // Arrange
+        CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 0.5, Duration.ofMinutes(1), 2, meterRegistry);
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // Act
+        breaker.onFailure();
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        CircuitOpenException ex = assertThrows(CircuitOpenException.class, breaker::acquire);
+        assertTrue(ex.getRetryAfter().toSeconds() > 50);
+        assertEquals(1.0, meterRegistry.get("circuit.rejected").tag("circuit", "test").counter().count());
+    }
+
+    @Test
+    public void onFailure_belowMinimumCalls_shouldStayClosed() {
+        // Arrange
+        CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 0.5, Duration.ofMinutes(1), 2, meterRegistry);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertDoesNotThrow(breaker::acquire);
+    }
+
+    @Test
+    public void acquire_afterOpenDuration_shouldCloseOnceProbesSucceed() throws Exception {
+        // Arrange
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(20));
+        Thread.sleep(40);
+
+        // Act & Assert
+        breaker.acquire();
+        breaker.acquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertThrows(CircuitOpenException.class, breaker::acquire);
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertDoesNotThrow(breaker::acquire);
+    }
+
+    @Test
+    public void onFailure_whenHalfOpen_shouldReopen() throws Exception {
+        // Arrange
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(20));
+        Thread.sleep(40);
+        breaker.acquire();
+
+        // Act
+        breaker.onFailure();
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CircuitOpenException.class, breaker::acquire);
+        assertEquals(2.0, meterRegistry.get("circuit.transitions").tag("to", "open").counter().count());
+    }
+
+    private CircuitBreaker openBreaker(Duration openDuration) {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 2, 0.5, openDuration, 2, meterRegistry);
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
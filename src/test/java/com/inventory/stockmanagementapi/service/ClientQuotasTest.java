@@ -0,0 +1,81 @@
+package com.inventory.stockmanagementapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientQuotasTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void tryAcquire_beyondBurst_shouldReturnTheWaitForTheNextToken() {
+        // Arrange
+        ClientQuotas quotas = new ClientQuotas(1, 3, Map.of(), 100, meterRegistry);
+
+        // Act
+        long[] waits = new long[4];
+        for (int i = 0; i < waits.length; i++) {
+            waits[i] = quotas.tryAcquire("client");
+        }
+
+        // Assert
+        assertEquals(0, waits[0]);
+        assertEquals(0, waits[1]);
+        assertEquals(0, waits[2]);
+        assertTrue(waits[3] > 0 && waits[3] <= TimeUnit.SECONDS.toNanos(1), "wait " + waits[3]);
+    }
+
+    @Test
+    public void tryAcquire_shouldKeepOneBucketPerClient() {
+        // Arrange
+        ClientQuotas quotas = new ClientQuotas(1, 1, Map.of(), 100, meterRegistry);
+
+        // Act & Assert
+        assertEquals(0, quotas.tryAcquire("a"));
+        assertTrue(quotas.tryAcquire("a") > 0);
+        assertEquals(0, quotas.tryAcquire("b"));
+        assertEquals(2.0, meterRegistry.get("admission.quota.clients").gauge().value());
+    }
+
+    @Test
+    public void tryAcquire_withOverride_shouldScaleTheBurst() {
+        // Arrange
+        ClientQuotas quotas = new ClientQuotas(1, 2, Map.of("erp", 5.0), 100, meterRegistry);
+
+        // Act
+        int allowed = 0;
+        while (quotas.tryAcquire("erp") == 0 && allowed < 100) {
+            allowed++;
+        }
+
+        // Assert
+        assertEquals(10, allowed);
+    }
+
+    @Test
+    public void tryAcquire_whenTooManyClients_shouldDropIdleBuckets() throws Exception {
+        // Arrange
+        ClientQuotas quotas = new ClientQuotas(1000, 1, Map.of(), 2, meterRegistry);
+        quotas.tryAcquire("a");
+        quotas.tryAcquire("b");
+        Thread.sleep(10);
+
+        // Act
+        long wait = quotas.tryAcquire("c");
+
+        // Assert
+        assertEquals(0, wait);
+        assertEquals(1.0, meterRegistry.get("admission.quota.clients").gauge().value());
+    }
+}
@@ -0,0 +1,51 @@
+package com.inventory.stockmanagementapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashRingTest {
+
+    private static final List<String> MEMBERS = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+
+    @Test
+    public void ownerOf_shouldSpreadKeysOverMembers() {
+        // Arrange
+        HashRing ring = new HashRing(MEMBERS, 128);
+
+        // Act
+        Map<String, Integer> keysByMember = new HashMap<>();
+        for (long id = 1; id <= 30_000; id++) {
+            keysByMember.merge(ring.ownerOf(id), 1, Integer::sum);
+        }
+
+        // Assert
+        assertEquals(3, keysByMember.size());
+        keysByMember.values().forEach(keys -> assertTrue(keys > 7_000 && keys < 13_000, keysByMember::toString));
+    }
+
+    @Test
+    public void ownerOf_afterMemberLeaves_shouldOnlyMoveItsKeys() {
+        // Arrange
+        HashRing ring = new HashRing(MEMBERS, 128);
+        HashRing smaller = new HashRing(MEMBERS.subList(0, 2), 128);
+
+        // Act & Assert
+        for (long id = 1; id <= 10_000; id++) {
+            String owner = ring.ownerOf(id);
+            if (!owner.equals("http://c:8080")) {
+                assertEquals(owner, smaller.ownerOf(id));
+            }
+        }
+    }
+
+    @Test
+    public void ownerOf_withoutMembers_shouldReturnNull() {
+        // Act & Assert
+        assertNull(new HashRing(List.of(), 128).ownerOf(1));
+    }
+}
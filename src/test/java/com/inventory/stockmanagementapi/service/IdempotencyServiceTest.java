@@ -0,0 +1,302 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.inventory.stockmanagementapi.domain.IdempotencyRecord;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    private static final String OPERATION = "PATCH /api/products/stock";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyService idempotencyService;
+
+    private StockUpdateDTO stockUpdateDTO;
+    private ProductDTO productDTO;
+
+    @BeforeEach
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, objectMapper,
+                2, Duration.ofHours(1), Duration.ofSeconds(5));
+
+        stockUpdateDTO = new StockUpdateDTO(1L, 5, StockUpdateDTO.OperationType.ADD, null);
+
+        productDTO = new ProductDTO();
+        productDTO.setId(1L);
+        productDTO.setName("Test Product");
+        productDTO.setQuantity(15);
+    }
+
+    @Test
+    public void execute_withoutKey_shouldAlwaysRunAction() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        idempotencyService.execute(null, OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(productDTO);
+        });
+        idempotencyService.execute(null, OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(productDTO);
+        });
+
+        // Assert
+        assertEquals(2, executions.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    public void execute_withRepeatedKey_shouldReplayStoredResponse() {
+        // Arrange
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        ResponseEntity<ProductDTO> first = idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(productDTO);
+        });
+        ResponseEntity<ProductDTO> second = idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(productDTO);
+        });
+
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(productDTO.getQuantity(), second.getBody().getQuantity());
+    }
+
+    @Test
+    public void execute_withKeyReusedForDifferentRequest_shouldThrowException() {
+        // Arrange
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+        StockUpdateDTO otherUpdate = new StockUpdateDTO(1L, 7, StockUpdateDTO.OperationType.ADD, null);
+
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> {
+            idempotencyService.execute("key-1", OPERATION, otherUpdate, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+        });
+    }
+
+    @Test
+    public void execute_afterFailure_shouldRunActionAgain() {
+        // Arrange
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        assertThrows(BusinessException.class, () -> {
+            idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+                executions.incrementAndGet();
+                throw new BusinessException("Cannot remove more items than available in stock");
+            });
+        });
+        idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(productDTO);
+        });
+
+        // Assert
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void execute_withConcurrentDuplicate_shouldWaitForFirstExecution() throws Exception {
+        // Arrange
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<ProductDTO>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return ResponseEntity.ok(productDTO);
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<ResponseEntity<ProductDTO>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+                    executions.incrementAndGet();
+                    return ResponseEntity.ok(productDTO);
+                }));
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        // Assert
+        assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals("true", duplicate.get(5, TimeUnit.SECONDS).getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void execute_beyondCapacity_shouldSpillOldestResponseToDatabase() {
+        // Arrange
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        // Act
+        idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+        idempotencyService.execute("key-2", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+        idempotencyService.execute("key-3", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+
+        // Assert
+        verify(idempotencyRecordRepository, times(1)).saveAll(argThat((List<IdempotencyRecord> records) ->
+                records.size() == 1 && records.get(0).getIdempotencyKey().equals("key-1")));
+    }
+
+    @Test
+    public void execute_whileSpillingToDatabase_shouldStillReplayTheSpilledKey() throws Exception {
+        // Arrange
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(idempotencyRecordRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            saving.countDown();
+            await(release);
+            return invocation.getArgument(0);
+        });
+        AtomicInteger executions = new AtomicInteger();
+        idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(productDTO);
+        });
+        idempotencyService.execute("key-2", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+        CompletableFuture<ResponseEntity<ProductDTO>> evicting = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("key-3", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO)));
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+
+        // Act
+        ResponseEntity<ProductDTO> retry = idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(productDTO);
+        });
+        release.countDown();
+
+        // Assert
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.OK, evicting.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
+
+    @Test
+    public void execute_whenSpillToDatabaseFails_shouldKeepResponseAndReplayFromMemory() {
+        // Arrange
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+        idempotencyService.execute("key-2", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+
+        // Act
+        ResponseEntity<ProductDTO> evicting = idempotencyService.execute("key-3", OPERATION, stockUpdateDTO, ProductDTO.class,
+                () -> ResponseEntity.ok(productDTO));
+        ResponseEntity<ProductDTO> retry = idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class,
+                () -> fail("The action must not run for a stored key"));
+
+        // Assert
+        assertEquals(HttpStatus.OK, evicting.getStatusCode());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void execute_withRepeatedKey_shouldReplayTheETag() {
+        // Arrange
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+        idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class,
+                () -> ResponseEntity.ok().eTag("\"v3\"").header("X-Request-Id", "r-1").body(productDTO));
+
+        // Act
+        ResponseEntity<ProductDTO> retry = idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class,
+                () -> fail("The action must not run for a stored key"));
+
+        // Assert
+        assertEquals("\"v3\"", retry.getHeaders().getETag());
+        assertNull(retry.getHeaders().getFirst("X-Request-Id"));
+    }
+
+    @Test
+    public void execute_beyondCapacity_shouldSpillTheETagWithTheResponse() {
+        // Arrange
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        // Act
+        idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class,
+                () -> ResponseEntity.ok().eTag("\"v3\"").body(productDTO));
+        idempotencyService.execute("key-2", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+        idempotencyService.execute("key-3", OPERATION, stockUpdateDTO, ProductDTO.class, () -> ResponseEntity.ok(productDTO));
+
+        // Assert
+        verify(idempotencyRecordRepository).saveAll(argThat((List<IdempotencyRecord> records) ->
+                records.get(0).getResponseHeaders().equals("{\"ETag\":[\"\\\"v3\\\"\"]}")));
+    }
+
+    @Test
+    public void execute_withKeySpilledToDatabase_shouldReplayWithoutRunningAction() {
+        // Arrange
+        IdempotencyRecord record = IdempotencyRecord.builder()
+                .idempotencyKey("key-1")
+                .requestFingerprint("other")
+                .statusCode(200)
+                .responseBody("{\"id\":1}")
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(record));
+
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> {
+            idempotencyService.execute("key-1", OPERATION, stockUpdateDTO, ProductDTO.class, () -> {
+                fail("The action must not run for a stored key");
+                return null;
+            });
+        });
+        verify(idempotencyRecordRepository, never()).saveAll(anyList());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
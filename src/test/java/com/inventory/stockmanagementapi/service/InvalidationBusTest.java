@@ -0,0 +1,153 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvalidationBusTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RecordingTransport transport;
+    private List<Object> published;
+    private InvalidationBus invalidationBus;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        transport = new RecordingTransport();
+        published = new ArrayList<>();
+        invalidationBus = new InvalidationBus(transport, published::add, meterRegistry, "node-a",
+                Duration.ofMillis(50), 500, 3);
+    }
+
+    @Test
+    public void flush_shouldSendOneChangePerProduct() {
+        // Arrange
+        invalidationBus.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+        invalidationBus.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.CATEGORY_UPDATED, 1L));
+        invalidationBus.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_DELETED, 1L));
+
+        // Act
+        int sent = invalidationBus.flush();
+
+        // Assert
+        assertEquals(2, sent);
+        List<InvalidationMessage> batch = transport.batches.get(0);
+        assertEquals(CatalogChangeEvent.Type.PRODUCT_DELETED, batch.get(0).type());
+        assertEquals(CatalogChangeEvent.Type.CATEGORY_UPDATED, batch.get(1).type());
+        assertEquals("node-a", batch.get(0).node());
+        assertEquals(0, invalidationBus.flush());
+    }
+
+    @Test
+    public void onCatalogChange_beyondMaxPending_shouldQueueReset() {
+        // Arrange
+        for (long id = 1; id <= 4; id++) {
+            invalidationBus.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, id));
+        }
+
+        // Act
+        invalidationBus.flush();
+
+        // Assert
+        List<InvalidationMessage> batch = transport.batches.get(0);
+        assertEquals(1, batch.size());
+        assertEquals(CatalogChangeEvent.Type.CATALOG_RESET, batch.get(0).type());
+        assertNull(batch.get(0).entityId());
+    }
+
+    @Test
+    public void flush_whenTransportFails_shouldSendBatchAgain() {
+        // Arrange
+        invalidationBus.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+        transport.failing = true;
+        assertEquals(0, invalidationBus.flush());
+        transport.failing = false;
+
+        // Act
+        int sent = invalidationBus.flush();
+
+        // Assert
+        assertEquals(1, sent);
+        assertEquals(1.0, meterRegistry.get("invalidation.send.failures").counter().count());
+    }
+
+    @Test
+    public void receive_shouldPublishChangesOfOtherInstances() {
+        // Arrange
+        long committedAt = System.currentTimeMillis() - 100;
+        List<InvalidationMessage> batch = List.of(
+                new InvalidationMessage("node-a", CatalogChangeEvent.Type.STOCK_UPDATED, 1L, committedAt),
+                new InvalidationMessage("node-b", CatalogChangeEvent.Type.STOCK_UPDATED, 2L, committedAt),
+                new InvalidationMessage("node-b", CatalogChangeEvent.Type.STOCK_UPDATED, 2L, committedAt + 50));
+
+        // Act
+        invalidationBus.receive(batch);
+
+        // Assert
+        assertEquals(List.of(new RemoteCatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 2L, "node-b")),
+                published);
+        assertEquals(1, meterRegistry.get("invalidation.staleness").timer().count());
+        assertTrue(meterRegistry.get("invalidation.staleness").timer().max(TimeUnit.MILLISECONDS) >= 100);
+    }
+
+    @Test
+    public void udpTransport_shouldCarryChangesBetweenInstances() throws Exception {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper();
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        try (UdpInvalidationTransport receiving = new UdpInvalidationTransport(0, List.of(), objectMapper);
+             UdpInvalidationTransport sending = new UdpInvalidationTransport(0,
+                     List.of(new InetSocketAddress("127.0.0.1", receiving.getPort())), objectMapper)) {
+            InvalidationBus receivingBus = new InvalidationBus(receiving, received::add, meterRegistry, "node-b",
+                    Duration.ofMillis(50), 500, 100);
+            InvalidationBus sendingBus = new InvalidationBus(sending, event -> {
+            }, meterRegistry, "node-a", Duration.ofMillis(50), 500, 100);
+            receivingBus.start();
+            sendingBus.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 7L));
+
+            // Act
+            sendingBus.flush();
+
+            // Assert
+            assertEquals(new RemoteCatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 7L, "node-a"),
+                    received.poll(5, TimeUnit.SECONDS));
+            receivingBus.stop();
+        }
+    }
+
+    private static final class RecordingTransport implements InvalidationTransport {
+
+        private final List<List<InvalidationMessage>> batches = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public void send(List<InvalidationMessage> batch) throws IOException {
+            if (failing) {
+                throw new IOException("unreachable");
+            }
+            batches.add(List.copyOf(batch));
+        }
+
+        @Override
+        public void listen(Consumer<List<InvalidationMessage>> receiver) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
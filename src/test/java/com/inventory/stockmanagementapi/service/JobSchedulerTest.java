@@ -0,0 +1,156 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.repository.JobLeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JobSchedulerTest {
+
+    private static final Duration INTERVAL = Duration.ofMinutes(1);
+
+    @Mock
+    private JobLeaseRepository jobLeaseRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JobScheduler jobScheduler;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        jobScheduler = new JobScheduler(jobLeaseRepository, meterRegistry, 1, "node-a", Duration.ofMinutes(10),
+                Duration.ofMillis(20), false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jobScheduler.stop();
+    }
+
+    @Test
+    public void runNow_withLease_shouldRunJobAndReleaseLease() {
+        // Arrange
+        when(jobLeaseRepository.takeOver(eq("reset"), eq("node-a"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        boolean ran = jobScheduler.runNow("reset", INTERVAL, runs::incrementAndGet);
+
+        // Assert
+        assertTrue(ran);
+        assertEquals(1, runs.get());
+        ArgumentCaptor<Long> since = ArgumentCaptor.forClass(Long.class);
+        verify(jobLeaseRepository).takeOver(eq("reset"), eq("node-a"), anyLong(), anyLong(), since.capture());
+        assertEquals(0, since.getValue() % INTERVAL.toMillis());
+        verify(jobLeaseRepository).release(eq("reset"), eq("node-a"), anyLong());
+        assertEquals(1.0, meterRegistry.get("jobs.runs").tag("job", "reset").tag("result", "success").counter()
+                .count());
+        assertEquals(1, meterRegistry.get("jobs.duration").tag("job", "reset").timer().count());
+    }
+
+    @Test
+    public void runNow_whenLeasedByAnotherInstance_shouldSkipJob() {
+        // Arrange
+        when(jobLeaseRepository.takeOver(eq("reset"), eq("node-a"), anyLong(), anyLong(), anyLong())).thenReturn(0);
+        when(jobLeaseRepository.existsById("reset")).thenReturn(true);
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        boolean ran = jobScheduler.runNow("reset", INTERVAL, runs::incrementAndGet);
+
+        // Assert
+        assertFalse(ran);
+        assertEquals(0, runs.get());
+        verify(jobLeaseRepository, never()).release(anyString(), anyString(), anyLong());
+        assertEquals(1.0, meterRegistry.get("jobs.runs").tag("result", "leased").counter().count());
+    }
+
+    @Test
+    public void runNow_firstRun_shouldCreateLeaseOnce() {
+        // Arrange
+        when(jobLeaseRepository.takeOver(eq("reset"), eq("node-a"), anyLong(), anyLong(), anyLong())).thenReturn(0);
+        when(jobLeaseRepository.existsById("reset")).thenReturn(false);
+        when(jobLeaseRepository.create(eq("reset"), eq("node-a"), anyLong(), anyLong())).thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        boolean first = jobScheduler.runNow("reset", INTERVAL, runs::incrementAndGet);
+        boolean second = jobScheduler.runNow("reset", INTERVAL, runs::incrementAndGet);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void runNow_whileJobRuns_shouldNotOverlap() {
+        // Arrange
+        when(jobLeaseRepository.takeOver(eq("reset"), eq("node-a"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        AtomicBoolean nested = new AtomicBoolean(true);
+
+        // Act
+        boolean ran = jobScheduler.runNow("reset", INTERVAL,
+                () -> nested.set(jobScheduler.runNow("reset", INTERVAL, () -> fail("overlapping run"))));
+
+        // Assert
+        assertTrue(ran);
+        assertFalse(nested.get());
+        verify(jobLeaseRepository, times(1)).takeOver(anyString(), anyString(), anyLong(), anyLong(), anyLong());
+        assertEquals(1.0, meterRegistry.get("jobs.runs").tag("result", "overlapping").counter().count());
+    }
+
+    @Test
+    public void runNow_whenJobFails_shouldReleaseLease() {
+        // Arrange
+        when(jobLeaseRepository.takeOver(eq("reset"), eq("node-a"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+
+        // Act
+        boolean ran = jobScheduler.runNow("reset", INTERVAL, () -> {
+            throw new IllegalStateException("database down");
+        });
+
+        // Assert
+        assertFalse(ran);
+        verify(jobLeaseRepository).release(eq("reset"), eq("node-a"), anyLong());
+        assertEquals(1.0, meterRegistry.get("jobs.runs").tag("result", "failure").counter().count());
+    }
+
+    @Test
+    public void schedule_shouldRunOncePerPeriodAndRecordLag() throws InterruptedException {
+        // Arrange
+        when(jobLeaseRepository.takeOver(eq("purge"), eq("node-a"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        CountDownLatch runs = new CountDownLatch(3);
+
+        // Act
+        jobScheduler.schedule("purge", Duration.ofMillis(100), runs::countDown);
+
+        // Assert
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        ArgumentCaptor<Long> since = ArgumentCaptor.forClass(Long.class);
+        verify(jobLeaseRepository, atLeast(3)).takeOver(eq("purge"), eq("node-a"), anyLong(), anyLong(),
+                since.capture());
+        assertEquals(since.getAllValues().size(), since.getAllValues().stream().distinct().count());
+        assertTrue(since.getAllValues().stream().allMatch(period -> period % 100 == 0));
+        assertTrue(meterRegistry.get("jobs.lag").tag("job", "purge").timer().count() >= 3);
+    }
+}
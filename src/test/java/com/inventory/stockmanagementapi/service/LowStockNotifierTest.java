@@ -0,0 +1,155 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.domain.WebhookDelivery;
+import com.inventory.stockmanagementapi.repository.WebhookDeliveryRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LowStockNotifierTest {
+
+    @Mock
+    private WebhookDeliveryRepository webhookDeliveryRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private HttpServer server;
+    private LowStockNotifier lowStockNotifier;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        // Stub receiver answering with the configured status
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/hook", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        String url = "http://localhost:" + server.getAddress().getPort() + "/hook";
+
+        // No debounce, so that a flush reports every crossing recorded before it
+        lowStockNotifier = new LowStockNotifier(webhookDeliveryRepository, objectMapper, new SimpleMeterRegistry(),
+                List.of(url), Duration.ZERO, 2, Duration.ofSeconds(5), 3, Duration.ofSeconds(10),
+                Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        lowStockNotifier.stop();
+        server.stop(0);
+    }
+
+    @Test
+    public void flush_withCrossingsOfSeveralProducts_shouldPostBatches() throws Exception {
+        // Arrange
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.LOW_STOCK, 1L, 12, 8));
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.LOW_STOCK, 2L, 10, 3));
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.LOW_STOCK, 3L, 15, 0));
+
+        // Act
+        lowStockNotifier.flush();
+
+        // Assert
+        JsonNode first = objectMapper.readTree(received.poll(5, TimeUnit.SECONDS));
+        JsonNode second = objectMapper.readTree(received.poll(5, TimeUnit.SECONDS));
+        assertEquals(2, first.get("events").size());
+        assertEquals(1, second.get("events").size());
+        assertNotEquals(first.get("id").asText(), second.get("id").asText());
+        assertEquals("LOW_STOCK", first.get("events").get(0).get("type").asText());
+        verify(webhookDeliveryRepository, never()).save(any());
+    }
+
+    @Test
+    public void flush_withProductBackOnItsInitialSide_shouldNotPost() throws Exception {
+        // Arrange
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.LOW_STOCK, 1L, 10, 9));
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.RESTOCKED, 1L, 9, 10));
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.LOW_STOCK, 2L, 10, 9));
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.RESTOCKED, 2L, 9, 10));
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.LOW_STOCK, 2L, 10, 4));
+
+        // Act
+        lowStockNotifier.flush();
+
+        // Assert
+        JsonNode batch = objectMapper.readTree(received.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, batch.get("events").size());
+        assertEquals(2L, batch.get("events").get(0).get("productId").asLong());
+        assertEquals(4, batch.get("events").get(0).get("quantity").asInt());
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void flush_withFailingReceiver_shouldQueueDeliveryForRetry() throws Exception {
+        // Arrange
+        status.set(503);
+        lowStockNotifier.onThresholdCrossed(crossing(StockThresholdEvent.Type.LOW_STOCK, 1L, 12, 8));
+
+        // Act
+        lowStockNotifier.flush();
+
+        // Assert
+        ArgumentCaptor<WebhookDelivery> captor = ArgumentCaptor.forClass(WebhookDelivery.class);
+        verify(webhookDeliveryRepository, timeout(5000)).save(captor.capture());
+        WebhookDelivery delivery = captor.getValue();
+        assertEquals(1, delivery.getAttempts());
+        assertEquals("HTTP 503", delivery.getLastError());
+        assertFalse(delivery.getDead());
+        assertTrue(delivery.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(9)));
+    }
+
+    @Test
+    public void retryDue_withLastAttemptFailing_shouldMarkDeliveryDead() {
+        // Arrange
+        status.set(500);
+        WebhookDelivery delivery = WebhookDelivery.builder()
+                .id(1L)
+                .url("http://localhost:" + server.getAddress().getPort() + "/hook")
+                .payload("{\"events\":[]}")
+                .attempts(2)
+                .nextAttemptAt(LocalDateTime.now())
+                .dead(false)
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(webhookDeliveryRepository.findDue(any(), any())).thenReturn(List.of(delivery));
+
+        // Act
+        lowStockNotifier.retryDue();
+
+        // Assert
+        verify(webhookDeliveryRepository, timeout(5000)).save(delivery);
+        assertEquals(3, delivery.getAttempts());
+        assertTrue(delivery.getDead());
+    }
+
+    private static StockThresholdEvent crossing(StockThresholdEvent.Type type, Long productId, int previousQuantity,
+                                                int quantity) {
+        return new StockThresholdEvent(type, productId, "SKU-" + productId, previousQuantity, quantity, 10,
+                LocalDateTime.now());
+    }
+}
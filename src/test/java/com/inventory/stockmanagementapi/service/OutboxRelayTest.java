@@ -0,0 +1,66 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.domain.OutboxEvent;
+import com.inventory.stockmanagementapi.dto.OutboxEventDTO;
+import com.inventory.stockmanagementapi.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Test
+    public void drain_withSeveralBatches_shouldPublishInOrderAndDeleteEachBatch() throws Exception {
+        // Arrange
+        List<List<OutboxEventDTO>> published = new ArrayList<>();
+        OutboxRelay outboxRelay = new OutboxRelay(outboxEventRepository, published::add, new SimpleMeterRegistry(),
+                2, Duration.ofHours(1));
+        when(outboxEventRepository.findAllByOrderByIdAsc(any(Pageable.class)))
+                .thenReturn(List.of(event(1L), event(2L)), List.of(event(3L)));
+
+        // Act
+        int relayed = outboxRelay.drain();
+
+        // Assert
+        assertEquals(3, relayed);
+        assertEquals(List.of(1L, 2L), published.get(0).stream().map(OutboxEventDTO::getId).toList());
+        assertEquals(List.of(3L), published.get(1).stream().map(OutboxEventDTO::getId).toList());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(3L));
+    }
+
+    @Test
+    public void drain_withFailingSink_shouldKeepEventsInOutbox() {
+        // Arrange
+        OutboxRelay outboxRelay = new OutboxRelay(outboxEventRepository, events -> {
+            throw new IOException("Broker unavailable");
+        }, new SimpleMeterRegistry(), 2, Duration.ofHours(1));
+        when(outboxEventRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(List.of(event(1L)));
+
+        // Act & Assert
+        assertThrows(IOException.class, outboxRelay::drain);
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    private static OutboxEvent event(Long id) {
+        return new OutboxEvent(id, CatalogChangeEvent.Type.STOCK_UPDATED, 10L, "{\"id\":10}", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,72 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.domain.OutboxEvent;
+import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.repository.OutboxEventRepository;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductService productService;
+
+    private OutboxService outboxService;
+
+    @BeforeEach
+    public void setup() {
+        outboxService = new OutboxService(outboxEventRepository, productRepository, productService,
+                new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    public void onCatalogChange_withStockUpdate_shouldWriteProductState() {
+        // Arrange
+        Product product = new Product();
+        product.setId(3L);
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setId(3L);
+        productDTO.setQuantity(42);
+        when(productRepository.findById(3L)).thenReturn(Optional.of(product));
+        when(productService.convertToDTO(product)).thenReturn(productDTO);
+
+        // Act
+        outboxService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 3L));
+
+        // Assert
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        assertEquals(CatalogChangeEvent.Type.STOCK_UPDATED, captor.getValue().getType());
+        assertEquals(3L, captor.getValue().getProductId());
+        assertTrue(captor.getValue().getPayload().contains("\"quantity\":42"));
+    }
+
+    @Test
+    public void onCatalogChange_withCategoryChange_shouldNotWriteEvent() {
+        // Act
+        outboxService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.CATEGORY_UPDATED, 1L));
+        outboxService.onCatalogChange(CatalogChangeEvent.reset());
+
+        // Assert
+        verifyNoInteractions(outboxEventRepository, productRepository);
+    }
+}
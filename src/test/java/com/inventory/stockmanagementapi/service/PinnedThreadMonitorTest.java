@@ -0,0 +1,119 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs code of the request paths on virtual threads, and checks that none of them gets pinned to its carrier
+ */
+@ExtendWith(MockitoExtension.class)
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class PinnedThreadMonitorTest {
+
+    private static final Object MONITOR = new Object();
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PinnedThreadMonitor monitor;
+    private final ThreadFactory virtualThreads = VirtualThreads.threadFactory("test", true);
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new PinnedThreadMonitor(Duration.ofMillis(10), meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        monitor.close();
+    }
+
+    @Test
+    public void monitor_shouldReportBlockingInsideSynchronized() throws Exception {
+        // Act
+        runOnVirtualThreads(1, PinnedThreadMonitorTest::sleepHoldingMonitor);
+
+        // Assert
+        assertEquals(Set.of(PinnedThreadMonitorTest.class.getName() + ".sleepHoldingMonitor"), awaitPinnedFrames());
+    }
+
+    @Test
+    public void productCountCache_whenLoadingConcurrently_shouldNotPin() throws Exception {
+        // Arrange
+        ProductCountCache productCountCache = new ProductCountCache(productRepository,
+                new RequestCoalescer(meterRegistry), 10);
+        when(productRepository.countByCategory()).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return List.of();
+        });
+
+        // Act
+        runOnVirtualThreads(4, productCountCache::countAll);
+        // A pinning known to be reported, so that the events of the cache had the time to arrive
+        runOnVirtualThreads(1, PinnedThreadMonitorTest::sleepHoldingMonitor);
+
+        // Assert
+        assertEquals(Set.of(PinnedThreadMonitorTest.class.getName() + ".sleepHoldingMonitor"), awaitPinnedFrames());
+    }
+
+    private static void sleepHoldingMonitor() {
+        synchronized (MONITOR) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runOnVirtualThreads(int count, Runnable task) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Thread thread = virtualThreads.newThread(task);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * @return The frames of the pinnings reported, once the control pinning is among them
+     */
+    private Set<String> awaitPinnedFrames() throws InterruptedException {
+        // The recording stream delivers the events about once per second
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            Set<String> frames = meterRegistry.find(PinnedThreadMonitor.PINNED_METRIC).timers().stream()
+                    .map(timer -> timer.getId().getTag("frame"))
+                    .collect(Collectors.toSet());
+            if (frames.stream().anyMatch(frame -> frame.endsWith(".sleepHoldingMonitor"))) {
+                return frames;
+            }
+            Thread.sleep(100);
+        }
+        fail("No pinning reported");
+        return Set.of();
+    }
+}
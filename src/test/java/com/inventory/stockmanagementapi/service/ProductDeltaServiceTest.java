@@ -0,0 +1,128 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.domain.Category;
+import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.domain.ProductTombstone;
+import com.inventory.stockmanagementapi.dto.ProductDeltaDTO;
+import com.inventory.stockmanagementapi.exception.GoneException;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.ProductTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductDeltaServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductTombstoneRepository productTombstoneRepository;
+
+    @Mock
+    private ProductService productService;
+
+    private ProductDeltaService productDeltaService;
+
+    private Category category;
+
+    @BeforeEach
+    public void setup() {
+        productDeltaService = new ProductDeltaService(productRepository, productTombstoneRepository, productService,
+                100, Duration.ofSeconds(5), Duration.ofDays(30));
+
+        category = new Category();
+        category.setId(1L);
+        category.setName("Test Category");
+    }
+
+    @Test
+    public void getModifiedSince_withMoreProducts_shouldReturnCursorAfterLastProduct() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        Product first = product(1L, since.plusMinutes(1));
+        Product second = product(2L, since.plusMinutes(2));
+        when(productRepository.findModifiedAfter(eq(since), eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        when(productTombstoneRepository.findDeletedAfter(eq(since), eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // Act
+        ProductDeltaDTO delta = productDeltaService.getModifiedSince(since, 1);
+
+        // Assert
+        assertEquals(1, delta.getProducts().size());
+        assertNotNull(delta.getNextCursor());
+        ProductDeltaService.DeltaCursor cursor = ProductDeltaService.DeltaCursor.decode(delta.getNextCursor());
+        assertEquals(first.getUpdatedAt(), cursor.productUpdatedAt());
+        assertEquals(1L, cursor.productId());
+        assertEquals(since, cursor.tombstoneDeletedAt());
+        assertEquals(delta.getWatermark(), cursor.until());
+    }
+
+    @Test
+    public void getModifiedSince_withLastPage_shouldReturnNoCursor() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        when(productRepository.findModifiedAfter(eq(since), eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(product(1L, since.plusMinutes(1))));
+        when(productTombstoneRepository.findDeletedAfter(eq(since), eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(new ProductTombstone(7L, since.plusMinutes(3))));
+
+        // Act
+        ProductDeltaDTO delta = productDeltaService.getModifiedSince(since, 10);
+
+        // Assert
+        assertEquals(1, delta.getProducts().size());
+        assertEquals(7L, delta.getDeleted().get(0).getId());
+        assertNull(delta.getNextCursor());
+    }
+
+    @Test
+    public void onCatalogChange_withDeletedProduct_shouldSaveTombstone() {
+        // Act
+        productDeltaService.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_DELETED, 5L));
+
+        // Assert
+        ArgumentCaptor<ProductTombstone> captor = ArgumentCaptor.forClass(ProductTombstone.class);
+        verify(productTombstoneRepository).save(captor.capture());
+        assertEquals(5L, captor.getValue().getProductId());
+    }
+
+    @Test
+    public void getModifiedSince_beforeCatalogReset_shouldThrowGoneException() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.now().minusMinutes(1);
+        productDeltaService.onCatalogChange(CatalogChangeEvent.reset());
+
+        // Act & Assert
+        assertThrows(GoneException.class, () -> productDeltaService.getModifiedSince(since, 10));
+        verify(productRepository, never()).findModifiedAfter(any(), any(), any(), any());
+    }
+
+    private Product product(Long id, LocalDateTime updatedAt) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal("9.99"));
+        product.setQuantity(10);
+        product.setCategory(category);
+        product.setUpdatedAt(updatedAt);
+        return product;
+    }
+}
@@ -0,0 +1,285 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.domain.Category;
+import com.inventory.stockmanagementapi.domain.Product;
+import com.inventory.stockmanagementapi.dto.PaginationMode;
+import com.inventory.stockmanagementapi.dto.ProductBatchGetDTO;
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.ProductField;
+import com.inventory.stockmanagementapi.dto.ProductLookupResultDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
+import com.inventory.stockmanagementapi.repository.CategoryRepository;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductCountCache productCountCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductService productService;
+
+    private Category testCategory;
+
+    @BeforeEach
+    public void setup() {
+        productService = new ProductService(productRepository, categoryRepository,
+                productCountCache, eventPublisher, 5, 2, 10);
+
+        testCategory = new Category();
+        testCategory.setId(1L);
+        testCategory.setName("Test Category");
+        testCategory.setProducts(new ArrayList<>());
+    }
+
+    @Test
+    public void getProductsByIdsOrSkus_shouldReturnResultsInRequestOrder() {
+        // Arrange
+        Product first = product(1L, "SKU-1");
+        Product second = product(2L, "SKU-2");
+        Product third = product(3L, "SKU-3");
+        when(productRepository.findAllWithCategoryByIdIn(Arrays.asList(3L, 1L))).thenReturn(Arrays.asList(first, third));
+        when(productRepository.findAllWithCategoryByIdIn(Arrays.asList(99L))).thenReturn(List.of());
+        when(productRepository.findAllWithCategoryBySkuIn(Arrays.asList("SKU-2"))).thenReturn(Arrays.asList(second));
+
+        ProductBatchGetDTO request = new ProductBatchGetDTO(Arrays.asList(3L, 1L, 99L), Arrays.asList("SKU-2"));
+
+        // Act
+        List<ProductLookupResultDTO> results = productService.getProductsByIdsOrSkus(request);
+
+        // Assert
+        assertEquals(4, results.size());
+        assertEquals(3L, results.get(0).getId());
+        assertEquals(3L, results.get(0).getProduct().getId());
+        assertEquals(1L, results.get(1).getProduct().getId());
+        assertEquals(99L, results.get(2).getId());
+        assertFalse(results.get(2).isFound());
+        assertNull(results.get(2).getProduct());
+        assertEquals("SKU-2", results.get(3).getSku());
+        assertEquals(2L, results.get(3).getProduct().getId());
+        assertEquals("Test Category", results.get(3).getProduct().getCategoryName());
+    }
+
+    @Test
+    public void getProductsByIdsOrSkus_withDuplicates_shouldQueryEachIdOnce() {
+        // Arrange
+        Product first = product(1L, "SKU-1");
+        when(productRepository.findAllWithCategoryByIdIn(Arrays.asList(1L))).thenReturn(Arrays.asList(first));
+
+        ProductBatchGetDTO request = new ProductBatchGetDTO(Arrays.asList(1L, 1L), List.of());
+
+        // Act
+        List<ProductLookupResultDTO> results = productService.getProductsByIdsOrSkus(request);
+
+        // Assert
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).isFound());
+        assertTrue(results.get(1).isFound());
+        verify(productRepository, times(1)).findAllWithCategoryByIdIn(anyCollection());
+    }
+
+    @Test
+    public void getProductsByIdsOrSkus_withTooManyItems_shouldThrowException() {
+        // Arrange
+        ProductBatchGetDTO request = new ProductBatchGetDTO(Arrays.asList(1L, 2L, 3L, 4L), Arrays.asList("A", "B"));
+
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> {
+            productService.getProductsByIdsOrSkus(request);
+        });
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void getProductsByIdsOrSkus_withEmptyRequest_shouldThrowException() {
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> {
+            productService.getProductsByIdsOrSkus(new ProductBatchGetDTO());
+        });
+    }
+
+    @Test
+    public void getProducts_inSliceMode_shouldNotCount() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 2);
+        when(productRepository.findAllBy(pageable))
+                .thenReturn(new SliceImpl<>(Arrays.asList(product(1L, "SKU-1"), product(2L, "SKU-2")), pageable, true));
+
+        // Act
+        Slice<ProductDTO> result = productService.getProducts(pageable, PaginationMode.SLICE);
+
+        // Assert
+        assertFalse(result instanceof Page);
+        assertEquals(2, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        verify(productRepository, never()).findAll(any(Pageable.class));
+        verifyNoInteractions(productCountCache);
+    }
+
+    @Test
+    public void getProductsByCategory_inApproximateMode_shouldUseCachedCount() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 2);
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(productRepository.findSliceByCategoryId(1L, pageable))
+                .thenReturn(new SliceImpl<>(Arrays.asList(product(1L, "SKU-1"), product(2L, "SKU-2")), pageable, true));
+        when(productCountCache.countByCategory(1L)).thenReturn(40L);
+
+        // Act
+        Page<ProductDTO> result = (Page<ProductDTO>) productService.getProductsByCategory(1L, pageable, PaginationMode.APPROXIMATE);
+
+        // Assert
+        assertEquals(40, result.getTotalElements());
+        assertTrue(result.hasNext());
+        verify(productRepository, never()).findByCategoryId(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    public void searchProducts_inApproximateMode_withStaleCount_shouldNotHideNextPage() {
+        // Arrange
+        Pageable pageable = PageRequest.of(1, 2);
+        when(productRepository.searchProductsSlice("widget", pageable))
+                .thenReturn(new SliceImpl<>(Arrays.asList(product(3L, "SKU-3"), product(4L, "SKU-4")), pageable, true));
+        when(productCountCache.countSearchResults("widget")).thenReturn(3L);
+
+        // Act
+        Page<ProductDTO> result = (Page<ProductDTO>) productService.searchProducts("widget", pageable, PaginationMode.APPROXIMATE);
+
+        // Assert
+        assertEquals(5, result.getTotalElements());
+        assertTrue(result.hasNext());
+    }
+
+    @Test
+    public void getProductFields_shouldSelectRequestedFieldsInRequestOrder() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 20);
+        LinkedHashSet<ProductField> expectedFields = new LinkedHashSet<>(
+                List.of(ProductField.SKU, ProductField.ID, ProductField.QUANTITY));
+        when(productRepository.findFieldsSlice(any(), eq(expectedFields), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(Map.of("sku", "SKU-1", "id", 1L, "quantity", 10)), pageable, false));
+
+        // Act
+        Slice<Map<String, Object>> result = productService.getProductFields(" sku, id,quantity,sku ", pageable, PaginationMode.SLICE);
+
+        // Assert
+        assertEquals(1, result.getNumberOfElements());
+        verify(productRepository, never()).findFieldsPage(any(), any(), any());
+    }
+
+    @Test
+    public void getProductFieldsById_withUnknownField_shouldThrowException() {
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> {
+            productService.getProductFieldsById(1L, "id,password");
+        });
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void updateStock_crossingThreshold_shouldPublishLowStockEvent() {
+        // Arrange
+        Product product = product(1L, "SKU-1");
+        when(productRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(product));
+        when(productRepository.saveAndFlush(product)).thenReturn(product);
+
+        // Act
+        productService.updateStock(new StockUpdateDTO(1L, 3, StockUpdateDTO.OperationType.REMOVE, null));
+
+        // Assert
+        ArgumentCaptor<StockThresholdEvent> captor = ArgumentCaptor.forClass(StockThresholdEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(StockThresholdEvent.Type.LOW_STOCK, captor.getValue().type());
+        assertEquals(10, captor.getValue().previousQuantity());
+        assertEquals(7, captor.getValue().quantity());
+    }
+
+    @Test
+    public void updateStock_aboveThreshold_shouldNotPublishThresholdEvent() {
+        // Arrange
+        Product product = product(1L, "SKU-1");
+        when(productRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(product));
+        when(productRepository.saveAndFlush(product)).thenReturn(product);
+
+        // Act
+        productService.updateStock(new StockUpdateDTO(1L, 5, StockUpdateDTO.OperationType.ADD, null));
+
+        // Assert
+        verify(eventPublisher, never()).publishEvent(any(StockThresholdEvent.class));
+    }
+
+    @Test
+    public void updateStockBatch_shouldApplyUpdatesInOrderAndPublishOneEventPerProduct() {
+        // Arrange
+        Product product = product(1L, "SKU-1");
+        when(productRepository.findAllById(anyCollection())).thenReturn(List.of(product));
+        List<StockUpdateDTO> updates = List.of(
+                new StockUpdateDTO(1L, 4, StockUpdateDTO.OperationType.REMOVE, null),
+                new StockUpdateDTO(1L, 20, StockUpdateDTO.OperationType.REMOVE, null),
+                new StockUpdateDTO(2L, 1, StockUpdateDTO.OperationType.ADD, null),
+                new StockUpdateDTO(1L, 3, StockUpdateDTO.OperationType.REMOVE, null));
+
+        // Act
+        List<ProductService.StockUpdateOutcome> outcomes = productService.updateStockBatch(updates);
+
+        // Assert
+        assertEquals(6, outcomes.get(0).product().getQuantity());
+        assertInstanceOf(BusinessException.class, outcomes.get(1).error());
+        assertInstanceOf(ResourceNotFoundException.class, outcomes.get(2).error());
+        assertEquals(3, outcomes.get(3).product().getQuantity());
+        assertEquals(3, product.getQuantity());
+        verify(productRepository).flush();
+        verify(eventPublisher).publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+        ArgumentCaptor<StockThresholdEvent> captor = ArgumentCaptor.forClass(StockThresholdEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(10, captor.getValue().previousQuantity());
+        assertEquals(3, captor.getValue().quantity());
+    }
+
+    private Product product(Long id, String sku) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal("9.99"));
+        product.setQuantity(10);
+        product.setSku(sku);
+        product.setCategory(testCategory);
+        return product;
+    }
+}
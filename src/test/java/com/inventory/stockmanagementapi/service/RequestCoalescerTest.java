@@ -0,0 +1,209 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.exception.CircuitOpenException;
+import com.inventory.stockmanagementapi.exception.DeadlineExceededException;
+import com.inventory.stockmanagementapi.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer requestCoalescer;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        requestCoalescer = new RequestCoalescer(meterRegistry);
+    }
+
+    @Test
+    public void execute_withConcurrentIdenticalCalls_shouldRunActionOnce() throws Exception {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("getProductById", 1L, () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "product-1";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("getProductById", 1L, () -> {
+                    executions.incrementAndGet();
+                    return "other";
+                }));
+        waitForCoalescedCalls(1);
+        release.countDown();
+
+        // Assert
+        assertEquals("product-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("product-1", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(1.0, meterRegistry.get("coalescer.calls").tag("outcome", "executed").counter().count());
+    }
+
+    @Test
+    public void execute_withDifferentKeys_shouldRunEachAction() {
+        // Act
+        String first = requestCoalescer.execute("getProductById", 1L, () -> "product-1");
+        String second = requestCoalescer.execute("getProductById", 2L, () -> "product-2");
+
+        // Assert
+        assertEquals("product-1", first);
+        assertEquals("product-2", second);
+        assertEquals(2.0, meterRegistry.get("coalescer.calls").tag("outcome", "executed").counter().count());
+    }
+
+    @Test
+    public void execute_afterCompletion_shouldRunActionAgain() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        requestCoalescer.execute("getProductById", 1L, executions::incrementAndGet);
+        requestCoalescer.execute("getProductById", 1L, executions::incrementAndGet);
+
+        // Assert
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void execute_whenSharedCallFails_shouldRethrowToEveryCaller() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("getProductById", 999L, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new ResourceNotFoundException("Product", "id", 999L);
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("getProductById", 999L, () -> "unexpected"));
+        waitForCoalescedCalls(1);
+        release.countDown();
+
+        // Assert
+        ExecutionException firstFailure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException secondFailure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ResourceNotFoundException.class, firstFailure.getCause());
+        assertInstanceOf(ResourceNotFoundException.class, secondFailure.getCause());
+    }
+
+    @Test
+    public void execute_whenSharedCallHitsDeadline_shouldRunFollowerActionItself() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("getProductById", 1L, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new DeadlineExceededException("Deadline exceeded before product-read");
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("getProductById", 1L, () -> "product-1"));
+        waitForCoalescedCalls(1);
+        release.countDown();
+
+        // Assert
+        ExecutionException firstFailure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, firstFailure.getCause());
+        assertEquals("product-1", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void execute_whenSharedCallHitsOpenCircuit_shouldRunFollowerActionItself() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("getProductById", 1L, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new CircuitOpenException("Circuit open", Duration.ofSeconds(1));
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("getProductById", 1L, () -> "product-1"));
+        waitForCoalescedCalls(1);
+        release.countDown();
+
+        // Assert
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertEquals("product-1", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void execute_withCopy_shouldGiveEachCallerItsOwnResult() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<String>> first = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("searchProducts", "term", () -> {
+                    started.countDown();
+                    await(release);
+                    return new ArrayList<>(List.of("product-1"));
+                }, ArrayList::new));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<List<String>> second = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("searchProducts", "term", () -> List.of("other"), ArrayList::new));
+        waitForCoalescedCalls(1);
+        release.countDown();
+        List<String> firstResult = first.get(5, TimeUnit.SECONDS);
+        firstResult.add("changed-by-leader");
+
+        // Assert
+        assertEquals(List.of("product-1"), second.get(5, TimeUnit.SECONDS));
+    }
+
+    private void waitForCoalescedCalls(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.find("coalescer.calls").tag("outcome", "coalesced").counter() == null
+                || meterRegistry.get("coalescer.calls").tag("outcome", "coalesced").counter().count() < expected) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for coalesced calls");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.service.ResponseCache.Dependencies;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        responseCache = new ResponseCache(meterRegistry, 2, Duration.ofMinutes(1), Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void get_afterPut_shouldReturnStoredResponse() {
+        // Arrange
+        byte[] body = "x".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        responseCache.put("/api/categories */*", responseCache.currentVersion(), Dependencies.categories(),
+                "application/json", "\"abc\"", body);
+
+        // Act
+        ResponseCache.CachedResponse cached = responseCache.get("/api/categories */*");
+
+        // Assert
+        assertNotNull(cached);
+        assertArrayEquals(body, cached.body());
+        assertTrue(cached.gzipBody().length < body.length);
+        assertEquals(1.0, meterRegistry.get("response.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void onCatalogChange_shouldInvalidateStoredResponses() {
+        // Arrange
+        responseCache.put("/api/categories */*", responseCache.currentVersion(), Dependencies.categories(),
+                "application/json", null, new byte[10]);
+
+        // Act
+        responseCache.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.CATEGORY_UPDATED, 1L));
+
+        // Assert
+        assertNull(responseCache.get("/api/categories */*"));
+    }
+
+    @Test
+    public void onCatalogChange_withStockUpdate_shouldNotInvalidateCategories() {
+        // Arrange
+        responseCache.put("/api/categories */*", responseCache.currentVersion(), Dependencies.categories(),
+                "application/json", null, new byte[10]);
+
+        // Act
+        responseCache.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+
+        // Assert
+        assertNotNull(responseCache.get("/api/categories */*"));
+    }
+
+    @Test
+    public void onCatalogChange_withStockUpdate_shouldOnlyInvalidateResponsesHoldingTheProduct() {
+        // Arrange
+        responseCache.put("/api/products?page=0 */*", responseCache.currentVersion(), page(1L, 2L),
+                "application/json", null, new byte[10]);
+        responseCache.put("/api/products?page=1 */*", responseCache.currentVersion(), page(3L, 4L),
+                "application/json", null, new byte[10]);
+
+        // Act
+        responseCache.onRemoteCatalogChange(
+                new RemoteCatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 3L, "node-2"));
+
+        // Assert
+        assertNotNull(responseCache.get("/api/products?page=0 */*"));
+        assertNull(responseCache.get("/api/products?page=1 */*"));
+    }
+
+    @Test
+    public void onCatalogChange_withStockUpdate_shouldInvalidateListsSortedByStock() {
+        // Arrange
+        responseCache.put("/api/products?sort=quantity */*", responseCache.currentVersion(),
+                Dependencies.products(List.of(1L, 2L), true, true), "application/json", null, new byte[10]);
+
+        // Act
+        responseCache.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 3L));
+
+        // Assert
+        assertNull(responseCache.get("/api/products?sort=quantity */*"));
+    }
+
+    @Test
+    public void onCatalogChange_withNewProduct_shouldInvalidateListsButNotOtherProducts() {
+        // Arrange
+        responseCache.put("/api/products */*", responseCache.currentVersion(), page(1L, 2L),
+                "application/json", null, new byte[10]);
+        responseCache.put("/api/products/1 */*", responseCache.currentVersion(), product(1L),
+                "application/json", null, new byte[10]);
+
+        // Act
+        responseCache.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.PRODUCT_CREATED, 5L));
+
+        // Assert
+        assertNull(responseCache.get("/api/products */*"));
+        assertNotNull(responseCache.get("/api/products/1 */*"));
+    }
+
+    @Test
+    public void onCatalogChange_withReset_shouldInvalidateAllResponses() {
+        // Arrange
+        responseCache.put("/api/products/1 */*", responseCache.currentVersion(), product(1L),
+                "application/json", null, new byte[10]);
+
+        // Act
+        responseCache.onCatalogChange(CatalogChangeEvent.reset());
+
+        // Assert
+        assertNull(responseCache.get("/api/products/1 */*"));
+    }
+
+    @Test
+    public void getStale_afterCatalogChange_shouldReturnLastStoredResponse() {
+        // Arrange
+        byte[] body = new byte[10];
+        responseCache.put("/api/products/1 */*", responseCache.currentVersion(), product(1L), "application/json", null, body);
+        responseCache.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+
+        // Act
+        ResponseCache.CachedResponse fresh = responseCache.get("/api/products/1 */*");
+        ResponseCache.CachedResponse stale = responseCache.getStale("/api/products/1 */*");
+
+        // Assert
+        assertNull(fresh);
+        assertNotNull(stale);
+        assertArrayEquals(body, stale.body());
+        assertEquals(1.0, meterRegistry.get("response.cache.requests").tag("result", "stale").counter().count());
+    }
+
+    @Test
+    public void getStale_withoutStaleIfError_shouldReturnNothingAfterCatalogChange() {
+        // Arrange
+        ResponseCache withoutStale = new ResponseCache(meterRegistry, 2, Duration.ofMinutes(1), Duration.ZERO);
+        withoutStale.put("/api/products/1 */*", withoutStale.currentVersion(), product(1L), "application/json", null,
+                new byte[10]);
+
+        // Act
+        withoutStale.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+
+        // Assert
+        assertNull(withoutStale.getStale("/api/products/1 */*"));
+    }
+
+    @Test
+    public void put_withVersionReadBeforeChange_shouldNotStoreResponse() {
+        // Arrange
+        long version = responseCache.currentVersion();
+        responseCache.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+
+        // Act
+        responseCache.put("/api/products */*", version, page(1L, 2L), "application/json", null, new byte[10]);
+
+        // Assert
+        assertNull(responseCache.get("/api/products */*"));
+    }
+
+    @Test
+    public void put_beyondMaxEntries_shouldEvictLeastRecentlyUsed() {
+        // Arrange
+        long version = responseCache.currentVersion();
+        responseCache.put("a", version, Dependencies.ALL, "application/json", null, new byte[1]);
+        responseCache.put("b", version, Dependencies.ALL, "application/json", null, new byte[1]);
+        responseCache.get("a");
+
+        // Act
+        responseCache.put("c", version, Dependencies.ALL, "application/json", null, new byte[1]);
+
+        // Assert
+        assertNotNull(responseCache.get("a"));
+        assertNull(responseCache.get("b"));
+        assertNotNull(responseCache.get("c"));
+    }
+
+    private static Dependencies product(Long id) {
+        return Dependencies.products(List.of(id), false, false);
+    }
+
+    private static Dependencies page(Long... ids) {
+        return Dependencies.products(List.of(ids), true, false);
+    }
+}
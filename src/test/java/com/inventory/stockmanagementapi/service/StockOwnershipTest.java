@@ -0,0 +1,126 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.exception.BusinessException;
+import com.inventory.stockmanagementapi.exception.PreconditionFailedException;
+import com.inventory.stockmanagementapi.exception.TooManyRequestsException;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StockOwnershipTest {
+
+    private static final String SELF = "http://localhost:1";
+    private static final String SECRET = "s3cret";
+
+    private HttpServer owner;
+    private StockOwnership stockOwnership;
+    private StockUpdateDTO stockUpdateDTO;
+
+    private final AtomicReference<String> presentedSecret = new AtomicReference<>();
+    private volatile int ownerStatus;
+    private volatile String ownerRetryAfter;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        owner.createContext(StockOwnership.INTERNAL_STOCK_PATH, exchange -> {
+            presentedSecret.set(exchange.getRequestHeaders().getFirst(StockOwnership.INTERNAL_SECRET_HEADER));
+            if (ownerRetryAfter != null) {
+                exchange.getResponseHeaders().add("Retry-After", ownerRetryAfter);
+            }
+            byte[] body = "{\"message\":\"refused by the owner\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(ownerStatus, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        owner.start();
+        String ownerUrl = "http://localhost:" + owner.getAddress().getPort();
+        stockOwnership = new StockOwnership(new ObjectMapper(), new SimpleMeterRegistry(), List.of(SELF, ownerUrl),
+                SELF, SECRET, 128, 3, Duration.ofSeconds(2));
+
+        long productId = LongStream.range(1, 1000).filter(id -> stockOwnership.ownerOf(id).equals(ownerUrl))
+                .findFirst().orElseThrow();
+        stockUpdateDTO = new StockUpdateDTO(productId, 5, StockUpdateDTO.OperationType.ADD, null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        owner.stop(0);
+    }
+
+    @Test
+    public void constructor_withNodesAndNoSecret_shouldFail() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new StockOwnership(new ObjectMapper(),
+                new SimpleMeterRegistry(), List.of(SELF, "http://localhost:2"), SELF, "", 128, 3, Duration.ofSeconds(2)));
+    }
+
+    @Test
+    public void isTrusted_shouldOnlyAcceptTheSharedSecret() {
+        // Act & Assert
+        assertTrue(stockOwnership.isTrusted(SECRET));
+        assertFalse(stockOwnership.isTrusted("other"));
+        assertFalse(stockOwnership.isTrusted(null));
+    }
+
+    @Test
+    public void isTrusted_withoutSecret_shouldRefuseEveryCall() {
+        // Arrange
+        StockOwnership standalone = new StockOwnership(new ObjectMapper(), new SimpleMeterRegistry(), List.of(), "",
+                "", 128, 3, Duration.ofSeconds(2));
+
+        // Act & Assert
+        assertFalse(standalone.isTrusted(""));
+        assertFalse(standalone.isTrusted(null));
+    }
+
+    @Test
+    public void forward_shouldPresentTheSecretToTheOwner() {
+        // Arrange
+        ownerStatus = 412;
+
+        // Act
+        assertThrows(PreconditionFailedException.class, () -> stockOwnership.forward(null, stockUpdateDTO));
+
+        // Assert
+        assertEquals(SECRET, presentedSecret.get());
+    }
+
+    @Test
+    public void forward_whenOwnerRefusesOverQuota_shouldKeepItsRetryAfter() {
+        // Arrange
+        ownerStatus = 429;
+        ownerRetryAfter = "7";
+
+        // Act
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> stockOwnership.forward(null, stockUpdateDTO));
+
+        // Assert
+        assertEquals(Duration.ofSeconds(7), ex.getRetryAfter());
+        assertEquals("refused by the owner", ex.getMessage());
+    }
+
+    @Test
+    public void forward_whenOwnerCannotProcessTheUpdate_shouldReportABusinessError() {
+        // Arrange
+        ownerStatus = 422;
+
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> stockOwnership.forward(null, stockUpdateDTO));
+    }
+}
@@ -0,0 +1,144 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.dto.StockTickDTO;
+import com.inventory.stockmanagementapi.repository.ProductRepository;
+import com.inventory.stockmanagementapi.repository.projection.ProductStockView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockTickerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private StockTicker stockTicker;
+
+    @BeforeEach
+    public void setup() {
+        // The window is long enough for the tests to flush by hand
+        stockTicker = new StockTicker(productRepository, new SimpleMeterRegistry(), Duration.ofHours(1), 100, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stockTicker.stop();
+    }
+
+    @Test
+    public void flush_afterBurstOfMovements_shouldSendSingleTick() throws Exception {
+        // Arrange
+        BlockingQueue<List<StockTickDTO>> sent = new LinkedBlockingQueue<>();
+        when(productRepository.findStockByIdIn(anyCollection())).thenReturn(List.of(stock(1L, 10, 1L)));
+        StockTicker.Subscription subscription = stockTicker.open(sent::add);
+        subscription.subscribe(List.of(1L), null);
+        assertEquals(10, sent.poll(5, TimeUnit.SECONDS).get(0).getQuantity());
+        when(productRepository.findStockByIdIn(anyCollection())).thenReturn(List.of(stock(1L, 510, 501L)));
+
+        // Act
+        for (int i = 0; i < 500; i++) {
+            stockTicker.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+        }
+        stockTicker.flush();
+
+        // Assert
+        List<StockTickDTO> ticks = sent.poll(5, TimeUnit.SECONDS);
+        assertEquals(1, ticks.size());
+        assertEquals(510, ticks.get(0).getQuantity());
+        verify(productRepository, times(2)).findStockByIdIn(anyCollection());
+    }
+
+    @Test
+    public void flush_withSlowConsumer_shouldOnlySendLatestValue() throws Exception {
+        // Arrange
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<List<StockTickDTO>> sent = new LinkedBlockingQueue<>();
+        StockTicker.Subscription subscription = stockTicker.open(ticks -> {
+            firstSendStarted.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(ticks);
+        });
+        when(productRepository.findStockByIdIn(anyCollection())).thenReturn(List.of(stock(1L, 10, 1L)));
+        subscription.subscribe(List.of(1L), null);
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        // Act
+        for (int quantity = 11; quantity <= 15; quantity++) {
+            when(productRepository.findStockByIdIn(anyCollection()))
+                    .thenReturn(List.of(stock(1L, quantity, (long) quantity)));
+            stockTicker.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 1L));
+            stockTicker.flush();
+        }
+        release.countDown();
+
+        // Assert
+        assertEquals(10, sent.poll(5, TimeUnit.SECONDS).get(0).getQuantity());
+        List<StockTickDTO> latest = sent.poll(5, TimeUnit.SECONDS);
+        assertEquals(1, latest.size());
+        assertEquals(15, latest.get(0).getQuantity());
+        assertNull(sent.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void flush_withUnwatchedProduct_shouldNotQueryDatabase() {
+        // Arrange
+        stockTicker.open(ticks -> fail("No tick expected"));
+
+        // Act
+        stockTicker.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Type.STOCK_UPDATED, 42L));
+        stockTicker.flush();
+
+        // Assert
+        verify(productRepository, never()).findStockByIdIn(anyCollection());
+    }
+
+    private static ProductStockView stock(Long id, Integer quantity, Long version) {
+        return new ProductStockView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getSku() {
+                return "SKU-" + id;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return 1L;
+            }
+        };
+    }
+}
@@ -0,0 +1,159 @@
+package com.inventory.stockmanagementapi.service;
+
+import com.inventory.stockmanagementapi.dto.ProductDTO;
+import com.inventory.stockmanagementapi.dto.StockUpdateDTO;
+import com.inventory.stockmanagementapi.exception.CircuitOpenException;
+import com.inventory.stockmanagementapi.exception.DeadlineExceededException;
+import com.inventory.stockmanagementapi.repository.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockUpdateBatcherTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private StockOwnership stockOwnership;
+
+    @Mock
+    private ObjectProvider<ShardRouter> shardRouter;
+
+    private StockUpdateBatcher stockUpdateBatcher;
+
+    private StockUpdateDTO stockUpdateDTO;
+    private ProductDTO productDTO;
+
+    @BeforeEach
+    public void setup() {
+        when(stockOwnership.isEnabled()).thenReturn(true);
+        stockUpdateBatcher = new StockUpdateBatcher(productService, stockOwnership, shardRouter,
+                new SimpleMeterRegistry(), 200);
+        stockUpdateBatcher.start();
+
+        stockUpdateDTO = new StockUpdateDTO(1L, 5, StockUpdateDTO.OperationType.ADD, null);
+        productDTO = new ProductDTO();
+        productDTO.setId(1L);
+        productDTO.setQuantity(15);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stockUpdateBatcher.stop();
+        Deadline.clear();
+    }
+
+    @Test
+    public void updateStock_withVersionConflict_shouldWriteUpdatesOneByOne() {
+        // Arrange
+        when(productService.updateStockBatch(anyList()))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Product", 1L));
+        when(productService.updateStock(stockUpdateDTO)).thenReturn(productDTO);
+
+        // Act
+        ProductDTO result = stockUpdateBatcher.updateStock(stockUpdateDTO);
+
+        // Assert
+        assertEquals(15, result.getQuantity());
+        verify(productService).updateStock(stockUpdateDTO);
+    }
+
+    @Test
+    public void updateStock_withOpenCircuit_shouldNotRetryUpdatesOneByOne() {
+        // Arrange
+        when(productService.updateStockBatch(anyList()))
+                .thenThrow(new CircuitOpenException("Database unavailable", Duration.ofSeconds(5)));
+
+        // Act & Assert
+        assertThrows(CircuitOpenException.class, () -> stockUpdateBatcher.updateStock(stockUpdateDTO));
+        verify(productService, never()).updateStock(any());
+    }
+
+    @Test
+    public void updateStock_afterDeadline_shouldFailWithoutWritingTheUpdate() {
+        // Arrange
+        Deadline.bind(Deadline.after(Duration.ZERO));
+
+        // Act & Assert
+        assertThrows(DeadlineExceededException.class, () -> stockUpdateBatcher.updateStock(stockUpdateDTO));
+        verify(productService, after(200).never()).updateStockBatch(anyList());
+    }
+
+    @Test
+    public void updateStock_withinDeadline_shouldWriteTheBatchUnderThatDeadline() {
+        // Arrange
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+        Deadline.bind(deadline);
+        AtomicReference<Deadline> batchDeadline = new AtomicReference<>();
+        when(productService.updateStockBatch(anyList())).thenAnswer(invocation -> {
+            batchDeadline.set(Deadline.current());
+            return List.of(new ProductService.StockUpdateOutcome(productDTO, null));
+        });
+
+        // Act
+        ProductDTO result = stockUpdateBatcher.updateStock(stockUpdateDTO);
+
+        // Assert
+        assertEquals(15, result.getQuantity());
+        assertSame(deadline, batchDeadline.get());
+    }
+
+    @Test
+    public void updateStock_withDeadlineExpiringDuringItsBatch_shouldReturnTheCommittedUpdate() {
+        // Arrange
+        Deadline.bind(Deadline.after(Duration.ofMillis(100)));
+        when(productService.updateStockBatch(anyList())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return List.of(new ProductService.StockUpdateOutcome(productDTO, null));
+        });
+
+        // Act
+        ProductDTO result = stockUpdateBatcher.updateStock(stockUpdateDTO);
+
+        // Assert
+        assertEquals(15, result.getQuantity());
+    }
+
+    @Test
+    public void updateStock_withDeadlineExpiringWhileQueued_shouldFailWithoutWritingTheUpdate() throws Exception {
+        // Arrange
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StockUpdateDTO first = new StockUpdateDTO(2L, 1, StockUpdateDTO.OperationType.ADD, null);
+        when(productService.updateStockBatch(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return List.of(new ProductService.StockUpdateOutcome(productDTO, null));
+        });
+        CompletableFuture<ProductDTO> firstResult = CompletableFuture.supplyAsync(
+                () -> stockUpdateBatcher.updateStock(first));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        Deadline.bind(Deadline.after(Duration.ofMillis(100)));
+
+        // Act & Assert
+        assertThrows(DeadlineExceededException.class, () -> stockUpdateBatcher.updateStock(stockUpdateDTO));
+        release.countDown();
+        firstResult.get(5, TimeUnit.SECONDS);
+        verify(productService, after(200).times(1)).updateStockBatch(anyList());
+    }
+}